@@ -15,6 +15,10 @@ public record ClientRegistrationRequest(
         @Schema(description = "授权回调地址列表，OAuth2 授权完成后用户将被重定向到此地址。必须与实际地址完全匹配", example = "[\"http://localhost:3000/callback\", \"https://myapp.com/oauth/callback\"]", requiredMode = Schema.RequiredMode.REQUIRED)
         @NotEmpty List<String> redirectUris,
         @Schema(description = "请求的权限范围列表，如 openid、profile、email 等", example = "[\"openid\", \"profile\", \"email\"]")
-        List<String> scopes
+        List<String> scopes,
+        @Schema(description = "client_credentials 授权是否无状态：签发短时效 JWT 访问令牌且不持久化授权记录，吊销依赖 jti 黑名单与客户端吊销纪元。适用于服务间调用，默认 false", example = "false")
+        Boolean statelessClientCredentials,
+        @Schema(description = "client_credentials 授权是否复用令牌：相同授权范围的请求在令牌进入过期前的刷新窗口之前返回同一个访问令牌，默认 false", example = "false")
+        Boolean reuseClientCredentialsToken
 ) {
 }
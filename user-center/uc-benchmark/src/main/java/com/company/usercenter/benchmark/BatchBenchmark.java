@@ -0,0 +1,83 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.EphemeralEntry;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量接口与逐键接口对比：同一组键先写后读，逐键每次调用一个往返，批量整组一个往返。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Param({"redis-stub", "in-memory"})
+    public String backend;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private StoreFixtures fixtures;
+    private EphemeralKeyValueStore store;
+    private List<String> keys;
+    private List<EphemeralEntry> entries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new StoreFixtures();
+        store = fixtures.create(backend, batchSize);
+        keys = new ArrayList<>(batchSize);
+        entries = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String key = "blacklist:jti-" + i;
+            keys.add(key);
+            entries.add(new EphemeralEntry(key, "1", TTL));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public void singleKey(Blackhole blackhole) {
+        for (EphemeralEntry entry : entries) {
+            store.put(entry.key(), entry.value(), entry.ttl());
+        }
+        for (String key : keys) {
+            blackhole.consume(store.get(key));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> batch() {
+        store.multiPut(entries);
+        return store.multiGet(keys);
+    }
+}
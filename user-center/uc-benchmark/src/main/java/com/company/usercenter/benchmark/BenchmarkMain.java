@@ -0,0 +1,50 @@
+package com.company.usercenter.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准入口：接受全部 JMH 命令行参数，并按线程数依次运行所选基准，结果合并写入一个 JSON 文件，
+ * 便于不同构建之间对比回归。
+ * <ul>
+ *     <li>{@code -Dbench.threads=1,4,16,64}：线程数列表（默认值）；命令行显式给出 {@code -t} 时只按该值运行一次；</li>
+ *     <li>{@code -Dbench.result=jmh-result.json}：结果文件路径。</li>
+ * </ul>
+ * 示例：{@code java -Dbench.threads=1,64 -jar target/benchmarks.jar StoreOperationsBenchmark}
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+                || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        List<Integer> threadCounts = new ArrayList<>();
+        if (options.getThreads().hasValue()) {
+            threadCounts.add(options.getThreads().get());
+        } else {
+            for (String value : System.getProperty("bench.threads", "1,4,16,64").split(",")) {
+                threadCounts.add(Integer.parseInt(value.trim()));
+            }
+        }
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            results.addAll(new Runner(new OptionsBuilder().parent(options).threads(threads).build()).run());
+        }
+        String resultFile = System.getProperty("bench.result", "jmh-result.json");
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+        System.out.println("JMH 结果已写入 " + resultFile);
+    }
+}
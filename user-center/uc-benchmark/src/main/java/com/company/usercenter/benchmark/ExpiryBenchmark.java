@@ -0,0 +1,76 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过期密集负载：写入毫秒级 TTL 的键并读取大多已过期的键，衡量后台时间轮清理与读取时过期的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpiryBenchmark {
+
+    @Param({"in-memory", "bounded", "segmented", "resilient-open"})
+    public String backend;
+
+    @Param({"1", "50"})
+    public int ttlMillis;
+
+    @Param({"1000000"})
+    public int keySpace;
+
+    private StoreFixtures fixtures;
+    private EphemeralKeyValueStore store;
+    private Duration ttl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new StoreFixtures();
+        store = fixtures.create(backend, keySpace);
+        ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public void putShortLived() {
+        store.put(randomKey(), "1", ttl);
+    }
+
+    /**
+     * 一次写入加一次随机读取，读取的键大多已过期或不存在。
+     */
+    @Benchmark
+    public Optional<String> putThenReadExpiring() {
+        store.put(randomKey(), "1", ttl);
+        return store.get(randomKey());
+    }
+
+    private String randomKey() {
+        return "state:oauth:" + ThreadLocalRandom.current().nextInt(keySpace);
+    }
+}
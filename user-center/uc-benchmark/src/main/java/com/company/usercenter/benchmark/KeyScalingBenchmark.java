@@ -0,0 +1,78 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 键数量扩展：预先写入 1 万至 1000 万个键，衡量读写延迟随存活键数的变化。
+ * 1000 万键约需数 GB 堆，fork 进程使用 8G 堆。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class KeyScalingBenchmark {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @Param({"in-memory", "bounded", "segmented"})
+    public String backend;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int keyCount;
+
+    private StoreFixtures fixtures;
+    private EphemeralKeyValueStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new StoreFixtures();
+        store = fixtures.create(backend, keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            store.put(key(i), "1", TTL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public Optional<String> getExisting() {
+        return store.get(key(ThreadLocalRandom.current().nextInt(keyCount)));
+    }
+
+    @Benchmark
+    public Optional<String> getMissing() {
+        return store.get("blacklist:missing-" + ThreadLocalRandom.current().nextInt(keyCount));
+    }
+
+    @Benchmark
+    public void overwrite() {
+        store.put(key(ThreadLocalRandom.current().nextInt(keyCount)), "1", TTL);
+    }
+
+    private static String key(int index) {
+        return "blacklist:token-" + index;
+    }
+}
@@ -0,0 +1,96 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.auth.RevokedTokenValidator;
+import com.company.usercenter.identity.service.RevocationCache;
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.service.SessionBlacklistService;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token 校验路径上的吊销检查延迟，目标 p99 &lt; 50µs；不接黑名单过滤器，每次校验都经过吊销缓存。
+ * <ul>
+ *     <li>{@code hit}：条目均在新鲜期内；</li>
+ *     <li>{@code stale}：新鲜期为 1ns，每次读取都返回旧值并触发（去重后的）后台刷新。</li>
+ * </ul>
+ * 示例：{@code java -jar target/benchmarks.jar RevokedTokenValidatorBenchmark -t 1}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevokedTokenValidatorBenchmark {
+
+    @Param({"hit", "stale"})
+    public String path;
+
+    @Param({"10000"})
+    public int tokenCount;
+
+    private InMemoryKeyValueStore store;
+    private RevocationCache cache;
+    private RevokedTokenValidator validator;
+    private Jwt[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new InMemoryKeyValueStore();
+        Duration ttl = "hit".equals(path) ? Duration.ofHours(1) : Duration.ofNanos(1);
+        cache = new RevocationCache(store, InvalidationBus.NOOP, ttl, Duration.ofHours(1), tokenCount * 8);
+        RevocationEpochService epochService = new RevocationEpochService(store, Duration.ofDays(1),
+                Optional.of(cache));
+        validator = new RevokedTokenValidator(new SessionBlacklistService(store, Optional.empty(),
+                Optional.of(cache)), epochService);
+        Instant issuedAt = Instant.now().plusSeconds(60);
+        epochService.revokeClient("client-0");
+        tokens = new Jwt[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            tokens[i] = Jwt.withTokenValue("token-" + i)
+                    .header("alg", "RS256")
+                    .jti("jti-" + i)
+                    .subject("user-" + i)
+                    .audience(List.of("client-" + (i % 16)))
+                    .issuedAt(issuedAt)
+                    .expiresAt(issuedAt.plusSeconds(300))
+                    .build();
+            if (validator.validate(tokens[i]).hasErrors()) {
+                throw new IllegalStateException("预热的 token 不应被拒绝");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        store.close();
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult validate() {
+        return validator.validate(tokens[ThreadLocalRandom.current().nextInt(tokenCount)]);
+    }
+}
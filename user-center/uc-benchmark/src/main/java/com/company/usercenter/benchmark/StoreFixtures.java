@@ -0,0 +1,106 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.BoundedKeyValueStore;
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.ResilientKeyValueStore;
+import com.company.usercenter.identity.store.SegmentedKeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 按名称构建被测存储，统一管理关闭：
+ * <ul>
+ *     <li>{@code in-memory}：{@link InMemoryKeyValueStore}；</li>
+ *     <li>{@code bounded}：{@link BoundedKeyValueStore}，容量足够容纳全部键；</li>
+ *     <li>{@code segmented}：{@link SegmentedKeyValueStore}，分段锁开放寻址表；</li>
+ *     <li>{@code resilient-healthy}：主存为模拟 Redis、熔断器关闭；</li>
+ *     <li>{@code resilient-open}：主存始终失败、熔断器已打开，全部请求走内存备用存储；</li>
+ *     <li>{@code redis-stub}：单独的模拟 Redis，用作往返时延基线。</li>
+ * </ul>
+ */
+final class StoreFixtures implements AutoCloseable {
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    EphemeralKeyValueStore create(String backend, int keyCount) {
+        return switch (backend) {
+            case "in-memory" -> track(new InMemoryKeyValueStore());
+            case "bounded" -> track(BoundedKeyValueStore.withDefaultQuotas(16,
+                    Math.max(1_000, keyCount * 4), Long.MAX_VALUE / 4));
+            case "segmented" -> track(new SegmentedKeyValueStore(Math.max(1_000, keyCount * 4)));
+            case "resilient-healthy" -> new ResilientKeyValueStore(track(new StubRedisStore()),
+                    track(new InMemoryKeyValueStore()));
+            case "resilient-open" -> openBreakerStore();
+            case "redis-stub" -> track(new StubRedisStore());
+            default -> throw new IllegalArgumentException("未知的存储类型: " + backend);
+        };
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        closeables.clear();
+    }
+
+    private ResilientKeyValueStore openBreakerStore() {
+        CircuitBreaker breaker = new CircuitBreaker("benchmark",
+                new CircuitBreaker.Settings(50, 80, Duration.ofSeconds(1), 10, 5, Duration.ofHours(1)));
+        ResilientKeyValueStore store = new ResilientKeyValueStore(new UnavailableStore(),
+                track(new InMemoryKeyValueStore()), breaker);
+        for (int i = 0; i < 10 && breaker.state() != CircuitBreaker.State.OPEN; i++) {
+            store.get("warmup:" + i);
+        }
+        if (breaker.state() != CircuitBreaker.State.OPEN) {
+            throw new IllegalStateException("熔断器未能打开");
+        }
+        return store;
+    }
+
+    private <T extends AutoCloseable> T track(T closeable) {
+        closeables.add(closeable);
+        return closeable;
+    }
+
+    /**
+     * 始终不可用的主存。
+     */
+    private static final class UnavailableStore implements EphemeralKeyValueStore {
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            throw new IllegalStateException("redis unavailable");
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            throw new IllegalStateException("redis unavailable");
+        }
+
+        @Override
+        public void delete(String key) {
+            throw new IllegalStateException("redis unavailable");
+        }
+
+        @Override
+        public Optional<String> getAndDelete(String key) {
+            throw new IllegalStateException("redis unavailable");
+        }
+
+        @Override
+        public boolean consumeIfMatches(String key, String expected) {
+            throw new IllegalStateException("redis unavailable");
+        }
+
+        @Override
+        public long incrementAndGet(String key, Duration ttl) {
+            throw new IllegalStateException("redis unavailable");
+        }
+    }
+}
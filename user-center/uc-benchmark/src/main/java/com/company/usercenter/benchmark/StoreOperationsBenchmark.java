@@ -0,0 +1,96 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写与验证码消费混合负载：键预先写入，线程随机访问；线程数由 {@link BenchmarkMain} 在 1–64 之间扫描。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreOperationsBenchmark {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Param({"in-memory", "bounded", "segmented", "resilient-healthy", "resilient-open", "redis-stub"})
+    public String backend;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    private StoreFixtures fixtures;
+    private EphemeralKeyValueStore store;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new StoreFixtures();
+        store = fixtures.create(backend, keyCount);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "otp:login:user" + i + "@example.com";
+            store.put(keys[i], "123456", TTL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public Optional<String> get() {
+        return store.get(randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        store.put(randomKey(), "123456", TTL);
+    }
+
+    /**
+     * 80% 读取、15% 写入、5% 消费（消费成功后立即重新写入，保持键集合稳定）。
+     */
+    @Benchmark
+    public Object mixed() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        String key = randomKey();
+        if (roll < 80) {
+            return store.get(key);
+        }
+        if (roll < 95) {
+            store.put(key, "123456", TTL);
+            return null;
+        }
+        boolean consumed = store.consumeIfMatches(key, "123456");
+        if (consumed) {
+            store.put(key, "123456", TTL);
+        }
+        return consumed;
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,86 @@
+package com.company.usercenter.benchmark;
+
+import com.company.usercenter.identity.store.EphemeralEntry;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟 Redis 的存储：数据放在内存中，每次调用（批量调用只算一次）额外等待一个网络往返时间。
+ * 用于衡量降级装饰、熔断器等在真实往返时延下的相对开销；往返时间由 {@code -Dbench.redis.rtt-micros} 配置，默认 200µs。
+ */
+final class StubRedisStore implements EphemeralKeyValueStore, AutoCloseable {
+
+    private final InMemoryKeyValueStore data = new InMemoryKeyValueStore();
+    private final long rttNanos = Long.getLong("bench.redis.rtt-micros", 200L) * 1_000L;
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        roundTrip();
+        data.put(key, value, ttl);
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        roundTrip();
+        return data.get(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        roundTrip();
+        data.delete(key);
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        roundTrip();
+        return data.getAndDelete(key);
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        roundTrip();
+        return data.consumeIfMatches(key, expected);
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        roundTrip();
+        return data.incrementAndGet(key, ttl);
+    }
+
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        roundTrip();
+        return data.multiGet(keys);
+    }
+
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        roundTrip();
+        data.multiPut(entries);
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        roundTrip();
+        data.multiDelete(keys);
+    }
+
+    @Override
+    public void close() {
+        data.close();
+    }
+
+    private void roundTrip() {
+        if (rttNanos > 0) {
+            LockSupport.parkNanos(rttNanos);
+        }
+    }
+}
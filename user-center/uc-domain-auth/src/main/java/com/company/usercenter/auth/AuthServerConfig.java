@@ -1,11 +1,18 @@
 package com.company.usercenter.auth;
 
 import com.company.usercenter.identity.IdentityService;
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.service.SessionBlacklistService;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.InvalidationBus;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -18,6 +25,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Token;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationConsentService;
 import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
@@ -25,8 +34,15 @@ import org.springframework.security.oauth2.server.authorization.OAuth2Authorizat
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.client.JdbcRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.DelegatingOAuth2TokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2AccessTokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2RefreshTokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
 
@@ -44,6 +60,7 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.UUID;
 
@@ -82,7 +99,7 @@ public class AuthServerConfig {
     }
 
     /**
-     * 应用安全链（Order 1）：放行 Swagger/静态资源/公共接口，其他需认证。
+     * 应用安全链（Order 1）：放行 Swagger/静态资源/公共接口与健康检查，其他需认证（含其余 actuator 端点）。
      */
     @Bean
     @Order(1)
@@ -94,22 +111,58 @@ public class AuthServerConfig {
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html",
                         "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll()
                 .requestMatchers("/api/identities/register", "/api/identities/otp/**",
-                        "/api/tenants/**", "/actuator/**").permitAll()
+                        "/api/tenants/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
                 .requestMatchers("/login", "/error").permitAll()
                 .anyRequest().authenticated());
         http.formLogin(Customizer.withDefaults());
         return http.build();
     }
 
+    /**
+     * 客户端在令牌、授权与自省端点上被频繁读取，在 JDBC 仓储外加本地缓存；
+     * 跨节点失效通道（registeredClientInvalidationBus）由启动模块提供，未提供时只清理本节点。
+     */
     @Bean
-    public RegisteredClientRepository registeredClientRepository(JdbcTemplate jdbcTemplate) {
-        return new JdbcRegisteredClientRepository(jdbcTemplate);
+    public CachingRegisteredClientRepository registeredClientRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${auth.client-cache.max-entries:10000}") int maxEntries,
+            @Value("${auth.client-cache.ttl:5m}") Duration ttl,
+            @Qualifier("registeredClientInvalidationBus") ObjectProvider<InvalidationBus> invalidationBus) {
+        return new CachingRegisteredClientRepository(new JdbcRegisteredClientRepository(jdbcTemplate), maxEntries, ttl,
+                invalidationBus.getIfAvailable(() -> InvalidationBus.NOOP));
     }
 
+    /**
+     * 开启无状态 client_credentials 的客户端，其授权不写入存储，见 {@link StatelessClientCredentialsAuthorizationService}。
+     */
     @Bean
+    @ConditionalOnProperty(name = "auth.authorization-store.type", havingValue = "jdbc", matchIfMissing = true)
     public OAuth2AuthorizationService authorizationService(JdbcTemplate jdbcTemplate,
-                                                           RegisteredClientRepository registeredClientRepository) {
-        return new JdbcOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository);
+                                                           RegisteredClientRepository registeredClientRepository,
+                                                           ClientCredentialsTokenCache tokenCache) {
+        StatelessClientCredentialsAuthorizationService service = new StatelessClientCredentialsAuthorizationService(
+                new JdbcOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository), registeredClientRepository);
+        service.setTokenCache(tokenCache);
+        return service;
+    }
+
+    /**
+     * 授权状态存入短期存储（Redis 或内存），不再写 oauth2_authorization 表；授权随令牌过期自动清理。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.authorization-store.type", havingValue = "ephemeral")
+    public OAuth2AuthorizationService ephemeralAuthorizationService(
+            EphemeralKeyValueStore store,
+            RegisteredClientRepository registeredClientRepository,
+            @Value("${auth.authorization-store.pending-ttl:10m}") Duration pendingTtl,
+            @Value("${auth.authorization-store.max-ttl:30d}") Duration maxTtl,
+            ClientCredentialsTokenCache tokenCache) {
+        StatelessClientCredentialsAuthorizationService service = new StatelessClientCredentialsAuthorizationService(
+                new EphemeralOAuth2AuthorizationService(store, registeredClientRepository, pendingTtl, maxTtl),
+                registeredClientRepository);
+        service.setTokenCache(tokenCache);
+        return service;
     }
 
     @Bean
@@ -126,8 +179,39 @@ public class AuthServerConfig {
     }
 
     @Bean
-    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource) {
-        return NimbusJwtDecoder.withJwkSource(jwkSource).build();
+    public RevokedTokenValidator revokedTokenValidator(SessionBlacklistService sessionBlacklistService,
+                                                       RevocationEpochService revocationEpochService) {
+        return new RevokedTokenValidator(sessionBlacklistService, revocationEpochService);
+    }
+
+    /**
+     * 与授权服务器默认的令牌生成器相同（JWT、不透明访问令牌、刷新令牌），外加按客户端开启的 client_credentials 令牌复用，
+     * 以及刷新授权的吊销纪元检查。
+     */
+    @Bean
+    public ClientCredentialsTokenCache tokenGenerator(
+            JWKSource<SecurityContext> jwkSource,
+            RevokedTokenValidator revokedTokenValidator,
+            RevocationEpochService revocationEpochService,
+            @Value("${auth.token-reuse.refresh-window:5m}") Duration refreshWindow,
+            @Value("${auth.token-reuse.max-entries:10000}") int maxEntries) {
+        OAuth2TokenGenerator<OAuth2Token> generator = new DelegatingOAuth2TokenGenerator(
+                new JwtGenerator(new NimbusJwtEncoder(jwkSource)),
+                new OAuth2AccessTokenGenerator(),
+                new OAuth2RefreshTokenGenerator());
+        return new ClientCredentialsTokenCache(new RevocationAwareTokenGenerator(generator, revocationEpochService),
+                revokedTokenValidator, refreshWindow, maxEntries);
+    }
+
+    /**
+     * 签名校验通过后，在默认的时间戳校验之外检查吊销状态。
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource, RevokedTokenValidator revokedTokenValidator) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSource(jwkSource).build();
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefault(),
+                revokedTokenValidator));
+        return decoder;
     }
 
     @Bean
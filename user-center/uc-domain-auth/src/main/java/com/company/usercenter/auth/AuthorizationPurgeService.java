@@ -0,0 +1,253 @@
+package com.company.usercenter.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过期授权清理：周期性删除 oauth2_authorization 中所有令牌都已过期的行，防止表与令牌索引无限增长。
+ * <p>
+ * 按 (purge_after, id) 键集分页，每批一个短事务，{@code FOR UPDATE SKIP LOCKED} 跳过正在被刷新或其他节点清理的行，
+ * 多节点同时运行互不阻塞。批次耗时超过目标时批大小减半并暂停同样时长，让出数据库；耗时正常时批大小逐步回升。
+ * <p>
+ * purge_after 由触发器按令牌过期时间写入；尚未签发令牌的授权与迁移前已存在的行为空，删除前先按同样方式分批补写，
+ * 没有任何过期时间的行取应用当前时间之后 {@link #UNISSUED_RETENTION}，与 *_expires_at 使用同一时区。
+ */
+public class AuthorizationPurgeService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationPurgeService.class);
+
+    static final String DELETE_BATCH_SQL = """
+            DELETE FROM oauth2_authorization
+            WHERE id IN (
+                SELECT id FROM oauth2_authorization
+                WHERE purge_after < ? AND (purge_after, id) > (?, ?)
+                ORDER BY purge_after, id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING purge_after, id""";
+
+    static final String SCHEDULE_BATCH_SQL = """
+            UPDATE oauth2_authorization
+            SET purge_after = COALESCE(
+                GREATEST(authorization_code_expires_at, access_token_expires_at, oidc_id_token_expires_at,
+                         refresh_token_expires_at, user_code_expires_at, device_code_expires_at),
+                ?)
+            WHERE id IN (
+                SELECT id FROM oauth2_authorization
+                WHERE purge_after IS NULL
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)""";
+
+    static final String OLDEST_SQL = "SELECT MIN(purge_after) FROM oauth2_authorization";
+
+    /**
+     * @param interval           两次清理之间的间隔，为 null 时不自动运行
+     * @param grace              令牌过期后保留的时长，容忍节点间时钟偏差
+     * @param initialBatchSize   初始批大小
+     * @param minBatchSize       批大小下限
+     * @param maxBatchSize       批大小上限
+     * @param targetBatchLatency 单批期望耗时，超过即视为数据库繁忙
+     * @param maxRunTime         单次清理最长运行时间，剩余的行留给下一次
+     */
+    public record Settings(Duration interval,
+                           Duration grace,
+                           int initialBatchSize,
+                           int minBatchSize,
+                           int maxBatchSize,
+                           Duration targetBatchLatency,
+                           Duration maxRunTime) {
+
+        public Settings {
+            if (minBatchSize <= 0 || minBatchSize > initialBatchSize || initialBatchSize > maxBatchSize) {
+                throw new IllegalArgumentException("批大小须满足 0 < min <= initial <= max");
+            }
+            if (grace.isNegative() || targetBatchLatency.isNegative() || targetBatchLatency.isZero()
+                    || maxRunTime.isNegative() || maxRunTime.isZero()) {
+                throw new IllegalArgumentException("清理时长参数不合法");
+            }
+        }
+    }
+
+    private record Cursor(Instant purgeAfter, String id) {
+
+        boolean isAfter(Cursor other) {
+            int order = purgeAfter.compareTo(other.purgeAfter);
+            return order > 0 || (order == 0 && id.compareTo(other.id) > 0);
+        }
+    }
+
+    /**
+     * 没有任何令牌过期时间的授权（如授权码流程中途放弃）自补写起保留的时长。
+     */
+    static final Duration UNISSUED_RETENTION = Duration.ofDays(1);
+
+    private static final Cursor START = new Cursor(Instant.EPOCH, "");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Settings settings;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder purgedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private volatile int batchSize;
+
+    public AuthorizationPurgeService(JdbcTemplate jdbcTemplate, Settings settings) {
+        this(jdbcTemplate, settings, Clock.systemUTC());
+    }
+
+    AuthorizationPurgeService(JdbcTemplate jdbcTemplate, Settings settings, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.clock = clock;
+        this.batchSize = settings.initialBatchSize();
+        if (settings.interval() == null) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oauth2-authorization-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1, settings.interval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::runSafely, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 清理一轮：逐批删除直到没有过期行或达到单次运行时长，返回删除的行数。
+     */
+    public long purge() throws InterruptedException {
+        Instant cutoff = clock.instant().minus(settings.grace());
+        Timestamp cutoffTimestamp = Timestamp.from(cutoff);
+        long deadline = System.nanoTime() + settings.maxRunTime().toNanos();
+        scheduleUnscheduled(deadline);
+        Cursor cursor = START;
+        long purged = 0;
+        while (System.nanoTime() - deadline < 0) {
+            int limit = batchSize;
+            long started = System.nanoTime();
+            List<Cursor> deleted = jdbcTemplate.query(DELETE_BATCH_SQL,
+                    (rs, rowNum) -> new Cursor(rs.getTimestamp(1).toInstant(), rs.getString(2)),
+                    cutoffTimestamp, Timestamp.from(cursor.purgeAfter()), cursor.id(), limit);
+            long elapsedNanos = System.nanoTime() - started;
+            batchCount.increment();
+            purged += deleted.size();
+            purgedCount.add(deleted.size());
+            for (Cursor row : deleted) {
+                if (row.isAfter(cursor)) {
+                    cursor = row;
+                }
+            }
+            if (deleted.size() < limit) {
+                break;
+            }
+            adjustBatchSize(elapsedNanos);
+        }
+        updateLag(cutoff);
+        if (purged > 0) {
+            log.info("已清理过期授权 {} 条，当前批大小 {}", purged, batchSize);
+        }
+        return purged;
+    }
+
+    public long purgedCount() {
+        return purgedCount.sum();
+    }
+
+    public long batchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 因批次耗时超过目标而减小批大小并暂停的次数。
+     */
+    public long throttledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * 最早一条可清理的授权已超过截止时间多久，持续增长说明清理跟不上签发。
+     */
+    public Duration lag() {
+        return Duration.ofMillis(lagMillis.get());
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 分批补写 purge_after 为空的行，直到没有此类行或达到截止时间。
+     */
+    private void scheduleUnscheduled(long deadline) {
+        Timestamp fallback = Timestamp.from(clock.instant().plus(UNISSUED_RETENTION));
+        long scheduled = 0;
+        while (System.nanoTime() - deadline < 0) {
+            int limit = batchSize;
+            int updated = jdbcTemplate.update(SCHEDULE_BATCH_SQL, fallback, limit);
+            scheduled += updated;
+            if (updated < limit) {
+                break;
+            }
+        }
+        if (scheduled > 0) {
+            log.info("已补写授权清理时间 {} 条", scheduled);
+        }
+    }
+
+    private void runSafely() {
+        try {
+            purge();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException ex) {
+            log.warn("过期授权清理失败，下次重试: {}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("过期授权清理异常", ex);
+        }
+    }
+
+    /**
+     * 慢批次：批大小减半并暂停与该批相同的时长；正常批次：批大小增加四分之一。
+     */
+    private void adjustBatchSize(long elapsedNanos) throws InterruptedException {
+        if (elapsedNanos > settings.targetBatchLatency().toNanos()) {
+            batchSize = Math.max(settings.minBatchSize(), batchSize / 2);
+            throttledCount.increment();
+            TimeUnit.NANOSECONDS.sleep(elapsedNanos);
+        } else {
+            batchSize = Math.min(settings.maxBatchSize(), batchSize + Math.max(1, batchSize / 4));
+        }
+    }
+
+    private void updateLag(Instant cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Timestamp.class);
+        if (oldest == null || !oldest.toInstant().isBefore(cutoff)) {
+            lagMillis.set(0);
+        } else {
+            lagMillis.set(Duration.between(oldest.toInstant(), cutoff).toMillis());
+        }
+    }
+}
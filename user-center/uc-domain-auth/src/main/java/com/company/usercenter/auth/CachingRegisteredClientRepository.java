@@ -0,0 +1,142 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.store.BoundedLocalCache;
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 客户端仓储的本地缓存：按 id 与 clientId 缓存解析好的 {@link RegisteredClient}，令牌、授权与自省端点
+ * 在稳定状态下不再查询数据库、不再解析 settings JSON 列。
+ * <p>
+ * 经本仓储保存客户端后立即丢弃本地条目，并经 {@link InvalidationBus} 通知其他节点；
+ * 绕过应用直接修改数据库或通知丢失时，条目最多保留 ttl。未找到的客户端不缓存。
+ * 两种索引以失效通知中的键（{@code id:}、{@code client-id:} 前缀）存放在同一个 {@link BoundedLocalCache} 中。
+ */
+public class CachingRegisteredClientRepository implements RegisteredClientRepository {
+
+    private static final String ID_KEY = "id:";
+    private static final String CLIENT_ID_KEY = "client-id:";
+
+    private record Cached(RegisteredClient client, long expireAtNanos) {
+    }
+
+    private final RegisteredClientRepository delegate;
+    private final long ttlNanos;
+    private final BoundedLocalCache<String, Cached> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * 不接入跨节点失效通道，只清理本节点。
+     */
+    public CachingRegisteredClientRepository(RegisteredClientRepository delegate, int maxEntries, Duration ttl) {
+        this(delegate, maxEntries, ttl, InvalidationBus.NOOP);
+    }
+
+    /**
+     * @param delegate        实际仓储（通常为 JDBC）
+     * @param maxEntries      每种索引最多缓存的客户端数
+     * @param ttl             条目本地保留时长
+     * @param invalidationBus 跨节点失效通道
+     */
+    public CachingRegisteredClientRepository(RegisteredClientRepository delegate, int maxEntries, Duration ttl,
+                                             InvalidationBus invalidationBus) {
+        if (maxEntries <= 0 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("maxEntries 与 ttl 必须为正数");
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new BoundedLocalCache<>(maxEntries * 2);
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(this::invalidateLocal);
+    }
+
+    @Override
+    public void save(RegisteredClient registeredClient) {
+        delegate.save(registeredClient);
+        List<String> keys = new ArrayList<>(3);
+        keys.add(ID_KEY + registeredClient.getId());
+        keys.add(CLIENT_ID_KEY + registeredClient.getClientId());
+        Cached previous = cache.get(ID_KEY + registeredClient.getId());
+        if (previous != null && !previous.client().getClientId().equals(registeredClient.getClientId())) {
+            keys.add(CLIENT_ID_KEY + previous.client().getClientId());
+        }
+        invalidateLocal(keys);
+        invalidationBus.publish(keys);
+    }
+
+    @Override
+    public RegisteredClient findById(String id) {
+        return find(ID_KEY + id, () -> delegate.findById(id));
+    }
+
+    @Override
+    public RegisteredClient findByClientId(String clientId) {
+        return find(CLIENT_ID_KEY + clientId, () -> delegate.findByClientId(clientId));
+    }
+
+    /**
+     * 缓存的客户端数。
+     */
+    public int size() {
+        return cache.size() / 2;
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    private RegisteredClient find(String key, Supplier<RegisteredClient> loader) {
+        long now = System.nanoTime();
+        Cached cached = cache.get(key);
+        if (cached != null && cached.expireAtNanos() - now > 0) {
+            hitCount.increment();
+            return cached.client();
+        }
+        missCount.increment();
+        long seq = cache.sequence();
+        RegisteredClient client = loader.get();
+        if (client != null) {
+            populate(client, seq, now);
+        }
+        return client;
+    }
+
+    /**
+     * 一次加载同时填充两种索引；加载期间若发生过失效则不写入，避免缓存旧对象。
+     */
+    private void populate(RegisteredClient client, long seqBeforeRead, long now) {
+        Cached cached = new Cached(client, now + ttlNanos);
+        if (cache.putIfUnchanged(ID_KEY + client.getId(), cached, seqBeforeRead)
+                && !cache.putIfUnchanged(CLIENT_ID_KEY + client.getClientId(), cached, seqBeforeRead)) {
+            cache.remove(ID_KEY + client.getId(), cached);
+        }
+    }
+
+    private void invalidateLocal(Collection<String> keys) {
+        List<String> related = new ArrayList<>(keys);
+        for (String key : keys) {
+            Cached cached = cache.get(key);
+            if (cached == null) {
+                continue;
+            }
+            related.add(key.startsWith(ID_KEY)
+                    ? CLIENT_ID_KEY + cached.client().getClientId()
+                    : ID_KEY + cached.client().getId());
+        }
+        cache.invalidate(related);
+    }
+}
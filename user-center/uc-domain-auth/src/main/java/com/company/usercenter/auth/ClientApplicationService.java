@@ -8,6 +8,7 @@ import org.springframework.security.oauth2.core.oidc.OidcScopes;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +22,11 @@ import java.util.UUID;
 @Service
 public class ClientApplicationService {
 
+    /**
+     * 无状态 client_credentials 令牌无法经授权服务器吊销，缩短有效期以限制泄露后的暴露窗口。
+     */
+    static final Duration STATELESS_ACCESS_TOKEN_TTL = Duration.ofMinutes(5);
+
     private final RegisteredClientRepository registeredClientRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -38,6 +44,8 @@ public class ClientApplicationService {
         List<String> scopes = request.scopes() == null || request.scopes().isEmpty()
                 ? List.of(OidcScopes.OPENID, OidcScopes.PROFILE)
                 : request.scopes();
+        boolean stateless = Boolean.TRUE.equals(request.statelessClientCredentials());
+        boolean reuseToken = Boolean.TRUE.equals(request.reuseClientCredentialsToken());
 
         RegisteredClient client = RegisteredClient.withId(UUID.randomUUID().toString())
                 .clientId(request.clientId())
@@ -49,12 +57,15 @@ public class ClientApplicationService {
                 .redirectUris(uris -> uris.addAll(request.redirectUris()))
                 .scopes(s -> s.addAll(scopes))
                 .tokenSettings(TokenSettings.builder()
-                        .accessTokenTimeToLive(Duration.ofHours(1))
+                        .accessTokenTimeToLive(stateless ? STATELESS_ACCESS_TOKEN_TTL : Duration.ofHours(1))
+                        .accessTokenFormat(OAuth2TokenFormat.SELF_CONTAINED)
                         .refreshTokenTimeToLive(Duration.ofDays(30))
                         .reuseRefreshTokens(false)
                         .build())
                 .clientSettings(ClientSettings.builder()
                         .requireAuthorizationConsent(true)
+                        .setting(StatelessClientCredentialsAuthorizationService.SETTING, stateless)
+                        .setting(ClientCredentialsTokenCache.SETTING, reuseToken)
                         .build())
                 .build();
 
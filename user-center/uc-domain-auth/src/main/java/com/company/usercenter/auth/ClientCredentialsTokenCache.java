@@ -0,0 +1,187 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.store.BoundedLocalCache;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * client_credentials 访问令牌复用：开启 {@link #SETTING} 的客户端按 (客户端, 授权范围) 复用仍有效的 JWT，
+ * 直到令牌进入过期前的刷新窗口，省去重复的 RSA 签名与授权写入。刷新窗口不超过令牌有效期的一半，
+ * 有效期短的令牌（如 5 分钟的无状态令牌）在前半段仍可复用。
+ * <p>
+ * 命中时若客户端配置已变更（缓存的客户端与本次请求的不一致）或令牌已被吊销（jti 黑名单、吊销纪元），
+ * 丢弃条目重新签发；经吊销端点作废或删除授权时由 {@link StatelessClientCredentialsAuthorizationService} 通知丢弃。
+ * 携带 DPoP 证明的请求令牌绑定到密钥，不参与复用。其他授权类型与令牌类型直接委托。
+ * 超出容量时按写入顺序淘汰（见 {@link BoundedLocalCache}）。
+ */
+public class ClientCredentialsTokenCache implements OAuth2TokenGenerator<OAuth2Token> {
+
+    /**
+     * 客户端设置项，值为 {@code true} 时开启。
+     */
+    public static final String SETTING = "settings.client.client-credentials-token-reuse";
+
+    private record Key(String registeredClientId, Set<String> scopes) {
+    }
+
+    /**
+     * @param client    签发时的客户端配置
+     * @param persisted 首次签发的授权是否已保存，之后的复用不再保存
+     */
+    private record Entry(RegisteredClient client, Jwt token, AtomicBoolean persisted) {
+    }
+
+    private final OAuth2TokenGenerator<? extends OAuth2Token> delegate;
+    private final RevokedTokenValidator revokedTokenValidator;
+    private final Duration refreshWindow;
+    private final Clock clock;
+    private final BoundedLocalCache<Key, Entry> entries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param delegate              实际的令牌生成器
+     * @param revokedTokenValidator 复用前确认令牌未被吊销
+     * @param refreshWindow         令牌剩余有效期不足该时长时重新签发，按令牌有效期的一半封顶
+     * @param maxEntries            最多缓存的令牌数
+     */
+    public ClientCredentialsTokenCache(OAuth2TokenGenerator<? extends OAuth2Token> delegate,
+                                       RevokedTokenValidator revokedTokenValidator,
+                                       Duration refreshWindow, int maxEntries) {
+        this(delegate, revokedTokenValidator, refreshWindow, maxEntries, Clock.systemUTC());
+    }
+
+    ClientCredentialsTokenCache(OAuth2TokenGenerator<? extends OAuth2Token> delegate,
+                                RevokedTokenValidator revokedTokenValidator,
+                                Duration refreshWindow, int maxEntries, Clock clock) {
+        if (refreshWindow.isNegative() || maxEntries <= 0) {
+            throw new IllegalArgumentException("refreshWindow 不能为负数且 maxEntries 必须为正数");
+        }
+        this.delegate = delegate;
+        this.revokedTokenValidator = revokedTokenValidator;
+        this.refreshWindow = refreshWindow;
+        this.clock = clock;
+        this.entries = new BoundedLocalCache<>(maxEntries);
+    }
+
+    /**
+     * 客户端是否开启 client_credentials 令牌复用。
+     */
+    public static boolean isEnabled(RegisteredClient client) {
+        return client != null && Boolean.TRUE.equals(client.getClientSettings().getSetting(SETTING));
+    }
+
+    @Override
+    public OAuth2Token generate(OAuth2TokenContext context) {
+        if (!AuthorizationGrantType.CLIENT_CREDENTIALS.equals(context.getAuthorizationGrantType())
+                || !OAuth2TokenType.ACCESS_TOKEN.equals(context.getTokenType())
+                || context.get(OAuth2TokenContext.DPOP_PROOF_KEY) != null
+                || !isEnabled(context.getRegisteredClient())) {
+            return delegate.generate(context);
+        }
+        RegisteredClient client = context.getRegisteredClient();
+        Key key = new Key(client.getId(), Set.copyOf(context.getAuthorizedScopes()));
+        Entry entry = entries.get(key);
+        if (entry != null && isReusable(entry, client)) {
+            hitCount.increment();
+            return entry.token();
+        }
+        if (entry != null && entries.remove(key, entry)) {
+            evictionCount.increment();
+        }
+        missCount.increment();
+        OAuth2Token token = delegate.generate(context);
+        if (token instanceof Jwt jwt && jwt.getExpiresAt() != null) {
+            entries.put(key, new Entry(client, jwt, new AtomicBoolean()));
+        }
+        return token;
+    }
+
+    /**
+     * 授权中的访问令牌是否为复用的令牌；首次签发的授权返回 false 并记为已保存，以后返回 true。
+     */
+    public boolean isReissue(OAuth2Authorization authorization) {
+        Entry entry = entryOf(keyOf(authorization), authorization);
+        return entry != null && !entry.persisted().compareAndSet(false, true);
+    }
+
+    /**
+     * 授权中的访问令牌被作废或删除时丢弃对应条目。
+     */
+    public void evict(OAuth2Authorization authorization) {
+        Key key = keyOf(authorization);
+        Entry entry = entryOf(key, authorization);
+        if (entry != null && entries.remove(key, entry)) {
+            evictionCount.increment();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因失效或超出容量丢弃的条目数。
+     */
+    public long evictionCount() {
+        return evictionCount.sum() + entries.evictionCount();
+    }
+
+    private boolean isReusable(Entry entry, RegisteredClient client) {
+        Instant refreshAt = entry.token().getExpiresAt().minus(refreshWindowOf(entry.token()));
+        return clock.instant().isBefore(refreshAt)
+                && entry.client().equals(client)
+                && !revokedTokenValidator.validate(entry.token()).hasErrors();
+    }
+
+    /**
+     * 生效的刷新窗口：{@code min(refreshWindow, 有效期 / 2)}，缺少 iat 时按配置值。
+     */
+    private Duration refreshWindowOf(Jwt token) {
+        if (token.getIssuedAt() == null) {
+            return refreshWindow;
+        }
+        Duration halfLifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt()).dividedBy(2);
+        return halfLifetime.compareTo(refreshWindow) < 0 ? halfLifetime : refreshWindow;
+    }
+
+    private static Key keyOf(OAuth2Authorization authorization) {
+        return new Key(authorization.getRegisteredClientId(), Set.copyOf(authorization.getAuthorizedScopes()));
+    }
+
+    private Entry entryOf(Key key, OAuth2Authorization authorization) {
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+        if (accessToken == null
+                || !AuthorizationGrantType.CLIENT_CREDENTIALS.equals(authorization.getAuthorizationGrantType())) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.token().getTokenValue().equals(accessToken.getToken().getTokenValue())) {
+            return null;
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,250 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.store.EphemeralEntry;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 基于短期键值存储的授权服务，替代 JDBC 实现承担授权码、刷新与客户端凭证授权的高频写入。
+ * <p>
+ * 授权以 {@link OAuth2AuthorizationCodec} 编码后存于 {@code oauth2:authorization:id:{id}}，每个令牌（及授权流程中的 state）
+ * 另有 {@code oauth2:authorization:{类型}:{令牌摘要}} 指向授权 ID 的索引键。授权的过期时间取其所有令牌中最晚的过期时间，
+ * 索引键随各自令牌过期；令牌轮换后残留的旧索引在查询时校验令牌值，不会命中新授权。
+ */
+public class EphemeralOAuth2AuthorizationService implements OAuth2AuthorizationService {
+
+    private static final Logger log = LoggerFactory.getLogger(EphemeralOAuth2AuthorizationService.class);
+    private static final String KEY_PREFIX = "oauth2:authorization:";
+    private static final OAuth2TokenType STATE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+    private static final OAuth2TokenType CODE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+    private static final OAuth2TokenType ID_TOKEN = new OAuth2TokenType(OidcParameterNames.ID_TOKEN);
+    private static final OAuth2TokenType DEVICE_CODE = new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE);
+    private static final OAuth2TokenType USER_CODE = new OAuth2TokenType(OAuth2ParameterNames.USER_CODE);
+    private static final List<OAuth2TokenType> ALL_TYPES = List.of(OAuth2TokenType.ACCESS_TOKEN,
+            OAuth2TokenType.REFRESH_TOKEN, CODE, ID_TOKEN, STATE, DEVICE_CODE, USER_CODE);
+
+    private final EphemeralKeyValueStore store;
+    private final RegisteredClientRepository registeredClientRepository;
+    private final Duration pendingTtl;
+    private final Duration maxTtl;
+
+    /**
+     * @param store                      授权数据所在的存储
+     * @param registeredClientRepository 解码时还原注册客户端
+     * @param pendingTtl                 尚未签发令牌（仅有 state）的授权保留时长
+     * @param maxTtl                     授权保留时长上限，令牌未设置过期时间时使用
+     */
+    public EphemeralOAuth2AuthorizationService(EphemeralKeyValueStore store,
+                                               RegisteredClientRepository registeredClientRepository,
+                                               Duration pendingTtl, Duration maxTtl) {
+        if (pendingTtl.isNegative() || pendingTtl.isZero() || maxTtl.compareTo(pendingTtl) < 0) {
+            throw new IllegalArgumentException("pendingTtl 必须为正数且不大于 maxTtl");
+        }
+        this.store = store;
+        this.registeredClientRepository = registeredClientRepository;
+        this.pendingTtl = pendingTtl;
+        this.maxTtl = maxTtl;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Objects.requireNonNull(authorization, "authorization");
+        Instant now = Instant.now();
+        Duration ttl = authorizationTtl(authorization, now);
+        if (ttl.isZero()) {
+            remove(authorization);
+            return;
+        }
+        String value = Base64.getEncoder().encodeToString(OAuth2AuthorizationCodec.encode(authorization));
+        List<EphemeralEntry> entries = new ArrayList<>(4);
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            entries.add(new EphemeralEntry(indexKey(STATE, state), authorization.getId(), ttl));
+        }
+        for (OAuth2TokenType type : ALL_TYPES) {
+            OAuth2Token token = tokenOf(authorization, type);
+            if (token != null) {
+                Duration tokenTtl = remaining(token.getExpiresAt(), now, ttl);
+                if (!tokenTtl.isZero()) {
+                    entries.add(new EphemeralEntry(indexKey(type, token.getTokenValue()), authorization.getId(),
+                            tokenTtl));
+                }
+            }
+        }
+        store.put(authorizationKey(authorization.getId()), value, ttl);
+        if (!entries.isEmpty()) {
+            store.multiPut(entries);
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Objects.requireNonNull(authorization, "authorization");
+        List<String> keys = new ArrayList<>(4);
+        keys.add(authorizationKey(authorization.getId()));
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            keys.add(indexKey(STATE, state));
+        }
+        for (OAuth2TokenType type : ALL_TYPES) {
+            OAuth2Token token = tokenOf(authorization, type);
+            if (token != null) {
+                keys.add(indexKey(type, token.getTokenValue()));
+            }
+        }
+        store.multiDelete(keys);
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("id 不能为空");
+        }
+        return load(id);
+    }
+
+    /**
+     * 未指定令牌类型时一次批量读取所有类型的索引。
+     */
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("token 不能为空");
+        }
+        if (tokenType != null) {
+            if (!ALL_TYPES.contains(tokenType)) {
+                return null;
+            }
+            return store.get(indexKey(tokenType, token))
+                    .map(this::load)
+                    .filter(authorization -> matches(authorization, token, tokenType))
+                    .orElse(null);
+        }
+        List<String> keys = new ArrayList<>(ALL_TYPES.size());
+        for (OAuth2TokenType type : ALL_TYPES) {
+            keys.add(indexKey(type, token));
+        }
+        Map<String, String> ids = store.multiGet(keys);
+        for (int i = 0; i < ALL_TYPES.size(); i++) {
+            String id = ids.get(keys.get(i));
+            if (id != null) {
+                OAuth2Authorization authorization = load(id);
+                if (matches(authorization, token, ALL_TYPES.get(i))) {
+                    return authorization;
+                }
+            }
+        }
+        return null;
+    }
+
+    private OAuth2Authorization load(String id) {
+        Optional<String> value = store.get(authorizationKey(id));
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OAuth2AuthorizationCodec.decode(Base64.getDecoder().decode(value.get()),
+                    registeredClientRepository::findById);
+        } catch (IllegalArgumentException ex) {
+            log.warn("授权 {} 数据无法解码，按不存在处理: {}", id, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 授权保留到最晚过期的令牌过期为止；尚无令牌时保留 pendingTtl，全部令牌已过期时返回 0。
+     */
+    private Duration authorizationTtl(OAuth2Authorization authorization, Instant now) {
+        Duration ttl = null;
+        for (OAuth2TokenType type : ALL_TYPES) {
+            OAuth2Token token = tokenOf(authorization, type);
+            if (token != null) {
+                Duration tokenTtl = remaining(token.getExpiresAt(), now, maxTtl);
+                ttl = ttl == null || tokenTtl.compareTo(ttl) > 0 ? tokenTtl : ttl;
+            }
+        }
+        return ttl == null ? pendingTtl : ttl;
+    }
+
+    private Duration remaining(Instant expiresAt, Instant now, Duration limit) {
+        if (expiresAt == null) {
+            return limit;
+        }
+        Duration remaining = Duration.between(now, expiresAt);
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Duration.ZERO;
+        }
+        return remaining.compareTo(limit) > 0 ? limit : remaining;
+    }
+
+    private static OAuth2Token tokenOf(OAuth2Authorization authorization, OAuth2TokenType type) {
+        OAuth2Authorization.Token<?> holder = null;
+        if (OAuth2TokenType.ACCESS_TOKEN.equals(type)) {
+            holder = authorization.getToken(OAuth2AccessToken.class);
+        } else if (OAuth2TokenType.REFRESH_TOKEN.equals(type)) {
+            holder = authorization.getToken(OAuth2RefreshToken.class);
+        } else if (CODE.equals(type)) {
+            holder = authorization.getToken(OAuth2AuthorizationCode.class);
+        } else if (ID_TOKEN.equals(type)) {
+            holder = authorization.getToken(OidcIdToken.class);
+        } else if (DEVICE_CODE.equals(type)) {
+            holder = authorization.getToken(OAuth2DeviceCode.class);
+        } else if (USER_CODE.equals(type)) {
+            holder = authorization.getToken(OAuth2UserCode.class);
+        }
+        return holder == null ? null : holder.getToken();
+    }
+
+    private static boolean matches(OAuth2Authorization authorization, String token, OAuth2TokenType type) {
+        if (authorization == null) {
+            return false;
+        }
+        if (STATE.equals(type)) {
+            return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+        }
+        OAuth2Token stored = tokenOf(authorization, type);
+        return stored != null && stored.getTokenValue().equals(token);
+    }
+
+    private static String authorizationKey(String id) {
+        return KEY_PREFIX + "id:" + id;
+    }
+
+    /**
+     * 令牌值可能是上千字节的 JWT，索引键使用其 SHA-256 摘要。
+     */
+    private static String indexKey(OAuth2TokenType type, String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return KEY_PREFIX + type.getValue() + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", ex);
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.company.usercenter.auth;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@link OAuth2Authorization} 的紧凑二进制编码，供短期存储使用。
+ * <p>
+ * 固定字段与令牌按位置写入，长度与个数使用变长整数；属性、令牌元数据与 ID Token 声明中的常见类型
+ * （字符串、数字、布尔、时间、集合、映射）以及授权流程固定保存的登录主体、授权请求按类型标记直接编码，
+ * 其余对象回退为 JDK 序列化，反序列化时仅允许 JDK 与 Spring Security、本项目的类。
+ */
+final class OAuth2AuthorizationCodec {
+
+    private static final int VERSION = 1;
+
+    private static final int TOKEN_CODE = 0;
+    private static final int TOKEN_ACCESS = 1;
+    private static final int TOKEN_REFRESH = 2;
+    private static final int TOKEN_ID = 3;
+    private static final int TOKEN_DEVICE_CODE = 4;
+    private static final int TOKEN_USER_CODE = 5;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int LONG = 4;
+    private static final int INTEGER = 5;
+    private static final int DOUBLE = 6;
+    private static final int INSTANT = 7;
+    private static final int LIST = 8;
+    private static final int SET = 9;
+    private static final int MAP = 10;
+    private static final int URL_VALUE = 11;
+    private static final int SERIALIZED = 12;
+    private static final int AUTHORITY = 13;
+    private static final int USER = 14;
+    private static final int AUTHENTICATION = 15;
+    private static final int WEB_DETAILS = 16;
+    private static final int AUTHORIZATION_REQUEST = 17;
+
+    private static final ObjectInputFilter SERIALIZATION_FILTER = ObjectInputFilter.Config.createFilter(
+            "java.**;org.springframework.security.**;com.company.**;!*");
+
+    private OAuth2AuthorizationCodec() {
+    }
+
+    static byte[] encode(OAuth2Authorization authorization) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, authorization.getId());
+            writeString(out, authorization.getRegisteredClientId());
+            writeString(out, authorization.getPrincipalName());
+            writeString(out, authorization.getAuthorizationGrantType().getValue());
+            writeStrings(out, authorization.getAuthorizedScopes());
+            writeMap(out, authorization.getAttributes());
+            List<OAuth2Authorization.Token<?>> tokens = new ArrayList<>(6);
+            List<Integer> kinds = new ArrayList<>(6);
+            collect(authorization.getToken(OAuth2AuthorizationCode.class), TOKEN_CODE, tokens, kinds);
+            collect(authorization.getToken(OAuth2AccessToken.class), TOKEN_ACCESS, tokens, kinds);
+            collect(authorization.getToken(OAuth2RefreshToken.class), TOKEN_REFRESH, tokens, kinds);
+            collect(authorization.getToken(OidcIdToken.class), TOKEN_ID, tokens, kinds);
+            collect(authorization.getToken(OAuth2DeviceCode.class), TOKEN_DEVICE_CODE, tokens, kinds);
+            collect(authorization.getToken(OAuth2UserCode.class), TOKEN_USER_CODE, tokens, kinds);
+            out.writeByte(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                writeToken(out, kinds.get(i), tokens.get(i));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码；注册客户端已不存在时返回 null。
+     */
+    static OAuth2Authorization decode(byte[] data, Function<String, RegisteredClient> clientLookup) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的授权编码版本: " + version);
+            }
+            String id = readString(in);
+            String registeredClientId = readString(in);
+            RegisteredClient client = clientLookup.apply(registeredClientId);
+            if (client == null) {
+                return null;
+            }
+            OAuth2Authorization.Builder builder = OAuth2Authorization.withRegisteredClient(client)
+                    .id(id)
+                    .principalName(readString(in))
+                    .authorizationGrantType(new AuthorizationGrantType(readString(in)))
+                    .authorizedScopes(readStrings(in));
+            Map<String, Object> attributes = readMap(in);
+            builder.attributes(existing -> existing.putAll(attributes));
+            int tokenCount = in.readUnsignedByte();
+            for (int i = 0; i < tokenCount; i++) {
+                readToken(in, builder);
+            }
+            return builder.build();
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("授权数据已损坏", ex);
+        }
+    }
+
+    private static void collect(OAuth2Authorization.Token<?> token, int kind,
+                                List<OAuth2Authorization.Token<?>> tokens, List<Integer> kinds) {
+        if (token != null) {
+            tokens.add(token);
+            kinds.add(kind);
+        }
+    }
+
+    private static void writeToken(DataOutputStream out, int kind, OAuth2Authorization.Token<?> holder)
+            throws IOException {
+        OAuth2Token token = holder.getToken();
+        out.writeByte(kind);
+        writeString(out, token.getTokenValue());
+        writeInstant(out, token.getIssuedAt());
+        writeInstant(out, token.getExpiresAt());
+        if (token instanceof OAuth2AccessToken accessToken) {
+            writeString(out, accessToken.getTokenType().getValue());
+            writeStrings(out, accessToken.getScopes());
+        } else if (token instanceof OidcIdToken idToken) {
+            writeMap(out, idToken.getClaims());
+        }
+        writeMap(out, holder.getMetadata());
+    }
+
+    private static void readToken(DataInputStream in, OAuth2Authorization.Builder builder) throws IOException {
+        int kind = in.readUnsignedByte();
+        String value = readString(in);
+        Instant issuedAt = readInstant(in);
+        Instant expiresAt = readInstant(in);
+        OAuth2Token token = switch (kind) {
+            case TOKEN_CODE -> new OAuth2AuthorizationCode(value, issuedAt, expiresAt);
+            case TOKEN_ACCESS -> new OAuth2AccessToken(tokenType(readString(in)), value, issuedAt, expiresAt,
+                    readStrings(in));
+            case TOKEN_REFRESH -> new OAuth2RefreshToken(value, issuedAt, expiresAt);
+            case TOKEN_ID -> new OidcIdToken(value, issuedAt, expiresAt, readMap(in));
+            case TOKEN_DEVICE_CODE -> new OAuth2DeviceCode(value, issuedAt, expiresAt);
+            case TOKEN_USER_CODE -> new OAuth2UserCode(value, issuedAt, expiresAt);
+            default -> throw new IOException("未知的令牌类型: " + kind);
+        };
+        Map<String, Object> metadata = readMap(in);
+        builder.token(token, existing -> existing.putAll(metadata));
+    }
+
+    private static OAuth2AccessToken.TokenType tokenType(String value) {
+        if (OAuth2AccessToken.TokenType.BEARER.getValue().equalsIgnoreCase(value)) {
+            return OAuth2AccessToken.TokenType.BEARER;
+        }
+        if (OAuth2AccessToken.TokenType.DPOP.getValue().equalsIgnoreCase(value)) {
+            return OAuth2AccessToken.TokenType.DPOP;
+        }
+        return new OAuth2AccessToken.TokenType(value);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            writeString(out, string);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Instant instant) {
+            out.writeByte(INSTANT);
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        } else if (value instanceof URL url) {
+            out.writeByte(URL_VALUE);
+            writeString(out, url.toExternalForm());
+        } else if (value instanceof Map<?, ?> map && hasStringKeys(map)) {
+            out.writeByte(MAP);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> typed = (Map<String, Object>) map;
+            writeMap(out, typed);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeCollection(out, list);
+        } else if (value instanceof Set<?> set) {
+            out.writeByte(SET);
+            writeCollection(out, set);
+        } else if (value.getClass() == SimpleGrantedAuthority.class) {
+            out.writeByte(AUTHORITY);
+            writeString(out, ((GrantedAuthority) value).getAuthority());
+        } else if (value.getClass() == User.class) {
+            out.writeByte(USER);
+            writeUser(out, (User) value);
+        } else if (value.getClass() == UsernamePasswordAuthenticationToken.class) {
+            out.writeByte(AUTHENTICATION);
+            writeAuthentication(out, (UsernamePasswordAuthenticationToken) value);
+        } else if (value.getClass() == WebAuthenticationDetails.class) {
+            WebAuthenticationDetails details = (WebAuthenticationDetails) value;
+            out.writeByte(WEB_DETAILS);
+            writeNullableString(out, details.getRemoteAddress());
+            writeNullableString(out, details.getSessionId());
+        } else if (value instanceof OAuth2AuthorizationRequest request
+                && AuthorizationGrantType.AUTHORIZATION_CODE.equals(request.getGrantType())) {
+            out.writeByte(AUTHORIZATION_REQUEST);
+            writeAuthorizationRequest(out, request);
+        } else if (value instanceof Serializable serializable) {
+            out.writeByte(SERIALIZED);
+            writeBytes(out, serialize(serializable));
+        } else {
+            throw new IllegalArgumentException("授权属性无法序列化: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case DOUBLE -> in.readDouble();
+            case INSTANT -> Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case URL_VALUE -> toUrl(readString(in));
+            case MAP -> readMap(in);
+            case LIST -> readCollection(in, new ArrayList<>());
+            case SET -> readCollection(in, new LinkedHashSet<>());
+            case SERIALIZED -> deserialize(readBytes(in));
+            case AUTHORITY -> new SimpleGrantedAuthority(readString(in));
+            case USER -> readUser(in);
+            case AUTHENTICATION -> readAuthentication(in);
+            case WEB_DETAILS -> new WebAuthenticationDetails(readNullableString(in), readNullableString(in));
+            case AUTHORIZATION_REQUEST -> readAuthorizationRequest(in);
+            default -> throw new IOException("未知的值类型: " + tag);
+        };
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeNullableString(out, user.getPassword());
+        out.writeBoolean(user.isEnabled());
+        out.writeBoolean(user.isAccountNonExpired());
+        out.writeBoolean(user.isCredentialsNonExpired());
+        out.writeBoolean(user.isAccountNonLocked());
+        writeCollection(out, user.getAuthorities());
+    }
+
+    /**
+     * 密码在登录后通常已被擦除，先以空串构造再擦除，还原为原来的 null。
+     */
+    private static User readUser(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String password = readNullableString(in);
+        boolean enabled = in.readBoolean();
+        boolean accountNonExpired = in.readBoolean();
+        boolean credentialsNonExpired = in.readBoolean();
+        boolean accountNonLocked = in.readBoolean();
+        User user = new User(username, password == null ? "" : password, enabled, accountNonExpired,
+                credentialsNonExpired, accountNonLocked, readAuthorities(in));
+        if (password == null) {
+            user.eraseCredentials();
+        }
+        return user;
+    }
+
+    private static void writeAuthentication(DataOutputStream out, UsernamePasswordAuthenticationToken authentication)
+            throws IOException {
+        out.writeBoolean(authentication.isAuthenticated());
+        writeValue(out, authentication.getPrincipal());
+        writeValue(out, authentication.getCredentials());
+        writeCollection(out, authentication.getAuthorities());
+        writeValue(out, authentication.getDetails());
+    }
+
+    private static UsernamePasswordAuthenticationToken readAuthentication(DataInputStream in) throws IOException {
+        boolean authenticated = in.readBoolean();
+        Object principal = readValue(in);
+        Object credentials = readValue(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        UsernamePasswordAuthenticationToken authentication = authenticated
+                ? UsernamePasswordAuthenticationToken.authenticated(principal, credentials, authorities)
+                : UsernamePasswordAuthenticationToken.unauthenticated(principal, credentials);
+        authentication.setDetails(readValue(in));
+        return authentication;
+    }
+
+    private static List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (Object authority : readCollection(in, new ArrayList<>())) {
+            if (!(authority instanceof GrantedAuthority granted)) {
+                throw new IOException("权限类型错误: " + authority);
+            }
+            authorities.add(granted);
+        }
+        return authorities;
+    }
+
+    private static void writeAuthorizationRequest(DataOutputStream out, OAuth2AuthorizationRequest request)
+            throws IOException {
+        writeString(out, request.getAuthorizationUri());
+        writeString(out, request.getClientId());
+        writeNullableString(out, request.getRedirectUri());
+        writeStrings(out, request.getScopes());
+        writeNullableString(out, request.getState());
+        writeMap(out, request.getAdditionalParameters());
+        writeMap(out, request.getAttributes());
+        writeNullableString(out, request.getAuthorizationRequestUri());
+    }
+
+    private static OAuth2AuthorizationRequest readAuthorizationRequest(DataInputStream in) throws IOException {
+        OAuth2AuthorizationRequest.Builder builder = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri(readString(in))
+                .clientId(readString(in))
+                .redirectUri(readNullableString(in))
+                .scopes(readStrings(in))
+                .state(readNullableString(in))
+                .additionalParameters(readMap(in))
+                .attributes(readMap(in));
+        String authorizationRequestUri = readNullableString(in);
+        if (authorizationRequestUri != null) {
+            builder.authorizationRequestUri(authorizationRequestUri);
+        }
+        return builder.build();
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, Object> map) throws IOException {
+        writeVarInt(out, map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in));
+        }
+        return map;
+    }
+
+    private static void writeCollection(DataOutputStream out, Collection<?> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (Object value : values) {
+            writeValue(out, value);
+        }
+    }
+
+    private static <C extends Collection<Object>> C readCollection(DataInputStream in, C target) throws IOException {
+        int size = readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            target.add(readValue(in));
+        }
+        return target;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        Set<String> values = new LinkedHashSet<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        if (instant == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("长度越界");
+                }
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static URL toUrl(String value) throws IOException {
+        try {
+            return new URI(value).toURL();
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            throw new IOException("URL 格式错误: " + value, ex);
+        }
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            in.setObjectInputFilter(SERIALIZATION_FILTER);
+            return in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("无法还原授权属性", ex);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.service.RevocationEpochService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 刷新授权的吊销检查：refresh_token 授权签发新令牌前，若授权的刷新令牌签发早于用户/客户端的吊销纪元则拒绝，
+ * 否则“全部设备退出”之后仍能用旧刷新令牌换到新访问令牌。存储异常时同样拒绝。
+ * <p>
+ * 吊销纪元只保留 {@code session-revocation.max-token-lifetime}，签发有效期更长的令牌时告警：
+ * 纪元过期后，其之前签发且仍有效的令牌将不再被拒绝。
+ */
+public class RevocationAwareTokenGenerator implements OAuth2TokenGenerator<OAuth2Token> {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationAwareTokenGenerator.class);
+
+    private static final OAuth2Error REVOKED = new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT,
+            "刷新令牌已吊销", null);
+    private static final OAuth2Error UNKNOWN = new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT,
+            "无法确认刷新令牌吊销状态", null);
+
+    private final OAuth2TokenGenerator<? extends OAuth2Token> delegate;
+    private final RevocationEpochService epochService;
+
+    public RevocationAwareTokenGenerator(OAuth2TokenGenerator<? extends OAuth2Token> delegate,
+                                         RevocationEpochService epochService) {
+        this.delegate = delegate;
+        this.epochService = epochService;
+    }
+
+    @Override
+    public OAuth2Token generate(OAuth2TokenContext context) {
+        if (AuthorizationGrantType.REFRESH_TOKEN.equals(context.getAuthorizationGrantType())) {
+            checkNotRevoked(context);
+        }
+        OAuth2Token token = delegate.generate(context);
+        if (token != null && token.getIssuedAt() != null && token.getExpiresAt() != null
+                && Duration.between(token.getIssuedAt(), token.getExpiresAt())
+                .compareTo(epochService.maxTokenLifetime()) > 0) {
+            log.warn("客户端 {} 的 {} 有效期超过 session-revocation.max-token-lifetime {}，吊销纪元可能先于令牌过期",
+                    context.getRegisteredClient().getClientId(), context.getTokenType().getValue(),
+                    epochService.maxTokenLifetime());
+        }
+        return token;
+    }
+
+    private void checkNotRevoked(OAuth2TokenContext context) {
+        OAuth2Authorization authorization = context.getAuthorization();
+        if (authorization == null) {
+            return;
+        }
+        OAuth2Authorization.Token<OAuth2RefreshToken> refreshToken = authorization.getRefreshToken();
+        Instant issuedAt = refreshToken == null ? null : refreshToken.getToken().getIssuedAt();
+        boolean revoked;
+        try {
+            revoked = epochService.isRevoked(authorization.getPrincipalName(),
+                    context.getRegisteredClient().getClientId(), issuedAt);
+        } catch (RuntimeException ex) {
+            log.warn("刷新令牌吊销状态查询失败: {}", ex.getMessage());
+            throw new OAuth2AuthenticationException(UNKNOWN);
+        }
+        if (revoked) {
+            throw new OAuth2AuthenticationException(REVOKED);
+        }
+    }
+}
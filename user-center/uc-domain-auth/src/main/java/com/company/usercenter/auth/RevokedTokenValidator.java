@@ -0,0 +1,66 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.service.SessionBlacklistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+
+/**
+ * JWT 吊销校验：jti 在会话黑名单中，或 iat 早于用户/客户端的吊销纪元时拒绝。
+ * <p>
+ * 查询经 {@link com.company.usercenter.identity.service.RevocationCache} 与黑名单过滤器在本地完成，
+ * 只有缓存未命中才访问存储；存储异常时拒绝，不放行无法确认状态的 token。
+ */
+public class RevokedTokenValidator implements OAuth2TokenValidator<Jwt> {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenValidator.class);
+
+    private static final OAuth2Error REVOKED = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+            "token 已吊销", null);
+    private static final OAuth2Error UNKNOWN = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+            "无法确认 token 吊销状态", null);
+
+    private final SessionBlacklistService blacklistService;
+    private final RevocationEpochService epochService;
+
+    public RevokedTokenValidator(SessionBlacklistService blacklistService, RevocationEpochService epochService) {
+        this.blacklistService = blacklistService;
+        this.epochService = epochService;
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt token) {
+        try {
+            String tokenId = token.getId();
+            if (tokenId != null && blacklistService.isBlacklisted(tokenId)) {
+                return OAuth2TokenValidatorResult.failure(REVOKED);
+            }
+            if (epochService.isRevoked(token.getSubject(), clientIdOf(token), token.getIssuedAt())) {
+                return OAuth2TokenValidatorResult.failure(REVOKED);
+            }
+            return OAuth2TokenValidatorResult.success();
+        } catch (RuntimeException ex) {
+            log.warn("token 吊销状态查询失败: {}", ex.getMessage());
+            return OAuth2TokenValidatorResult.failure(UNKNOWN);
+        }
+    }
+
+    /**
+     * 授权服务器签发的访问令牌以客户端 ID 作为 aud；带 azp 的 ID Token 以 azp 为准。
+     */
+    private static String clientIdOf(Jwt token) {
+        String authorizedParty = token.getClaimAsString("azp");
+        if (authorizedParty != null) {
+            return authorizedParty;
+        }
+        List<String> audience = token.getAudience();
+        return audience == null || audience.isEmpty() ? null : audience.get(0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.company.usercenter.auth;
+
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无状态 client_credentials：客户端开启 {@link #SETTING} 且访问令牌为自包含 JWT 时，该授权不交给实际存储，
+ * 令牌端点的吞吐只受签名约束。
+ * <p>
+ * 此类令牌在授权服务器上查不到，自省端点返回 inactive、吊销端点不生效；吊销依赖短时效、jti 黑名单与客户端吊销纪元
+ * （见 {@link RevokedTokenValidator}）。其他授权类型与未开启的客户端照常委托。
+ * <p>
+ * 接入 {@link ClientCredentialsTokenCache} 后，复用的令牌只在首次签发时保存一次；授权中的访问令牌被作废或删除时通知缓存丢弃。
+ */
+public class StatelessClientCredentialsAuthorizationService implements OAuth2AuthorizationService {
+
+    /**
+     * 客户端设置项，值为 {@code true} 时开启。
+     */
+    public static final String SETTING = "settings.client.stateless-client-credentials";
+
+    private final OAuth2AuthorizationService delegate;
+    private final RegisteredClientRepository registeredClientRepository;
+    private final LongAdder skippedCount = new LongAdder();
+    private volatile ClientCredentialsTokenCache tokenCache;
+
+    public StatelessClientCredentialsAuthorizationService(OAuth2AuthorizationService delegate,
+                                                          RegisteredClientRepository registeredClientRepository) {
+        this.delegate = delegate;
+        this.registeredClientRepository = registeredClientRepository;
+    }
+
+    public void setTokenCache(ClientCredentialsTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
+    /**
+     * 客户端是否以无状态方式处理 client_credentials 授权。
+     */
+    public static boolean isStateless(RegisteredClient client) {
+        return client != null
+                && Boolean.TRUE.equals(client.getClientSettings().getSetting(SETTING))
+                && OAuth2TokenFormat.SELF_CONTAINED.equals(client.getTokenSettings().getAccessTokenFormat());
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        ClientCredentialsTokenCache cache = tokenCache;
+        if (cache != null && authorization.getAccessToken() != null && authorization.getAccessToken().isInvalidated()) {
+            cache.evict(authorization);
+        }
+        if (AuthorizationGrantType.CLIENT_CREDENTIALS.equals(authorization.getAuthorizationGrantType())
+                && (isStateless(registeredClientRepository.findById(authorization.getRegisteredClientId()))
+                || cache != null && cache.isReissue(authorization))) {
+            skippedCount.increment();
+            return;
+        }
+        delegate.save(authorization);
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        ClientCredentialsTokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.evict(authorization);
+        }
+        delegate.remove(authorization);
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        return delegate.findByToken(token, tokenType);
+    }
+
+    /**
+     * 未持久化的 client_credentials 授权数，含无状态客户端与复用的令牌。
+     */
+    public long skippedCount() {
+        return skippedCount.sum();
+    }
+}
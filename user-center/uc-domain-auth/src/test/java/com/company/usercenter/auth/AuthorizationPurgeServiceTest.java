@@ -0,0 +1,177 @@
+package com.company.usercenter.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthorizationPurgeServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void expiredRowsShouldBeDeletedInKeysetBatchesSkippingLockedOnes() throws Exception {
+        FakeAuthorizationTable table = new FakeAuthorizationTable(Duration.ZERO);
+        for (int i = 0; i < 250; i++) {
+            table.insert("expired-" + i, NOW.minus(Duration.ofHours(2)).plusSeconds(i));
+        }
+        table.insert("locked", NOW.minus(Duration.ofHours(3)));
+        table.locked.add("locked");
+        table.insert("in-grace", NOW.minus(Duration.ofMinutes(1)));
+        table.insert("active", NOW.plus(Duration.ofHours(1)));
+        table.insert("unscheduled", null);
+        AuthorizationPurgeService service = service(table, 100, Duration.ofSeconds(1));
+
+        long purgedFirst = service.purge();
+        assertThat(purgedFirst).isEqualTo(250);
+
+        assertThat(table.rows.keySet()).containsExactlyInAnyOrder("locked", "in-grace", "active", "unscheduled");
+        assertThat(table.rows).containsEntry("unscheduled",
+                NOW.plus(AuthorizationPurgeService.UNISSUED_RETENTION));
+        assertThat(service.purgedCount()).isEqualTo(250);
+        assertThat(table.limits).allSatisfy(limit -> assertThat(limit).isGreaterThanOrEqualTo(100));
+        assertThat(service.lag()).isEqualTo(Duration.ofHours(3).minus(Duration.ofMinutes(5)));
+
+        table.locked.clear();
+        assertThat(service.purge()).isEqualTo(1);
+        assertThat(service.lag()).isZero();
+    }
+
+    @Test
+    void slowBatchesShouldShrinkBatchSizeAndFastOnesShouldGrowIt() throws Exception {
+        FakeAuthorizationTable slow = new FakeAuthorizationTable(Duration.ofMillis(20));
+        for (int i = 0; i < 400; i++) {
+            slow.insert("slow-" + i, NOW.minus(Duration.ofHours(1)).plusMillis(i));
+        }
+        AuthorizationPurgeService throttled = service(slow, 100, Duration.ofMillis(5));
+
+        throttled.purge();
+
+        assertThat(slow.rows).isEmpty();
+        assertThat(slow.limits).startsWith(100, 50, 25, 25);
+        assertThat(throttled.throttledCount()).isPositive();
+
+        FakeAuthorizationTable fast = new FakeAuthorizationTable(Duration.ZERO);
+        for (int i = 0; i < 1_000; i++) {
+            fast.insert("fast-" + i, NOW.minus(Duration.ofHours(1)).plusMillis(i));
+        }
+        AuthorizationPurgeService growing = service(fast, 100, Duration.ofSeconds(1));
+
+        growing.purge();
+
+        assertThat(fast.limits).startsWith(100, 125, 156);
+        assertThat(growing.batchSize()).isGreaterThan(100);
+    }
+
+    private static AuthorizationPurgeService service(JdbcTemplate jdbcTemplate, int batchSize, Duration target) {
+        AuthorizationPurgeService.Settings settings = new AuthorizationPurgeService.Settings(null,
+                Duration.ofMinutes(5), batchSize, 25, 1_000, target, Duration.ofSeconds(30));
+        return new AuthorizationPurgeService(jdbcTemplate, settings, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    /**
+     * 以有序映射模拟 oauth2_authorization 上的补写与键集删除，值为 null 的行视为 purge_after 为空，
+     * locked 中的行视为被其他事务锁定。
+     */
+    private static final class FakeAuthorizationTable extends JdbcTemplate {
+        final Map<String, Instant> rows = new TreeMap<>();
+        final Set<String> locked = new HashSet<>();
+        final List<Integer> limits = new ArrayList<>();
+        private final Duration delay;
+
+        FakeAuthorizationTable(Duration delay) {
+            this.delay = delay;
+        }
+
+        void insert(String id, Instant purgeAfter) {
+            rows.put(id, purgeAfter);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            assertThat(sql).isEqualTo(AuthorizationPurgeService.SCHEDULE_BATCH_SQL);
+            Instant fallback = ((Timestamp) args[0]).toInstant();
+            int limit = (Integer) args[1];
+            List<String> unscheduled = rows.entrySet().stream()
+                    .filter(row -> row.getValue() == null && !locked.contains(row.getKey()))
+                    .map(Map.Entry::getKey)
+                    .limit(limit)
+                    .toList();
+            unscheduled.forEach(id -> rows.put(id, fallback));
+            return unscheduled.size();
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            assertThat(sql).isEqualTo(AuthorizationPurgeService.DELETE_BATCH_SQL);
+            Instant cutoff = ((Timestamp) args[0]).toInstant();
+            Instant afterPurge = ((Timestamp) args[1]).toInstant();
+            String afterId = (String) args[2];
+            int limit = (Integer) args[3];
+            limits.add(limit);
+            sleep();
+            List<Map.Entry<String, Instant>> batch = rows.entrySet().stream()
+                    .filter(row -> row.getValue() != null && row.getValue().isBefore(cutoff))
+                    .filter(row -> row.getValue().isAfter(afterPurge)
+                            || (row.getValue().equals(afterPurge) && row.getKey().compareTo(afterId) > 0))
+                    .sorted(Map.Entry.<String, Instant>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                    .filter(row -> !locked.contains(row.getKey()))
+                    .limit(limit)
+                    .map(row -> Map.entry(row.getKey(), row.getValue()))
+                    .toList();
+            List<T> result = new ArrayList<>(batch.size());
+            for (Map.Entry<String, Instant> row : batch) {
+                rows.remove(row.getKey());
+                result.add(map(rowMapper, row));
+            }
+            return result;
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            assertThat(sql).isEqualTo(AuthorizationPurgeService.OLDEST_SQL);
+            return requiredType.cast(rows.values().stream().filter(Objects::nonNull).min(Comparator.naturalOrder())
+                    .map(Timestamp::from).orElse(null));
+        }
+
+        private <T> T map(RowMapper<T> rowMapper, Map.Entry<String, Instant> row) {
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getTimestamp" -> Timestamp.from(row.getValue());
+                        case "getString" -> row.getKey();
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+            try {
+                return rowMapper.mapRow(rs, 0);
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.api.dto.ClientRegistrationRequest;
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingRegisteredClientRepositoryTest {
+
+    private final CountingRepository jdbc = new CountingRepository();
+
+    @Test
+    void lookupsByIdAndClientIdShouldBeServedLocally() {
+        CachingRegisteredClientRepository repo = new CachingRegisteredClientRepository(jdbc, 100, Duration.ofMinutes(5));
+        RegisteredClient client = client("c-1", "web", "openid");
+        jdbc.save(client);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(repo.findByClientId("web")).isSameAs(client);
+            assertThat(repo.findById("c-1")).isSameAs(client);
+        }
+
+        assertThat(jdbc.reads.get()).isEqualTo(1);
+        assertThat(repo.hitCount()).isEqualTo(99);
+        assertThat(repo.findByClientId("unknown")).isNull();
+    }
+
+    @Test
+    void saveShouldInvalidateLocallyAndOnOtherNodes() {
+        LocalBus bus = new LocalBus();
+        CachingRegisteredClientRepository nodeA = new CachingRegisteredClientRepository(jdbc, 100, Duration.ofMinutes(5),
+                bus);
+        CachingRegisteredClientRepository nodeB = new CachingRegisteredClientRepository(jdbc, 100, Duration.ofMinutes(5),
+                bus);
+        nodeA.save(client("c-1", "web", "openid"));
+        assertThat(nodeA.findByClientId("web").getScopes()).containsExactly("openid");
+        assertThat(nodeB.findById("c-1").getScopes()).containsExactly("openid");
+
+        nodeA.save(client("c-1", "web", "profile"));
+
+        assertThat(nodeA.findByClientId("web").getScopes()).containsExactly("profile");
+        assertThat(nodeB.findByClientId("web").getScopes()).containsExactly("profile");
+        assertThat(nodeB.findById("c-1").getScopes()).containsExactly("profile");
+    }
+
+    @Test
+    void registerThroughServiceShouldNotLeaveStaleAbsence() {
+        CachingRegisteredClientRepository repo = new CachingRegisteredClientRepository(jdbc, 100, Duration.ofMinutes(5));
+        ClientApplicationService service = new ClientApplicationService(repo,
+                new BCryptPasswordEncoder(4));
+        assertThat(repo.findByClientId("mobile")).isNull();
+
+        service.register(new ClientRegistrationRequest("mobile", "secret",
+                List.of("http://localhost/cb"), List.of("openid"), null, null));
+
+        assertThat(repo.findByClientId("mobile")).isNotNull();
+    }
+
+    private static RegisteredClient client(String id, String clientId, String scope) {
+        return RegisteredClient.withId(id)
+                .clientId(clientId)
+                .clientSecret("{noop}secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .scope(scope)
+                .build();
+    }
+
+    private static final class CountingRepository extends ClientApplicationServiceTest.TestRegisteredClientRepository {
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public RegisteredClient findById(String id) {
+            reads.incrementAndGet();
+            return super.findById(id);
+        }
+
+        @Override
+        public RegisteredClient findByClientId(String clientId) {
+            reads.incrementAndGet();
+            return super.findByClientId(clientId);
+        }
+    }
+
+    /**
+     * 进程内广播，模拟 Redis Pub/Sub。
+     */
+    private static final class LocalBus implements InvalidationBus {
+        private final List<Consumer<Collection<String>>> listeners = new ArrayList<>();
+
+        @Override
+        public void publish(Collection<String> keys) {
+            listeners.forEach(listener -> listener.accept(keys));
+        }
+
+        @Override
+        public void subscribe(Consumer<Collection<String>> listener) {
+            listeners.add(listener);
+        }
+    }
+}
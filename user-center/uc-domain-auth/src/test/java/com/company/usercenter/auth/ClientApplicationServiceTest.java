@@ -23,7 +23,9 @@ class ClientApplicationServiceTest {
                 "web-app",
                 "secret",
                 List.of("http://localhost:8080/callback"),
-                List.of("openid", "profile")
+                List.of("openid", "profile"),
+                null,
+                null
         );
 
         var client = service.register(req);
@@ -40,7 +42,9 @@ class ClientApplicationServiceTest {
                 "dup",
                 "secret",
                 List.of("http://localhost/cb"),
-                List.of("openid")
+                List.of("openid"),
+                null,
+                null
         );
         service.register(req);
 
@@ -49,6 +53,26 @@ class ClientApplicationServiceTest {
                 .hasMessageContaining("客户端已存在");
     }
 
+    @Test
+    void registerStatelessClientShouldUseShortLivedJwt() {
+        var req = new ClientRegistrationRequest(
+                "batch-job",
+                "secret",
+                List.of("http://localhost/cb"),
+                List.of("orders.read"),
+                true,
+                null
+        );
+
+        var client = service.register(req);
+
+        assertThat(StatelessClientCredentialsAuthorizationService.isStateless(client)).isTrue();
+        assertThat(client.getTokenSettings().getAccessTokenTimeToLive())
+                .isEqualTo(ClientApplicationService.STATELESS_ACCESS_TOKEN_TTL);
+        assertThat(StatelessClientCredentialsAuthorizationService.isStateless(repo.findByClientId("batch-job")))
+                .isTrue();
+    }
+
     /**
      * 简单可变的 RegisteredClientRepository 便于单测。
      */
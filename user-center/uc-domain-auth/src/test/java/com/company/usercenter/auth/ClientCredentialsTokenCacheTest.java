@@ -0,0 +1,219 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.service.SessionBlacklistService;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
+import org.springframework.security.oauth2.server.authorization.token.DefaultOAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientCredentialsTokenCacheTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final SessionBlacklistService blacklistService = new SessionBlacklistService(store);
+    private final RevocationEpochService epochService = new RevocationEpochService(store, Duration.ofHours(1));
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final CountingGenerator generator = new CountingGenerator(clock);
+    private final ClientCredentialsTokenCache cache = new ClientCredentialsTokenCache(generator,
+            new RevokedTokenValidator(blacklistService, epochService), Duration.ofMinutes(5), 100, clock);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void tokenShouldBeReusedPerScopesUntilRefreshWindow() {
+        RegisteredClient client = client("svc", true);
+
+        OAuth2Token first = cache.generate(context(client, Set.of("orders.read", "orders.write")));
+        OAuth2Token second = cache.generate(context(client, Set.of("orders.write", "orders.read")));
+        OAuth2Token narrower = cache.generate(context(client, Set.of("orders.read")));
+
+        assertThat(second).isSameAs(first);
+        assertThat(narrower).isNotSameAs(first);
+        assertThat(generator.count.get()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(54));
+        assertThat(cache.generate(context(client, Set.of("orders.read", "orders.write")))).isSameAs(first);
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(cache.generate(context(client, Set.of("orders.read", "orders.write")))).isNotSameAs(first);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(3);
+
+        RegisteredClient disabled = client("other", false);
+        cache.generate(context(disabled, Set.of("orders.read")));
+        cache.generate(context(disabled, Set.of("orders.read")));
+        assertThat(generator.count.get()).isEqualTo(5);
+        assertThat(cache.missCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shortLivedTokensShouldBeReusedForHalfTheirLifetime() {
+        RegisteredClient client = client("svc", true);
+        generator.lifetime = ClientApplicationService.STATELESS_ACCESS_TOKEN_TTL;
+
+        OAuth2Token first = cache.generate(context(client, Set.of("orders.read")));
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(cache.generate(context(client, Set.of("orders.read")))).isSameAs(first);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(cache.generate(context(client, Set.of("orders.read")))).isNotSameAs(first);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void updatedOrRevokedClientShouldGetNewToken() {
+        RegisteredClient client = client("svc", true);
+        OAuth2Token first = cache.generate(context(client, Set.of("orders.read")));
+
+        RegisteredClient updated = RegisteredClient.from(client).scope("orders.write").build();
+        OAuth2Token afterUpdate = cache.generate(context(updated, Set.of("orders.read")));
+        assertThat(afterUpdate).isNotSameAs(first);
+        assertThat(cache.generate(context(updated, Set.of("orders.read")))).isSameAs(afterUpdate);
+
+        epochService.revokeClient("svc");
+        assertThat(cache.generate(context(updated, Set.of("orders.read")))).isNotSameAs(afterUpdate);
+        assertThat(cache.evictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reusedTokenShouldBePersistedOnceAndEvictedWhenInvalidated() {
+        RegisteredClient client = client("svc", true);
+        ClientApplicationServiceTest.TestRegisteredClientRepository clients =
+                new ClientApplicationServiceTest.TestRegisteredClientRepository();
+        clients.save(client);
+        StatelessClientCredentialsAuthorizationService service = new StatelessClientCredentialsAuthorizationService(
+                new EphemeralOAuth2AuthorizationService(store, clients, Duration.ofMinutes(10), Duration.ofDays(1)),
+                clients);
+        service.setTokenCache(cache);
+
+        OAuth2Authorization first = authorization(client, "authz-1",
+                cache.generate(context(client, Set.of("orders.read"))));
+        service.save(first);
+        OAuth2Authorization reused = authorization(client, "authz-2",
+                cache.generate(context(client, Set.of("orders.read"))));
+        service.save(reused);
+
+        assertThat(service.skippedCount()).isEqualTo(1);
+        assertThat(service.findById("authz-1")).isNotNull();
+        assertThat(service.findById("authz-2")).isNull();
+
+        service.save(OAuth2Authorization.from(first).invalidate(first.getAccessToken().getToken()).build());
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.generate(context(client, Set.of("orders.read"))).getTokenValue())
+                .isNotEqualTo(first.getAccessToken().getToken().getTokenValue());
+    }
+
+    private static RegisteredClient client(String clientId, boolean reuse) {
+        return RegisteredClient.withId("id-" + clientId)
+                .clientId(clientId)
+                .clientSecret("{noop}secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .scope("orders.read")
+                .clientSettings(ClientSettings.builder()
+                        .setting(ClientCredentialsTokenCache.SETTING, reuse)
+                        .build())
+                .build();
+    }
+
+    private static DefaultOAuth2TokenContext context(RegisteredClient client, Set<String> scopes) {
+        return DefaultOAuth2TokenContext.builder()
+                .registeredClient(client)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .tokenType(OAuth2TokenType.ACCESS_TOKEN)
+                .authorizedScopes(scopes)
+                .build();
+    }
+
+    private static OAuth2Authorization authorization(RegisteredClient client, String id, OAuth2Token token) {
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id(id)
+                .principalName(client.getClientId())
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .authorizedScopes(Set.of("orders.read"))
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, token.getTokenValue(),
+                        token.getIssuedAt(), token.getExpiresAt()))
+                .build();
+    }
+
+    /**
+     * 签发 lifetime（默认一小时）有效的 JWT 并计数；iat 提前十秒，避开吊销纪元所在那一秒。
+     */
+    private static final class CountingGenerator implements OAuth2TokenGenerator<Jwt> {
+        final AtomicInteger count = new AtomicInteger();
+        volatile Duration lifetime = Duration.ofHours(1);
+        private final Clock clock;
+
+        CountingGenerator(Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public Jwt generate(OAuth2TokenContext context) {
+            int n = count.incrementAndGet();
+            Instant issuedAt = clock.instant().minusSeconds(10);
+            return Jwt.withTokenValue("token-" + n)
+                    .header("alg", "RS256")
+                    .jti("jti-" + n)
+                    .subject(context.getRegisteredClient().getClientId())
+                    .audience(List.of(context.getRegisteredClient().getClientId()))
+                    .issuedAt(issuedAt)
+                    .expiresAt(clock.instant().plus(lifetime))
+                    .build();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
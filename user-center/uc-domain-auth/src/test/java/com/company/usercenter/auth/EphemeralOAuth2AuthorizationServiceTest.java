@@ -0,0 +1,172 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EphemeralOAuth2AuthorizationServiceTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final ClientApplicationServiceTest.TestRegisteredClientRepository clients =
+            new ClientApplicationServiceTest.TestRegisteredClientRepository();
+    private final EphemeralOAuth2AuthorizationService service = new EphemeralOAuth2AuthorizationService(store,
+            clients, Duration.ofMinutes(10), Duration.ofDays(30));
+    private final RegisteredClient client = RegisteredClient.withId("client-1")
+            .clientId("web")
+            .clientSecret("{noop}secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+            .redirectUri("http://localhost/cb")
+            .scope("openid")
+            .scope("profile")
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void authorizationCodeFlowShouldBeFoundByEveryToken() throws Exception {
+        clients.save(client);
+        Instant now = Instant.now();
+        OAuth2Authorization pending = pending("state-1");
+        service.save(pending);
+        assertThat(service.findByToken("state-1", new OAuth2TokenType(OAuth2ParameterNames.STATE)))
+                .isEqualTo(pending);
+
+        OAuth2Authorization issued = OAuth2Authorization.from(pending)
+                .token(new OAuth2AuthorizationCode("code-1", now, now.plusSeconds(300)))
+                .token(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-1", now,
+                                now.plusSeconds(3600), Set.of("openid", "profile")),
+                        metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME,
+                                Map.of("sub", "alice", "aud", List.of("web"), "iat", now, "scope",
+                                        List.of("openid", "profile"))))
+                .refreshToken(new OAuth2RefreshToken("refresh-1", now, now.plus(Duration.ofDays(30))))
+                .token(new OidcIdToken("id-1", now, now.plusSeconds(3600), Map.of("sub", "alice", "nonce", "n-1")))
+                .invalidate(new OAuth2AuthorizationCode("code-1", now, now.plusSeconds(300)))
+                .build();
+        service.save(issued);
+
+        OAuth2Authorization loaded = service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN);
+        assertThat(loaded).isEqualTo(issued);
+        assertThat(loaded.<Principal>getAttribute(Principal.class.getName()))
+                .isEqualTo(pending.getAttribute(Principal.class.getName()));
+        assertThat(loaded.<OAuth2AuthorizationRequest>getAttribute(OAuth2AuthorizationRequest.class.getName()))
+                .isEqualTo(pending.getAttribute(OAuth2AuthorizationRequest.class.getName()));
+        assertThat(loaded.getAccessToken().getClaims()).containsEntry("iat", now)
+                .containsEntry("aud", List.of("web"));
+        assertThat(loaded.getToken(OAuth2AuthorizationCode.class).isInvalidated()).isTrue();
+        assertThat(service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN)).isEqualTo(issued);
+        assertThat(service.findByToken("code-1", null)).isEqualTo(issued);
+        assertThat(service.findByToken("id-1", null)).isEqualTo(issued);
+        assertThat(service.findById(issued.getId())).isEqualTo(issued);
+        assertThat(service.findByToken("access-1", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+
+        assertThat(OAuth2AuthorizationCodec.encode(issued).length).isLessThan(javaSerializedSize(issued) / 2);
+    }
+
+    @Test
+    void rotatedAndRemovedTokensShouldNotBeFound() {
+        clients.save(client);
+        Instant now = Instant.now();
+        OAuth2Authorization first = OAuth2Authorization.from(pending("state-2"))
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-1", now,
+                        now.plusSeconds(3600)))
+                .refreshToken(new OAuth2RefreshToken("refresh-1", now, now.plus(Duration.ofDays(30))))
+                .build();
+        service.save(first);
+
+        OAuth2Authorization rotated = OAuth2Authorization.from(first)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-2", now,
+                        now.plusSeconds(3600)))
+                .refreshToken(new OAuth2RefreshToken("refresh-2", now, now.plus(Duration.ofDays(30))))
+                .build();
+        service.save(rotated);
+
+        assertThat(service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+        assertThat(service.findByToken("access-1", null)).isNull();
+        assertThat(service.findByToken("refresh-2", OAuth2TokenType.REFRESH_TOKEN)).isEqualTo(rotated);
+
+        service.remove(rotated);
+
+        assertThat(service.findById(rotated.getId())).isNull();
+        assertThat(service.findByToken("access-2", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+        assertThat(service.findByToken("state-2", null)).isNull();
+    }
+
+    @Test
+    void authorizationShouldExpireWithItsLastToken() throws Exception {
+        clients.save(client);
+        Instant now = Instant.now();
+        OAuth2Authorization shortLived = OAuth2Authorization.withRegisteredClient(client)
+                .id("authz-cc")
+                .principalName("web")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-cc",
+                        now.minusSeconds(10), now.plusMillis(200)))
+                .build();
+        service.save(shortLived);
+        assertThat(service.findByToken("access-cc", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+
+        Thread.sleep(300);
+
+        assertThat(service.findById("authz-cc")).isNull();
+        assertThat(service.findByToken("access-cc", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    }
+
+    private OAuth2Authorization pending(String state) {
+        User user = new User("alice", "n/a", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        OAuth2AuthorizationRequest request = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("http://localhost/oauth2/authorize")
+                .clientId("web")
+                .redirectUri("http://localhost/cb")
+                .scopes(Set.of("openid", "profile"))
+                .state(state)
+                .build();
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id("authz-" + state)
+                .principalName("alice")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(Set.of("openid", "profile"))
+                .attribute(OAuth2ParameterNames.STATE, state)
+                .attribute(Principal.class.getName(),
+                        UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()))
+                .attribute(OAuth2AuthorizationRequest.class.getName(), request)
+                .build();
+    }
+
+    private static int javaSerializedSize(OAuth2Authorization authorization) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(authorization);
+        }
+        return bytes.size();
+    }
+}
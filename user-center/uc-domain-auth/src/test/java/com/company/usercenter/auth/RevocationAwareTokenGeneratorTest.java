@@ -0,0 +1,132 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2AccessTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2RefreshTokenAuthenticationProvider;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2RefreshTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContextHolder;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.DelegatingOAuth2TokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2AccessTokenGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2RefreshTokenGenerator;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 刷新授权与吊销纪元：经授权服务器的刷新令牌处理流程，吊销之后用旧刷新令牌换取新令牌被拒绝。
+ */
+class RevocationAwareTokenGeneratorTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final RevocationEpochService epochService = new RevocationEpochService(store, Duration.ofDays(30));
+    private final InMemoryOAuth2AuthorizationService authorizations = new InMemoryOAuth2AuthorizationService();
+    private final OAuth2RefreshTokenAuthenticationProvider provider = new OAuth2RefreshTokenAuthenticationProvider(
+            authorizations, new RevocationAwareTokenGenerator(new DelegatingOAuth2TokenGenerator(
+            new OAuth2AccessTokenGenerator(), new OAuth2RefreshTokenGenerator()), epochService));
+    private final RegisteredClient client = RegisteredClient.withId("client-1")
+            .clientId("web")
+            .clientSecret("{noop}secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+            .redirectUri("https://app.example.com/callback")
+            .scope("profile")
+            .tokenSettings(TokenSettings.builder().accessTokenFormat(OAuth2TokenFormat.REFERENCE)
+                    .refreshTokenTimeToLive(Duration.ofDays(30)).build())
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        AuthorizationServerContextHolder.setContext(new TestContext());
+    }
+
+    @AfterEach
+    void tearDown() {
+        AuthorizationServerContextHolder.resetContext();
+        store.close();
+    }
+
+    @Test
+    void refreshShouldSucceedUntilUserIsRevoked() {
+        authorizations.save(authorization("refresh-1", Instant.now().minusSeconds(60)));
+
+        OAuth2AccessTokenAuthenticationToken refreshed =
+                (OAuth2AccessTokenAuthenticationToken) provider.authenticate(refresh("refresh-1"));
+        assertThat(refreshed.getAccessToken()).isNotNull();
+
+        epochService.revokeUser("alice");
+
+        assertThatThrownBy(() -> provider.authenticate(refresh("refresh-1")))
+                .isInstanceOfSatisfying(OAuth2AuthenticationException.class, ex ->
+                        assertThat(ex.getError().getErrorCode()).isEqualTo(OAuth2ErrorCodes.INVALID_GRANT));
+    }
+
+    @Test
+    void refreshTokensIssuedAfterTheEpochAreAccepted() {
+        epochService.revokeClient("web");
+        authorizations.save(authorization("refresh-2", Instant.now().plusSeconds(1)));
+
+        assertThat(provider.authenticate(refresh("refresh-2"))).isNotNull();
+    }
+
+    private OAuth2Authorization authorization(String refreshTokenValue, Instant issuedAt) {
+        UsernamePasswordAuthenticationToken user = UsernamePasswordAuthenticationToken.authenticated("alice", null,
+                List.of());
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id("authz-" + refreshTokenValue)
+                .principalName("alice")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(client.getScopes())
+                .attribute(Principal.class.getName(), user)
+                .token(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-" + refreshTokenValue,
+                        issuedAt, issuedAt.plus(Duration.ofMinutes(5)), client.getScopes()))
+                .refreshToken(new OAuth2RefreshToken(refreshTokenValue, issuedAt, issuedAt.plus(Duration.ofDays(30))))
+                .build();
+    }
+
+    private OAuth2RefreshTokenAuthenticationToken refresh(String refreshTokenValue) {
+        OAuth2ClientAuthenticationToken clientPrincipal = new OAuth2ClientAuthenticationToken(client,
+                ClientAuthenticationMethod.CLIENT_SECRET_BASIC, client.getClientSecret());
+        return new OAuth2RefreshTokenAuthenticationToken(refreshTokenValue, clientPrincipal, null, null);
+    }
+
+    private static final class TestContext implements AuthorizationServerContext {
+
+        private final AuthorizationServerSettings settings = AuthorizationServerSettings.builder()
+                .issuer("http://localhost:8080").build();
+
+        @Override
+        public String getIssuer() {
+            return settings.getIssuer();
+        }
+
+        @Override
+        public AuthorizationServerSettings getAuthorizationServerSettings() {
+            return settings;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.service.RevocationEpochService;
+import com.company.usercenter.identity.service.SessionBlacklistService;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevokedTokenValidatorTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final SessionBlacklistService blacklistService = new SessionBlacklistService(store);
+    private final RevocationEpochService epochService = new RevocationEpochService(store, Duration.ofHours(1));
+    private final RevokedTokenValidator validator = new RevokedTokenValidator(blacklistService, epochService);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void blacklistedTokenIdShouldBeRejected() {
+        Jwt token = jwt("jti-1", "alice", "web", Instant.now().minusSeconds(10));
+        assertThat(validator.validate(token).hasErrors()).isFalse();
+
+        blacklistService.blacklist("jti-1", Duration.ofMinutes(5));
+
+        assertThat(validator.validate(token).hasErrors()).isTrue();
+    }
+
+    @Test
+    void tokensIssuedBeforeUserOrClientEpochShouldBeRejected() throws Exception {
+        Jwt aliceOnWeb = jwt("jti-1", "alice", "web", Instant.now().minusSeconds(10));
+        Jwt aliceOnMobile = jwt("jti-2", "alice", "mobile", Instant.now().minusSeconds(10));
+        Jwt bobOnWeb = jwt("jti-3", "bob", "web", Instant.now().minusSeconds(10));
+
+        epochService.revokeUser("alice", "web");
+        assertThat(validator.validate(aliceOnWeb).hasErrors()).isTrue();
+        assertThat(validator.validate(aliceOnMobile).hasErrors()).isFalse();
+
+        epochService.revokeClient("web");
+        assertThat(validator.validate(bobOnWeb).hasErrors()).isTrue();
+
+        Thread.sleep(1_100);
+        Jwt reissued = jwt("jti-4", "bob", "web", Instant.now());
+        assertThat(validator.validate(reissued).hasErrors()).isFalse();
+    }
+
+    private static Jwt jwt(String tokenId, String subject, String clientId, Instant issuedAt) {
+        return Jwt.withTokenValue("token-" + tokenId)
+                .header("alg", "RS256")
+                .jti(tokenId)
+                .subject(subject)
+                .audience(List.of(clientId))
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(300))
+                .build();
+    }
+}
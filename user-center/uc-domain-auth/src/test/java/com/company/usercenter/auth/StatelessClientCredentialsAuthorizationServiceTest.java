@@ -0,0 +1,93 @@
+package com.company.usercenter.auth;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatelessClientCredentialsAuthorizationServiceTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final ClientApplicationServiceTest.TestRegisteredClientRepository clients =
+            new ClientApplicationServiceTest.TestRegisteredClientRepository();
+    private final StatelessClientCredentialsAuthorizationService service =
+            new StatelessClientCredentialsAuthorizationService(new EphemeralOAuth2AuthorizationService(store,
+                    clients, Duration.ofMinutes(10), Duration.ofDays(1)), clients);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void statelessClientCredentialsShouldNotBePersisted() {
+        RegisteredClient stateless = client("svc-1", true, OAuth2TokenFormat.SELF_CONTAINED);
+        clients.save(stateless);
+
+        service.save(authorization(stateless, AuthorizationGrantType.CLIENT_CREDENTIALS, "access-1"));
+
+        assertThat(service.skippedCount()).isEqualTo(1);
+        assertThat(store.size()).isZero();
+        assertThat(service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    }
+
+    @Test
+    void otherGrantsAndClientsShouldBeDelegated() {
+        RegisteredClient stateless = client("svc-1", true, OAuth2TokenFormat.SELF_CONTAINED);
+        RegisteredClient stateful = client("svc-2", false, OAuth2TokenFormat.SELF_CONTAINED);
+        RegisteredClient opaque = client("svc-3", true, OAuth2TokenFormat.REFERENCE);
+        clients.save(stateless);
+        clients.save(stateful);
+        clients.save(opaque);
+
+        service.save(authorization(stateless, AuthorizationGrantType.AUTHORIZATION_CODE, "access-1"));
+        service.save(authorization(stateful, AuthorizationGrantType.CLIENT_CREDENTIALS, "access-2"));
+        service.save(authorization(opaque, AuthorizationGrantType.CLIENT_CREDENTIALS, "access-3"));
+
+        assertThat(service.skippedCount()).isZero();
+        assertThat(service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+        assertThat(service.findByToken("access-2", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+        assertThat(service.findByToken("access-3", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+    }
+
+    private static RegisteredClient client(String clientId, boolean stateless, OAuth2TokenFormat format) {
+        return RegisteredClient.withId("id-" + clientId)
+                .clientId(clientId)
+                .clientSecret("{noop}secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("http://localhost/cb")
+                .scope("orders.read")
+                .tokenSettings(TokenSettings.builder().accessTokenFormat(format).build())
+                .clientSettings(ClientSettings.builder()
+                        .setting(StatelessClientCredentialsAuthorizationService.SETTING, stateless)
+                        .build())
+                .build();
+    }
+
+    private static OAuth2Authorization authorization(RegisteredClient client, AuthorizationGrantType grantType,
+                                                     String accessToken) {
+        Instant now = Instant.now();
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id("authz-" + accessToken)
+                .principalName(client.getClientId())
+                .authorizationGrantType(grantType)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken, now,
+                        now.plusSeconds(300)))
+                .build();
+    }
+}
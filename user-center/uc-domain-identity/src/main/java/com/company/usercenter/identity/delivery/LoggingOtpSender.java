@@ -0,0 +1,59 @@
+package com.company.usercenter.identity.delivery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 本地开发与测试用的投递渠道：日志中的验证码打码，明文只追加到可选的文件，不对外发送。
+ */
+public class LoggingOtpSender implements OtpSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingOtpSender.class);
+
+    private final String channel;
+    private final Path file;
+
+    public LoggingOtpSender(String channel) {
+        this(channel, null);
+    }
+
+    /**
+     * @param channel 渠道名
+     * @param file    追加写入的文件，每行 {@code channel receiver type code}；为 null 时只写日志
+     */
+    public LoggingOtpSender(String channel, Path file) {
+        this.channel = channel;
+        this.file = file;
+    }
+
+    @Override
+    public String channel() {
+        return channel;
+    }
+
+    @Override
+    public List<OtpMessage> send(List<OtpMessage> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OtpMessage message : batch) {
+            log.info("验证码投递 [{}] {} {}: {}", channel, message.receiver(), message.type(), mask(message.code()));
+            lines.append(channel).append(' ').append(message.receiver()).append(' ')
+                    .append(message.type()).append(' ').append(message.code()).append('\n');
+        }
+        if (file != null) {
+            Files.writeString(file, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return List.of();
+    }
+
+    private static String mask(String code) {
+        return code == null ? null : "*".repeat(code.length());
+    }
+}
@@ -0,0 +1,318 @@
+package com.company.usercenter.identity.delivery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 验证码异步投递管道：请求线程只负责入队，工作线程按渠道分批调用 {@link OtpSender}。
+ * <p>
+ * 队列有界，满时 {@link #submit(OtpMessage)} 直接返回 false，由调用方向客户端反馈繁忙，避免积压拖垮进程。
+ * 工作线程每次取出队列中已有的消息（最多 batchSize 条）一起发送，负载低时单条立即发送，负载高时自然成批。
+ * 发送失败按指数退避加随机抖动重试，达到最大次数后进入死信；验证码过期后不再投递。
+ */
+public class OtpDeliveryPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpDeliveryPipeline.class);
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * @param queueCapacity      待投递队列容量
+     * @param workers            工作线程数
+     * @param batchSize          单次调用渠道的最多消息数
+     * @param maxAttempts        每条消息最多发送次数（含首次）
+     * @param initialBackoff     首次重试等待时长，之后逐次翻倍
+     * @param maxBackoff         重试等待上限
+     * @param deadLetterCapacity 保留的最近死信条数
+     */
+    public record Settings(int queueCapacity,
+                           int workers,
+                           int batchSize,
+                           int maxAttempts,
+                           Duration initialBackoff,
+                           Duration maxBackoff,
+                           int deadLetterCapacity) {
+
+        public Settings {
+            if (queueCapacity <= 0 || workers <= 0 || batchSize <= 0 || maxAttempts <= 0 || deadLetterCapacity < 0) {
+                throw new IllegalArgumentException("队列容量、线程数、批大小与最大次数必须为正数");
+            }
+            if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+                throw new IllegalArgumentException("重试等待时长不合法");
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(10_000, 2, 50, 5, Duration.ofSeconds(1), Duration.ofSeconds(30), 1_000);
+        }
+    }
+
+    /**
+     * 最终投递失败的消息。
+     */
+    public record DeadLetter(OtpMessage message, int attempts, String reason, Instant failedAt) {
+    }
+
+    private record Delivery(OtpMessage message, int attempt) {
+    }
+
+    private final Map<String, OtpSender> senders;
+    private final Settings settings;
+    private final BlockingQueue<Delivery> queue;
+    private final ScheduledExecutorService retryScheduler;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder deadLetterCount = new LongAdder();
+    private volatile boolean closed;
+
+    public OtpDeliveryPipeline(Collection<? extends OtpSender> senders, Settings settings) {
+        Map<String, OtpSender> byChannel = new LinkedHashMap<>();
+        for (OtpSender sender : senders) {
+            if (byChannel.putIfAbsent(sender.channel(), sender) != null) {
+                throw new IllegalArgumentException("重复的验证码投递渠道: " + sender.channel());
+            }
+        }
+        this.senders = Map.copyOf(byChannel);
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-delivery-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < settings.workers(); i++) {
+            Thread worker = new Thread(this::workLoop, "otp-delivery-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * 提交一条消息，不等待发送；队列已满或管道已关闭时返回 false。
+     */
+    public boolean submit(OtpMessage message) {
+        if (!senders.containsKey(message.channel())) {
+            throw new IllegalArgumentException("未配置的验证码投递渠道: " + message.channel());
+        }
+        if (!closed && queue.offer(new Delivery(message, 1))) {
+            submittedCount.increment();
+            return true;
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 当前是否还能受理新消息；只是提示，随后的 {@link #submit} 仍可能因并发提交而被拒绝。
+     */
+    public boolean hasCapacity() {
+        return !closed && queue.remainingCapacity() > 0;
+    }
+
+    public boolean supports(String channel) {
+        return senders.containsKey(channel);
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    public long submittedCount() {
+        return submittedCount.sum();
+    }
+
+    /**
+     * 因队列已满或管道关闭而被拒绝的消息数。
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long sentCount() {
+        return sentCount.sum();
+    }
+
+    public long retriedCount() {
+        return retriedCount.sum();
+    }
+
+    /**
+     * 投递前验证码已过期而被丢弃的消息数。
+     */
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    public long deadLetterCount() {
+        return deadLetterCount.sum();
+    }
+
+    /**
+     * 最近的死信，按进入顺序排列。
+     */
+    public List<DeadLetter> deadLetters() {
+        synchronized (deadLetters) {
+            return List.copyOf(deadLetters);
+        }
+    }
+
+    /**
+     * 停止接收新消息，工作线程发送完队列中已有的消息后退出；等待中的重试不再执行。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        retryScheduler.shutdownNow();
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void workLoop() {
+        List<Delivery> batch = new ArrayList<>(settings.batchSize());
+        while (true) {
+            Delivery first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, settings.batchSize() - 1);
+            try {
+                dispatch(batch);
+            } catch (RuntimeException ex) {
+                log.error("验证码投递批次处理异常", ex);
+            }
+            batch.clear();
+        }
+    }
+
+    private void dispatch(List<Delivery> batch) {
+        Instant now = Instant.now();
+        Map<String, List<Delivery>> byChannel = new LinkedHashMap<>();
+        for (Delivery delivery : batch) {
+            if (isExpired(delivery.message(), now)) {
+                expiredCount.increment();
+                continue;
+            }
+            byChannel.computeIfAbsent(delivery.message().channel(), channel -> new ArrayList<>()).add(delivery);
+        }
+        for (Map.Entry<String, List<Delivery>> group : byChannel.entrySet()) {
+            send(senders.get(group.getKey()), group.getValue());
+        }
+    }
+
+    private void send(OtpSender sender, List<Delivery> deliveries) {
+        Map<OtpMessage, Delivery> byMessage = new IdentityHashMap<>();
+        List<OtpMessage> messages = new ArrayList<>(deliveries.size());
+        for (Delivery delivery : deliveries) {
+            byMessage.put(delivery.message(), delivery);
+            messages.add(delivery.message());
+        }
+        List<OtpMessage> failed;
+        String reason;
+        try {
+            failed = sender.send(messages);
+            reason = "渠道返回发送失败";
+        } catch (Exception ex) {
+            log.warn("验证码投递渠道 {} 发送失败: {}", sender.channel(), ex.getMessage());
+            failed = messages;
+            reason = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        }
+        sentCount.add(messages.size() - failed.size());
+        for (OtpMessage message : failed) {
+            Delivery delivery = byMessage.get(message);
+            if (delivery != null) {
+                retryOrDeadLetter(delivery, reason);
+            }
+        }
+    }
+
+    private void retryOrDeadLetter(Delivery delivery, String reason) {
+        if (delivery.attempt() >= settings.maxAttempts()) {
+            deadLetter(delivery, reason);
+            return;
+        }
+        Delivery next = new Delivery(delivery.message(), delivery.attempt() + 1);
+        retriedCount.increment();
+        try {
+            retryScheduler.schedule(() -> requeue(next, reason), backoffMillis(delivery.attempt()),
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException ex) {
+            deadLetter(delivery, "管道已关闭");
+        }
+    }
+
+    private void requeue(Delivery delivery, String reason) {
+        if (isExpired(delivery.message(), Instant.now())) {
+            expiredCount.increment();
+        } else if (!queue.offer(delivery)) {
+            deadLetter(delivery, "重试时队列已满，上次失败原因: " + reason);
+        }
+    }
+
+    /**
+     * 第 attempt 次失败后的等待时长：指数增长并封顶，再在 [一半, 全部] 之间随机，避免重试同时到达。
+     */
+    private long backoffMillis(int attempt) {
+        long initial = settings.initialBackoff().toMillis();
+        long cap = settings.maxBackoff().toMillis();
+        long backoff = Math.min(cap, initial << Math.min(attempt - 1, 30));
+        if (backoff <= 1) {
+            return backoff;
+        }
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private void deadLetter(Delivery delivery, String reason) {
+        log.warn("验证码投递最终失败 {}，已尝试 {} 次: {}", delivery.message(), delivery.attempt(), reason);
+        if (settings.deadLetterCapacity() > 0) {
+            synchronized (deadLetters) {
+                if (deadLetters.size() >= settings.deadLetterCapacity()) {
+                    deadLetters.removeFirst();
+                }
+                deadLetters.addLast(new DeadLetter(delivery.message(), delivery.attempt(), reason, Instant.now()));
+            }
+        }
+        deadLetterCount.increment();
+    }
+
+    private static boolean isExpired(OtpMessage message, Instant now) {
+        return message.expiresAt() != null && !message.expiresAt().isAfter(now);
+    }
+}
@@ -0,0 +1,29 @@
+package com.company.usercenter.identity.delivery;
+
+import java.time.Instant;
+
+/**
+ * 待投递的验证码消息。
+ *
+ * @param channel   投递渠道，如 {@code email}、{@code sms}，对应 {@link OtpSender#channel()}
+ * @param receiver  接收方地址
+ * @param type      验证码用途，如 {@code login}
+ * @param code      验证码明文
+ * @param expiresAt 验证码过期时刻，过期后不再投递
+ */
+public record OtpMessage(String channel, String receiver, String type, String code, Instant expiresAt) {
+
+    public OtpMessage {
+        if (channel == null || channel.isBlank() || receiver == null || receiver.isBlank()) {
+            throw new IllegalArgumentException("投递渠道与接收方不能为空");
+        }
+    }
+
+    /**
+     * 不输出验证码明文，避免日志泄露。
+     */
+    @Override
+    public String toString() {
+        return "OtpMessage[channel=" + channel + ", receiver=" + receiver + ", type=" + type + "]";
+    }
+}
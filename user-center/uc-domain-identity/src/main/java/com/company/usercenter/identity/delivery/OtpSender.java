@@ -0,0 +1,21 @@
+package com.company.usercenter.identity.delivery;
+
+import java.util.List;
+
+/**
+ * 验证码投递渠道，由 {@link OtpDeliveryPipeline} 的工作线程按渠道分批调用。
+ * <p>
+ * 实现应支持一次请求发送多条（如邮件服务的批量接口），不支持时逐条发送即可。
+ */
+public interface OtpSender {
+
+    /**
+     * 渠道名，与 {@link OtpMessage#channel()} 对应。
+     */
+    String channel();
+
+    /**
+     * 发送一批消息，返回发送失败、需要重试的消息；抛出异常视为整批失败。
+     */
+    List<OtpMessage> send(List<OtpMessage> batch) throws Exception;
+}
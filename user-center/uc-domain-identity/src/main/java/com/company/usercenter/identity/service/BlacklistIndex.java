@@ -0,0 +1,27 @@
+package com.company.usercenter.identity.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 黑名单共享索引：记录集群内所有未过期的黑名单 token 及其过期时刻，
+ * 供各节点启动时重建本地过滤器，并在其他节点写入时收到通知。
+ */
+public interface BlacklistIndex {
+
+    /**
+     * 登记黑名单 token 并通知其他节点。
+     */
+    void add(String tokenId, Instant expireAt);
+
+    /**
+     * 读取 now 之后仍有效的全部黑名单 token。
+     */
+    Map<String, Instant> loadActive(Instant now);
+
+    /**
+     * 订阅其他节点登记的黑名单 token。
+     */
+    void subscribe(BiConsumer<String, Instant> listener);
+}
@@ -0,0 +1,152 @@
+package com.company.usercenter.identity.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按过期时间分代的布隆过滤器：元素按过期时刻落入对应时间桶的子过滤器，
+ * 整个时间桶过期后整体丢弃，元素随 TTL 自然老化，无需逐个删除（因此不需要计数型布隆）。
+ * <p>
+ * 只会误报不会漏报：{@link #mightContain(String)} 返回 false 时元素一定未被加入（或已过期）。
+ */
+public class GenerationalBloomFilter {
+
+    private static final class Generation {
+        final AtomicLongArray bits;
+        final long bitCount;
+
+        Generation(long bitCount) {
+            this.bitCount = bitCount;
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        }
+
+        void set(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+
+        boolean get(long index) {
+            return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+        }
+    }
+
+    private final long bucketMillis;
+    private final long bitsPerGeneration;
+    private final int hashFunctions;
+    private final ConcurrentSkipListMap<Long, Generation> generations = new ConcurrentSkipListMap<>();
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * @param bucketDuration          每代覆盖的过期时间跨度
+     * @param expectedPerGeneration   每代预期元素数量
+     * @param falsePositiveRate       每代目标误报率
+     */
+    public GenerationalBloomFilter(Duration bucketDuration, int expectedPerGeneration, double falsePositiveRate) {
+        if (bucketDuration.toMillis() <= 0 || expectedPerGeneration <= 0
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数不合法");
+        }
+        this.bucketMillis = bucketDuration.toMillis();
+        double ln2 = Math.log(2);
+        this.bitsPerGeneration = Math.max(64,
+                (long) Math.ceil(-expectedPerGeneration * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / expectedPerGeneration * ln2));
+    }
+
+    /**
+     * 加入元素，expireAt 之前查询均返回“可能存在”。
+     */
+    public void put(String element, Instant expireAt) {
+        long bucket = Math.floorDiv(expireAt.toEpochMilli(), bucketMillis);
+        Generation generation = generations.computeIfAbsent(bucket, b -> new Generation(bitsPerGeneration));
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            generation.set(index(h1 + i * h2, generation.bitCount));
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(String element) {
+        return mightContain(element, Instant.now());
+    }
+
+    boolean mightContain(String element, Instant now) {
+        long currentBucket = Math.floorDiv(now.toEpochMilli(), bucketMillis);
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (Generation generation : generations.tailMap(currentBucket, true).values()) {
+            boolean all = true;
+            for (int i = 1; i <= hashFunctions && all; i++) {
+                all = generation.get(index(h1 + i * h2, generation.bitCount));
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 丢弃所有已整体过期的代，返回丢弃数量。
+     */
+    public int purgeExpired(Instant now) {
+        long currentBucket = Math.floorDiv(now.toEpochMilli(), bucketMillis);
+        Map<Long, Generation> expired = generations.headMap(currentBucket, false);
+        int count = expired.size();
+        expired.clear();
+        return count;
+    }
+
+    public int generationCount() {
+        return generations.size();
+    }
+
+    /**
+     * 累计加入次数（含重复加入与已过期代中的元素）。
+     */
+    public long insertionCount() {
+        return insertions.sum();
+    }
+
+    /**
+     * 每代占用的位数。
+     */
+    public long bitsPerGeneration() {
+        return bitsPerGeneration;
+    }
+
+    private static long index(int combinedHash, long bitCount) {
+        return (combinedHash & 0x7fffffffL) % bitCount;
+    }
+
+    /**
+     * 64 位 FNV-1a 后接 murmur3 finalizer，拆成两个 32 位哈希做双重哈希。
+     */
+    private static long hash(String element) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < element.length(); i++) {
+            h ^= element.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,39 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 验证码发送限流：分别按接收方与客户端 IP 限制发送频率，防止脚本无限生成验证码。
+ * <p>
+ * 计数全部落在短期存储（Redis 或内存降级），拒绝路径不访问数据库。
+ */
+@Service
+public class OtpRateLimiter {
+
+    private final SlidingWindowRateLimiter byClientIp;
+    private final SlidingWindowRateLimiter byReceiver;
+
+    public OtpRateLimiter(EphemeralKeyValueStore store,
+                          @Value("${otp.rate-limit.receiver.limit:5}") int receiverLimit,
+                          @Value("${otp.rate-limit.receiver.window:10m}") Duration receiverWindow,
+                          @Value("${otp.rate-limit.client-ip.limit:30}") int clientIpLimit,
+                          @Value("${otp.rate-limit.client-ip.window:10m}") Duration clientIpWindow) {
+        this.byReceiver = new SlidingWindowRateLimiter(store, "otp:receiver", receiverLimit, receiverWindow);
+        this.byClientIp = new SlidingWindowRateLimiter(store, "otp:ip", clientIpLimit, clientIpWindow);
+    }
+
+    /**
+     * 先检查 IP，IP 已超限时不再占用接收方配额；clientIp 为空时只按接收方限流。
+     */
+    public boolean tryAcquire(String receiver, String clientIp) {
+        if (clientIp != null && !clientIp.isBlank() && !byClientIp.tryAcquire(clientIp)) {
+            return false;
+        }
+        return byReceiver.tryAcquire(receiver.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,176 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.BoundedLocalCache;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * token 校验路径上的本地吊销缓存：缓存黑名单与吊销纪元键的查询结果（含“不存在”），使绝大多数请求不访问存储。
+ * <p>
+ * 条目在 ttl 内直接使用；超过 ttl 但未超过 ttl + maxStale 时先返回旧值，再由后台线程刷新，
+ * 请求线程不等待存储。吊销写入经 {@link InvalidationBus} 通知各节点立即丢弃对应条目，
+ * 通知丢失时旧值最多保留 ttl + maxStale。条目存放在 {@link BoundedLocalCache} 中，
+ * 回源期间若发生过失效，回源结果不写入缓存。
+ */
+public class RevocationCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationCache.class);
+    private static final String ABSENT = new String("<absent>");
+
+    private record Cached(String value, long loadedAtNanos) {
+    }
+
+    private final EphemeralKeyValueStore store;
+    private final InvalidationBus invalidationBus;
+    private final long ttlNanos;
+    private final long staleLimitNanos;
+    private final BoundedLocalCache<String, Cached> cache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param store           黑名单与吊销纪元所在的存储
+     * @param invalidationBus 吊销变更通知通道，单节点部署可用 {@link InvalidationBus#NOOP}
+     * @param ttl             条目新鲜期
+     * @param maxStale        新鲜期之后仍可先返回旧值、后台刷新的时长，为 0 时过期即同步回源
+     * @param maxEntries      本地最多缓存条目数
+     */
+    public RevocationCache(EphemeralKeyValueStore store, InvalidationBus invalidationBus, Duration ttl,
+                           Duration maxStale, int maxEntries) {
+        if (ttl.isNegative() || ttl.isZero() || maxStale.isNegative() || maxEntries <= 0) {
+            throw new IllegalArgumentException("ttl 与 maxEntries 必须为正数，maxStale 不能为负数");
+        }
+        this.store = store;
+        this.invalidationBus = invalidationBus;
+        this.ttlNanos = ttl.toNanos();
+        this.staleLimitNanos = ttl.plus(maxStale).toNanos();
+        this.cache = new BoundedLocalCache<>(maxEntries);
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "revocation-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        invalidationBus.subscribe(this::invalidateLocal);
+    }
+
+    /**
+     * 批量读取，仅返回存在的键；未缓存或已超过可容忍旧值期限的键合并为一次存储读取。
+     */
+    public Map<String, String> getAll(List<String> keys) {
+        long now = System.nanoTime();
+        Map<String, String> result = new LinkedHashMap<>();
+        List<String> missing = null;
+        for (String key : keys) {
+            Cached cached = cache.get(key);
+            long age = cached == null ? Long.MAX_VALUE : now - cached.loadedAtNanos();
+            if (age < ttlNanos) {
+                hitCount.increment();
+            } else if (age < staleLimitNanos) {
+                staleHitCount.increment();
+                refreshAsync(key);
+            } else {
+                if (missing == null) {
+                    missing = new ArrayList<>(keys.size());
+                }
+                missing.add(key);
+                continue;
+            }
+            if (cached.value() != ABSENT) {
+                result.put(key, cached.value());
+            }
+        }
+        if (missing != null) {
+            missCount.add(missing.size());
+            long seq = cache.sequence();
+            Map<String, String> fetched = store.multiGet(missing);
+            for (String key : missing) {
+                populate(key, fetched.get(key), seq);
+            }
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
+    /**
+     * 丢弃本地条目并通知其他节点；在吊销写入存储之后调用。
+     */
+    public void invalidate(Collection<String> keys) {
+        invalidateLocal(keys);
+        try {
+            invalidationBus.publish(keys);
+        } catch (RuntimeException ex) {
+            log.warn("吊销变更通知发送失败，其他节点最多延迟 {} ms 生效: {}",
+                    staleLimitNanos / 1_000_000, ex.getMessage());
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 返回旧值并触发后台刷新的次数。
+     */
+    public long staleHitCount() {
+        return staleHitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private void invalidateLocal(Collection<String> keys) {
+        cache.invalidate(keys);
+    }
+
+    private void refreshAsync(String key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    long seq = cache.sequence();
+                    populate(key, store.get(key).orElse(null), seq);
+                } catch (RuntimeException ex) {
+                    log.debug("吊销缓存后台刷新失败 {}: {}", key, ex.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void populate(String key, String value, long seq) {
+        cache.putIfUnchanged(key, new Cached(value == null ? ABSENT : value, System.nanoTime()), seq);
+    }
+}
@@ -0,0 +1,150 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 按用户与客户端的吊销纪元：记录“此刻之前签发的 token 全部失效”的时刻，校验时与 token 的 iat 比较。
+ * <p>
+ * “全部设备退出”或禁用用户只需写入一个键，无需枚举该用户的所有 jti；单个 token 的吊销仍使用
+ * {@link SessionBlacklistService}。纪元键保留 token 最长有效期，过后其之前签发的 token 已自然过期；
+ * 该有效期须覆盖刷新令牌（默认 30 天），刷新授权同样按纪元拒绝。
+ * <p>
+ * 配置了 {@link RevocationCache} 时校验优先使用本地缓存，吊销后通知各节点丢弃缓存。
+ * <p>
+ * 纪元按毫秒记录而 iat 精确到秒，吊销所在那一秒内新签发的 token 同样视为已吊销，宁可多拒绝一次也不放过旧 token。
+ */
+@Service
+public class RevocationEpochService {
+
+    private static final String KEY_PREFIX = "blacklist:epoch:";
+
+    private final EphemeralKeyValueStore store;
+    private final Duration maxTokenLifetime;
+    private final RevocationCache cache;
+
+    public RevocationEpochService(EphemeralKeyValueStore store, Duration maxTokenLifetime) {
+        this(store, maxTokenLifetime, Optional.empty());
+    }
+
+    @Autowired
+    public RevocationEpochService(EphemeralKeyValueStore store,
+                                  @Value("${session-revocation.max-token-lifetime:30d}") Duration maxTokenLifetime,
+                                  Optional<RevocationCache> cache) {
+        if (maxTokenLifetime.isNegative() || maxTokenLifetime.isZero()) {
+            throw new IllegalArgumentException("session-revocation.max-token-lifetime 必须为正数");
+        }
+        this.store = store;
+        this.maxTokenLifetime = maxTokenLifetime;
+        this.cache = cache.orElse(null);
+    }
+
+    /**
+     * 纪元键的保留时长，即受纪元约束的 token 最长有效期。
+     */
+    public Duration maxTokenLifetime() {
+        return maxTokenLifetime;
+    }
+
+    /**
+     * 吊销用户此前签发的全部 token，返回生效的纪元。
+     */
+    public Instant revokeUser(String subject) {
+        return advance(userKey(subject));
+    }
+
+    /**
+     * 吊销用户在指定客户端上此前签发的 token，如单个应用内的“退出登录”。
+     */
+    public Instant revokeUser(String subject, String clientId) {
+        return advance(userClientKey(subject, clientId));
+    }
+
+    /**
+     * 吊销客户端此前签发的全部 token，如客户端密钥泄露。
+     */
+    public Instant revokeClient(String clientId) {
+        return advance(clientKey(clientId));
+    }
+
+    /**
+     * token 是否因纪元而失效；subject 或 clientId 为空时跳过对应维度，一次批量读取完成。
+     */
+    public boolean isRevoked(String subject, String clientId, Instant issuedAt) {
+        List<String> keys = keysFor(subject, clientId);
+        if (keys.isEmpty()) {
+            return false;
+        }
+        return isBefore(issuedAt, cache != null ? cache.getAll(keys) : store.multiGet(keys));
+    }
+
+    /**
+     * 纪元只前进不后退：由存储原子地取较大值写入，多个节点同时吊销或节点时钟偏差时较早的纪元不会覆盖较晚的纪元。
+     */
+    private Instant advance(String key) {
+        long epoch = store.maxAndGet(key, System.currentTimeMillis(), maxTokenLifetime);
+        if (cache != null) {
+            cache.invalidate(List.of(key));
+        }
+        return Instant.ofEpochMilli(epoch);
+    }
+
+    private static boolean isBefore(Instant issuedAt, Map<String, String> epochs) {
+        if (epochs.isEmpty()) {
+            return false;
+        }
+        if (issuedAt == null) {
+            return true;
+        }
+        long issuedAtMillis = issuedAt.toEpochMilli();
+        for (String epoch : epochs.values()) {
+            if (issuedAtMillis < parseEpoch(epoch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long parseEpoch(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static List<String> keysFor(String subject, String clientId) {
+        List<String> keys = new ArrayList<>(3);
+        if (subject != null) {
+            keys.add(userKey(subject));
+        }
+        if (clientId != null) {
+            keys.add(clientKey(clientId));
+        }
+        if (subject != null && clientId != null) {
+            keys.add(userClientKey(subject, clientId));
+        }
+        return keys;
+    }
+
+    private static String userKey(String subject) {
+        return KEY_PREFIX + "user:" + subject;
+    }
+
+    private static String clientKey(String clientId) {
+        return KEY_PREFIX + "client:" + clientId;
+    }
+
+    private static String userClientKey(String subject, String clientId) {
+        return KEY_PREFIX + "client-user:" + clientId + ":" + subject;
+    }
+}
@@ -0,0 +1,148 @@
+package com.company.usercenter.identity.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 黑名单本地过滤器：绝大多数“未拉黑”判断直接在内存中给出，只有可能命中时才查询存储。
+ * <p>
+ * 启动时从 {@link BlacklistIndex} 全量重建，之后靠写入通知增量同步，并按 resyncInterval 周期性全量补齐，
+ * 弥补通知丢失。首次重建成功前过滤器不生效，所有查询都回到存储，保证不漏判；
+ * 距上次成功补齐超过 maxStaleness 时同样回到存储，丢失通知造成的漏判不会超过该时长。
+ */
+public class SessionBlacklistFilter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionBlacklistFilter.class);
+
+    private final GenerationalBloomFilter filter;
+    private final BlacklistIndex index;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder filteredCount = new LongAdder();
+    private final LongAdder passedCount = new LongAdder();
+    private final Duration maxStaleness;
+    private volatile boolean ready;
+    private volatile Instant syncedAt;
+
+    /**
+     * @param resyncInterval 全量补齐周期，为 null 时只在构造时重建一次
+     * @param maxStaleness   距上次成功补齐的最长可信时长，为 null 时不限制；不能小于 resyncInterval
+     */
+    public SessionBlacklistFilter(GenerationalBloomFilter filter, BlacklistIndex index, Duration resyncInterval,
+                                  Duration maxStaleness) {
+        this(filter, index, resyncInterval, maxStaleness, Clock.systemUTC());
+    }
+
+    SessionBlacklistFilter(GenerationalBloomFilter filter, BlacklistIndex index, Duration resyncInterval,
+                           Duration maxStaleness, Clock clock) {
+        if (maxStaleness != null && (resyncInterval == null || resyncInterval.compareTo(maxStaleness) > 0)) {
+            throw new IllegalArgumentException("resyncInterval 不能为空且不能大于 maxStaleness");
+        }
+        this.filter = filter;
+        this.index = index;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+        index.subscribe(filter::put);
+        rebuild();
+        if (resyncInterval == null) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-blacklist-resync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1, resyncInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::rebuild, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从共享索引补齐过滤器并丢弃已过期的代；只增不减，与并发收到的通知互不覆盖。
+     * 返回是否成功。
+     */
+    public boolean rebuild() {
+        Instant now = clock.instant();
+        try {
+            Map<String, Instant> active = index.loadActive(now);
+            active.forEach(filter::put);
+            filter.purgeExpired(now);
+            if (!ready) {
+                log.info("会话黑名单过滤器已就绪: {} 条", active.size());
+            }
+            syncedAt = now;
+            ready = true;
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("会话黑名单过滤器同步失败，{}: {}", ready ? "沿用当前内容" : "暂不启用", ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 本节点拉黑 token：先写本地过滤器，再登记共享索引；索引失败只影响其他节点，由存储兜底。
+     */
+    public void record(String tokenId, Instant expireAt) {
+        filter.put(tokenId, expireAt);
+        try {
+            index.add(tokenId, expireAt);
+        } catch (RuntimeException ex) {
+            log.warn("黑名单索引登记失败，其他节点将在下次同步前回查存储: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 返回 false 时 token 一定未被拉黑；未就绪或补齐已过期时总是返回 true。
+     */
+    public boolean mightBeBlacklisted(String tokenId) {
+        Instant now = clock.instant();
+        if (isFresh(now) && !filter.mightContain(tokenId, now)) {
+            filteredCount.increment();
+            return false;
+        }
+        passedCount.increment();
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private boolean isFresh(Instant now) {
+        return ready && (maxStaleness == null || now.isBefore(syncedAt.plus(maxStaleness)));
+    }
+
+    /**
+     * 由过滤器直接判定未拉黑、省去存储查询的次数。
+     */
+    public long filteredCount() {
+        return filteredCount.sum();
+    }
+
+    /**
+     * 需要回查存储的次数（可能命中、过滤器未就绪或补齐已过期）。
+     */
+    public long passedCount() {
+        return passedCount.sum();
+    }
+
+    public int generationCount() {
+        return filter.generationCount();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
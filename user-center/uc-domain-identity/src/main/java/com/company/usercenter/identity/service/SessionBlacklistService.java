@@ -1,20 +1,41 @@
 package com.company.usercenter.identity.service;
 
 import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * 会话黑名单服务，可用于注销 token 后的快速校验。
+ * <p>
+ * 配置了 {@link SessionBlacklistFilter} 时，过滤器判定未拉黑的查询不再访问存储；
+ * 配置了 {@link RevocationCache} 时，其余查询优先使用本地缓存，拉黑后通知各节点丢弃缓存。
  */
 @Service
 public class SessionBlacklistService {
 
     private final EphemeralKeyValueStore store;
+    private final SessionBlacklistFilter filter;
+    private final RevocationCache cache;
 
     public SessionBlacklistService(EphemeralKeyValueStore store) {
+        this(store, Optional.empty());
+    }
+
+    public SessionBlacklistService(EphemeralKeyValueStore store, Optional<SessionBlacklistFilter> filter) {
+        this(store, filter, Optional.empty());
+    }
+
+    @Autowired
+    public SessionBlacklistService(EphemeralKeyValueStore store, Optional<SessionBlacklistFilter> filter,
+                                   Optional<RevocationCache> cache) {
         this.store = store;
+        this.filter = filter.orElse(null);
+        this.cache = cache.orElse(null);
     }
 
     /**
@@ -22,13 +43,26 @@ public class SessionBlacklistService {
      */
     public void blacklist(String tokenId, Duration ttl) {
         store.put(blacklistKey(tokenId), "1", ttl);
+        if (filter != null) {
+            filter.record(tokenId, Instant.now().plus(ttl));
+        }
+        if (cache != null) {
+            cache.invalidate(List.of(blacklistKey(tokenId)));
+        }
     }
 
     /**
      * 判断是否在黑名单中。
      */
     public boolean isBlacklisted(String tokenId) {
-        return store.get(blacklistKey(tokenId)).isPresent();
+        if (filter != null && !filter.mightBeBlacklisted(tokenId)) {
+            return false;
+        }
+        String key = blacklistKey(tokenId);
+        if (cache != null) {
+            return cache.getAll(List.of(key)).containsKey(key);
+        }
+        return store.get(key).isPresent();
     }
 
     private String blacklistKey(String tokenId) {
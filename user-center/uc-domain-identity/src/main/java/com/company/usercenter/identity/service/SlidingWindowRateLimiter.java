@@ -0,0 +1,52 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * 基于短期存储计数的滑动窗口限流器（两个固定窗口按时间加权近似）。
+ * <p>
+ * 每次请求只对当前窗口计数自增一次；当前窗口已超限时直接拒绝，不再读取上一窗口，
+ * 因此洪峰下的拒绝只花费一次原子计数。
+ */
+public class SlidingWindowRateLimiter {
+
+    private final EphemeralKeyValueStore store;
+    private final String keyPrefix;
+    private final int limit;
+    private final long windowMillis;
+    private final Clock clock;
+
+    public SlidingWindowRateLimiter(EphemeralKeyValueStore store, String name, int limit, Duration window) {
+        this(store, name, limit, window, Clock.systemUTC());
+    }
+
+    SlidingWindowRateLimiter(EphemeralKeyValueStore store, String name, int limit, Duration window, Clock clock) {
+        if (limit <= 0 || window.toMillis() <= 0) {
+            throw new IllegalArgumentException("限流阈值与窗口必须为正数: " + name);
+        }
+        this.store = store;
+        this.keyPrefix = "ratelimit:" + name + ":";
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * 记录一次请求，窗口内（含本次）加权请求数不超过阈值时返回 true。
+     */
+    public boolean tryAcquire(String subject) {
+        long now = clock.millis();
+        long windowIndex = now / windowMillis;
+        String subjectPrefix = keyPrefix + subject + ":";
+        long current = store.incrementAndGet(subjectPrefix + windowIndex, Duration.ofMillis(windowMillis * 2));
+        if (current > limit) {
+            return false;
+        }
+        long previous = store.get(subjectPrefix + (windowIndex - 1)).map(Long::parseLong).orElse(0L);
+        double previousWeight = 1 - (double) (now % windowMillis) / windowMillis;
+        return previous * previousWeight + current <= limit;
+    }
+}
@@ -26,16 +26,10 @@ public class StateTokenService {
     }
 
     /**
-     * 校验并消费 state/nonce，成功返回 true。
+     * 校验并消费 state/nonce，成功返回 true；原子读取并删除，并发请求至多一个成功。
      */
     public boolean consume(String category, String token) {
-        String key = buildKey(category, token);
-        return store.get(key)
-                .map(v -> {
-                    store.delete(key);
-                    return true;
-                })
-                .orElse(false);
+        return store.getAndDelete(buildKey(category, token)).isPresent();
     }
 
     private String buildKey(String category, String token) {
@@ -1,53 +1,82 @@
 package com.company.usercenter.identity.service;
 
+import com.company.usercenter.identity.store.CodeCheck;
 import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.OneTimeCode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.util.Locale;
-import java.util.Objects;
 import java.util.Random;
 
 /**
  * 验证码服务：生成、缓存与校验，默认存储于 Redis，Redis 不可用时自动回退内存。
+ * <p>
+ * 验证码以 {@link OneTimeCode} 保存并记录失败次数，校验一次往返完成，连续失败达到上限后验证码作废，防止暴力枚举。
  */
 @Service
 public class VerificationCodeService {
 
     private static final Random RANDOM = new SecureRandom();
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
 
     private final EphemeralKeyValueStore store;
     private final String fixedCode;
+    private final int maxAttempts;
 
+    public VerificationCodeService(EphemeralKeyValueStore store, String fixedCode) {
+        this(store, fixedCode, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    @Autowired
     public VerificationCodeService(EphemeralKeyValueStore store,
-                                   @org.springframework.beans.factory.annotation.Value("${otp.fixed-code:}") String fixedCode) {
+                                   @org.springframework.beans.factory.annotation.Value("${otp.fixed-code:}") String fixedCode,
+                                   @org.springframework.beans.factory.annotation.Value("${otp.max-attempts:5}") int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("otp.max-attempts 必须为正数");
+        }
         this.store = store;
         this.fixedCode = fixedCode;
+        this.maxAttempts = maxAttempts;
     }
 
     /**
      * 生成指定长度的数字验证码并缓存，返回生成结果（便于测试或调用方发送）。
      */
     public String issueCode(String receiver, String type, int length, Duration ttl) {
-        String code = (fixedCode != null && !fixedCode.isBlank()) ? fixedCode : randomDigits(length);
-        String key = otpKey(receiver, type);
-        store.put(key, code, ttl);
+        String code = generateCode(length);
+        storeCode(receiver, type, code, ttl);
         return code;
     }
 
     /**
-     * 校验验证码，成功后删除，失败则返回 false。
+     * 只生成验证码、不写入存储；调用方确认可以发送后再 {@link #storeCode}，发送失败时之前的验证码仍然有效。
+     */
+    public String generateCode(int length) {
+        return (fixedCode != null && !fixedCode.isBlank()) ? fixedCode : randomDigits(length);
+    }
+
+    /**
+     * 写入验证码，覆盖该接收方之前的验证码并重置失败次数。
+     */
+    public void storeCode(String receiver, String type, String code, Duration ttl) {
+        store.put(otpKey(receiver, type), OneTimeCode.issue(code, ttl).encode(), ttl);
+    }
+
+    /**
+     * 校验验证码，匹配时原子删除并返回 true，不匹配、已作废或已过期返回 false。
      */
     public boolean verify(String receiver, String type, String code) {
-        String key = otpKey(receiver, type);
-        return store.get(key)
-                .filter(cached -> Objects.equals(cached, code))
-                .map(match -> {
-                    store.delete(key);
-                    return true;
-                })
-                .orElse(false);
+        return check(receiver, type, code) == CodeCheck.MATCHED;
+    }
+
+    /**
+     * 校验验证码并返回详细结果，调用方可据此提示“验证码错误”或“请重新获取”。
+     */
+    public CodeCheck check(String receiver, String type, String code) {
+        return store.checkCode(otpKey(receiver, type), code, maxAttempts);
     }
 
     private String otpKey(String receiver, String type) {
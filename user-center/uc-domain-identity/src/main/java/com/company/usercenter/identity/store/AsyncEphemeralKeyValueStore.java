@@ -0,0 +1,37 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link EphemeralKeyValueStore} 的异步版本，返回 {@link CompletableFuture}，不阻塞调用线程。
+ * <p>
+ * 调用方可以先发出存储请求，再执行数据库等其他 I/O，最后合并结果，把两次往返重叠起来。
+ * 各方法语义与同步接口一致。
+ */
+public interface AsyncEphemeralKeyValueStore {
+
+    CompletableFuture<Void> put(String key, String value, Duration ttl);
+
+    CompletableFuture<Optional<String>> get(String key);
+
+    CompletableFuture<Void> delete(String key);
+
+    CompletableFuture<Optional<String>> getAndDelete(String key);
+
+    CompletableFuture<Boolean> consumeIfMatches(String key, String expected);
+
+    CompletableFuture<Long> incrementAndGet(String key, Duration ttl);
+
+    CompletableFuture<Map<String, String>> multiGet(Collection<String> keys);
+
+    /**
+     * 把同步存储包装为异步接口：在调用线程上直接执行并返回已完成的 future，适用于内存实现。
+     */
+    static AsyncEphemeralKeyValueStore of(EphemeralKeyValueStore store) {
+        return new CompletedAsyncKeyValueStore(store);
+    }
+}
@@ -0,0 +1,657 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有容量上限的内存短期存储，防止 Redis 故障期间验证码洪峰把降级存储撑爆。
+ * <p>
+ * 同时限制条目数与估算字节数；每个键前缀（{@code otp:}、{@code state:}、{@code blacklist:}）
+ * 拥有独立配额与分段 LRU（试用段 + 保护段），某一类键暴涨只会挤掉同类键。
+ * 淘汰时优先移除已过期条目，其次在试用段最久未访问的若干候选中选择最接近过期的条目。
+ * <p>
+ * 键按哈希分布到若干条带，每个条带独立加锁并按比例分得全局与各命名空间配额，
+ * 不同键的操作在多核下互不阻塞；条带数为 1 时配额精确，条带越多配额越近似（取决于键的哈希分布）。
+ * <p>
+ * 不可淘汰的命名空间（默认配置中的 {@code blacklist:}，含吊销纪元键）只清理已过期条目：
+ * 配额已满时拒绝写入并抛出 {@link IllegalStateException}、计入 {@link #rejectedCount()}，
+ * 全局容量不足时也只淘汰其他命名空间，不会因容量压力悄悄“解封”已吊销的令牌。
+ */
+public class BoundedKeyValueStore implements EphemeralKeyValueStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedKeyValueStore.class);
+
+    /** 单条目的固定开销估算（对象头、引用、时间轮链表指针等）。 */
+    static final int ENTRY_OVERHEAD_BYTES = 96;
+    /** 淘汰时在 LRU 端采样的候选数量。 */
+    private static final int EVICTION_SAMPLE = 8;
+    /** 保护段占命名空间条目配额的比例。 */
+    private static final double PROTECTED_RATIO = 0.8;
+
+    /**
+     * 命名空间配额，按键前缀匹配。
+     *
+     * @param evictable 为 false 时只清理已过期条目，配额已满时拒绝写入
+     */
+    public record NamespaceQuota(String prefix, int maxEntries, long maxBytes, boolean evictable) {
+        public NamespaceQuota {
+            if (prefix == null || prefix.isEmpty()) {
+                throw new IllegalArgumentException("prefix 不能为空");
+            }
+            if (maxEntries <= 0 || maxBytes <= 0) {
+                throw new IllegalArgumentException("配额必须为正数: " + prefix);
+            }
+        }
+
+        public NamespaceQuota(String prefix, int maxEntries, long maxBytes) {
+            this(prefix, maxEntries, maxBytes, true);
+        }
+    }
+
+    /**
+     * 命名空间当前占用，默认命名空间的 prefix 为空串。
+     */
+    public record NamespaceUsage(String prefix, int entries, long bytes) {
+    }
+
+    private final class Node extends TimingWheel.Timeout {
+        final String key;
+        final String value;
+        final long weight;
+        final Namespace namespace;
+        boolean protectedSegment;
+
+        Node(String key, String value, long deadlineNanos, Namespace namespace) {
+            super(deadlineNanos);
+            this.key = key;
+            this.value = value;
+            this.weight = weigh(key, value);
+            this.namespace = namespace;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return deadlineNanos - nowNanos <= 0;
+        }
+
+        @Override
+        void expire() {
+            Stripe stripe = namespace.stripe;
+            stripe.lock.lock();
+            try {
+                if (stripe.index.get(key) == this) {
+                    stripe.removeNode(this);
+                    expiredCount.increment();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private static final class Namespace {
+        final Stripe stripe;
+        final String prefix;
+        final int maxEntries;
+        final long maxBytes;
+        final int maxProtected;
+        final boolean evictable;
+        final LinkedHashMap<String, Node> probation = new LinkedHashMap<>();
+        final LinkedHashMap<String, Node> protectedSegment = new LinkedHashMap<>();
+        long bytes;
+
+        Namespace(Stripe stripe, String prefix, int maxEntries, long maxBytes, boolean evictable) {
+            this.stripe = stripe;
+            this.prefix = prefix;
+            this.evictable = evictable;
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            this.maxProtected = Math.max(1, (int) (maxEntries * PROTECTED_RATIO));
+        }
+
+        int size() {
+            return probation.size() + protectedSegment.size();
+        }
+
+        boolean overQuota() {
+            return size() > maxEntries || bytes > maxBytes;
+        }
+
+        double usage() {
+            return Math.max((double) size() / maxEntries, (double) bytes / maxBytes);
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final TimingWheel wheel = new TimingWheel("bounded-store-expiry", Duration.ofSeconds(1), 512);
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private volatile EphemeralStoreListener listener = EphemeralStoreListener.NOOP;
+
+    /**
+     * 单条带，配额精确。
+     *
+     * @param maxEntries 全局条目上限
+     * @param maxBytes   全局估算字节上限
+     * @param quotas     各命名空间配额，未匹配前缀的键共享全局配额
+     */
+    public BoundedKeyValueStore(int maxEntries, long maxBytes, List<NamespaceQuota> quotas) {
+        this(1, maxEntries, maxBytes, quotas);
+    }
+
+    /**
+     * @param stripeCount 条带数，向上取整为 2 的幂，建议不少于 CPU 核数
+     * @param maxEntries  全局条目上限
+     * @param maxBytes    全局估算字节上限
+     * @param quotas      各命名空间配额，未匹配前缀的键共享全局配额
+     */
+    public BoundedKeyValueStore(int stripeCount, int maxEntries, long maxBytes, List<NamespaceQuota> quotas) {
+        if (stripeCount <= 0 || maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("条带数与容量上限必须为正数");
+        }
+        int count = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(share(maxEntries, count), share(maxBytes, count), quotas, count);
+        }
+    }
+
+    /**
+     * 按默认比例拆分配额：黑名单 50%、验证码 30%、state 20%。
+     * 黑名单被挤出等同于令牌被“解封”，因此分配最多份额且不可淘汰。
+     */
+    public static BoundedKeyValueStore withDefaultQuotas(int maxEntries, long maxBytes) {
+        return withDefaultQuotas(1, maxEntries, maxBytes);
+    }
+
+    /**
+     * 默认配额比例，按 {@code stripeCount} 个条带分段加锁。
+     */
+    public static BoundedKeyValueStore withDefaultQuotas(int stripeCount, int maxEntries, long maxBytes) {
+        return new BoundedKeyValueStore(stripeCount, maxEntries, maxBytes, List.of(
+                quota("blacklist:", maxEntries, maxBytes, 0.5, false),
+                quota("otp:", maxEntries, maxBytes, 0.3, true),
+                quota("state:", maxEntries, maxBytes, 0.2, true)));
+    }
+
+    private static NamespaceQuota quota(String prefix, int maxEntries, long maxBytes, double share,
+                                        boolean evictable) {
+        return new NamespaceQuota(prefix, Math.max(1, (int) (maxEntries * share)),
+                Math.max(1L, (long) (maxBytes * share)), evictable);
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        Stripe stripe = stripeFor(key);
+        Node node = new Node(key, value, System.nanoTime() + ttl.toNanos(), stripe.namespaceOf(key));
+        if (rejectOversized(node)) {
+            return;
+        }
+        stripe.lock.lock();
+        try {
+            stripe.insert(node);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.index.get(key);
+            if (node == null) {
+                return Optional.empty();
+            }
+            if (node.isExpired(System.nanoTime())) {
+                stripe.removeNode(node);
+                expiredCount.increment();
+                listener.onExpiredOnRead(key);
+                return Optional.empty();
+            }
+            stripe.onAccess(node);
+            return Optional.ofNullable(node.value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.index.get(key);
+            if (node != null) {
+                stripe.removeNode(node);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.index.get(key);
+            if (node == null) {
+                return Optional.empty();
+            }
+            stripe.removeNode(node);
+            if (node.isExpired(System.nanoTime())) {
+                expiredCount.increment();
+                listener.onExpiredOnRead(key);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(node.value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        if (expected == null) {
+            return false;
+        }
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.index.get(key);
+            if (node == null || !expected.equals(node.value)) {
+                return false;
+            }
+            stripe.removeNode(node);
+            return !node.isExpired(System.nanoTime());
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 计数值以十进制字符串保存，自增时替换节点并保留原过期时间。
+     */
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        Stripe stripe = stripeFor(key);
+        Namespace namespace = stripe.namespaceOf(key);
+        stripe.lock.lock();
+        try {
+            long now = System.nanoTime();
+            Node current = stripe.index.get(key);
+            long count = 1;
+            long deadline = now + ttl.toNanos();
+            if (current != null && !current.isExpired(now)) {
+                count = InMemoryKeyValueStore.parseCount(key, current.value) + 1;
+                deadline = current.deadlineNanos;
+            }
+            Node node = new Node(key, Long.toString(count), deadline, namespace);
+            if (!rejectOversized(node)) {
+                stripe.insert(node);
+            }
+            return count;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 在锁内完成比较与状态迁移，替换节点时保留原过期时间。
+     */
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        Stripe stripe = stripeFor(key);
+        Namespace namespace = stripe.namespaceOf(key);
+        stripe.lock.lock();
+        try {
+            long now = System.nanoTime();
+            Node current = stripe.index.get(key);
+            long next = current == null || current.isExpired(now)
+                    ? value : InMemoryKeyValueStore.maxOf(current.value, value);
+            Node node = new Node(key, Long.toString(next), now + ttl.toNanos(), namespace);
+            if (!rejectOversized(node)) {
+                stripe.insert(node);
+            }
+            return next;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Node current = stripe.index.get(key);
+            if (current == null || current.isExpired(System.nanoTime())) {
+                return CodeCheck.ABSENT;
+            }
+            OneTimeCode.Transition transition = OneTimeCode.verify(current.value, candidate, maxAttempts);
+            if (transition.nextValue() == null) {
+                stripe.removeNode(current);
+            } else if (!current.value.equals(transition.nextValue())) {
+                Node node = new Node(key, transition.nextValue(), current.deadlineNanos, current.namespace);
+                if (!rejectOversized(node)) {
+                    stripe.insert(node);
+                }
+            }
+            return transition.result();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void setListener(EphemeralStoreListener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.index.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 当前估算占用字节数。
+     */
+    public long weightedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                bytes += stripe.totalBytes;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 各命名空间的条目数与估算字节数快照，按条带汇总。
+     */
+    public List<NamespaceUsage> namespaceUsage() {
+        int count = stripes[0].namespaces.size() + 1;
+        int[] entries = new int[count];
+        long[] bytes = new long[count];
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (int i = 0; i < count - 1; i++) {
+                    entries[i] += stripe.namespaces.get(i).size();
+                    bytes[i] += stripe.namespaces.get(i).bytes;
+                }
+                entries[count - 1] += stripe.defaultNamespace.size();
+                bytes[count - 1] += stripe.defaultNamespace.bytes;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        List<NamespaceUsage> usage = new ArrayList<>(count);
+        for (int i = 0; i < count - 1; i++) {
+            usage.add(new NamespaceUsage(stripes[0].namespaces.get(i).prefix, entries[i], bytes[i]));
+        }
+        usage.add(new NamespaceUsage("", entries[count - 1], bytes[count - 1]));
+        return usage;
+    }
+
+    /**
+     * 条带数。
+     */
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * 因容量不足被淘汰的条目数（不含自然过期）。
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * 被拒绝写入的次数：单条目超出配额，或不可淘汰的命名空间配额已满。
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+
+    static long weigh(String key, String value) {
+        long chars = (long) key.length() + (value == null ? 0 : value.length());
+        return ENTRY_OVERHEAD_BYTES + chars * 2;
+    }
+
+    private boolean rejectOversized(Node node) {
+        if (node.weight <= node.namespace.maxBytes) {
+            return false;
+        }
+        rejectedCount.increment();
+        log.warn("短期存储条目超过命名空间字节配额，拒绝写入: {}", node.key);
+        return true;
+    }
+
+    private static int share(int total, int parts) {
+        return Math.max(1, (total + parts - 1) / parts);
+    }
+
+    private static long share(long total, int parts) {
+        return Math.max(1L, (total + parts - 1) / parts);
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    /**
+     * 一个条带：独立的锁、索引与按比例分得的配额。
+     */
+    private final class Stripe {
+        final int maxEntries;
+        final long maxBytes;
+        final List<Namespace> namespaces = new ArrayList<>();
+        final Namespace defaultNamespace;
+        final Map<String, Node> index = new HashMap<>();
+        final ReentrantLock lock = new ReentrantLock();
+        long totalBytes;
+
+        Stripe(int maxEntries, long maxBytes, List<NamespaceQuota> quotas, int stripeCount) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            for (NamespaceQuota quota : quotas) {
+                namespaces.add(new Namespace(this, quota.prefix(),
+                        Math.min(share(quota.maxEntries(), stripeCount), maxEntries),
+                        Math.min(share(quota.maxBytes(), stripeCount), maxBytes), quota.evictable()));
+            }
+            this.defaultNamespace = new Namespace(this, "", maxEntries, maxBytes, true);
+        }
+
+        /**
+         * 替换同键旧节点并放入试用段，调用方须持有锁。
+         */
+        private void insert(Node node) {
+            if (!node.namespace.evictable && !makeRoom(node)) {
+                rejectedCount.increment();
+                log.warn("短期存储命名空间 {} 配额已满且不可淘汰，拒绝写入: {}", node.namespace.prefix, node.key);
+                throw new IllegalStateException("短期存储命名空间配额已满: " + node.namespace.prefix);
+            }
+            Node previous = index.remove(node.key);
+            if (previous != null) {
+                unlinkNode(previous);
+            }
+            index.put(node.key, node);
+            node.namespace.probation.put(node.key, node);
+            node.namespace.bytes += node.weight;
+            totalBytes += node.weight;
+            wheel.schedule(node);
+            evictIfNecessary(node.namespace);
+        }
+
+        /**
+         * 不可淘汰的命名空间只清理已过期条目来腾出空间，返回写入后是否仍在配额内。
+         */
+        private boolean makeRoom(Node node) {
+            Namespace namespace = node.namespace;
+            while (true) {
+                Node previous = index.get(node.key);
+                int entries = namespace.size() + (previous == null ? 1 : 0);
+                long bytes = namespace.bytes + node.weight - (previous == null ? 0 : previous.weight);
+                if (entries <= namespace.maxEntries && bytes <= namespace.maxBytes) {
+                    return true;
+                }
+                Node victim = selectVictim(namespace.probation);
+                if (victim == null || !victim.isExpired(System.nanoTime())) {
+                    victim = selectVictim(namespace.protectedSegment);
+                }
+                if (victim == null || !victim.isExpired(System.nanoTime())) {
+                    return false;
+                }
+                removeNode(victim);
+                expiredCount.increment();
+            }
+        }
+
+        private Namespace namespaceOf(String key) {
+            for (Namespace namespace : namespaces) {
+                if (key.startsWith(namespace.prefix)) {
+                    return namespace;
+                }
+            }
+            return defaultNamespace;
+        }
+
+        /**
+         * 分段 LRU：试用段命中后晋升保护段，保护段溢出时把最久未访问条目降级回试用段。
+         */
+        private void onAccess(Node node) {
+            Namespace namespace = node.namespace;
+            if (node.protectedSegment) {
+                namespace.protectedSegment.remove(node.key);
+                namespace.protectedSegment.put(node.key, node);
+                return;
+            }
+            namespace.probation.remove(node.key);
+            namespace.protectedSegment.put(node.key, node);
+            node.protectedSegment = true;
+            if (namespace.protectedSegment.size() > namespace.maxProtected) {
+                Iterator<Node> it = namespace.protectedSegment.values().iterator();
+                Node demoted = it.next();
+                it.remove();
+                demoted.protectedSegment = false;
+                namespace.probation.put(demoted.key, demoted);
+            }
+        }
+
+        private void evictIfNecessary(Namespace written) {
+            while (written.overQuota()) {
+                if (!evictFrom(written)) {
+                    return;
+                }
+            }
+            while (index.size() > maxEntries || totalBytes > maxBytes) {
+                Namespace victimNamespace = mostLoadedNamespace();
+                if (victimNamespace == null || !evictFrom(victimNamespace)) {
+                    return;
+                }
+            }
+        }
+
+        private Namespace mostLoadedNamespace() {
+            Namespace candidate = defaultNamespace.size() > 0 ? defaultNamespace : null;
+            for (Namespace namespace : namespaces) {
+                if (namespace.evictable && namespace.size() > 0 && (candidate == null || namespace.usage() > candidate.usage())) {
+                    candidate = namespace;
+                }
+            }
+            return candidate;
+        }
+
+        private boolean evictFrom(Namespace namespace) {
+            Node victim = selectVictim(namespace.probation);
+            if (victim == null) {
+                victim = selectVictim(namespace.protectedSegment);
+            }
+            if (victim == null) {
+                return false;
+            }
+            if (victim.isExpired(System.nanoTime())) {
+                expiredCount.increment();
+            } else {
+                evictionCount.increment();
+            }
+            removeNode(victim);
+            return true;
+        }
+
+        /**
+         * 在 LRU 端采样若干候选：已过期者直接返回，否则返回剩余 TTL 最短者。
+         */
+        private Node selectVictim(LinkedHashMap<String, Node> segment) {
+            long now = System.nanoTime();
+            Node victim = null;
+            int sampled = 0;
+            for (Node node : segment.values()) {
+                if (node.isExpired(now)) {
+                    return node;
+                }
+                if (victim == null || node.deadlineNanos - victim.deadlineNanos < 0) {
+                    victim = node;
+                }
+                if (++sampled >= EVICTION_SAMPLE) {
+                    break;
+                }
+            }
+            return victim;
+        }
+
+        private void removeNode(Node node) {
+            index.remove(node.key, node);
+            unlinkNode(node);
+        }
+
+        private void unlinkNode(Node node) {
+            Namespace namespace = node.namespace;
+            if (node.protectedSegment) {
+                namespace.protectedSegment.remove(node.key, node);
+            } else {
+                namespace.probation.remove(node.key, node);
+            }
+            namespace.bytes -= node.weight;
+            totalBytes -= node.weight;
+            wheel.cancel(node);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.company.usercenter.identity.store;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界本地缓存，供近端缓存、吊销缓存、客户端缓存等读路径共用。
+ * <p>
+ * 按写入顺序（FIFO）淘汰：每次新写入的条目进入队尾，超出容量时从队头逐个淘汰，
+ * 每次写入最多处理 {@value #MAX_DRAIN_PER_WRITE} 个队列节点，不在请求线程上遍历整张表，
+ * 条目数可能短暂略超容量。被覆盖或失效的条目在队列中留下的节点出队时跳过；
+ * 这类节点过多时把仍存活的节点移回队尾，不淘汰容量内的条目。
+ * <p>
+ * 新鲜度由调用方按值判断，本类不处理过期。回源结果用 {@link #putIfUnchanged} 写入：
+ * 回源前取 {@link #sequence()}，期间发生过 {@link #invalidate} 则不写入，避免缓存旧值。
+ */
+public final class BoundedLocalCache<K, V> {
+
+    /**
+     * 一次写入最多处理的队列节点数。
+     */
+    private static final int MAX_DRAIN_PER_WRITE = 4;
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong invalidationSeq = new AtomicLong();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxEntries 最多缓存条目数
+     */
+    public BoundedLocalCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries 必须为正数");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        return node == null ? null : node.value;
+    }
+
+    public void put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        map.put(key, node);
+        enqueue(node);
+    }
+
+    /**
+     * 自 {@code seq} 取得以来没有发生过失效时写入，返回是否写入。
+     */
+    public boolean putIfUnchanged(K key, V value, long seq) {
+        if (invalidationSeq.get() != seq) {
+            return false;
+        }
+        Node<K, V> node = new Node<>(key, value);
+        map.put(key, node);
+        if (invalidationSeq.get() != seq) {
+            map.remove(key, node);
+            return false;
+        }
+        enqueue(node);
+        return true;
+    }
+
+    /**
+     * 当前值仍为 {@code value}（同一对象）时移除，返回是否移除。
+     */
+    public boolean remove(K key, V value) {
+        Node<K, V> node = map.get(key);
+        return node != null && node.value == value && map.remove(key, node);
+    }
+
+    /**
+     * 移除并返回当前值，不推进失效序号。
+     */
+    public V remove(K key) {
+        Node<K, V> node = map.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * 推进失效序号并移除指定键，进行中的回源结果将不再写入。
+     */
+    public void invalidate(Collection<? extends K> keys) {
+        invalidationSeq.incrementAndGet();
+        for (K key : keys) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * 当前失效序号，回源前读取并传给 {@link #putIfUnchanged}。
+     */
+    public long sequence() {
+        return invalidationSeq.get();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * 因容量被淘汰的条目数，不含失效与主动移除。
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    private void enqueue(Node<K, V> node) {
+        insertionOrder.offer(node);
+        queued.incrementAndGet();
+        for (int i = 0; i < MAX_DRAIN_PER_WRITE && map.size() > maxEntries; i++) {
+            Node<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (map.remove(oldest.key, oldest)) {
+                evictionCount.increment();
+            }
+        }
+        for (int i = 0; i < MAX_DRAIN_PER_WRITE && queued.get() > 2 * maxEntries; i++) {
+            Node<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (map.get(oldest.key) == oldest) {
+                insertionOrder.offer(oldest);
+            } else {
+                queued.decrementAndGet();
+            }
+        }
+    }
+}
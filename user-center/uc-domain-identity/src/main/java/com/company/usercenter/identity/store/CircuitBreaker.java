@@ -0,0 +1,200 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 主存调用熔断器：基于最近 N 次调用的失败率与慢调用率跳闸，打开期间直接走备用存储，
+ * 等待期结束后进入半开状态，仅放行一个探测请求决定恢复或再次打开。
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 熔断参数。
+     *
+     * @param failureRateThreshold  失败率阈值（百分比）
+     * @param slowCallRateThreshold 慢调用率阈值（百分比）
+     * @param slowCallDuration      超过该耗时视为慢调用
+     * @param slidingWindowSize     统计窗口内的调用次数
+     * @param minimumCalls          窗口内至少累计多少次调用才计算比率
+     * @param openDuration          打开后等待多久进入半开
+     */
+    public record Settings(int failureRateThreshold,
+                           int slowCallRateThreshold,
+                           Duration slowCallDuration,
+                           int slidingWindowSize,
+                           int minimumCalls,
+                           Duration openDuration) {
+
+        public Settings {
+            if (failureRateThreshold <= 0 || failureRateThreshold > 100
+                    || slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+                throw new IllegalArgumentException("阈值需在 (0, 100] 之间");
+            }
+            if (slidingWindowSize <= 0 || minimumCalls <= 0 || minimumCalls > slidingWindowSize) {
+                throw new IllegalArgumentException("窗口大小或最小调用数不合法");
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(50, 80, Duration.ofMillis(250), 20, 10, Duration.ofSeconds(5));
+        }
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final Settings settings;
+    private final LongSupplier nanoClock;
+    private final byte[] window;
+    private final Map<State, LongAdder> transitions = new EnumMap<>(State.class);
+    private final LongAdder notPermittedCount = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, Settings settings) {
+        this(name, settings, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, Settings settings, LongSupplier nanoClock) {
+        this.name = name;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.window = new byte[settings.slidingWindowSize()];
+        for (State s : State.values()) {
+            transitions.put(s, new LongAdder());
+        }
+    }
+
+    /**
+     * 是否允许本次调用访问主存；半开状态下只放行一个探测请求。
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < settings.openDuration().toNanos()) {
+                notPermittedCount.increment();
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (probeInFlight) {
+            notPermittedCount.increment();
+            return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = durationNanos >= settings.slowCallDuration().toNanos();
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(slow ? State.OPEN : State.CLOSED);
+            return;
+        }
+        record(slow ? SLOW : 0);
+    }
+
+    public synchronized void onError(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(State.OPEN);
+            return;
+        }
+        boolean slow = durationNanos >= settings.slowCallDuration().toNanos();
+        record((byte) (FAILED | (slow ? SLOW : 0)));
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * 进入指定状态的累计次数。
+     */
+    public long transitionCount(State to) {
+        return transitions.get(to).sum();
+    }
+
+    /**
+     * 因熔断被直接拒绝访问主存的调用次数。
+     */
+    public long notPermittedCount() {
+        return notPermittedCount.sum();
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private void record(byte outcome) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recordedCalls == window.length) {
+            byte evicted = window[windowIndex];
+            failedCalls -= (evicted & FAILED) != 0 ? 1 : 0;
+            slowCalls -= (evicted & SLOW) != 0 ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        failedCalls += (outcome & FAILED) != 0 ? 1 : 0;
+        slowCalls += (outcome & SLOW) != 0 ? 1 : 0;
+
+        if (recordedCalls < settings.minimumCalls()) {
+            return;
+        }
+        if (failedCalls * 100 >= settings.failureRateThreshold() * recordedCalls
+                || slowCalls * 100 >= settings.slowCallRateThreshold() * recordedCalls) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State target) {
+        State previous = state;
+        state = target;
+        transitions.get(target).increment();
+        if (target == State.OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        if (target == State.CLOSED || target == State.OPEN) {
+            windowIndex = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+            slowCalls = 0;
+        }
+        if (target == State.CLOSED) {
+            log.info("熔断器 [{}] 状态变更: {} -> {}", name, previous, target);
+        } else {
+            log.warn("熔断器 [{}] 状态变更: {} -> {}", name, previous, target);
+        }
+    }
+}
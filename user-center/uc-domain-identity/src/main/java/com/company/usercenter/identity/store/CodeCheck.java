@@ -0,0 +1,16 @@
+package com.company.usercenter.identity.store;
+
+/**
+ * 一次性验证码的校验结果。
+ */
+public enum CodeCheck {
+
+    /** 匹配，验证码已删除。 */
+    MATCHED,
+    /** 不匹配，失败次数已加一。 */
+    MISMATCHED,
+    /** 不匹配且失败次数达到上限，验证码已作废。 */
+    EXHAUSTED,
+    /** 验证码不存在或已过期。 */
+    ABSENT
+}
@@ -0,0 +1,69 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 同步存储的异步适配：调用立即执行，异常以失败的 future 返回而不是直接抛出。
+ */
+final class CompletedAsyncKeyValueStore implements AsyncEphemeralKeyValueStore {
+
+    private final EphemeralKeyValueStore store;
+
+    CompletedAsyncKeyValueStore(EphemeralKeyValueStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, String value, Duration ttl) {
+        return run(() -> {
+            store.put(key, value, ttl);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> get(String key) {
+        return run(() -> store.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return run(() -> {
+            store.delete(key);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getAndDelete(String key) {
+        return run(() -> store.getAndDelete(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> consumeIfMatches(String key, String expected) {
+        return run(() -> store.consumeIfMatches(key, expected));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAndGet(String key, Duration ttl) {
+        return run(() -> store.incrementAndGet(key, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> multiGet(Collection<String> keys) {
+        return run(() -> store.multiGet(keys));
+    }
+
+    private static <T> CompletableFuture<T> run(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
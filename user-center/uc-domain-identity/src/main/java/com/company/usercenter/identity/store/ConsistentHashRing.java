@@ -0,0 +1,98 @@
+package com.company.usercenter.identity.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 带虚拟节点的一致性哈希环，用于把短期存储的键分布到多个 Redis 分片。
+ * <p>
+ * 每个分片在环上占 virtualNodes 个点，增加一个分片时只有约 1/N 的键改变归属。
+ * 键中含非空的 {@code {...}} 时只对第一对花括号内的内容取哈希（与 Redis Cluster 的 hash tag 约定一致），
+ * 例如 {@code state:{tenant-1}:abc} 与 {@code otp:{tenant-1}:13800000000} 落在同一分片。
+ * 环创建后不可变。
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("分片列表不能为空，虚拟节点数必须为正数");
+        }
+        this.nodes = List.copyOf(new LinkedHashSet<>(nodes));
+        int total = this.nodes.size() * virtualNodes;
+        long[] hashes = new long[total];
+        String[] names = new String[total];
+        int i = 0;
+        for (String node : this.nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hash(node + "#" + v);
+                names[i] = node;
+                i++;
+            }
+        }
+        Integer[] order = new Integer[total];
+        for (int j = 0; j < total; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[total];
+        this.owners = new String[total];
+        for (int j = 0; j < total; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = names[order[j]];
+        }
+    }
+
+    /**
+     * 键所属的分片：环上顺时针方向第一个不小于键哈希的点。
+     */
+    public String nodeFor(String key) {
+        long h = hash(hashSlot(key));
+        int index = Arrays.binarySearch(points, h);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * 参与哈希的部分：存在非空 hash tag 时为花括号内的内容，否则为整个键。
+     */
+    static String hashSlot(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 对 UTF-8 字节做 64 位 FNV-1a，再经 murmur3 finalizer 打散。
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,9 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+
+/**
+ * 批量写入使用的键、值与过期时间三元组。
+ */
+public record EphemeralEntry(String key, String value, Duration ttl) {
+}
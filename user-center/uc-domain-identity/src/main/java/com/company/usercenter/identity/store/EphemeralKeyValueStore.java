@@ -1,6 +1,9 @@
 package com.company.usercenter.identity.store;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,4 +25,99 @@ public interface EphemeralKeyValueStore {
      * 删除键。
      */
     void delete(String key);
+
+    /**
+     * 原子读取并删除键，返回删除前的值；并发调用时至多一个调用方拿到值。
+     */
+    Optional<String> getAndDelete(String key);
+
+    /**
+     * 仅当当前值与 expected 相等时原子删除，删除成功返回 true；不匹配时保留原值。
+     */
+    boolean consumeIfMatches(String key, String expected);
+
+    /**
+     * 原子自增计数并返回新值；键不存在（或已过期）时从 1 开始计数并设置 ttl，已存在时保留原过期时间。
+     * 用于固定/滑动窗口限流等计数场景。
+     */
+    long incrementAndGet(String key, Duration ttl);
+
+    /**
+     * 原子地把键设为 max(当前值, value) 并以 ttl 重置过期时间，返回写入后的值；键不存在或当前值不是整数时写入 value。
+     * 用于只前进不后退的时间戳，如吊销纪元。
+     * <p>
+     * 默认实现以比较删除加重新写入完成，改写间隙内其他调用方写入的值可能被覆盖；Redis 与内存实现各自以单次原子操作覆盖。
+     */
+    default long maxAndGet(String key, long value, Duration ttl) {
+        while (true) {
+            Optional<String> current = get(key);
+            if (current.isPresent() && !consumeIfMatches(key, current.get())) {
+                continue;
+            }
+            long next = current.map(existing -> InMemoryKeyValueStore.maxOf(existing, value)).orElse(value);
+            put(key, Long.toString(next), ttl);
+            return next;
+        }
+    }
+
+    /**
+     * 校验以 {@link OneTimeCode} 保存的验证码：匹配时删除；不匹配时失败次数加一，达到 maxAttempts 时作废。
+     * <p>
+     * 默认实现以比较删除加重新写入完成状态迁移，并发校验时每次失败都必须赢得一次比较删除，失败次数不会丢失；
+     * 改写间隙内的并发校验可能得到 {@link CodeCheck#ABSENT}。Redis 与内存实现各自以单次原子操作覆盖。
+     */
+    default CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        while (true) {
+            Optional<String> current = get(key);
+            if (current.isEmpty()) {
+                return CodeCheck.ABSENT;
+            }
+            OneTimeCode.Transition transition = OneTimeCode.verify(current.get(), candidate, maxAttempts);
+            if (current.get().equals(transition.nextValue())) {
+                return transition.result();
+            }
+            if (!consumeIfMatches(key, current.get())) {
+                continue;
+            }
+            if (transition.nextValue() != null) {
+                long remainingMillis = OneTimeCode.decode(transition.nextValue())
+                        .map(state -> state.expireAtMillis() - System.currentTimeMillis())
+                        .orElse(0L);
+                if (remainingMillis <= 0) {
+                    return CodeCheck.ABSENT;
+                }
+                put(key, transition.nextValue(), Duration.ofMillis(remainingMillis));
+            }
+            return transition.result();
+        }
+    }
+
+    /**
+     * 批量读取，仅返回存在且未过期的键；默认逐键读取，远程实现应合并为一次往返。
+     */
+    default Map<String, String> multiGet(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            get(key).ifPresent(value -> result.put(key, value));
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入，每个条目使用各自的过期时间；默认逐条写入。
+     */
+    default void multiPut(Collection<EphemeralEntry> entries) {
+        for (EphemeralEntry entry : entries) {
+            put(entry.key(), entry.value(), entry.ttl());
+        }
+    }
+
+    /**
+     * 批量删除；默认逐键删除。
+     */
+    default void multiDelete(Collection<String> keys) {
+        for (String key : keys) {
+            delete(key);
+        }
+    }
 }
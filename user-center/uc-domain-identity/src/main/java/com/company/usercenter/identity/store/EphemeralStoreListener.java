@@ -0,0 +1,24 @@
+package com.company.usercenter.identity.store;
+
+import java.util.Collection;
+
+/**
+ * 短期存储内部事件回调，用于指标采集；回调在调用线程上同步执行，实现必须轻量且不抛异常。
+ */
+public interface EphemeralStoreListener {
+
+    EphemeralStoreListener NOOP = new EphemeralStoreListener() {
+    };
+
+    /**
+     * 主存不可用（调用失败或熔断打开），操作改由备用存储处理。
+     */
+    default void onFallback(StoreOperation operation, Collection<String> keys) {
+    }
+
+    /**
+     * 读取时发现键已过期并就地清理（不含后台主动过期）。
+     */
+    default void onExpiredOnRead(String key) {
+    }
+}
@@ -0,0 +1,194 @@
+package com.company.usercenter.identity.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 降级写入日志：记录主存不可用期间落到备用存储的写入与删除，待主存恢复后回放。
+ * <p>
+ * 按键合并，只保留最后一次操作；超过容量时丢弃最早的记录并计数。
+ * <p>
+ * 已取出、正在回放的键称为在途键。回放期间对同一键的写入或删除（无论落在主存还是备用存储）记为该键的最新状态，
+ * 回放写入前跳过这些键，写入后再把最新状态补写到主存，避免旧记录复活已被删除或消费的键。
+ */
+public class FallbackJournal {
+
+    /**
+     * 一条待回放记录，value 为 null 表示删除。
+     */
+    record Record(String key, String value, long deadlineNanos) {
+
+        boolean isDelete() {
+            return value == null;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, Record> records = new LinkedHashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private final Map<String, Record> superseded = new HashMap<>();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private volatile int pending;
+    private volatile int inFlightCount;
+
+    public FallbackJournal(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须为正数");
+        }
+        this.capacity = capacity;
+    }
+
+    void recordPut(String key, String value, long deadlineNanos) {
+        append(new Record(key, value, deadlineNanos));
+    }
+
+    void recordDelete(String key) {
+        append(new Record(key, null, 0L));
+    }
+
+    /**
+     * 主存已直接删除该键（含消费验证码）时丢弃待回放记录，避免旧值在回放时复活该键。
+     */
+    void discard(String key) {
+        discard(key, new Record(key, null, 0L));
+    }
+
+    /**
+     * 主存已直接写入该键时丢弃待回放记录，避免旧值在回放时覆盖新值。
+     */
+    void discard(String key, String value, long deadlineNanos) {
+        discard(key, new Record(key, value, deadlineNanos));
+    }
+
+    private void discard(String key, Record current) {
+        if (pending == 0 && inFlightCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            records.remove(key);
+            pending = records.size();
+            if (inFlight.contains(key)) {
+                superseded.put(key, current);
+            }
+        }
+    }
+
+    /**
+     * 取出至多 max 条记录并标记为在途，已过期的写入直接丢弃；回放结束后须调用 {@link #release} 或 {@link #requeue}。
+     */
+    synchronized List<Record> drain(int max, long nowNanos) {
+        List<Record> batch = new ArrayList<>(Math.min(max, records.size()));
+        Iterator<Record> it = records.values().iterator();
+        while (it.hasNext() && batch.size() < max) {
+            Record record = it.next();
+            it.remove();
+            if (record.isDelete() || record.deadlineNanos() - nowNanos > 0) {
+                batch.add(record);
+                inFlight.add(record.key());
+            }
+        }
+        pending = records.size();
+        inFlightCount = inFlight.size();
+        return batch;
+    }
+
+    /**
+     * 去掉取出后已被主存直接写入或删除的记录。
+     */
+    synchronized List<Record> retainCurrent(List<Record> batch) {
+        if (superseded.isEmpty()) {
+            return batch;
+        }
+        List<Record> current = new ArrayList<>(batch.size());
+        for (Record record : batch) {
+            if (!superseded.containsKey(record.key())) {
+                current.add(record);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 取走回放期间被主存直接写入或删除的键的最新状态，调用方须把它们补写到主存；键仍保持在途，
+     * 补写期间的再次变更在下一次调用时返回。
+     */
+    synchronized List<Record> takeSuperseded(Collection<Record> batch) {
+        List<Record> latest = new ArrayList<>();
+        for (Record record : batch) {
+            Record current = superseded.remove(record.key());
+            if (current != null) {
+                latest.add(current);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 结束回放，解除在途标记。
+     */
+    synchronized void release(Collection<Record> batch) {
+        for (Record record : batch) {
+            inFlight.remove(record.key());
+            superseded.remove(record.key());
+        }
+        inFlightCount = inFlight.size();
+    }
+
+    /**
+     * 回放失败时放回记录；期间若同一键已有更新的记录或已被主存直接写入、删除，则以更新者为准。
+     */
+    synchronized void requeue(Collection<Record> batch) {
+        for (Record record : batch) {
+            inFlight.remove(record.key());
+            boolean stale = superseded.remove(record.key()) != null;
+            if (!stale && !records.containsKey(record.key()) && records.size() < capacity) {
+                records.put(record.key(), record);
+            }
+        }
+        pending = records.size();
+        inFlightCount = inFlight.size();
+    }
+
+    void markReplayed(int count) {
+        replayedCount.add(count);
+    }
+
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * 因容量不足被丢弃、无法回放的记录数。
+     */
+    public long droppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long replayedCount() {
+        return replayedCount.sum();
+    }
+
+    private synchronized void append(Record record) {
+        records.remove(record.key());
+        records.put(record.key(), record);
+        if (inFlight.contains(record.key())) {
+            superseded.put(record.key(), record);
+        }
+        if (records.size() > capacity) {
+            Iterator<Map.Entry<String, Record>> it = records.entrySet().iterator();
+            it.next();
+            it.remove();
+            droppedCount.increment();
+        }
+        pending = records.size();
+    }
+}
@@ -0,0 +1,50 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 降级日志回放调度器：每个周期至多回放 batchSize 条，回放速率上限为 batchSize / interval，
+ * 避免刚恢复的 Redis 被积压写入瞬间打满。
+ */
+public class FallbackReconciler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FallbackReconciler.class);
+
+    private final ResilientKeyValueStore store;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    public FallbackReconciler(ResilientKeyValueStore store, int batchSize, Duration interval) {
+        if (batchSize <= 0 || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("batchSize 与 interval 必须为正数");
+        }
+        this.store = store;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ephemeral-store-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::replayOnce, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void replayOnce() {
+        try {
+            store.replayJournal(batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("降级写入回放异常: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
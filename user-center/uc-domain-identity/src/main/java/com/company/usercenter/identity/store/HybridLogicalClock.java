@@ -0,0 +1,44 @@
+package com.company.usercenter.identity.store;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 混合逻辑时钟：高 48 位为墙上时钟毫秒，低 16 位为同一毫秒内的逻辑计数。
+ * <p>
+ * 本地事件与收到的远端时间戳都会推进时钟，保证因果相关的事件时间戳单调递增，
+ * 同时在节点时钟基本同步时与物理时间保持接近。
+ */
+final class HybridLogicalClock {
+
+    private static final int LOGICAL_BITS = 16;
+
+    private final LongSupplier wallClockMillis;
+    private long last;
+
+    HybridLogicalClock() {
+        this(System::currentTimeMillis);
+    }
+
+    HybridLogicalClock(LongSupplier wallClockMillis) {
+        this.wallClockMillis = wallClockMillis;
+    }
+
+    /**
+     * 为本地事件生成时间戳。
+     */
+    synchronized long now() {
+        last = Math.max(last + 1, wallClockMillis.getAsLong() << LOGICAL_BITS);
+        return last;
+    }
+
+    /**
+     * 合并远端时间戳，之后生成的本地时间戳一定大于它。
+     */
+    synchronized void observe(long remote) {
+        last = Math.max(last, remote);
+    }
+
+    static long physicalMillis(long timestamp) {
+        return timestamp >>> LOGICAL_BITS;
+    }
+}
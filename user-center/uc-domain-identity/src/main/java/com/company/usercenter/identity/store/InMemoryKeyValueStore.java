@@ -4,34 +4,82 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 简单的内存实现，作为无 Redis 或 Redis 不可用时的降级方案。
+ * <p>
+ * 过期键由后台时间轮主动清理，无需等待读取触发，内存占用与存活键数量成正比。
  */
-public class InMemoryKeyValueStore implements EphemeralKeyValueStore {
+public class InMemoryKeyValueStore implements EphemeralKeyValueStore, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryKeyValueStore.class);
 
-    private static final class Entry {
+    private static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private final class Entry extends TimingWheel.Timeout {
+        final String key;
         final String value;
-        final Instant expireAt;
+        /** 计数器条目的计数值，普通条目为 null。 */
+        final AtomicLong counter;
+
+        Entry(String key, String value, long expireAtNanos) {
+            this(key, value, null, expireAtNanos);
+        }
 
-        Entry(String value, Instant expireAt) {
+        Entry(String key, String value, AtomicLong counter, long expireAtNanos) {
+            super(expireAtNanos);
+            this.key = key;
             this.value = value;
-            this.expireAt = expireAt;
+            this.counter = counter;
+        }
+
+        String currentValue() {
+            return counter != null ? Long.toString(counter.get()) : value;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return deadlineNanos - nowNanos <= 0;
+        }
+
+        @Override
+        void expire() {
+            if (store.remove(key, this)) {
+                expiredCount.increment();
+            }
         }
     }
 
     private final Map<String, Entry> store = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+    private final LongAdder expiredCount = new LongAdder();
+    private volatile EphemeralStoreListener listener = EphemeralStoreListener.NOOP;
+
+    public InMemoryKeyValueStore() {
+        this(DEFAULT_TICK, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * @param tickDuration  后台清理刻度，越小过期键释放越及时
+     * @param ticksPerWheel 时间轮槽位数，tickDuration × ticksPerWheel 宜覆盖常见 TTL
+     */
+    public InMemoryKeyValueStore(Duration tickDuration, int ticksPerWheel) {
+        this.wheel = new TimingWheel("ephemeral-store-expiry", tickDuration, ticksPerWheel);
+    }
 
     @Override
     public void put(String key, String value, Duration ttl) {
-        Instant expireAt = Instant.now().plus(ttl);
-        store.put(key, new Entry(value, expireAt));
+        Entry entry = new Entry(key, value, System.nanoTime() + ttl.toNanos());
+        Entry previous = store.put(key, entry);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        wheel.schedule(entry);
     }
 
     @Override
@@ -40,16 +88,177 @@ public class InMemoryKeyValueStore implements EphemeralKeyValueStore {
         if (entry == null) {
             return Optional.empty();
         }
-        if (entry.expireAt.isBefore(Instant.now())) {
-            store.remove(key);
+        if (entry.isExpired(System.nanoTime())) {
+            if (store.remove(key, entry)) {
+                wheel.cancel(entry);
+                expiredCount.increment();
+                listener.onExpiredOnRead(key);
+            }
             log.debug("内存短期存储键过期已清理: {}", key);
             return Optional.empty();
         }
-        return Optional.ofNullable(entry.value);
+        return Optional.ofNullable(entry.currentValue());
     }
 
     @Override
     public void delete(String key) {
-        store.remove(key);
+        Entry removed = store.remove(key);
+        if (removed != null) {
+            wheel.cancel(removed);
+        }
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Entry removed = store.remove(key);
+        if (removed == null) {
+            return Optional.empty();
+        }
+        wheel.cancel(removed);
+        if (removed.isExpired(System.nanoTime())) {
+            expiredCount.increment();
+            listener.onExpiredOnRead(key);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(removed.currentValue());
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        Entry entry = store.get(key);
+        if (entry == null || expected == null || !expected.equals(entry.currentValue())) {
+            return false;
+        }
+        if (!store.remove(key, entry)) {
+            return false;
+        }
+        wheel.cancel(entry);
+        return !entry.isExpired(System.nanoTime());
+    }
+
+    /**
+     * 无锁计数：存活的计数器条目直接 CAS 自增；不存在、已过期或为普通字符串值时用 CAS 替换为新的计数器条目。
+     */
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry entry = store.get(key);
+            if (entry != null && entry.counter != null && !entry.isExpired(now)) {
+                return entry.counter.incrementAndGet();
+            }
+            Entry replacement;
+            if (entry == null || entry.isExpired(now)) {
+                replacement = new Entry(key, null, new AtomicLong(1), now + ttl.toNanos());
+            } else {
+                replacement = new Entry(key, null, new AtomicLong(parseCount(key, entry.value) + 1),
+                        entry.deadlineNanos);
+            }
+            boolean installed = entry == null
+                    ? store.putIfAbsent(key, replacement) == null
+                    : store.replace(key, entry, replacement);
+            if (installed) {
+                if (entry != null) {
+                    wheel.cancel(entry);
+                }
+                wheel.schedule(replacement);
+                return replacement.counter.get();
+            }
+        }
+    }
+
+    /**
+     * 无锁校验：以 CAS 删除或替换当前条目，替换后的条目沿用原过期时间；CAS 失败说明有并发校验，重新读取。
+     */
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry entry = store.get(key);
+            long next = entry == null || entry.isExpired(now) ? value : maxOf(entry.currentValue(), value);
+            Entry replacement = new Entry(key, Long.toString(next), now + ttl.toNanos());
+            boolean installed = entry == null
+                    ? store.putIfAbsent(key, replacement) == null
+                    : store.replace(key, entry, replacement);
+            if (installed) {
+                if (entry != null) {
+                    wheel.cancel(entry);
+                }
+                wheel.schedule(replacement);
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        while (true) {
+            Entry entry = store.get(key);
+            if (entry == null || entry.counter != null || entry.isExpired(System.nanoTime())) {
+                return CodeCheck.ABSENT;
+            }
+            OneTimeCode.Transition transition = OneTimeCode.verify(entry.value, candidate, maxAttempts);
+            if (entry.value.equals(transition.nextValue())) {
+                return transition.result();
+            }
+            if (transition.nextValue() == null) {
+                if (store.remove(key, entry)) {
+                    wheel.cancel(entry);
+                    return transition.result();
+                }
+                continue;
+            }
+            Entry replacement = new Entry(key, transition.nextValue(), entry.deadlineNanos);
+            if (store.replace(key, entry, replacement)) {
+                wheel.cancel(entry);
+                wheel.schedule(replacement);
+                return transition.result();
+            }
+        }
+    }
+
+    public void setListener(EphemeralStoreListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 当前存活键数量（可能包含尚未到达清理刻度的已过期键）。
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * 累计被过期清理的键数量。
+     */
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * 当前值与 value 中较大者；当前值不是整数时取 value。
+     */
+    static long maxOf(String current, long value) {
+        try {
+            return Math.max(Long.parseLong(current), value);
+        } catch (NumberFormatException ex) {
+            return value;
+        }
+    }
+
+    static long parseCount(String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("键的当前值不是整数，无法计数: " + key);
+        }
+    }
+
+    /**
+     * 停止后台清理线程，容器关闭时自动调用。
+     */
+    @Override
+    public void close() {
+        wheel.close();
     }
 }
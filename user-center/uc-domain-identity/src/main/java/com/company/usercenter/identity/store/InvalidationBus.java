@@ -0,0 +1,33 @@
+package com.company.usercenter.identity.store;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 跨节点失效通知通道：某节点写入或删除键后广播，其他节点据此清理本地缓存。
+ */
+public interface InvalidationBus {
+
+    /**
+     * 单节点部署使用，不发送也不接收通知。
+     */
+    InvalidationBus NOOP = new InvalidationBus() {
+        @Override
+        public void publish(Collection<String> keys) {
+        }
+
+        @Override
+        public void subscribe(Consumer<Collection<String>> listener) {
+        }
+    };
+
+    /**
+     * 广播一批已变更的键；实现应忽略本节点自己发出的消息。
+     */
+    void publish(Collection<String> keys);
+
+    /**
+     * 注册失效监听器，回调在消息线程中执行，不应阻塞。
+     */
+    void subscribe(Consumer<Collection<String>> listener);
+}
@@ -0,0 +1,251 @@
+package com.company.usercenter.identity.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * 按段滚动的内存映射追加日志，供 {@link PersistentKeyValueStore} 记录写入与删除。
+ * <p>
+ * 每段是固定大小的映射文件，记录格式为 {@code [长度][CRC32][类型][过期毫秒][键][值]}，
+ * 先写记录体再写 CRC，最后写长度作为提交标记；进程崩溃后页缓存仍会落盘，重放时遇到长度为 0
+ * 或校验失败即视为该段结尾。每段记录其中记录需要保留到的最晚时刻，过了该时刻整段删除。
+ */
+final class MappedAppendLog implements AutoCloseable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * 一条日志记录，删除记录的 value 为 null。
+     */
+    record LogRecord(byte type, String key, String value, long deadlineMillis) {
+    }
+
+    private static final class Segment {
+        final long sequence;
+        final Path path;
+        MappedByteBuffer buffer;
+        long pinnedUntilMillis;
+
+        Segment(long sequence, Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> sealed = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private Segment active;
+    private long appendedCount;
+    private long compactedCount;
+
+    MappedAppendLog(Path directory, int segmentBytes) {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("日志段大小不能小于 4096 字节");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    sealed.add(new Segment(sequenceOf(file), file));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法打开日志目录: " + directory, ex);
+        }
+        sealed.sort(Comparator.comparingLong(segment -> segment.sequence));
+    }
+
+    /**
+     * 按写入顺序重放已有段的有效记录，pinFunction 返回该记录需要保留到的时刻；
+     * 重放结束后开启新段接收写入，返回重放记录数。
+     */
+    synchronized int replay(ToLongFunction<LogRecord> pinFunction) {
+        if (active != null) {
+            throw new IllegalStateException("日志已开始写入，不能再重放");
+        }
+        int replayed = 0;
+        for (Segment segment : sealed) {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int position = 0;
+                LogRecord record;
+                while ((record = read(buffer, position)) != null) {
+                    segment.pinnedUntilMillis = Math.max(segment.pinnedUntilMillis,
+                            pinFunction.applyAsLong(record));
+                    position += HEADER_BYTES + buffer.getInt(position);
+                    replayed++;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("无法读取日志段: " + segment.path, ex);
+            }
+        }
+        long next = sealed.isEmpty() ? 1 : sealed.get(sealed.size() - 1).sequence + 1;
+        active = openSegment(next);
+        return replayed;
+    }
+
+    /**
+     * 追加一条记录；pinUntilMillis 之前该记录所在段不会被压缩。
+     */
+    synchronized void append(byte type, String key, String value, long deadlineMillis, long pinUntilMillis) {
+        if (active == null) {
+            throw new IllegalStateException("日志尚未重放");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int bodyBytes = 1 + 8 + 4 + keyBytes.length + 4 + valueBytes.length;
+        if (HEADER_BYTES + bodyBytes > segmentBytes) {
+            throw new IllegalArgumentException("记录超过日志段大小: " + key);
+        }
+        MappedByteBuffer buffer = active.buffer;
+        if (buffer.remaining() < HEADER_BYTES + bodyBytes) {
+            roll();
+            buffer = active.buffer;
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type).putLong(deadlineMillis)
+                .putInt(keyBytes.length).put(keyBytes)
+                .putInt(valueBytes.length).put(valueBytes);
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_BYTES, bodyBytes));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, bodyBytes);
+        active.pinnedUntilMillis = Math.max(active.pinnedUntilMillis, pinUntilMillis);
+        appendedCount++;
+    }
+
+    /**
+     * 删除所有记录均已无需保留的已封存段，返回删除段数。
+     */
+    synchronized int compact(long nowMillis) {
+        int removed = 0;
+        Iterator<Segment> it = sealed.iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            if (segment.pinnedUntilMillis - nowMillis > 0) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("无法删除日志段: " + segment.path, ex);
+            }
+            it.remove();
+            removed++;
+        }
+        compactedCount += removed;
+        return removed;
+    }
+
+    /**
+     * 把当前段强制刷盘，防范主机掉电；进程崩溃无需刷盘即可保留已写入内容。
+     */
+    synchronized void flush() {
+        if (active != null && active.buffer != null) {
+            active.buffer.force();
+        }
+    }
+
+    synchronized int segmentCount() {
+        return sealed.size() + (active == null ? 0 : 1);
+    }
+
+    synchronized long appendedCount() {
+        return appendedCount;
+    }
+
+    synchronized long compactedCount() {
+        return compactedCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        if (active != null) {
+            active.buffer = null;
+        }
+    }
+
+    private void roll() {
+        active.buffer.force();
+        active.buffer = null;
+        sealed.add(active);
+        active = openSegment(active.sequence + 1);
+    }
+
+    private Segment openSegment(long sequence) {
+        Path path = directory.resolve(String.format("%s%016d%s", PREFIX, sequence, SUFFIX));
+        Segment segment = new Segment(sequence, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法创建日志段: " + path, ex);
+        }
+        return segment;
+    }
+
+    /**
+     * 读取 position 处的记录，到达段尾、记录不完整或校验失败时返回 null。
+     */
+    private LogRecord read(MappedByteBuffer buffer, int position) {
+        if (position + HEADER_BYTES > buffer.limit()) {
+            return null;
+        }
+        int bodyBytes = buffer.getInt(position);
+        if (bodyBytes <= 0 || position + HEADER_BYTES + bodyBytes > buffer.limit()) {
+            return null;
+        }
+        int bodyStart = position + HEADER_BYTES;
+        crc.reset();
+        crc.update(buffer.slice(bodyStart, bodyBytes));
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return null;
+        }
+        byte type = buffer.get(bodyStart);
+        long deadlineMillis = buffer.getLong(bodyStart + 1);
+        int keyLength = buffer.getInt(bodyStart + 9);
+        String key = decode(buffer, bodyStart + 13, keyLength);
+        int valueLength = buffer.getInt(bodyStart + 13 + keyLength);
+        String value = type == DELETE ? null : decode(buffer, bodyStart + 17 + keyLength, valueLength);
+        return new LogRecord(type, key, value, deadlineMillis);
+    }
+
+    private static String decode(MappedByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("无法识别的日志段文件: " + file, ex);
+        }
+    }
+}
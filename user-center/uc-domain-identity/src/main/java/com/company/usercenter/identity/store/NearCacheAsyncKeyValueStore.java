@@ -0,0 +1,65 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步路径的近端缓存失效：写入完成后（无论成败）经 {@link NearCacheKeyValueStore} 清理本地条目并广播失效，
+ * 与同步路径写入同一前缀的效果一致。读取直接走异步存储，不使用也不填充近端缓存。
+ */
+final class NearCacheAsyncKeyValueStore implements AsyncEphemeralKeyValueStore {
+
+    private final AsyncEphemeralKeyValueStore delegate;
+    private final NearCacheKeyValueStore nearCache;
+
+    NearCacheAsyncKeyValueStore(AsyncEphemeralKeyValueStore delegate, NearCacheKeyValueStore nearCache) {
+        this.delegate = delegate;
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, String value, Duration ttl) {
+        return invalidateAfter(key, delegate.put(key, value, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> get(String key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return invalidateAfter(key, delegate.delete(key));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getAndDelete(String key) {
+        return invalidateAfter(key, delegate.getAndDelete(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> consumeIfMatches(String key, String expected) {
+        return invalidateAfter(key, delegate.consumeIfMatches(key, expected));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAndGet(String key, Duration ttl) {
+        return invalidateAfter(key, delegate.incrementAndGet(key, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> multiGet(Collection<String> keys) {
+        return delegate.multiGet(keys);
+    }
+
+    /**
+     * 失效在写入完成后、调用方看到结果之前执行。
+     */
+    private <T> CompletableFuture<T> invalidateAfter(String key, CompletableFuture<T> write) {
+        return write.whenComplete((result, ex) -> nearCache.invalidate(List.of(key)));
+    }
+}
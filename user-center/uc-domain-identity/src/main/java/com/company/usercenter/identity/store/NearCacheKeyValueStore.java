@@ -0,0 +1,253 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 远程短期存储的本地近端缓存，主要服务会话黑名单这类“读多写少、绝大多数为未命中”的查询。
+ * <p>
+ * 仅缓存指定前缀的键，同时缓存命中值与“不存在”结果，本地 TTL 很短；
+ * 本节点写入/删除会广播到 {@link InvalidationBus}，其他节点收到后立即清理，消息丢失时由本地 TTL 兜底。
+ * 本地条目存放在 {@link BoundedLocalCache} 中，按写入顺序淘汰；读取回源期间若发生过失效，回源结果不写入本地。
+ */
+public class NearCacheKeyValueStore implements EphemeralKeyValueStore {
+
+    private static final String ABSENT = new String("<absent>");
+
+    private record CachedValue(String value, long expireAtNanos) {
+    }
+
+    private final EphemeralKeyValueStore delegate;
+    private final InvalidationBus invalidationBus;
+    private final List<String> cachedPrefixes;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final BoundedLocalCache<String, CachedValue> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder remoteInvalidationCount = new LongAdder();
+
+    /**
+     * @param delegate        远程存储（通常为 Redis）
+     * @param invalidationBus 跨节点失效通道
+     * @param cachedPrefixes  需要近端缓存的键前缀，如 {@code blacklist:}
+     * @param maxEntries      本地最多缓存条目数
+     * @param positiveTtl     命中值的本地缓存时长
+     * @param negativeTtl     “不存在”结果的本地缓存时长
+     */
+    public NearCacheKeyValueStore(EphemeralKeyValueStore delegate, InvalidationBus invalidationBus,
+                                  List<String> cachedPrefixes, int maxEntries,
+                                  Duration positiveTtl, Duration negativeTtl) {
+        this.delegate = delegate;
+        this.invalidationBus = invalidationBus;
+        this.cachedPrefixes = List.copyOf(cachedPrefixes);
+        this.cache = new BoundedLocalCache<>(maxEntries);
+        this.positiveTtlNanos = positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        invalidationBus.subscribe(keys -> {
+            remoteInvalidationCount.add(keys.size());
+            invalidateLocal(keys);
+        });
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        delegate.put(key, value, ttl);
+        invalidate(List.of(key));
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        if (!isCached(key)) {
+            return delegate.get(key);
+        }
+        long now = System.nanoTime();
+        CachedValue cached = cache.get(key);
+        if (cached != null && cached.expireAtNanos() - now > 0) {
+            if (cached.value() == ABSENT) {
+                negativeHitCount.increment();
+                return Optional.empty();
+            }
+            hitCount.increment();
+            return Optional.of(cached.value());
+        }
+        missCount.increment();
+        long seq = cache.sequence();
+        Optional<String> value = delegate.get(key);
+        populate(key, value.orElse(null), seq, now);
+        return value;
+    }
+
+    @Override
+    public void delete(String key) {
+        delegate.delete(key);
+        invalidate(List.of(key));
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Optional<String> value = delegate.getAndDelete(key);
+        invalidate(List.of(key));
+        return value;
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        boolean consumed = delegate.consumeIfMatches(key, expected);
+        if (consumed) {
+            invalidate(List.of(key));
+        }
+        return consumed;
+    }
+
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        long next = delegate.maxAndGet(key, value, ttl);
+        invalidate(List.of(key));
+        return next;
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        CodeCheck result = delegate.checkCode(key, candidate, maxAttempts);
+        if (result != CodeCheck.ABSENT) {
+            invalidate(List.of(key));
+        }
+        return result;
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        long count = delegate.incrementAndGet(key, ttl);
+        invalidate(List.of(key));
+        return count;
+    }
+
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        List<String> remote = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String key : keys) {
+            CachedValue cached = isCached(key) ? cache.get(key) : null;
+            if (cached != null && cached.expireAtNanos() - now > 0) {
+                if (cached.value() == ABSENT) {
+                    negativeHitCount.increment();
+                } else {
+                    hitCount.increment();
+                    result.put(key, cached.value());
+                }
+            } else {
+                remote.add(key);
+            }
+        }
+        if (remote.isEmpty()) {
+            return result;
+        }
+        long seq = cache.sequence();
+        Map<String, String> fetched = delegate.multiGet(remote);
+        for (String key : remote) {
+            if (isCached(key)) {
+                missCount.increment();
+                populate(key, fetched.get(key), seq, now);
+            }
+        }
+        result.putAll(fetched);
+        return result;
+    }
+
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        delegate.multiPut(entries);
+        List<String> keys = new ArrayList<>(entries.size());
+        for (EphemeralEntry entry : entries) {
+            keys.add(entry.key());
+        }
+        invalidate(keys);
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        delegate.multiDelete(keys);
+        invalidate(keys);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 命中本地“不存在”缓存的次数，黑名单场景下占绝大多数。
+     */
+    public long negativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return cache.evictionCount();
+    }
+
+    /**
+     * 收到其他节点失效通知而清理的键数量。
+     */
+    public long remoteInvalidationCount() {
+        return remoteInvalidationCount.sum();
+    }
+
+    private boolean isCached(String key) {
+        for (String prefix : cachedPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void populate(String key, String value, long seqBeforeRead, long now) {
+        long ttl = value == null ? negativeTtlNanos : positiveTtlNanos;
+        cache.putIfUnchanged(key, new CachedValue(value == null ? ABSENT : value, now + ttl), seqBeforeRead);
+    }
+
+    /**
+     * 包装绕过本类写入同一远程存储的异步路径，使其写入同样清理本地条目并广播失效。
+     */
+    public AsyncEphemeralKeyValueStore invalidating(AsyncEphemeralKeyValueStore delegate) {
+        return new NearCacheAsyncKeyValueStore(delegate, this);
+    }
+
+    /**
+     * 清理指定键中属于缓存前缀的本地条目并广播失效。
+     */
+    void invalidate(Collection<String> keys) {
+        List<String> cachedKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (isCached(key)) {
+                cachedKeys.add(key);
+            }
+        }
+        if (cachedKeys.isEmpty()) {
+            return;
+        }
+        invalidateLocal(cachedKeys);
+        invalidationBus.publish(cachedKeys);
+    }
+
+    private void invalidateLocal(Collection<String> keys) {
+        cache.invalidate(keys);
+    }
+}
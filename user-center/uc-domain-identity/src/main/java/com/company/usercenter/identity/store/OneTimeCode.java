@@ -0,0 +1,83 @@
+package com.company.usercenter.identity.store;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 一次性验证码的存储状态：验证码、失败次数、签发与过期时刻（墙上时钟毫秒）。
+ * <p>
+ * 以 {@code code|attempts|issuedAt|expireAt} 的字符串形式保存，所有存储实现、降级日志回放、
+ * 持久化日志与节点复制都按普通字符串值处理，无需感知其结构；Redis 侧由 Lua 脚本解析。
+ */
+public record OneTimeCode(String code, int attempts, long issuedAtMillis, long expireAtMillis) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * 一次校验后的状态迁移：nextValue 为 null 表示删除，与当前值相同表示无需改写。
+     */
+    record Transition(CodeCheck result, String nextValue) {
+    }
+
+    public static OneTimeCode issue(String code, Duration ttl) {
+        if (code.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("验证码不能包含分隔符");
+        }
+        long now = System.currentTimeMillis();
+        return new OneTimeCode(code, 0, now, now + ttl.toMillis());
+    }
+
+    public String encode() {
+        return code + SEPARATOR + attempts + SEPARATOR + issuedAtMillis + SEPARATOR + expireAtMillis;
+    }
+
+    /**
+     * 解析存储值，格式不符（如升级前签发的纯验证码）时返回空。
+     */
+    public static Optional<OneTimeCode> decode(String value) {
+        int first = value.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : value.indexOf(SEPARATOR, first + 1);
+        int third = second < 0 ? -1 : value.indexOf(SEPARATOR, second + 1);
+        if (third < 0) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new OneTimeCode(value.substring(0, first),
+                    Integer.parseInt(value.substring(first + 1, second)),
+                    Long.parseLong(value.substring(second + 1, third)),
+                    Long.parseLong(value.substring(third + 1))));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 按当前存储值计算一次校验的结果与新值，供各内存实现在各自的原子区间内调用。
+     * 升级前签发的纯验证码只做比较，不计失败次数。
+     */
+    static Transition verify(String current, String candidate, int maxAttempts) {
+        Optional<OneTimeCode> decoded = decode(current);
+        if (decoded.isEmpty()) {
+            return equalsConstantTime(current, candidate)
+                    ? new Transition(CodeCheck.MATCHED, null)
+                    : new Transition(CodeCheck.MISMATCHED, current);
+        }
+        OneTimeCode state = decoded.get();
+        if (equalsConstantTime(state.code(), candidate)) {
+            return new Transition(CodeCheck.MATCHED, null);
+        }
+        int attempts = state.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            return new Transition(CodeCheck.EXHAUSTED, null);
+        }
+        return new Transition(CodeCheck.MISMATCHED,
+                new OneTimeCode(state.code(), attempts, state.issuedAtMillis(), state.expireAtMillis()).encode());
+    }
+
+    private static boolean equalsConstantTime(String expected, String candidate) {
+        return candidate != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                candidate.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,20 @@
+package com.company.usercenter.identity.store;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 节点间复制通道：批量发送本节点的写入与删除，接收其他节点的批次。
+ */
+public interface PeerTransport {
+
+    /**
+     * 向所有对端发送一批操作，尽力而为，失败时不抛出异常。
+     */
+    void send(List<ReplicatedOperation> batch);
+
+    /**
+     * 注册接收回调，回调在接收线程中执行，不应阻塞。
+     */
+    void subscribe(Consumer<List<ReplicatedOperation>> listener);
+}
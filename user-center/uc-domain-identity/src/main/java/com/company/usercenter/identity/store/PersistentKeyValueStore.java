@@ -0,0 +1,248 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可在重启后恢复的本地存储：读写由内存存储承担，写入与删除同时追加到 {@link MappedAppendLog}，
+ * 启动时重放日志恢复未过期的验证码、state 与黑名单，避免 Redis 故障期间重启导致已吊销令牌重新生效。
+ * <p>
+ * 日志写入只是一次内存拷贝，后台按 flushInterval 刷盘；进程崩溃不丢数据，主机掉电至多丢失一个刷盘周期。
+ * 过期时间按墙上时钟毫秒记录。覆盖或删除某个键的记录会保留到被覆盖记录的过期时刻，
+ * 这样压缩掉较新的段后不会让旧值在重放时复活。
+ */
+public class PersistentKeyValueStore implements EphemeralKeyValueStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentKeyValueStore.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final EphemeralKeyValueStore delegate;
+    private final MappedAppendLog appendLog;
+    /** 日志中仍有效的键及其过期毫秒，用于计算覆盖/删除记录的保留时刻与计数器的过期时间。 */
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ScheduledExecutorService maintenance;
+    private final int replayedCount;
+
+    /**
+     * @param delegate           承担读写的内存存储
+     * @param directory          日志目录，同一目录只能由一个实例使用
+     * @param segmentBytes       单个日志段大小
+     * @param flushInterval      刷盘周期
+     * @param compactionInterval 删除过期日志段的周期
+     */
+    public PersistentKeyValueStore(EphemeralKeyValueStore delegate, Path directory, int segmentBytes,
+                                   Duration flushInterval, Duration compactionInterval) {
+        if (flushInterval.toMillis() <= 0 || compactionInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("刷盘与压缩周期必须为正数");
+        }
+        this.delegate = delegate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.appendLog = new MappedAppendLog(directory, segmentBytes);
+        this.replayedCount = appendLog.replay(this::restore);
+        appendLog.compact(System.currentTimeMillis());
+        log.info("本地存储日志重放完成: {} 条记录，恢复 {} 个键", replayedCount, deadlines.size());
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistent-store-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = flushInterval.toMillis();
+        long compactionMillis = compactionInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionMillis, compactionMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        synchronized (lockFor(key)) {
+            long deadline = System.currentTimeMillis() + ttl.toMillis();
+            Long previous = deadlines.put(key, deadline);
+            appendLog.append(MappedAppendLog.PUT, key, value, deadline, pinUntil(deadline, previous));
+            delegate.put(key, value, ttl);
+        }
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        synchronized (lockFor(key)) {
+            logDelete(key);
+            delegate.delete(key);
+        }
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        synchronized (lockFor(key)) {
+            Optional<String> value = delegate.getAndDelete(key);
+            if (value.isPresent()) {
+                logDelete(key);
+            }
+            return value;
+        }
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        synchronized (lockFor(key)) {
+            boolean consumed = delegate.consumeIfMatches(key, expected);
+            if (consumed) {
+                logDelete(key);
+            }
+            return consumed;
+        }
+    }
+
+    /**
+     * 核销与失败计数在分段锁内交给内存存储原子完成，再按结果只记一条删除或新状态写入，
+     * 避免与并发的签发交错，重启后也不会恢复已核销或已作废的验证码。
+     */
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        synchronized (lockFor(key)) {
+            Optional<String> before = delegate.get(key);
+            CodeCheck result = delegate.checkCode(key, candidate, maxAttempts);
+            Optional<String> after = delegate.get(key);
+            if (after.isEmpty()) {
+                if (before.isPresent()) {
+                    logDelete(key);
+                }
+            } else if (!after.equals(before)) {
+                OneTimeCode.decode(after.get()).ifPresent(state -> {
+                    long deadline = state.expireAtMillis();
+                    Long previous = deadlines.put(key, deadline);
+                    appendLog.append(MappedAppendLog.PUT, key, after.get(), deadline, pinUntil(deadline, previous));
+                });
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 计数以普通写入记录新值，过期时间沿用计数开始时的时刻。
+     */
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        synchronized (lockFor(key)) {
+            long count = delegate.incrementAndGet(key, ttl);
+            long now = System.currentTimeMillis();
+            Long previous = deadlines.get(key);
+            long deadline = count == 1 || previous == null ? now + ttl.toMillis() : previous;
+            deadlines.put(key, deadline);
+            appendLog.append(MappedAppendLog.PUT, key, Long.toString(count), deadline,
+                    pinUntil(deadline, previous));
+            return count;
+        }
+    }
+
+    /**
+     * 启动时重放的记录数。
+     */
+    public int replayedCount() {
+        return replayedCount;
+    }
+
+    public int segmentCount() {
+        return appendLog.segmentCount();
+    }
+
+    public long appendedCount() {
+        return appendLog.appendedCount();
+    }
+
+    /**
+     * 已压缩删除的日志段数。
+     */
+    public long compactedCount() {
+        return appendLog.compactedCount();
+    }
+
+    /**
+     * 立即清理过期键的记录并删除可丢弃的日志段，返回删除段数。
+     */
+    public int compact() {
+        long now = System.currentTimeMillis();
+        deadlines.values().removeIf(deadline -> deadline - now <= 0);
+        return appendLog.compact(now);
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        appendLog.close();
+    }
+
+    private long restore(MappedAppendLog.LogRecord record) {
+        long now = System.currentTimeMillis();
+        String key = record.key();
+        if (record.type() == MappedAppendLog.DELETE) {
+            delegate.delete(key);
+            Long previous = deadlines.remove(key);
+            return previous == null ? 0L : previous;
+        }
+        Long previous = deadlines.get(key);
+        if (record.deadlineMillis() - now > 0) {
+            delegate.put(key, record.value(), Duration.ofMillis(record.deadlineMillis() - now));
+            deadlines.put(key, record.deadlineMillis());
+        } else {
+            delegate.delete(key);
+            deadlines.remove(key);
+        }
+        return pinUntil(record.deadlineMillis(), previous);
+    }
+
+    /**
+     * 仅当日志中有仍有效的写入时记录删除，否则重放时本就不会恢复该键。
+     */
+    private void logDelete(String key) {
+        Long previous = deadlines.remove(key);
+        if (previous != null && previous - System.currentTimeMillis() > 0) {
+            appendLog.append(MappedAppendLog.DELETE, key, null, 0L, previous);
+        }
+    }
+
+    private static long pinUntil(long deadline, Long previous) {
+        return previous == null ? deadline : Math.max(deadline, previous);
+    }
+
+    private Object lockFor(String key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void flushQuietly() {
+        try {
+            appendLog.flush();
+        } catch (RuntimeException ex) {
+            log.warn("本地存储日志刷盘失败: {}", ex.getMessage());
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            int removed = compact();
+            if (removed > 0) {
+                log.debug("本地存储日志压缩: 删除 {} 个过期段", removed);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("本地存储日志压缩失败: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在多个节点之间复制本地降级存储：Redis 不可用时，A 节点签发的验证码在 B 节点同样可以校验。
+ * <p>
+ * 写入、删除与核销先作用于本地，再记入待发送缓冲区；同一键在一个批次周期内只保留最后一次操作，
+ * 周期到达或缓冲区满时整批发送。收到的操作按混合逻辑时钟“后写者胜出”，比本地已知版本旧的直接忽略；
+ * 删除留下墓碑，避免乱序到达的旧写入复活。
+ * <p>
+ * 复制是异步尽力而为的：核销在复制延迟窗口内并非全局原子，计数也不复制，仅在本节点有效。
+ */
+public class ReplicatedKeyValueStore implements EphemeralKeyValueStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicatedKeyValueStore.class);
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 本地已知的最新版本；墓碑在 expireAtMillis 之后清除。
+     */
+    private record Version(long timestamp, long nodeId, long expireAtMillis) {
+    }
+
+    private final EphemeralKeyValueStore delegate;
+    private final PeerTransport transport;
+    private final HybridLogicalClock clock;
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final int batchSize;
+    private final long tombstoneMillis;
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, ReplicatedOperation> pending = new LinkedHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ScheduledExecutorService sender;
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder appliedCount = new LongAdder();
+    private final LongAdder staleCount = new LongAdder();
+
+    /**
+     * @param delegate       本地降级存储
+     * @param transport      节点间复制通道
+     * @param batchSize      单批最多操作数，缓冲区达到该数量时立即发送
+     * @param flushInterval  批次周期
+     * @param tombstoneTtl   删除墓碑的最短保留时长
+     */
+    public ReplicatedKeyValueStore(EphemeralKeyValueStore delegate, PeerTransport transport, int batchSize,
+                                   Duration flushInterval, Duration tombstoneTtl) {
+        this(delegate, transport, batchSize, flushInterval, tombstoneTtl, new HybridLogicalClock());
+    }
+
+    ReplicatedKeyValueStore(EphemeralKeyValueStore delegate, PeerTransport transport, int batchSize,
+                            Duration flushInterval, Duration tombstoneTtl, HybridLogicalClock clock) {
+        if (batchSize <= 0 || flushInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("batchSize 与 flushInterval 必须为正数");
+        }
+        this.delegate = delegate;
+        this.transport = transport;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.tombstoneMillis = tombstoneTtl.toMillis();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ephemeral-store-replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = flushInterval.toMillis();
+        sender.scheduleWithFixedDelay(this::flushQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        transport.subscribe(this::applyRemote);
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        long deadline = System.currentTimeMillis() + ttl.toMillis();
+        synchronized (lockFor(key)) {
+            delegate.put(key, value, ttl);
+            enqueue(key, value, deadline, deadline);
+        }
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        return delegate.get(key);
+    }
+
+    /**
+     * 本节点与对端都从未写入过的键不广播删除，Redis 正常时的删除不会产生复制流量。
+     */
+    @Override
+    public void delete(String key) {
+        synchronized (lockFor(key)) {
+            delegate.delete(key);
+            if (versions.containsKey(key)) {
+                enqueueDelete(key);
+            }
+        }
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        synchronized (lockFor(key)) {
+            Optional<String> value = delegate.getAndDelete(key);
+            if (value.isPresent()) {
+                enqueueDelete(key);
+            }
+            return value;
+        }
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        synchronized (lockFor(key)) {
+            boolean consumed = delegate.consumeIfMatches(key, expected);
+            if (consumed) {
+                enqueueDelete(key);
+            }
+            return consumed;
+        }
+    }
+
+    /**
+     * 核销与失败计数在分段锁内交给本地存储原子完成，再按结果只广播一条删除或新状态，
+     * 避免与并发的签发交错，对端也不会看到中间状态。
+     */
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        synchronized (lockFor(key)) {
+            Optional<String> before = delegate.get(key);
+            CodeCheck result = delegate.checkCode(key, candidate, maxAttempts);
+            Optional<String> after = delegate.get(key);
+            if (after.isEmpty()) {
+                if (before.isPresent()) {
+                    enqueueDelete(key);
+                }
+            } else if (!after.equals(before)) {
+                OneTimeCode.decode(after.get()).ifPresent(state ->
+                        enqueue(key, after.get(), state.expireAtMillis(), state.expireAtMillis()));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        return delegate.incrementAndGet(key, ttl);
+    }
+
+    /**
+     * 立即发送缓冲区中的全部操作，返回发送条数。
+     */
+    public int flush() {
+        List<ReplicatedOperation> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            transport.send(batch.subList(from, Math.min(batch.size(), from + batchSize)));
+        }
+        sentCount.add(batch.size());
+        return batch.size();
+    }
+
+    public long sentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * 发送前被同一键的后续操作覆盖而合并掉的操作数。
+     */
+    public long coalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long appliedCount() {
+        return appliedCount.sum();
+    }
+
+    /**
+     * 因版本旧于本地或已过期而被忽略的远端操作数。
+     */
+    public long staleCount() {
+        return staleCount.sum();
+    }
+
+    @Override
+    public void close() {
+        sender.shutdownNow();
+        flush();
+    }
+
+    private void enqueueDelete(String key) {
+        Version previous = versions.get(key);
+        long expireAt = System.currentTimeMillis() + tombstoneMillis;
+        if (previous != null) {
+            expireAt = Math.max(expireAt, previous.expireAtMillis());
+        }
+        enqueue(key, null, 0L, expireAt);
+    }
+
+    /**
+     * 调用方须持有该键的分段锁，保证本地写入顺序与版本顺序一致。
+     */
+    private void enqueue(String key, String value, long deadlineMillis, long versionExpireAtMillis) {
+        long timestamp = clock.now();
+        versions.put(key, new Version(timestamp, nodeId, versionExpireAtMillis));
+        ReplicatedOperation operation = new ReplicatedOperation(key, value, deadlineMillis, timestamp, nodeId);
+        boolean full;
+        synchronized (pending) {
+            if (pending.put(key, operation) != null) {
+                coalescedCount.increment();
+            }
+            full = pending.size() >= batchSize;
+        }
+        if (full && !sender.isShutdown()) {
+            sender.execute(this::flushQuietly);
+        }
+    }
+
+    private void applyRemote(List<ReplicatedOperation> batch) {
+        long now = System.currentTimeMillis();
+        for (ReplicatedOperation operation : batch) {
+            if (operation.nodeId() == nodeId) {
+                continue;
+            }
+            clock.observe(operation.timestamp());
+            synchronized (lockFor(operation.key())) {
+                if (applyRemote(operation, now)) {
+                    appliedCount.increment();
+                } else {
+                    staleCount.increment();
+                }
+            }
+        }
+    }
+
+    private boolean applyRemote(ReplicatedOperation operation, long now) {
+        String key = operation.key();
+        Version current = versions.get(key);
+        if (current != null && !operation.isNewerThan(current.timestamp(), current.nodeId())) {
+            return false;
+        }
+        if (operation.isDelete()) {
+            long expireAt = now + tombstoneMillis;
+            if (current != null) {
+                expireAt = Math.max(expireAt, current.expireAtMillis());
+            }
+            delegate.delete(key);
+            versions.put(key, new Version(operation.timestamp(), operation.nodeId(), expireAt));
+            return true;
+        }
+        if (operation.deadlineMillis() - now <= 0) {
+            return false;
+        }
+        delegate.put(key, operation.value(), Duration.ofMillis(operation.deadlineMillis() - now));
+        versions.put(key, new Version(operation.timestamp(), operation.nodeId(), operation.deadlineMillis()));
+        return true;
+    }
+
+    private Object lockFor(String key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+            long now = System.currentTimeMillis();
+            versions.values().removeIf(version -> version.expireAtMillis() - now <= 0);
+        } catch (RuntimeException ex) {
+            log.warn("降级存储复制发送失败: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.company.usercenter.identity.store;
+
+/**
+ * 节点间复制的一次写入或删除，value 为 null 表示删除。
+ *
+ * @param key            键
+ * @param value          写入值，删除时为 null
+ * @param deadlineMillis 写入的过期时刻（墙上时钟毫秒），删除时为 0
+ * @param timestamp      发起节点的混合逻辑时钟时间戳
+ * @param nodeId         发起节点标识，时间戳相同时用于决定先后
+ */
+public record ReplicatedOperation(String key, String value, long deadlineMillis, long timestamp, long nodeId) {
+
+    public boolean isDelete() {
+        return value == null;
+    }
+
+    /**
+     * 按 (时间戳, 节点) 比较，后写者胜出。
+     */
+    boolean isNewerThan(long otherTimestamp, long otherNodeId) {
+        return timestamp != otherTimestamp ? timestamp > otherTimestamp : nodeId > otherNodeId;
+    }
+}
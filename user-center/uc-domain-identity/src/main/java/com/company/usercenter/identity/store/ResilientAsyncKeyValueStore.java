@@ -0,0 +1,179 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * {@link ResilientKeyValueStore} 的异步版本：主存异步调用失败时回退到同步的内存备用存储。
+ * <p>
+ * 与同步版本共享同一个熔断器与降级日志，两条调用路径看到一致的主存健康状态，降级写入统一回放。
+ * 回退逻辑在主存 future 完成的线程（通常是 Redis I/O 线程）上执行，只做内存操作，不会阻塞；
+ * 调用方的后续处理若较重，应使用 {@code thenApplyAsync} 等切换到自己的线程池。
+ */
+public class ResilientAsyncKeyValueStore implements AsyncEphemeralKeyValueStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientAsyncKeyValueStore.class);
+
+    private final AsyncEphemeralKeyValueStore primary;
+    private final EphemeralKeyValueStore fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final FallbackJournal journal;
+    private volatile EphemeralStoreListener listener = EphemeralStoreListener.NOOP;
+
+    public ResilientAsyncKeyValueStore(AsyncEphemeralKeyValueStore primary, EphemeralKeyValueStore fallback,
+                                       CircuitBreaker circuitBreaker, FallbackJournal journal) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+        this.journal = journal;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, String value, Duration ttl) {
+        return callPrimary(StoreOperation.PUT, List.of(key),
+                        store -> store.put(key, value, ttl).thenApply(ignored -> true), false)
+                .thenApply(written -> {
+                    if (written) {
+                        journal.discard(key, value, System.nanoTime() + ttl.toNanos());
+                    } else {
+                        fallback.put(key, value, ttl);
+                        journal.recordPut(key, value, System.nanoTime() + ttl.toNanos());
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> get(String key) {
+        return callPrimary(StoreOperation.GET, List.of(key), store -> store.get(key), Optional.<String>empty())
+                .thenApply(value -> value.isPresent() ? value : fallback.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return callPrimary(StoreOperation.DELETE, List.of(key),
+                        store -> store.delete(key).thenApply(ignored -> true), false)
+                .thenApply(deleted -> {
+                    fallback.delete(key);
+                    if (deleted) {
+                        journal.discard(key);
+                    } else {
+                        journal.recordDelete(key);
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getAndDelete(String key) {
+        return callPrimary(StoreOperation.GET_AND_DELETE, List.of(key),
+                        store -> store.getAndDelete(key), Optional.<String>empty())
+                .thenApply(value -> {
+                    if (value.isPresent()) {
+                        fallback.delete(key);
+                        journal.discard(key);
+                        return value;
+                    }
+                    Optional<String> local = fallback.getAndDelete(key);
+                    if (local.isPresent()) {
+                        journal.recordDelete(key);
+                    }
+                    return local;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> consumeIfMatches(String key, String expected) {
+        return callPrimary(StoreOperation.CONSUME, List.of(key),
+                        store -> store.consumeIfMatches(key, expected), false)
+                .thenApply(consumed -> {
+                    if (consumed) {
+                        fallback.delete(key);
+                        journal.discard(key);
+                        return true;
+                    }
+                    if (fallback.consumeIfMatches(key, expected)) {
+                        journal.recordDelete(key);
+                        return true;
+                    }
+                    return false;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAndGet(String key, Duration ttl) {
+        return callPrimary(StoreOperation.INCREMENT, List.of(key),
+                        store -> store.incrementAndGet(key, ttl), null)
+                .thenApply(count -> count != null ? count : fallback.incrementAndGet(key, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> multiGet(Collection<String> keys) {
+        return callPrimary(StoreOperation.MULTI_GET, keys, store -> store.multiGet(keys), null)
+                .thenApply(hits -> {
+                    if (hits == null) {
+                        return fallback.multiGet(keys);
+                    }
+                    Map<String, String> result = new LinkedHashMap<>(hits);
+                    List<String> missing = new ArrayList<>();
+                    for (String key : keys) {
+                        if (!result.containsKey(key)) {
+                            missing.add(key);
+                        }
+                    }
+                    if (!missing.isEmpty()) {
+                        result.putAll(fallback.multiGet(missing));
+                    }
+                    return result;
+                });
+    }
+
+    public void setListener(EphemeralStoreListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 经熔断器异步调用主存，熔断打开或调用失败时以 onUnavailable 完成，由后续阶段走备用存储。
+     */
+    private <T> CompletableFuture<T> callPrimary(StoreOperation operation, Collection<String> keys,
+                                                 Function<AsyncEphemeralKeyValueStore, CompletableFuture<T>> call,
+                                                 T onUnavailable) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            listener.onFallback(operation, keys);
+            return CompletableFuture.completedFuture(onUnavailable);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(primary);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        return future.handle((result, ex) -> {
+            long elapsed = System.nanoTime() - start;
+            if (ex == null) {
+                circuitBreaker.onSuccess(elapsed);
+                return result;
+            }
+            circuitBreaker.onError(elapsed);
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            log.warn("主存异步{}失败，回退到备用存储: {}", operation.label(), cause.getMessage());
+            listener.onFallback(operation, keys);
+            return onUnavailable;
+        });
+    }
+}
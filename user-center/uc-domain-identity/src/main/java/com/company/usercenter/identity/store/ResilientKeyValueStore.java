@@ -4,10 +4,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * 首选主存（如 Redis），失败时自动降级到备用存储，确保功能可用。
+ * <p>
+ * 主存调用经过熔断器：连续失败或变慢时跳闸，打开期间直接访问备用存储，避免每个请求都等待命令超时。
+ * 降级期间的写入与删除记入 {@link FallbackJournal}，主存恢复后由 {@link #replayJournal(int)} 按剩余 TTL 回放。
  */
 public class ResilientKeyValueStore implements EphemeralKeyValueStore {
 
@@ -15,44 +24,319 @@ public class ResilientKeyValueStore implements EphemeralKeyValueStore {
 
     private final EphemeralKeyValueStore primary;
     private final EphemeralKeyValueStore fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final FallbackJournal journal;
+    private volatile EphemeralStoreListener listener = EphemeralStoreListener.NOOP;
 
     public ResilientKeyValueStore(EphemeralKeyValueStore primary, EphemeralKeyValueStore fallback) {
+        this(primary, fallback, new CircuitBreaker("ephemeral-store", CircuitBreaker.Settings.defaults()));
+    }
+
+    public ResilientKeyValueStore(EphemeralKeyValueStore primary, EphemeralKeyValueStore fallback,
+                                  CircuitBreaker circuitBreaker) {
+        this(primary, fallback, circuitBreaker, new FallbackJournal(100_000));
+    }
+
+    public ResilientKeyValueStore(EphemeralKeyValueStore primary, EphemeralKeyValueStore fallback,
+                                  CircuitBreaker circuitBreaker, FallbackJournal journal) {
         this.primary = primary;
         this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+        this.journal = journal;
     }
 
     @Override
     public void put(String key, String value, Duration ttl) {
-        try {
-            primary.put(key, value, ttl);
+        boolean written = callPrimary(StoreOperation.PUT, List.of(key), store -> {
+            store.put(key, value, ttl);
+            return true;
+        }, false);
+        if (written) {
+            journal.discard(key, value, System.nanoTime() + ttl.toNanos());
             return;
-        } catch (Exception ex) {
-            log.warn("主存写入失败，回退到备用存储: {}", ex.getMessage());
         }
         fallback.put(key, value, ttl);
+        journal.recordPut(key, value, System.nanoTime() + ttl.toNanos());
     }
 
     @Override
     public Optional<String> get(String key) {
-        try {
-            Optional<String> val = primary.get(key);
-            if (val.isPresent()) {
-                return val;
-            }
-        } catch (Exception ex) {
-            log.warn("主存读取失败，回退到备用存储: {}", ex.getMessage());
+        Optional<String> val = callPrimary(StoreOperation.GET, List.of(key), store -> store.get(key),
+                Optional.empty());
+        if (val.isPresent()) {
+            return val;
         }
         return fallback.get(key);
     }
 
+    /**
+     * 删除总是同时作用于备用存储，避免降级期间写入的旧条目在主存删除后仍被读到。
+     */
     @Override
     public void delete(String key) {
-        try {
-            primary.delete(key);
+        boolean deleted = callPrimary(StoreOperation.DELETE, List.of(key), store -> {
+            store.delete(key);
+            return true;
+        }, false);
+        fallback.delete(key);
+        if (deleted) {
+            journal.discard(key);
+        } else {
+            journal.recordDelete(key);
+        }
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Optional<String> val = callPrimary(StoreOperation.GET_AND_DELETE, List.of(key),
+                store -> store.getAndDelete(key), Optional.empty());
+        if (val.isPresent()) {
+            fallback.delete(key);
+            journal.discard(key);
+            return val;
+        }
+        Optional<String> local = fallback.getAndDelete(key);
+        if (local.isPresent()) {
+            journal.recordDelete(key);
+        }
+        return local;
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        if (callPrimary(StoreOperation.CONSUME, List.of(key), store -> store.consumeIfMatches(key, expected),
+                false)) {
+            fallback.delete(key);
+            journal.discard(key);
+            return true;
+        }
+        if (fallback.consumeIfMatches(key, expected)) {
+            journal.recordDelete(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 主存中不存在时再校验备用存储中降级期间签发的验证码；备用存储的失败次数变化按写入记入降级日志。
+     */
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        Long next = callPrimary(StoreOperation.PUT, List.of(key), store -> store.maxAndGet(key, value, ttl), null);
+        if (next != null) {
+            journal.discard(key, Long.toString(next), System.nanoTime() + ttl.toNanos());
+            return next;
+        }
+        long local = fallback.maxAndGet(key, value, ttl);
+        journal.recordPut(key, Long.toString(local), System.nanoTime() + ttl.toNanos());
+        return local;
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        CodeCheck result = callPrimary(StoreOperation.CHECK_CODE, List.of(key),
+                store -> store.checkCode(key, candidate, maxAttempts), CodeCheck.ABSENT);
+        if (result != CodeCheck.ABSENT) {
+            if (result != CodeCheck.MISMATCHED) {
+                fallback.delete(key);
+                journal.discard(key);
+            }
+            return result;
+        }
+        CodeCheck local = fallback.checkCode(key, candidate, maxAttempts);
+        if (local == CodeCheck.MATCHED || local == CodeCheck.EXHAUSTED) {
+            journal.recordDelete(key);
+        } else if (local == CodeCheck.MISMATCHED) {
+            fallback.get(key).ifPresent(value -> OneTimeCode.decode(value).ifPresent(state -> journal.recordPut(key,
+                    value, System.nanoTime() + (state.expireAtMillis() - System.currentTimeMillis()) * 1_000_000L)));
+        }
+        return local;
+    }
+
+    /**
+     * 计数不写入降级日志：回放时无法与主存已有计数合并，降级期间的计数仅在本节点有效。
+     */
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        Long count = callPrimary(StoreOperation.INCREMENT, List.of(key), store -> store.incrementAndGet(key, ttl),
+                null);
+        if (count != null) {
+            return count;
+        }
+        return fallback.incrementAndGet(key, ttl);
+    }
+
+    /**
+     * 主存批量读取后，仅对未命中的键回查备用存储；主存异常时整批回退。
+     */
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        Map<String, String> hits = callPrimary(StoreOperation.MULTI_GET, keys, store -> store.multiGet(keys),
+                null);
+        if (hits == null) {
+            return fallback.multiGet(keys);
+        }
+        Map<String, String> result = new LinkedHashMap<>(hits);
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.putAll(fallback.multiGet(missing));
+        }
+        return result;
+    }
+
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        boolean written = callPrimary(StoreOperation.MULTI_PUT, keysOf(entries), store -> {
+            store.multiPut(entries);
+            return true;
+        }, false);
+        if (written) {
+            long now = System.nanoTime();
+            for (EphemeralEntry entry : entries) {
+                journal.discard(entry.key(), entry.value(), now + entry.ttl().toNanos());
+            }
             return;
+        }
+        fallback.multiPut(entries);
+        long now = System.nanoTime();
+        for (EphemeralEntry entry : entries) {
+            journal.recordPut(entry.key(), entry.value(), now + entry.ttl().toNanos());
+        }
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        boolean deleted = callPrimary(StoreOperation.MULTI_DELETE, keys, store -> {
+            store.multiDelete(keys);
+            return true;
+        }, false);
+        fallback.multiDelete(keys);
+        for (String key : keys) {
+            if (deleted) {
+                journal.discard(key);
+            } else {
+                journal.recordDelete(key);
+            }
+        }
+    }
+
+    /**
+     * 熔断器关闭时把至多 maxRecords 条降级记录按剩余 TTL 批量回放到主存，返回回放条数。
+     * 回放失败时记录放回日志，等待下一轮。
+     * <p>
+     * 取出后已被主存直接写入或删除的键不再回放；写入期间发生的直接变更在写入后按最新状态补写一次，
+     * 避免回放复活刚被删除或消费的键。
+     */
+    public int replayJournal(int maxRecords) {
+        if (journal.size() == 0 || circuitBreaker.state() != CircuitBreaker.State.CLOSED) {
+            return 0;
+        }
+        List<FallbackJournal.Record> batch = journal.drain(maxRecords, System.nanoTime());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<FallbackJournal.Record> current = journal.retainCurrent(batch);
+        if (!writeToPrimary(current)) {
+            journal.requeue(batch);
+            return 0;
+        }
+        List<FallbackJournal.Record> latest = journal.takeSuperseded(batch);
+        if (!latest.isEmpty() && !writeToPrimary(latest)) {
+            for (FallbackJournal.Record record : latest) {
+                if (record.isDelete()) {
+                    journal.recordDelete(record.key());
+                } else {
+                    journal.recordPut(record.key(), record.value(), record.deadlineNanos());
+                }
+            }
+        }
+        journal.release(batch);
+        journal.markReplayed(current.size());
+        log.info("降级写入已回放到主存: {} 条，剩余 {} 条", current.size(), journal.size());
+        return current.size();
+    }
+
+    private boolean writeToPrimary(List<FallbackJournal.Record> records) {
+        long now = System.nanoTime();
+        List<EphemeralEntry> puts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (FallbackJournal.Record record : records) {
+            if (record.isDelete()) {
+                deletes.add(record.key());
+            } else if (record.deadlineNanos() - now > 0) {
+                puts.add(new EphemeralEntry(record.key(), record.value(),
+                        Duration.ofNanos(record.deadlineNanos() - now)));
+            }
+        }
+        if (puts.isEmpty() && deletes.isEmpty()) {
+            return true;
+        }
+        return callPrimary(StoreOperation.REPLAY, List.of(), store -> {
+            if (!puts.isEmpty()) {
+                store.multiPut(puts);
+            }
+            if (!deletes.isEmpty()) {
+                store.multiDelete(deletes);
+            }
+            return true;
+        }, false);
+    }
+
+    public void setListener(EphemeralStoreListener listener) {
+        this.listener = listener;
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public FallbackJournal journal() {
+        return journal;
+    }
+
+    /**
+     * 经熔断器调用主存，熔断打开或调用失败时返回 onUnavailable，由调用方走备用存储。
+     */
+    private <T> T callPrimary(StoreOperation operation, Collection<String> keys,
+                              Function<EphemeralKeyValueStore, T> call, T onUnavailable) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return unavailable(operation, keys, onUnavailable);
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.apply(primary);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return result;
         } catch (Exception ex) {
-            log.warn("主存删除失败，回退到备用存储: {}", ex.getMessage());
+            circuitBreaker.onError(System.nanoTime() - start);
+            log.warn("主存{}失败，回退到备用存储: {}", operation.label(), ex.getMessage());
+            return unavailable(operation, keys, onUnavailable);
+        } catch (Error err) {
+            circuitBreaker.onError(System.nanoTime() - start);
+            throw err;
         }
-        fallback.delete(key);
+    }
+
+    /**
+     * 回放失败只是推迟，不算作降级事件。
+     */
+    private <T> T unavailable(StoreOperation operation, Collection<String> keys, T onUnavailable) {
+        if (operation != StoreOperation.REPLAY) {
+            listener.onFallback(operation, keys);
+        }
+        return onUnavailable;
+    }
+
+    private static List<String> keysOf(Collection<EphemeralEntry> entries) {
+        List<String> keys = new ArrayList<>(entries.size());
+        for (EphemeralEntry entry : entries) {
+            keys.add(entry.key());
+        }
+        return keys;
     }
 }
@@ -0,0 +1,489 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 分段锁内存存储：键按哈希分布到 N 个段，每段是独立加锁的开放寻址表，
+ * 键、值与过期时刻（{@code long} 纳秒）分别存放在平行数组中，写入不额外分配条目对象。
+ * <p>
+ * 读取先走乐观读，无写入竞争时不加锁；写入只锁所在段，多核下吞吐随段数线性扩展。
+ * 每段各自清理过期键：写入时顺带扫描少量槽位，后台线程再逐段分批全量扫描，
+ * 每批只短暂持有一个段的锁。段满时先清理过期键，仍不足则在随机采样中淘汰最接近过期的键。
+ */
+public class SegmentedKeyValueStore implements EphemeralKeyValueStore, AutoCloseable {
+
+    private static final int DEFAULT_SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    /** 每次写入顺带检查的槽位数。 */
+    private static final int SWEEP_ON_WRITE = 4;
+    /** 后台清理每次持锁扫描的槽位数。 */
+    private static final int SWEEP_BATCH = 1024;
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final ScheduledExecutorService cleaner;
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxEntries 全部段合计的条目上限
+     */
+    public SegmentedKeyValueStore(int maxEntries) {
+        this(DEFAULT_SEGMENTS, maxEntries, Duration.ofSeconds(1));
+    }
+
+    /**
+     * @param segmentCount    段数，向上取整为 2 的幂，建议不少于 CPU 核数的 4 倍
+     * @param maxEntries      全部段合计的条目上限
+     * @param cleanupInterval 后台清理周期
+     */
+    public SegmentedKeyValueStore(int segmentCount, int maxEntries, Duration cleanupInterval) {
+        if (segmentCount <= 0 || maxEntries <= 0 || cleanupInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("段数、容量与清理周期必须为正数");
+        }
+        int count = segmentCount == 1 ? 1 : Integer.highestOneBit(segmentCount - 1) << 1;
+        this.segments = new Segment[count];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        int perSegment = Math.max(1, (maxEntries + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "segmented-store-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = cleanupInterval.toMillis();
+        cleaner.scheduleWithFixedDelay(this::sweepAll, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        int hash = spread(key.hashCode());
+        segmentFor(hash).put(key, hash, value, System.nanoTime() + ttl.toNanos());
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        int hash = spread(key.hashCode());
+        return Optional.ofNullable(segmentFor(hash).get(key, hash, System.nanoTime()));
+    }
+
+    @Override
+    public void delete(String key) {
+        int hash = spread(key.hashCode());
+        segmentFor(hash).remove(key, hash, null);
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        int hash = spread(key.hashCode());
+        return Optional.ofNullable(segmentFor(hash).remove(key, hash, null));
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        if (expected == null) {
+            return false;
+        }
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).remove(key, hash, expected) != null;
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).increment(key, hash, ttl.toNanos());
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).checkCode(key, hash, candidate, maxAttempts);
+    }
+
+    /**
+     * 各段条目数之和（可能包含尚未清理的已过期键），并发写入时为近似值。
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * 因段容量不足被淘汰的未过期条目数。
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 立即逐段清理全部过期键，返回清理数量。
+     */
+    public int sweepAll() {
+        int removed = 0;
+        for (Segment segment : segments) {
+            removed += segment.sweepFully();
+        }
+        return removed;
+    }
+
+    @Override
+    public void close() {
+        cleaner.shutdownNow();
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 线性探测开放寻址表，删除时向前回移后续键，不留墓碑。
+     */
+    private final class Segment {
+        final StampedLock lock = new StampedLock();
+        final int maxEntries;
+        String[] keys;
+        String[] values;
+        long[] deadlines;
+        volatile int size;
+        int sweepCursor;
+
+        Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new String[capacity];
+            values = new String[capacity];
+            deadlines = new long[capacity];
+        }
+
+        String get(String key, int hash, long now) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                String[] k = keys;
+                String[] v = values;
+                long[] d = deadlines;
+                // 扩容期间三个数组可能来自不同代，长度不一致时直接走读锁
+                boolean consistent = k.length == v.length && k.length == d.length;
+                int slot = consistent ? find(k, key, hash) : -1;
+                String value = slot < 0 ? null : v[slot];
+                long deadline = slot < 0 ? 0L : d[slot];
+                if (consistent && lock.validate(stamp)) {
+                    if (slot < 0) {
+                        return null;
+                    }
+                    if (deadline - now > 0) {
+                        return value;
+                    }
+                    removeIfExpired(key, hash);
+                    return null;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                int slot = find(keys, key, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                if (deadlines[slot] - now > 0) {
+                    return values[slot];
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            removeIfExpired(key, hash);
+            return null;
+        }
+
+        void put(String key, int hash, String value, long deadline) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(keys, key, hash);
+                if (slot >= 0) {
+                    values[slot] = value;
+                    deadlines[slot] = deadline;
+                } else {
+                    insert(key, hash, value, deadline);
+                }
+                sweep(SWEEP_ON_WRITE, System.nanoTime());
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long increment(String key, int hash, long ttlNanos) {
+            long stamp = lock.writeLock();
+            try {
+                long now = System.nanoTime();
+                int slot = find(keys, key, hash);
+                if (slot >= 0 && deadlines[slot] - now > 0) {
+                    long count = InMemoryKeyValueStore.parseCount(key, values[slot]) + 1;
+                    values[slot] = Long.toString(count);
+                    return count;
+                }
+                if (slot >= 0) {
+                    values[slot] = "1";
+                    deadlines[slot] = now + ttlNanos;
+                } else {
+                    insert(key, hash, "1", now + ttlNanos);
+                }
+                return 1;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 在段写锁内完成比较与状态迁移，改写时保留原过期时间。
+         */
+        CodeCheck checkCode(String key, int hash, String candidate, int maxAttempts) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(keys, key, hash);
+                if (slot < 0) {
+                    return CodeCheck.ABSENT;
+                }
+                if (deadlines[slot] - System.nanoTime() <= 0) {
+                    removeAt(slot);
+                    expiredCount.increment();
+                    return CodeCheck.ABSENT;
+                }
+                OneTimeCode.Transition transition = OneTimeCode.verify(values[slot], candidate, maxAttempts);
+                if (transition.nextValue() == null) {
+                    removeAt(slot);
+                } else {
+                    values[slot] = transition.nextValue();
+                }
+                return transition.result();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 删除并返回未过期的值；expected 非空时仅在值相等时删除。
+         */
+        String remove(String key, int hash, String expected) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(keys, key, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                String value = values[slot];
+                boolean live = deadlines[slot] - System.nanoTime() > 0;
+                if (live && expected != null && !expected.equals(value)) {
+                    return null;
+                }
+                removeAt(slot);
+                if (!live) {
+                    expiredCount.increment();
+                    return null;
+                }
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void removeIfExpired(String key, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(keys, key, hash);
+                if (slot >= 0 && deadlines[slot] - System.nanoTime() <= 0) {
+                    removeAt(slot);
+                    expiredCount.increment();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int sweepFully() {
+            int removed = 0;
+            int scanned = 0;
+            while (true) {
+                long stamp = lock.writeLock();
+                try {
+                    int capacity = keys.length;
+                    if (scanned >= capacity) {
+                        return removed;
+                    }
+                    int batch = Math.min(SWEEP_BATCH, capacity - scanned);
+                    removed += sweep(batch, System.nanoTime());
+                    scanned += batch;
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+
+        /**
+         * 从游标处检查 slots 个槽位并删除已过期键，调用方须持有写锁。
+         */
+        private int sweep(int slots, long now) {
+            if (size == 0) {
+                return 0;
+            }
+            int mask = keys.length - 1;
+            int removed = 0;
+            for (int i = 0; i < slots; i++) {
+                int slot = sweepCursor & mask;
+                if (keys[slot] != null && deadlines[slot] - now <= 0) {
+                    removeAt(slot);
+                    removed++;
+                    continue;
+                }
+                sweepCursor = slot + 1;
+            }
+            expiredCount.add(removed);
+            return removed;
+        }
+
+        private void insert(String key, int hash, String value, long deadline) {
+            if (size >= maxEntries) {
+                makeRoom();
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            deadlines[slot] = deadline;
+            size = size + 1;
+        }
+
+        /**
+         * 段已满：先全量清理过期键，仍满则在随机位置起的若干条目中淘汰最接近过期者。
+         */
+        private void makeRoom() {
+            long now = System.nanoTime();
+            expiredCount.add(sweepRange(now));
+            if (size < maxEntries) {
+                return;
+            }
+            int mask = keys.length - 1;
+            int slot = ThreadLocalRandom.current().nextInt(keys.length);
+            int victim = -1;
+            for (int seen = 0, i = 0; seen < EVICTION_SAMPLE && i < keys.length; i++, slot = (slot + 1) & mask) {
+                if (keys[slot] == null) {
+                    continue;
+                }
+                seen++;
+                if (victim < 0 || deadlines[slot] - deadlines[victim] < 0) {
+                    victim = slot;
+                }
+            }
+            if (victim >= 0) {
+                removeAt(victim);
+                evictionCount.increment();
+            }
+        }
+
+        private int sweepRange(long now) {
+            int removed = 0;
+            int slot = 0;
+            while (slot < keys.length) {
+                if (keys[slot] != null && deadlines[slot] - now <= 0) {
+                    removeAt(slot);
+                    removed++;
+                } else {
+                    slot++;
+                }
+            }
+            return removed;
+        }
+
+        private void resize(int capacity) {
+            String[] oldKeys = keys;
+            String[] oldValues = values;
+            long[] oldDeadlines = deadlines;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                String key = oldKeys[i];
+                if (key == null) {
+                    continue;
+                }
+                int slot = spread(key.hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+                deadlines[slot] = oldDeadlines[i];
+            }
+        }
+
+        /**
+         * 删除槽位并把同一探测链上的后续键回移，保持线性探测不变式。
+         */
+        private void removeAt(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != null) {
+                int home = spread(keys[next].hashCode()) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    deadlines[hole] = deadlines[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = null;
+            values[hole] = null;
+            deadlines[hole] = 0L;
+            size = size - 1;
+        }
+
+        private int find(String[] table, String key, int hash) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            for (int probes = 0; probes < table.length; probes++) {
+                String candidate = table[slot];
+                if (candidate == null) {
+                    return -1;
+                }
+                if (candidate.equals(key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
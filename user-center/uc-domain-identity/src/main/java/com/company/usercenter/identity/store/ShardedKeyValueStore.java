@@ -0,0 +1,220 @@
+package com.company.usercenter.identity.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 客户端分片存储：按 {@link ConsistentHashRing} 把键路由到各分片，批量操作按分片分组后各走一次往返。
+ * <p>
+ * 每个分片通常是独立熔断、独立降级日志的 {@link ResilientKeyValueStore}，某个分片故障只影响落在它上面的键。
+ * <p>
+ * 扩容迁移期间可传入旧分片列表：读取在新归属分片未命中时回查旧归属分片；写入只进新归属分片，
+ * 同时删除旧归属分片上的副本，避免新值被核销后旧值重新可见。迁移完成前已有的验证码与黑名单仍然可见。
+ */
+public class ShardedKeyValueStore implements EphemeralKeyValueStore {
+
+    private final Map<String, EphemeralKeyValueStore> shards;
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+
+    public ShardedKeyValueStore(Map<String, EphemeralKeyValueStore> shards, int virtualNodes) {
+        this(shards, virtualNodes, List.of());
+    }
+
+    /**
+     * @param shards         分片名到存储的映射，分片名参与哈希，扩容时已有分片的名称不能改变
+     * @param virtualNodes   每个分片的虚拟节点数
+     * @param previousShards 扩容前的分片名，为空表示不在迁移中
+     */
+    public ShardedKeyValueStore(Map<String, EphemeralKeyValueStore> shards, int virtualNodes,
+                                Collection<String> previousShards) {
+        if (!shards.keySet().containsAll(previousShards)) {
+            throw new IllegalArgumentException("旧分片必须仍在分片列表中: " + previousShards);
+        }
+        this.shards = Map.copyOf(shards);
+        this.ring = new ConsistentHashRing(shards.keySet(), virtualNodes);
+        this.previousRing = previousShards.isEmpty() || previousShards.containsAll(shards.keySet())
+                ? null
+                : new ConsistentHashRing(previousShards, virtualNodes);
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        shardFor(key).put(key, value, ttl);
+        deleteFromPrevious(key);
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Optional<String> value = shardFor(key).get(key);
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        if (value.isPresent() || previous == null) {
+            return value;
+        }
+        return previous.get(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        shardFor(key).delete(key);
+        deleteFromPrevious(key);
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Optional<String> value = shardFor(key).getAndDelete(key);
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        if (previous == null) {
+            return value;
+        }
+        if (value.isPresent()) {
+            previous.delete(key);
+            return value;
+        }
+        return previous.getAndDelete(key);
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        if (shardFor(key).consumeIfMatches(key, expected)) {
+            if (previous != null) {
+                previous.delete(key);
+            }
+            return true;
+        }
+        return previous != null && previous.consumeIfMatches(key, expected);
+    }
+
+    /**
+     * 迁移期间旧归属分片上可能仍有较大的值，一并取较大者后写入新归属分片。
+     */
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        long candidate = previous == null ? value
+                : previous.get(key).map(existing -> InMemoryKeyValueStore.maxOf(existing, value)).orElse(value);
+        long next = shardFor(key).maxAndGet(key, candidate, ttl);
+        deleteFromPrevious(key);
+        return next;
+    }
+
+    /**
+     * 迁移期间新归属分片不存在时校验旧归属分片上的验证码，失败次数在旧分片上累计。
+     */
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        CodeCheck result = shardFor(key).checkCode(key, candidate, maxAttempts);
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        if (result != CodeCheck.ABSENT || previous == null) {
+            return result;
+        }
+        return previous.checkCode(key, candidate, maxAttempts);
+    }
+
+    /**
+     * 迁移期间计数从新归属分片重新开始，限流窗口内最多放宽一倍。
+     */
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        return shardFor(key).incrementAndGet(key, ttl);
+    }
+
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> group : groupByShard(keys).entrySet()) {
+            result.putAll(shards.get(group.getKey()).multiGet(group.getValue()));
+        }
+        if (previousRing != null) {
+            for (String key : keys) {
+                EphemeralKeyValueStore previous = result.containsKey(key) ? null : previousShardFor(key);
+                if (previous != null) {
+                    previous.get(key).ifPresent(value -> result.put(key, value));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        Map<String, List<EphemeralEntry>> groups = new LinkedHashMap<>();
+        for (EphemeralEntry entry : entries) {
+            groups.computeIfAbsent(ring.nodeFor(entry.key()), shard -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<String, List<EphemeralEntry>> group : groups.entrySet()) {
+            shards.get(group.getKey()).multiPut(group.getValue());
+        }
+        if (previousRing != null) {
+            for (EphemeralEntry entry : entries) {
+                deleteFromPrevious(entry.key());
+            }
+        }
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        for (Map.Entry<String, List<String>> group : groupByShard(keys).entrySet()) {
+            shards.get(group.getKey()).multiDelete(group.getValue());
+        }
+        if (previousRing != null) {
+            for (String key : keys) {
+                deleteFromPrevious(key);
+            }
+        }
+    }
+
+    /**
+     * 键当前归属的分片名。
+     */
+    public String shardNameFor(String key) {
+        return ring.nodeFor(key);
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    /**
+     * 是否处于扩容迁移中。
+     */
+    public boolean isMigrating() {
+        return previousRing != null;
+    }
+
+    private EphemeralKeyValueStore shardFor(String key) {
+        return shards.get(ring.nodeFor(key));
+    }
+
+    /**
+     * 迁移期间键的旧归属分片；不在迁移中或归属未变化时返回 null。
+     */
+    private EphemeralKeyValueStore previousShardFor(String key) {
+        if (previousRing == null) {
+            return null;
+        }
+        String previous = previousRing.nodeFor(key);
+        return previous.equals(ring.nodeFor(key)) ? null : shards.get(previous);
+    }
+
+    private void deleteFromPrevious(String key) {
+        EphemeralKeyValueStore previous = previousShardFor(key);
+        if (previous != null) {
+            previous.delete(key);
+        }
+    }
+
+    private Map<String, List<String>> groupByShard(Collection<String> keys) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(ring.nodeFor(key), shard -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,41 @@
+package com.company.usercenter.identity.store;
+
+import java.util.Locale;
+
+/**
+ * 短期存储操作类型，用于日志与指标标签。
+ */
+public enum StoreOperation {
+
+    PUT("写入"),
+    GET("读取"),
+    DELETE("删除"),
+    GET_AND_DELETE("读取删除"),
+    CONSUME("比较删除"),
+    CHECK_CODE("校验验证码"),
+    INCREMENT("计数"),
+    MULTI_GET("批量读取"),
+    MULTI_PUT("批量写入"),
+    MULTI_DELETE("批量删除"),
+    REPLAY("回放");
+
+    private final String label;
+
+    StoreOperation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * 中文描述，用于日志。
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * 指标标签值，如 {@code get-and-delete}。
+     */
+    public String tagValue() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
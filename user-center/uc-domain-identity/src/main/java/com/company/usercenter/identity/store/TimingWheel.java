@@ -0,0 +1,198 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 哈希时间轮：由单个守护线程按固定刻度推进，到期节点回调 {@link Timeout#expire()}。
+ * <p>
+ * 节点以侵入式双向链表挂在槽位上，调度与取消均为 O(1)；每圈只访问一次未到期节点，
+ * 因此在 TTL 与一圈时长同量级时，清理成本为均摊 O(1)。
+ */
+final class TimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    /**
+     * 挂在时间轮上的到期节点，由调用方继承并实现到期动作。
+     */
+    abstract static class Timeout {
+        final long deadlineNanos;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 到期回调，在时间轮线程中执行，不应阻塞。
+         */
+        abstract void expire();
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+
+        synchronized void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        synchronized void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            unlink(timeout);
+        }
+
+        /**
+         * 摘下所有已到期节点，返回以 next 串联的链表，由调用方在锁外回调。
+         */
+        synchronized Timeout drainExpired(long nowNanos) {
+            Timeout expired = null;
+            Timeout node = head;
+            while (node != null) {
+                Timeout next = node.next;
+                if (node.deadlineNanos - nowNanos <= 0) {
+                    unlink(node);
+                    node.next = expired;
+                    expired = node;
+                }
+                node = next;
+            }
+            return expired;
+        }
+
+        private void unlink(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile long currentTick;
+    private volatile boolean closed;
+    private Thread worker;
+
+    /**
+     * @param name          守护线程名称
+     * @param tickDuration  每格时长，决定到期清理精度
+     * @param ticksPerWheel 槽位数量，会向上取整为 2 的幂
+     */
+    TimingWheel(String name, Duration tickDuration, int ticksPerWheel) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("tickDuration 必须为正数");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 20)) {
+            throw new IllegalArgumentException("ticksPerWheel 超出范围: " + ticksPerWheel);
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.tickNanos = tickDuration.toNanos();
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 将节点挂到其截止时间对应的槽位，首次调用时启动守护线程。
+     */
+    void schedule(Timeout timeout) {
+        if (closed) {
+            return;
+        }
+        startIfNecessary();
+        long ticks = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+        long target = Math.max(ticks, currentTick + 1);
+        buckets[(int) (target & mask)].add(timeout);
+    }
+
+    /**
+     * 从时间轮上摘除节点（如被覆盖或主动删除），未调度的节点调用无副作用。
+     */
+    void cancel(Timeout timeout) {
+        Bucket bucket = timeout.bucket;
+        if (bucket != null) {
+            bucket.remove(timeout);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void startIfNecessary() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            worker = thread;
+            thread.start();
+        }
+    }
+
+    private void run() {
+        long tick = currentTick;
+        while (!closed) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ex) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+            tick++;
+            currentTick = tick;
+            Timeout expired = buckets[(int) (tick & mask)].drainExpired(System.nanoTime());
+            while (expired != null) {
+                Timeout next = expired.next;
+                expired.next = null;
+                try {
+                    expired.expire();
+                } catch (RuntimeException ex) {
+                    log.warn("时间轮到期回调异常 [{}]: {}", name, ex.getMessage());
+                }
+                expired = next;
+            }
+        }
+    }
+}
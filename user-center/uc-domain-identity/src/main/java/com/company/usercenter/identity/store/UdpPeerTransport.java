@@ -0,0 +1,280 @@
+package com.company.usercenter.identity.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 基于 UDP 的复制通道：每个数据报携带若干操作，以共享密钥派生的 AES-256-GCM 密钥加密并认证。
+ * 验证码、黑名单与授权不以明文出现在网络上，解密或认证失败的数据报直接丢弃，防止同网段的其他进程窃听或伪造。
+ * <p>
+ * 数据报格式为 {@code [魔数][随机 nonce][密文([条数][操作...])][GCM 标签]}，魔数作为附加认证数据；
+ * 单个数据报不超过 {@value #MAX_DATAGRAM_BYTES} 字节，超出时拆成多个数据报。
+ * UDP 可能丢包，复制本身也是尽力而为，丢失的操作由本地 TTL 兜底。
+ */
+public class UdpPeerTransport implements PeerTransport, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpPeerTransport.class);
+
+    private static final int MAGIC = 0x55435250;
+    private static final int MAX_DATAGRAM_BYTES = 60_000;
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int OVERHEAD_BYTES = 4 + NONCE_BYTES + 4 + TAG_BITS / 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final byte[] KEY_CONTEXT = "ephemeral-store-replication-v1".getBytes(StandardCharsets.UTF_8);
+
+    private final DatagramSocket socket;
+    private final SecretKeySpec key;
+    private final Cipher sendCipher;
+    private final Cipher receiveCipher;
+    private final SecureRandom random = new SecureRandom();
+    private final List<Consumer<List<ReplicatedOperation>>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+    private final LongAdder rejectedCount = new LongAdder();
+    private volatile List<InetSocketAddress> peers;
+
+    /**
+     * @param bindAddress 本节点监听地址，端口为 0 时随机分配
+     * @param peers       对端地址，可以包含本节点，自己发出的操作会被忽略
+     * @param secret      各节点共享的密钥，至少 16 字节
+     */
+    public UdpPeerTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers, byte[] secret) {
+        if (secret.length < 16) {
+            throw new IllegalArgumentException("复制通道密钥至少 16 字节");
+        }
+        this.key = deriveKey(secret);
+        this.sendCipher = newCipher();
+        this.receiveCipher = newCipher();
+        this.peers = List.copyOf(peers);
+        try {
+            this.socket = new DatagramSocket(bindAddress);
+        } catch (SocketException ex) {
+            throw new UncheckedIOException("无法监听复制端口: " + bindAddress, ex);
+        }
+        this.receiver = new Thread(this::receiveLoop, "ephemeral-store-peer-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public synchronized void send(List<ReplicatedOperation> batch) {
+        List<InetSocketAddress> targets = peers;
+        if (batch.isEmpty() || targets.isEmpty()) {
+            return;
+        }
+        for (byte[] datagram : encode(batch)) {
+            for (InetSocketAddress peer : targets) {
+                try {
+                    socket.send(new DatagramPacket(datagram, datagram.length, peer));
+                } catch (IOException ex) {
+                    log.warn("复制数据报发送失败 {}: {}", peer, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ReplicatedOperation>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 替换对端列表，用于节点扩缩容。
+     */
+    public void setPeers(List<InetSocketAddress> peers) {
+        this.peers = List.copyOf(peers);
+    }
+
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+
+    /**
+     * 解密认证失败或格式错误而被丢弃的数据报数。
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        receiver.interrupt();
+    }
+
+    private List<byte[]> encode(List<ReplicatedOperation> batch) {
+        List<byte[]> datagrams = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int count = 0;
+        try {
+            for (ReplicatedOperation operation : batch) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(operation.isDelete() ? DELETE : PUT);
+                out.writeLong(operation.timestamp());
+                out.writeLong(operation.nodeId());
+                out.writeLong(operation.deadlineMillis());
+                writeString(out, operation.key());
+                if (!operation.isDelete()) {
+                    writeString(out, operation.value());
+                }
+                if (OVERHEAD_BYTES + bytes.size() > MAX_DATAGRAM_BYTES) {
+                    log.warn("复制操作过大，已跳过: {}", operation.key());
+                    continue;
+                }
+                if (count > 0 && OVERHEAD_BYTES + body.size() + bytes.size() > MAX_DATAGRAM_BYTES) {
+                    datagrams.add(seal(body.toByteArray(), count));
+                    body.reset();
+                    count = 0;
+                }
+                bytes.writeTo(body);
+                count++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (count > 0) {
+            datagrams.add(seal(body.toByteArray(), count));
+        }
+        return datagrams;
+    }
+
+    /**
+     * nonce 每个数据报随机生成：各节点共用同一密钥，计数器 nonce 无法保证跨节点不重复。
+     */
+    private byte[] seal(byte[] body, int count) {
+        ByteBuffer datagram = ByteBuffer.allocate(OVERHEAD_BYTES + body.length);
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        datagram.putInt(MAGIC).put(nonce);
+        try {
+            sendCipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            sendCipher.updateAAD(datagram.array(), 0, 4);
+            sendCipher.doFinal(ByteBuffer.allocate(4 + body.length).putInt(count).put(body).flip(), datagram);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("复制数据报加密失败", ex);
+        }
+        return datagram.array();
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[65_535];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException ex) {
+                if (!socket.isClosed()) {
+                    log.warn("复制数据报接收失败: {}", ex.getMessage());
+                }
+                continue;
+            }
+            List<ReplicatedOperation> batch = decode(packet.getData(), packet.getLength());
+            if (batch == null) {
+                rejectedCount.increment();
+                continue;
+            }
+            for (Consumer<List<ReplicatedOperation>> listener : listeners) {
+                try {
+                    listener.accept(batch);
+                } catch (RuntimeException ex) {
+                    log.warn("复制操作应用失败: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 解密、认证并解析，数据报不合法时返回 null。
+     */
+    private List<ReplicatedOperation> decode(byte[] data, int length) {
+        if (length < OVERHEAD_BYTES || ByteBuffer.wrap(data, 0, 4).getInt() != MAGIC) {
+            return null;
+        }
+        ByteBuffer in;
+        try {
+            receiveCipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 4, NONCE_BYTES));
+            receiveCipher.updateAAD(data, 0, 4);
+            in = ByteBuffer.wrap(receiveCipher.doFinal(data, 4 + NONCE_BYTES, length - 4 - NONCE_BYTES));
+        } catch (GeneralSecurityException ex) {
+            return null;
+        }
+        try {
+            int count = in.getInt();
+            List<ReplicatedOperation> batch = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                byte type = in.get();
+                long timestamp = in.getLong();
+                long nodeId = in.getLong();
+                long deadlineMillis = in.getLong();
+                String key = readString(in);
+                String value = type == PUT ? readString(in) : null;
+                batch.add(new ReplicatedOperation(key, value, deadlineMillis, timestamp, nodeId));
+            }
+            return batch;
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("复制的键或值过长");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以 HMAC-SHA256(secret, 用途标识) 派生 256 位加密密钥，配置的密钥长度不限于 AES 密钥长度。
+     */
+    private static SecretKeySpec deriveKey(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return new SecretKeySpec(mac.doFinal(KEY_CONTEXT), "AES");
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("无法派生复制通道密钥", ex);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_ALGORITHM);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("无法初始化复制通道加密", ex);
+        }
+    }
+}
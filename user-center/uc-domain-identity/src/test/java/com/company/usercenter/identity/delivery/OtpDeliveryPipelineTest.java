@@ -0,0 +1,170 @@
+package com.company.usercenter.identity.delivery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 验证码投递管道测试：分批发送、退避重试、死信与队列满时的背压。
+ */
+class OtpDeliveryPipelineTest {
+
+    private final List<OtpDeliveryPipeline> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(OtpDeliveryPipeline::close);
+    }
+
+    @Test
+    void queuedMessagesAreSentInBatchesPerChannel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSender email = new RecordingSender("email", release);
+        RecordingSender sms = new RecordingSender("sms", null);
+        OtpDeliveryPipeline pipeline = open(List.of(email, sms), settings(100, 10, 3));
+
+        assertThat(pipeline.submit(message("email", "first@example.com"))).isTrue();
+        await(() -> email.batches.size() == 1);
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(message("email", "user" + i + "@example.com"));
+            pipeline.submit(message("sms", "1380000000" + i));
+        }
+        release.countDown();
+
+        await(() -> pipeline.sentCount() == 11);
+        assertThat(email.batches.get(1)).hasSize(5);
+        assertThat(sms.batches).flatMap(batch -> batch).hasSize(5);
+        assertThatThrownBy(() -> pipeline.submit(message("push", "device-1")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failedMessagesAreRetriedThenDeadLettered() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        OtpSender flaky = new OtpSender() {
+            @Override
+            public String channel() {
+                return "email";
+            }
+
+            @Override
+            public List<OtpMessage> send(List<OtpMessage> batch) {
+                calls.incrementAndGet();
+                return batch.stream().filter(message -> message.receiver().startsWith("bad")).toList();
+            }
+        };
+        OtpDeliveryPipeline pipeline = open(List.of(flaky), settings(100, 10, 3));
+
+        pipeline.submit(message("email", "good@example.com"));
+        pipeline.submit(message("email", "bad@example.com"));
+
+        await(() -> pipeline.deadLetterCount() == 1);
+        assertThat(pipeline.sentCount()).isEqualTo(1);
+        assertThat(pipeline.retriedCount()).isEqualTo(2);
+        assertThat(pipeline.deadLetters()).singleElement()
+                .satisfies(dead -> {
+                    assertThat(dead.message().receiver()).isEqualTo("bad@example.com");
+                    assertThat(dead.attempts()).isEqualTo(3);
+                });
+        assertThat(calls.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void fullQueueRejectsAndExpiredCodesAreDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSender email = new RecordingSender("email", release);
+        OtpDeliveryPipeline pipeline = open(List.of(email), settings(2, 1, 1));
+
+        pipeline.submit(message("email", "blocking@example.com"));
+        await(() -> email.batches.size() == 1);
+        assertThat(pipeline.submit(new OtpMessage("email", "late@example.com", "login", "111111",
+                Instant.now().plusMillis(50)))).isTrue();
+        assertThat(pipeline.submit(message("email", "second@example.com"))).isTrue();
+        assertThat(pipeline.submit(message("email", "third@example.com"))).isFalse();
+        assertThat(pipeline.rejectedCount()).isEqualTo(1);
+
+        Thread.sleep(80);
+        release.countDown();
+        await(() -> pipeline.sentCount() == 2);
+        assertThat(pipeline.expiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loggingSenderAppendsToFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("otp.log");
+        LoggingOtpSender sender = new LoggingOtpSender("email", file);
+
+        assertThat(sender.send(List.of(message("email", "a@example.com"), message("email", "b@example.com"))))
+                .isEmpty();
+
+        assertThat(Files.readAllLines(file)).containsExactly("email a@example.com login 123456",
+                "email b@example.com login 123456");
+        assertThat(message("email", "a@example.com").toString()).doesNotContain("123456");
+    }
+
+    private OtpDeliveryPipeline open(List<OtpSender> senders, OtpDeliveryPipeline.Settings settings) {
+        OtpDeliveryPipeline pipeline = new OtpDeliveryPipeline(senders, settings);
+        opened.add(pipeline);
+        return pipeline;
+    }
+
+    private static OtpDeliveryPipeline.Settings settings(int capacity, int batchSize, int maxAttempts) {
+        return new OtpDeliveryPipeline.Settings(capacity, 1, batchSize, maxAttempts, Duration.ofMillis(10),
+                Duration.ofMillis(40), 10);
+    }
+
+    private static OtpMessage message(String channel, String receiver) {
+        return new OtpMessage(channel, receiver, "login", "123456", Instant.now().plusSeconds(60));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    /**
+     * 记录每批消息；首批可阻塞到 release 放行，用于让后续消息在队列中积压。
+     */
+    private static final class RecordingSender implements OtpSender {
+        final String channel;
+        final CountDownLatch release;
+        final List<List<OtpMessage>> batches = new CopyOnWriteArrayList<>();
+
+        RecordingSender(String channel, CountDownLatch release) {
+            this.channel = channel;
+            this.release = release;
+        }
+
+        @Override
+        public String channel() {
+            return channel;
+        }
+
+        @Override
+        public List<OtpMessage> send(List<OtpMessage> batch) throws InterruptedException {
+            batches.add(List.copyOf(batch));
+            if (release != null && batches.size() == 1) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.company.usercenter.identity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationalBloomFilterTest {
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void neverReportsFalseNegative() {
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(Duration.ofMinutes(5), 1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("jti-" + i, now.plus(Duration.ofMinutes(i % 60)));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("jti-" + i, now)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(Duration.ofMinutes(5), 10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i, now.plusSeconds(60));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other-" + i, now)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void generationsAgeOutWithTtl() {
+        GenerationalBloomFilter filter = new GenerationalBloomFilter(Duration.ofMinutes(1), 100, 0.01);
+        filter.put("short", now.plusSeconds(30));
+        filter.put("long", now.plus(Duration.ofMinutes(10)));
+        assertThat(filter.generationCount()).isEqualTo(2);
+
+        Instant later = now.plus(Duration.ofMinutes(2));
+        assertThat(filter.mightContain("short", later)).isFalse();
+        assertThat(filter.mightContain("long", later)).isTrue();
+        assertThat(filter.purgeExpired(later)).isEqualTo(1);
+        assertThat(filter.generationCount()).isEqualTo(1);
+    }
+}
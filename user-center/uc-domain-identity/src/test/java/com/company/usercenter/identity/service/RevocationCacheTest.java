@@ -0,0 +1,125 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 吊销缓存测试：重复校验不访问存储，吊销经通知立即在其他节点生效，过期条目先返回旧值再后台刷新。
+ */
+class RevocationCacheTest {
+
+    private final CountingStore store = new CountingStore();
+    private final List<RevocationCache> caches = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        caches.forEach(RevocationCache::close);
+        store.close();
+    }
+
+    @Test
+    void repeatedChecksAreServedLocally() {
+        RevocationCache cache = open(InvalidationBus.NOOP, Duration.ofMinutes(1), Duration.ZERO);
+        SessionBlacklistService blacklist = new SessionBlacklistService(store, Optional.empty(),
+                Optional.of(cache));
+        RevocationEpochService epochs = new RevocationEpochService(store, Duration.ofHours(1),
+                Optional.of(cache));
+        Instant issuedAt = Instant.now().minusSeconds(10);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(blacklist.isBlacklisted("jti-1")).isFalse();
+            assertThat(epochs.isRevoked("alice", "web", issuedAt)).isFalse();
+        }
+
+        assertThat(store.reads.get()).isEqualTo(4);
+        assertThat(cache.missCount()).isEqualTo(4);
+        assertThat(cache.hitCount()).isEqualTo(396);
+    }
+
+    @Test
+    void revocationOnOneNodeInvalidatesOthers() {
+        LocalBus bus = new LocalBus();
+        RevocationCache nodeA = open(bus, Duration.ofMinutes(1), Duration.ZERO);
+        RevocationCache nodeB = open(bus, Duration.ofMinutes(1), Duration.ZERO);
+        RevocationEpochService epochsA = new RevocationEpochService(store, Duration.ofHours(1),
+                Optional.of(nodeA));
+        RevocationEpochService epochsB = new RevocationEpochService(store, Duration.ofHours(1),
+                Optional.of(nodeB));
+        SessionBlacklistService blacklistA = new SessionBlacklistService(store, Optional.empty(),
+                Optional.of(nodeA));
+        SessionBlacklistService blacklistB = new SessionBlacklistService(store, Optional.empty(),
+                Optional.of(nodeB));
+        Instant issuedAt = Instant.now().minusSeconds(10);
+        assertThat(epochsB.isRevoked("alice", null, issuedAt)).isFalse();
+        assertThat(blacklistB.isBlacklisted("jti-1")).isFalse();
+
+        epochsA.revokeUser("alice");
+        blacklistA.blacklist("jti-1", Duration.ofMinutes(5));
+
+        assertThat(epochsB.isRevoked("alice", null, issuedAt)).isTrue();
+        assertThat(blacklistB.isBlacklisted("jti-1")).isTrue();
+    }
+
+    @Test
+    void staleEntriesAreReturnedWhileRefreshingInBackground() throws InterruptedException {
+        RevocationCache cache = open(InvalidationBus.NOOP, Duration.ofMillis(20), Duration.ofMinutes(1));
+        assertThat(cache.getAll(List.of("blacklist:jti-1"))).isEmpty();
+        store.put("blacklist:jti-1", "1", Duration.ofMinutes(5));
+        Thread.sleep(30);
+
+        assertThat(cache.getAll(List.of("blacklist:jti-1"))).isEmpty();
+        assertThat(cache.staleHitCount()).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cache.getAll(List.of("blacklist:jti-1")).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(cache.getAll(List.of("blacklist:jti-1"))).containsEntry("blacklist:jti-1", "1");
+    }
+
+    private RevocationCache open(InvalidationBus bus, Duration ttl, Duration maxStale) {
+        RevocationCache cache = new RevocationCache(store, bus, ttl, maxStale, 1_000);
+        caches.add(cache);
+        return cache;
+    }
+
+    private static final class CountingStore extends InMemoryKeyValueStore {
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public Optional<String> get(String key) {
+            reads.incrementAndGet();
+            return super.get(key);
+        }
+    }
+
+    /**
+     * 进程内广播，模拟 Redis Pub/Sub。
+     */
+    private static final class LocalBus implements InvalidationBus {
+        private final List<Consumer<Collection<String>>> listeners = new ArrayList<>();
+
+        @Override
+        public void publish(Collection<String> keys) {
+            listeners.forEach(listener -> listener.accept(keys));
+        }
+
+        @Override
+        public void subscribe(Consumer<Collection<String>> listener) {
+            listeners.add(listener);
+        }
+    }
+}
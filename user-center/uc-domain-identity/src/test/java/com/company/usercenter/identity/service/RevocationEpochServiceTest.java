@@ -0,0 +1,61 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 吊销纪元测试：一次写入吊销用户或客户端此前签发的全部 token，之后签发的 token 不受影响。
+ */
+class RevocationEpochServiceTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final RevocationEpochService service = new RevocationEpochService(store, Duration.ofHours(1));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void revokingUserInvalidatesTokensIssuedBefore() {
+        Instant before = Instant.now().minusSeconds(60);
+        assertThat(service.isRevoked("alice", "web", before)).isFalse();
+
+        Instant epoch = service.revokeUser("alice");
+
+        assertThat(service.isRevoked("alice", "web", before)).isTrue();
+        assertThat(service.isRevoked("alice", "mobile", before)).isTrue();
+        assertThat(service.isRevoked("alice", null, before)).isTrue();
+        assertThat(service.isRevoked("alice", "web", epoch.plusSeconds(1))).isFalse();
+        assertThat(service.isRevoked("bob", "web", before)).isFalse();
+    }
+
+    @Test
+    void clientScopedRevocationsOnlyAffectThatClient() {
+        Instant before = Instant.now().minusSeconds(60);
+
+        service.revokeUser("alice", "web");
+        assertThat(service.isRevoked("alice", "web", before)).isTrue();
+        assertThat(service.isRevoked("alice", "mobile", before)).isFalse();
+        assertThat(service.isRevoked("bob", "web", before)).isFalse();
+
+        service.revokeClient("mobile");
+        assertThat(service.isRevoked("bob", "mobile", before)).isTrue();
+        assertThat(service.isRevoked(null, "mobile", before)).isTrue();
+    }
+
+    @Test
+    void epochNeverMovesBackwards() {
+        long future = System.currentTimeMillis() + 60_000;
+        store.put("blacklist:epoch:user:alice", Long.toString(future), Duration.ofHours(1));
+
+        assertThat(service.revokeUser("alice")).isEqualTo(Instant.ofEpochMilli(future));
+        assertThat(service.isRevoked("alice", null, Instant.now())).isTrue();
+    }
+}
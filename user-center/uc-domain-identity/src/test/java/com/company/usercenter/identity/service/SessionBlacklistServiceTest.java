@@ -0,0 +1,154 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 会话黑名单过滤器测试：未拉黑的查询由过滤器直接判定，其他节点的写入经索引同步。
+ */
+class SessionBlacklistServiceTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+
+    @Test
+    void filterAnswersMissesWithoutStore() {
+        SessionBlacklistFilter filter = newFilter(new SharedIndex());
+        SessionBlacklistService service = new SessionBlacklistService(store, Optional.of(filter));
+
+        service.blacklist("revoked", Duration.ofMinutes(5));
+        assertThat(service.isBlacklisted("revoked")).isTrue();
+        for (int i = 0; i < 100; i++) {
+            assertThat(service.isBlacklisted("active-" + i)).isFalse();
+        }
+        assertThat(filter.filteredCount()).isGreaterThanOrEqualTo(95);
+    }
+
+    @Test
+    void peerWritesReachFilterAtStartupAndByNotification() {
+        SharedIndex index = new SharedIndex();
+        index.add("before-start", Instant.now().plusSeconds(300));
+        SessionBlacklistFilter filter = newFilter(index);
+        SessionBlacklistService service = new SessionBlacklistService(store, Optional.of(filter));
+        store.put("blacklist:before-start", "1", Duration.ofMinutes(5));
+        assertThat(service.isBlacklisted("before-start")).isTrue();
+
+        SessionBlacklistService peer = new SessionBlacklistService(store, Optional.of(newFilter(index)));
+        peer.blacklist("from-peer", Duration.ofMinutes(5));
+        assertThat(service.isBlacklisted("from-peer")).isTrue();
+    }
+
+    @Test
+    void unavailableIndexFallsBackToStore() {
+        SharedIndex index = new SharedIndex();
+        index.down = true;
+        SessionBlacklistFilter filter = newFilter(index);
+        SessionBlacklistService service = new SessionBlacklistService(store, Optional.of(filter));
+        store.put("blacklist:unknown", "1", Duration.ofMinutes(5));
+
+        assertThat(filter.isReady()).isFalse();
+        assertThat(service.isBlacklisted("unknown")).isTrue();
+
+        index.down = false;
+        assertThat(filter.rebuild()).isTrue();
+        assertThat(filter.isReady()).isTrue();
+    }
+
+    @Test
+    void staleFilterFallsBackToStore() {
+        SharedIndex index = new SharedIndex();
+        MutableClock clock = new MutableClock(Instant.now());
+        SessionBlacklistFilter filter = new SessionBlacklistFilter(
+                new GenerationalBloomFilter(Duration.ofMinutes(1), 1_000, 0.01), index,
+                Duration.ofSeconds(30), Duration.ofSeconds(35), clock);
+        SessionBlacklistService service = new SessionBlacklistService(store, Optional.of(filter));
+        try {
+            // 通知丢失且补齐失败：条目只写入了存储
+            index.down = true;
+            store.put("blacklist:missed", "1", Duration.ofMinutes(5));
+            assertThat(service.isBlacklisted("missed")).isFalse();
+
+            clock.advance(Duration.ofSeconds(35));
+            assertThat(service.isBlacklisted("missed")).isTrue();
+
+            index.down = false;
+            index.add("missed", clock.instant().plusSeconds(300));
+            assertThat(filter.rebuild()).isTrue();
+            assertThat(service.isBlacklisted("active")).isFalse();
+        } finally {
+            filter.close();
+        }
+    }
+
+    private SessionBlacklistFilter newFilter(SharedIndex index) {
+        return new SessionBlacklistFilter(new GenerationalBloomFilter(Duration.ofMinutes(1), 1_000, 0.01),
+                index, null, null);
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * 模拟共享索引：所有节点共用一份数据，写入同步通知其他订阅者。
+     */
+    private static class SharedIndex implements BlacklistIndex {
+        private final Map<String, Instant> entries = new ConcurrentHashMap<>();
+        private final CopyOnWriteArrayList<BiConsumer<String, Instant>> listeners = new CopyOnWriteArrayList<>();
+        volatile boolean down;
+
+        @Override
+        public void add(String tokenId, Instant expireAt) {
+            entries.put(tokenId, expireAt);
+            listeners.forEach(listener -> listener.accept(tokenId, expireAt));
+        }
+
+        @Override
+        public Map<String, Instant> loadActive(Instant now) {
+            if (down) {
+                throw new IllegalStateException("index down");
+            }
+            return Map.copyOf(entries);
+        }
+
+        @Override
+        public void subscribe(BiConsumer<String, Instant> listener) {
+            listeners.add(listener);
+        }
+    }
+}
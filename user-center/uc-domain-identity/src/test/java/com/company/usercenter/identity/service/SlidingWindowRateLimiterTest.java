@@ -0,0 +1,91 @@
+package com.company.usercenter.identity.service;
+
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 滑动窗口限流测试：窗口内超限拒绝，上一窗口的请求按时间加权逐步释放。
+ */
+class SlidingWindowRateLimiterTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void rejectsBeyondLimitWithinWindow() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(store, "test", 3, Duration.ofMinutes(1), clock);
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        assertThat(limiter.tryAcquire("a")).isFalse();
+        assertThat(limiter.tryAcquire("b")).isTrue();
+    }
+
+    @Test
+    void previousWindowIsWeightedByElapsedTime() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(store, "test", 4, Duration.ofMinutes(1), clock);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire("a")).isTrue();
+        }
+
+        clock.advance(Duration.ofSeconds(75)); // 上一窗口权重 0.75，占用 3 个名额
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        assertThat(limiter.tryAcquire("a")).isFalse();
+
+        clock.advance(Duration.ofSeconds(45)); // 上一窗口已无权重
+        assertThat(limiter.tryAcquire("a")).isTrue();
+    }
+
+    @Test
+    void otpLimiterChecksClientIpBeforeReceiver() {
+        OtpRateLimiter limiter = new OtpRateLimiter(store, 2, Duration.ofMinutes(10), 3, Duration.ofMinutes(10));
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("A@example.com", "10.0.0.2")).isTrue();
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.3")).isFalse();
+
+        assertThat(limiter.tryAcquire("b@example.com", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("c@example.com", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("d@example.com", "10.0.0.1")).isFalse();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
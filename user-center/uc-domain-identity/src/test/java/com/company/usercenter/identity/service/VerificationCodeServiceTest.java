@@ -1,9 +1,20 @@
 package com.company.usercenter.identity.service;
 
+import com.company.usercenter.identity.store.BoundedKeyValueStore;
+import com.company.usercenter.identity.store.CodeCheck;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
 import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.SegmentedKeyValueStore;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -23,6 +34,81 @@ class VerificationCodeServiceTest {
         assertThat(service.verify("user@example.com", "login", code)).isFalse(); // 已消费
     }
 
+    @Test
+    void generatedCodeTakesEffectOnlyWhenStored() {
+        VerificationCodeService service = new VerificationCodeService(store, "");
+        String delivered = service.issueCode("gen@example.com", "login", 6, Duration.ofSeconds(5));
+        String pending = service.generateCode(6);
+
+        assertThat(pending).hasSize(6).containsOnlyDigits();
+        assertThat(service.verify("gen@example.com", "login", delivered)).isTrue();
+        service.storeCode("gen@example.com", "login", pending, Duration.ofSeconds(5));
+        assertThat(service.verify("gen@example.com", "login", pending)).isTrue();
+    }
+
+    @Test
+    void wrongCodeKeepsOtpForRetry() {
+        VerificationCodeService service = new VerificationCodeService(store, "123456");
+        service.issueCode("retry@example.com", "login", 6, Duration.ofSeconds(5));
+        assertThat(service.verify("retry@example.com", "login", "000000")).isFalse();
+        assertThat(service.verify("retry@example.com", "login", null)).isFalse();
+        assertThat(service.verify("retry@example.com", "login", "123456")).isTrue();
+    }
+
+    @Test
+    void otpIsInvalidatedAfterMaxFailedAttempts() {
+        VerificationCodeService service = new VerificationCodeService(store, "123456");
+        service.issueCode("brute@example.com", "login", 6, Duration.ofSeconds(5));
+        for (int i = 0; i < 4; i++) {
+            assertThat(service.check("brute@example.com", "login", "00000" + i)).isEqualTo(CodeCheck.MISMATCHED);
+        }
+        assertThat(service.check("brute@example.com", "login", "000009")).isEqualTo(CodeCheck.EXHAUSTED);
+        assertThat(service.check("brute@example.com", "login", "123456")).isEqualTo(CodeCheck.ABSENT);
+    }
+
+    @Test
+    void concurrentWrongGuessesAreAllCounted() throws Exception {
+        try (BoundedKeyValueStore bounded = new BoundedKeyValueStore(1_000, 1 << 20, List.of());
+             SegmentedKeyValueStore segmented = new SegmentedKeyValueStore(1_000)) {
+            for (EphemeralKeyValueStore target : List.of(store, bounded, segmented)) {
+                VerificationCodeService service = new VerificationCodeService(target, "123456");
+                service.issueCode("guess@example.com", "login", 6, Duration.ofSeconds(5));
+
+                List<CodeCheck> results = runConcurrently(16,
+                        () -> service.check("guess@example.com", "login", "000000"));
+
+                assertThat(results).filteredOn(result -> result == CodeCheck.MISMATCHED).hasSize(4);
+                assertThat(results).filteredOn(result -> result == CodeCheck.EXHAUSTED).hasSize(1);
+                assertThat(results).filteredOn(result -> result == CodeCheck.ABSENT).hasSize(11);
+            }
+        }
+    }
+
+    @Test
+    void concurrentVerifyConsumesOtpOnce() throws Exception {
+        VerificationCodeService service = new VerificationCodeService(store, "123456");
+        service.issueCode("race@example.com", "login", 6, Duration.ofSeconds(5));
+
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.verify("race@example.com", "login", "123456");
+            }));
+        }
+        start.countDown();
+        int passed = 0;
+        for (Future<Boolean> result : results) {
+            passed += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertThat(passed).isEqualTo(1);
+    }
+
     @Test
     void stateAndBlacklistFlow() throws InterruptedException {
         StateTokenService stateService = new StateTokenService(store);
@@ -37,4 +123,23 @@ class VerificationCodeServiceTest {
         Thread.sleep(60);
         assertThat(blacklistService.isBlacklisted("jti-1")).isFalse(); // 过期
     }
+
+    private static <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+        return results;
+    }
 }
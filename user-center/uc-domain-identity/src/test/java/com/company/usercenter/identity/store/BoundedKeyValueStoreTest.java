@@ -0,0 +1,145 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 有界内存存储测试：覆盖命名空间配额隔离、临近过期优先淘汰、字节上限与不可淘汰的黑名单。
+ */
+class BoundedKeyValueStoreTest {
+
+    private final BoundedKeyValueStore store = new BoundedKeyValueStore(100, 1_000_000, List.of(
+            new BoundedKeyValueStore.NamespaceQuota("otp:", 10, 1_000_000),
+            new BoundedKeyValueStore.NamespaceQuota("blacklist:", 50, 1_000_000)));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void otpFloodDoesNotEvictBlacklist() {
+        for (int i = 0; i < 20; i++) {
+            store.put("blacklist:jti-" + i, "1", Duration.ofHours(1));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            store.put("otp:login:user" + i + "@example.com", "123456", Duration.ofMinutes(5));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(store.get("blacklist:jti-" + i)).contains("1");
+        }
+        assertThat(store.size()).isEqualTo(30);
+        assertThat(store.evictionCount()).isEqualTo(990);
+    }
+
+    @Test
+    void fullBlacklistRejectsWritesInsteadOfEvicting() {
+        try (BoundedKeyValueStore defaults = BoundedKeyValueStore.withDefaultQuotas(20, 1_000_000)) {
+            for (int i = 0; i < 10; i++) {
+                defaults.put("blacklist:epoch:user:u" + i, "1", Duration.ofHours(1));
+            }
+            for (int i = 0; i < 100; i++) {
+                defaults.put("misc:" + i, "1", Duration.ofHours(1));
+            }
+
+            assertThatThrownBy(() -> defaults.put("blacklist:jti-new", "1", Duration.ofHours(1)))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(defaults.rejectedCount()).isEqualTo(1);
+            for (int i = 0; i < 10; i++) {
+                assertThat(defaults.get("blacklist:epoch:user:u" + i)).contains("1");
+            }
+            defaults.put("blacklist:epoch:user:u0", "2", Duration.ofHours(1));
+            assertThat(defaults.get("blacklist:epoch:user:u0")).contains("2");
+        }
+    }
+
+    @Test
+    void expiredBlacklistEntriesMakeRoom() throws InterruptedException {
+        try (BoundedKeyValueStore defaults = BoundedKeyValueStore.withDefaultQuotas(20, 1_000_000)) {
+            for (int i = 0; i < 10; i++) {
+                defaults.put("blacklist:jti-" + i, "1", Duration.ofMillis(1));
+            }
+            Thread.sleep(5);
+
+            defaults.put("blacklist:jti-new", "1", Duration.ofHours(1));
+
+            assertThat(defaults.get("blacklist:jti-new")).contains("1");
+            assertThat(defaults.rejectedCount()).isZero();
+            assertThat(defaults.evictionCount()).isZero();
+        }
+    }
+
+    @Test
+    void evictsEntryClosestToExpiry() {
+        for (int i = 0; i < 4; i++) {
+            store.put("otp:login:long" + i, "1", Duration.ofMinutes(10));
+        }
+        store.put("otp:login:short", "1", Duration.ofSeconds(30));
+        for (int i = 4; i < 9; i++) {
+            store.put("otp:login:long" + i, "1", Duration.ofMinutes(10));
+        }
+        store.put("otp:login:new", "1", Duration.ofMinutes(10));
+
+        assertThat(store.get("otp:login:short")).isEmpty();
+        assertThat(store.get("otp:login:long0")).contains("1");
+        assertThat(store.get("otp:login:new")).contains("1");
+    }
+
+    @Test
+    void recentlyReadEntriesAreProtected() {
+        store.put("otp:login:hot", "1", Duration.ofSeconds(30));
+        assertThat(store.get("otp:login:hot")).contains("1");
+        for (int i = 0; i < 20; i++) {
+            store.put("otp:login:cold" + i, "1", Duration.ofMinutes(10));
+        }
+
+        assertThat(store.get("otp:login:hot")).contains("1");
+    }
+
+    @Test
+    void byteBudgetBoundsUnmatchedKeys() {
+        long entryBytes = BoundedKeyValueStore.weigh("misc:00", "x".repeat(100));
+        BoundedKeyValueStore small = new BoundedKeyValueStore(1_000, entryBytes * 5, List.of());
+        try {
+            for (int i = 0; i < 10; i++) {
+                small.put("misc:%02d".formatted(i), "x".repeat(100), Duration.ofMinutes(1));
+            }
+            assertThat(small.size()).isEqualTo(5);
+            assertThat(small.weightedBytes()).isLessThanOrEqualTo(entryBytes * 5);
+
+            small.put("misc:big", "x".repeat(10_000), Duration.ofMinutes(1));
+            assertThat(small.get("misc:big")).isEmpty();
+            assertThat(small.rejectedCount()).isEqualTo(1);
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test
+    void stripedStoreSplitsQuotasAndAggregatesUsage() {
+        try (BoundedKeyValueStore striped = BoundedKeyValueStore.withDefaultQuotas(3, 1_000, 1_000_000)) {
+            assertThat(striped.stripeCount()).isEqualTo(4);
+            for (int i = 0; i < 100; i++) {
+                striped.put("blacklist:jti" + i, "1", Duration.ofMinutes(10));
+                striped.put("otp:login:" + i, "1", Duration.ofMinutes(10));
+            }
+
+            assertThat(striped.size()).isEqualTo(200);
+            assertThat(striped.get("blacklist:jti42")).contains("1");
+            assertThat(striped.namespaceUsage())
+                    .extracting(BoundedKeyValueStore.NamespaceUsage::prefix, BoundedKeyValueStore.NamespaceUsage::entries)
+                    .containsExactly(tuple("blacklist:", 100), tuple("otp:", 100), tuple("state:", 0), tuple("", 0));
+
+            assertThat(striped.consumeIfMatches("otp:login:7", "1")).isTrue();
+            assertThat(striped.size()).isEqualTo(199);
+        }
+    }
+}
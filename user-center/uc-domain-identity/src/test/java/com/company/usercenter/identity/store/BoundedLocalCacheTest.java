@@ -0,0 +1,60 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 有界本地缓存测试：写入顺序淘汰、失效序号保护与覆盖写入留下的队列节点。
+ */
+class BoundedLocalCacheTest {
+
+    @Test
+    void oldestEntriesAreEvictedFirst() {
+        BoundedLocalCache<String, String> cache = new BoundedLocalCache<>(3);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, "v" + i);
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("k0")).isNull();
+        assertThat(cache.get("k1")).isNull();
+        assertThat(cache.get("k4")).isEqualTo("v4");
+        assertThat(cache.evictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void loadsStartedBeforeInvalidationAreNotStored() {
+        BoundedLocalCache<String, String> cache = new BoundedLocalCache<>(10);
+        cache.put("k", "old");
+
+        long seq = cache.sequence();
+        cache.invalidate(List.of("k"));
+
+        assertThat(cache.putIfUnchanged("k", "old", seq)).isFalse();
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.putIfUnchanged("k", "new", cache.sequence())).isTrue();
+        assertThat(cache.get("k")).isEqualTo("new");
+    }
+
+    @Test
+    void rewritesWithinCapacityDoNotEvictLiveEntries() {
+        BoundedLocalCache<String, String> cache = new BoundedLocalCache<>(3);
+        cache.put("a", "1");
+        cache.put("b", "1");
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("c", Integer.toString(i));
+            cache.invalidate(List.of("b"));
+            cache.put("b", Integer.toString(i));
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("99");
+        assertThat(cache.evictionCount()).isZero();
+    }
+}
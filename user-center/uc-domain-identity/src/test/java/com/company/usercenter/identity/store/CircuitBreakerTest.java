@@ -0,0 +1,69 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 熔断器状态机测试：失败率/慢调用跳闸、半开单探测与恢复。
+ */
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test",
+            new CircuitBreaker.Settings(50, 80, Duration.ofMillis(100), 10, 4, Duration.ofSeconds(5)),
+            clock::get);
+
+    @Test
+    void tripsOnFailureRateAndRecoversAfterProbe() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onError(0);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse(); // 仅一个探测
+
+        breaker.onSuccess(0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.transitionCount(CircuitBreaker.State.OPEN)).isEqualTo(1);
+        assertThat(breaker.transitionCount(CircuitBreaker.State.HALF_OPEN)).isEqualTo(1);
+        assertThat(breaker.transitionCount(CircuitBreaker.State.CLOSED)).isEqualTo(1);
+        assertThat(breaker.notPermittedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void tripsOnSlowCallsAndReopensWhenProbeFails() {
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onSuccess(Duration.ofMillis(200).toNanos());
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onError(0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void staysClosedBelowThresholds() {
+        for (int i = 0; i < 20; i++) {
+            breaker.tryAcquirePermission();
+            if (i % 4 == 0) {
+                breaker.onError(0);
+            } else {
+                breaker.onSuccess(0);
+            }
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,124 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 内存短期存储测试：覆盖读写删除与后台时间轮主动过期清理。
+ */
+class InMemoryKeyValueStoreTest {
+
+    private final InMemoryKeyValueStore store = new InMemoryKeyValueStore(Duration.ofMillis(10), 64);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void putGetDelete() {
+        store.put("otp:login:a", "123456", Duration.ofMinutes(5));
+        assertThat(store.get("otp:login:a")).contains("123456");
+
+        store.put("otp:login:a", "654321", Duration.ofMinutes(5));
+        assertThat(store.get("otp:login:a")).contains("654321");
+        assertThat(store.size()).isEqualTo(1);
+
+        store.delete("otp:login:a");
+        assertThat(store.get("otp:login:a")).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void getAndDeleteAndConsumeIfMatches() {
+        store.put("state:oauth:s1", "1", Duration.ofMinutes(1));
+        assertThat(store.getAndDelete("state:oauth:s1")).contains("1");
+        assertThat(store.getAndDelete("state:oauth:s1")).isEmpty();
+
+        store.put("otp:login:c", "123456", Duration.ofMinutes(1));
+        assertThat(store.consumeIfMatches("otp:login:c", "000000")).isFalse();
+        assertThat(store.get("otp:login:c")).contains("123456");
+        assertThat(store.consumeIfMatches("otp:login:c", "123456")).isTrue();
+        assertThat(store.consumeIfMatches("otp:login:c", "123456")).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void expiredKeysAreSweptWithoutBeingRead() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            store.put("state:oauth:" + i, "1", Duration.ofMillis(30));
+        }
+        store.put("blacklist:keep", "1", Duration.ofMinutes(1));
+        assertThat(store.size()).isEqualTo(101);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (store.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.expiredCount()).isEqualTo(100);
+        assertThat(store.get("blacklist:keep")).contains("1");
+    }
+
+    @Test
+    void overwrittenEntryIsNotSweptByStaleDeadline() throws InterruptedException {
+        store.put("otp:login:b", "1", Duration.ofMillis(20));
+        store.put("otp:login:b", "2", Duration.ofMinutes(1));
+
+        Thread.sleep(100);
+
+        assertThat(store.get("otp:login:b")).contains("2");
+        assertThat(store.expiredCount()).isZero();
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    store.incrementAndGet("ratelimit:otp:a", Duration.ofMinutes(1));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(store.get("ratelimit:otp:a")).contains("8000");
+    }
+
+    @Test
+    void concurrentMaxAndGetNeverMovesBackwards() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    store.maxAndGet("blacklist:epoch:user:a", i * 8L + offset, Duration.ofMinutes(1));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(store.get("blacklist:epoch:user:a")).contains("7999");
+        assertThat(store.maxAndGet("blacklist:epoch:user:a", 1, Duration.ofMinutes(1))).isEqualTo(7999);
+    }
+
+    @Test
+    void counterRestartsAfterWindowExpires() throws InterruptedException {
+        assertThat(store.incrementAndGet("ratelimit:otp:b", Duration.ofMillis(30))).isEqualTo(1);
+        assertThat(store.incrementAndGet("ratelimit:otp:b", Duration.ofMinutes(1))).isEqualTo(2);
+
+        Thread.sleep(60);
+
+        assertThat(store.incrementAndGet("ratelimit:otp:b", Duration.ofMinutes(1))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 近端缓存测试：命中/未命中缓存、跨节点失效与非缓存前缀直通。
+ */
+class NearCacheKeyValueStoreTest {
+
+    private final InMemoryKeyValueStore remote = new InMemoryKeyValueStore();
+    private final CountingStore counting = new CountingStore(remote);
+    private final LocalBus bus = new LocalBus();
+
+    @AfterEach
+    void tearDown() {
+        remote.close();
+    }
+
+    @Test
+    void negativeAndPositiveLookupsAreServedLocally() {
+        NearCacheKeyValueStore node = newNode();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(node.get("blacklist:jti-1")).isEmpty();
+        }
+        remote.put("blacklist:jti-2", "1", Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            assertThat(node.get("blacklist:jti-2")).contains("1");
+        }
+
+        assertThat(counting.gets.get()).isEqualTo(2);
+        assertThat(node.negativeHitCount()).isEqualTo(4);
+        assertThat(node.hitCount()).isEqualTo(4);
+        assertThat(node.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void writeOnOneNodeInvalidatesOthers() {
+        NearCacheKeyValueStore nodeA = newNode();
+        NearCacheKeyValueStore nodeB = newNode();
+
+        assertThat(nodeB.get("blacklist:jti-1")).isEmpty();
+        nodeA.put("blacklist:jti-1", "1", Duration.ofMinutes(1));
+
+        assertThat(nodeB.get("blacklist:jti-1")).contains("1");
+        assertThat(nodeB.remoteInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncWritesBypassingTheCacheStillInvalidateOtherNodes() {
+        NearCacheKeyValueStore nodeA = newNode();
+        NearCacheKeyValueStore nodeB = newNode();
+        AsyncEphemeralKeyValueStore async = nodeA.invalidating(AsyncEphemeralKeyValueStore.of(remote));
+
+        assertThat(nodeB.get("blacklist:jti-1")).isEmpty();
+        async.put("blacklist:jti-1", "1", Duration.ofMinutes(1)).join();
+
+        assertThat(nodeB.get("blacklist:jti-1")).contains("1");
+        assertThat(nodeB.remoteInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void nonCachedPrefixesPassThrough() {
+        NearCacheKeyValueStore node = newNode();
+        node.put("otp:login:a", "123456", Duration.ofMinutes(1));
+
+        assertThat(node.get("otp:login:a")).contains("123456");
+        assertThat(node.consumeIfMatches("otp:login:a", "123456")).isTrue();
+        assertThat(node.get("otp:login:a")).isEmpty();
+        assertThat(node.size()).isZero();
+    }
+
+    private NearCacheKeyValueStore newNode() {
+        return new NearCacheKeyValueStore(counting, bus, List.of("blacklist:"), 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    /**
+     * 进程内广播，模拟 Redis Pub/Sub；发布方自身也会收到，用于验证重复失效无害。
+     */
+    static class LocalBus implements InvalidationBus {
+        private final List<Consumer<Collection<String>>> listeners = new ArrayList<>();
+
+        @Override
+        public void publish(Collection<String> keys) {
+            listeners.forEach(listener -> listener.accept(keys));
+        }
+
+        @Override
+        public void subscribe(Consumer<Collection<String>> listener) {
+            listeners.add(listener);
+        }
+    }
+
+    static class CountingStore implements EphemeralKeyValueStore {
+        private final EphemeralKeyValueStore delegate;
+        final AtomicInteger gets = new AtomicInteger();
+
+        CountingStore(EphemeralKeyValueStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            delegate.put(key, value, ttl);
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            gets.incrementAndGet();
+            return delegate.get(key);
+        }
+
+        @Override
+        public void delete(String key) {
+            delegate.delete(key);
+        }
+
+        @Override
+        public Optional<String> getAndDelete(String key) {
+            return delegate.getAndDelete(key);
+        }
+
+        @Override
+        public boolean consumeIfMatches(String key, String expected) {
+            return delegate.consumeIfMatches(key, expected);
+        }
+
+        @Override
+        public long incrementAndGet(String key, Duration ttl) {
+            return delegate.incrementAndGet(key, ttl);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 持久化本地存储测试：覆盖重启后恢复、删除不复活、验证码核销与失败计数、残缺记录截断与过期段压缩。
+ */
+class PersistentKeyValueStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<AutoCloseable> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : opened) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void restoresUnexpiredEntriesAfterRestart() {
+        PersistentKeyValueStore store = open();
+        store.put("blacklist:t1", "1", Duration.ofMinutes(30));
+        store.put("otp:login:a", "123456", Duration.ofMinutes(5));
+        store.put("state:oauth:s1", "1", Duration.ofMinutes(1));
+        store.put("otp:login:old", "1", Duration.ofMillis(1));
+        assertThat(store.consumeIfMatches("otp:login:a", "123456")).isTrue();
+        store.delete("state:oauth:s1");
+        assertThat(store.incrementAndGet("ratelimit:otp:a", Duration.ofMinutes(10))).isEqualTo(1);
+        assertThat(store.incrementAndGet("ratelimit:otp:a", Duration.ofMinutes(10))).isEqualTo(2);
+        store.close();
+
+        PersistentKeyValueStore restarted = open();
+
+        assertThat(restarted.get("blacklist:t1")).contains("1");
+        assertThat(restarted.get("otp:login:a")).isEmpty();
+        assertThat(restarted.get("state:oauth:s1")).isEmpty();
+        assertThat(restarted.get("otp:login:old")).isEmpty();
+        assertThat(restarted.get("ratelimit:otp:a")).contains("2");
+        assertThat(restarted.incrementAndGet("ratelimit:otp:a", Duration.ofMinutes(10))).isEqualTo(3);
+    }
+
+    @Test
+    void codeChecksAreLoggedAndSurviveRestart() {
+        PersistentKeyValueStore store = open();
+        store.put("otp:login:a", OneTimeCode.issue("123456", Duration.ofMinutes(5)).encode(), Duration.ofMinutes(5));
+        store.put("otp:login:b", OneTimeCode.issue("654321", Duration.ofMinutes(5)).encode(), Duration.ofMinutes(5));
+        assertThat(store.checkCode("otp:login:a", "000000", 5)).isEqualTo(CodeCheck.MISMATCHED);
+        assertThat(store.checkCode("otp:login:b", "654321", 5)).isEqualTo(CodeCheck.MATCHED);
+        store.close();
+
+        PersistentKeyValueStore restarted = open();
+
+        assertThat(restarted.get("otp:login:a").flatMap(OneTimeCode::decode))
+                .hasValueSatisfying(code -> assertThat(code.attempts()).isEqualTo(1));
+        assertThat(restarted.get("otp:login:b")).isEmpty();
+        assertThat(restarted.checkCode("otp:login:a", "123456", 5)).isEqualTo(CodeCheck.MATCHED);
+    }
+
+    @Test
+    void tornRecordIsIgnoredOnReplay() throws IOException {
+        PersistentKeyValueStore store = open();
+        store.put("blacklist:t1", "kept", Duration.ofMinutes(30));
+        store.put("blacklist:t2", "corrupted", Duration.ofMinutes(30));
+        store.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        byte[] marker = "corrupted".getBytes(StandardCharsets.UTF_8);
+        bytes[indexOf(bytes, marker)] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        PersistentKeyValueStore restarted = open();
+
+        assertThat(restarted.get("blacklist:t1")).contains("kept");
+        assertThat(restarted.get("blacklist:t2")).isEmpty();
+    }
+
+    @Test
+    void expiredSegmentsAreCompactedWithoutResurrectingOverwrittenValues() throws InterruptedException {
+        PersistentKeyValueStore store = open();
+        store.put("otp:login:a", "old", Duration.ofMinutes(10));
+        store.put("otp:login:a", "new", Duration.ofMillis(50));
+        for (int i = 0; i < 500; i++) {
+            store.put("state:oauth:" + i, "1", Duration.ofMillis(50));
+        }
+        int segmentsBefore = store.segmentCount();
+        assertThat(segmentsBefore).isGreaterThan(2);
+
+        Thread.sleep(100);
+        int removed = store.compact();
+
+        assertThat(removed).isPositive();
+        assertThat(store.segmentCount()).isLessThan(segmentsBefore);
+        store.close();
+
+        PersistentKeyValueStore restarted = open();
+        assertThat(restarted.get("otp:login:a")).isEmpty();
+        assertThat(restarted.get("state:oauth:1")).isEmpty();
+    }
+
+    private PersistentKeyValueStore open() {
+        InMemoryKeyValueStore memory = new InMemoryKeyValueStore();
+        PersistentKeyValueStore store = new PersistentKeyValueStore(memory, directory, 4096,
+                Duration.ofSeconds(1), Duration.ofMinutes(1));
+        opened.add(store);
+        opened.add(memory);
+        return store;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] marker) {
+        outer:
+        for (int i = 0; i <= bytes.length - marker.length; i++) {
+            for (int j = 0; j < marker.length; j++) {
+                if (bytes[i + j] != marker[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalStateException("marker not found");
+    }
+}
@@ -0,0 +1,191 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 降级存储复制测试：本机多节点经 UDP 复制验证码与核销，后写者胜出，批次内合并，数据报加密且伪造的被拒绝。
+ */
+class ReplicatedKeyValueStoreTest {
+
+    private static final byte[] SECRET = "0123456789abcdef-test-secret".getBytes(StandardCharsets.UTF_8);
+
+    private final List<AutoCloseable> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : opened) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void otpIssuedOnOneNodeCanBeConsumedOnAnother() throws Exception {
+        List<UdpPeerTransport> transports = new ArrayList<>();
+        List<ReplicatedKeyValueStore> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transports.add(track(new UdpPeerTransport(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    List.of(), SECRET)));
+        }
+        List<InetSocketAddress> addresses = transports.stream().map(UdpPeerTransport::localAddress).toList();
+        for (UdpPeerTransport transport : transports) {
+            transport.setPeers(addresses);
+            InMemoryKeyValueStore memory = track(new InMemoryKeyValueStore());
+            nodes.add(track(new ReplicatedKeyValueStore(memory, transport, 256, Duration.ofMillis(10),
+                    Duration.ofMinutes(1))));
+        }
+
+        nodes.get(0).put("otp:login:a", "123456", Duration.ofMinutes(5));
+        await(() -> nodes.get(1).get("otp:login:a").isPresent() && nodes.get(2).get("otp:login:a").isPresent());
+
+        assertThat(nodes.get(1).consumeIfMatches("otp:login:a", "123456")).isTrue();
+        await(() -> nodes.get(0).get("otp:login:a").isEmpty() && nodes.get(2).get("otp:login:a").isEmpty());
+        assertThat(nodes.get(2).consumeIfMatches("otp:login:a", "123456")).isFalse();
+    }
+
+    @Test
+    void lastWriterWinsAndStaleOperationsAreIgnored() {
+        ManualTransport transport = new ManualTransport();
+        InMemoryKeyValueStore memory = track(new InMemoryKeyValueStore());
+        ReplicatedKeyValueStore store = track(new ReplicatedKeyValueStore(memory, transport, 256,
+                Duration.ofHours(1), Duration.ofMinutes(1), new HybridLogicalClock(() -> 1_000L)));
+        long deadline = System.currentTimeMillis() + 60_000;
+
+        transport.deliver(new ReplicatedOperation("otp:login:a", "newer", deadline, 500L << 16, 7));
+        transport.deliver(new ReplicatedOperation("otp:login:a", "older", deadline, 400L << 16, 7));
+        assertThat(store.get("otp:login:a")).contains("newer");
+        assertThat(store.staleCount()).isEqualTo(1);
+
+        store.put("otp:login:a", "local", Duration.ofMinutes(1));
+        transport.deliver(new ReplicatedOperation("otp:login:a", null, 0L, 900L << 16, 7));
+        assertThat(store.get("otp:login:a")).contains("local");
+
+        transport.deliver(new ReplicatedOperation("otp:login:a", null, 0L, 2_000L << 16, 7));
+        transport.deliver(new ReplicatedOperation("otp:login:a", "late", deadline, 1_500L << 16, 7));
+        assertThat(store.get("otp:login:a")).isEmpty();
+    }
+
+    @Test
+    void operationsOnTheSameKeyAreCoalescedWithinABatch() {
+        ManualTransport transport = new ManualTransport();
+        InMemoryKeyValueStore memory = track(new InMemoryKeyValueStore());
+        ReplicatedKeyValueStore store = track(new ReplicatedKeyValueStore(memory, transport, 256,
+                Duration.ofHours(1), Duration.ofMinutes(1)));
+
+        store.put("otp:login:a", "1", Duration.ofMinutes(1));
+        store.put("otp:login:a", "2", Duration.ofMinutes(1));
+        store.put("otp:login:b", "1", Duration.ofMinutes(1));
+        store.delete("otp:login:never-written");
+
+        assertThat(store.flush()).isEqualTo(2);
+        assertThat(store.coalescedCount()).isEqualTo(1);
+        assertThat(transport.sent).hasSize(1);
+        assertThat(transport.sent.get(0)).extracting(ReplicatedOperation::value).containsExactly("2", "1");
+    }
+
+    @Test
+    void codeChecksReplicateExactlyOneResultingOperation() {
+        ManualTransport transport = new ManualTransport();
+        InMemoryKeyValueStore memory = track(new InMemoryKeyValueStore());
+        ReplicatedKeyValueStore store = track(new ReplicatedKeyValueStore(memory, transport, 256,
+                Duration.ofHours(1), Duration.ofMinutes(1)));
+        store.put("otp:login:a", OneTimeCode.issue("123456", Duration.ofMinutes(5)).encode(), Duration.ofMinutes(5));
+        store.flush();
+
+        assertThat(store.checkCode("otp:login:a", "000000", 5)).isEqualTo(CodeCheck.MISMATCHED);
+        assertThat(store.flush()).isEqualTo(1);
+        assertThat(OneTimeCode.decode(transport.sent.get(1).get(0).value()))
+                .hasValueSatisfying(code -> assertThat(code.attempts()).isEqualTo(1));
+
+        assertThat(store.checkCode("otp:login:a", "123456", 5)).isEqualTo(CodeCheck.MATCHED);
+        assertThat(store.checkCode("otp:login:a", "123456", 5)).isEqualTo(CodeCheck.ABSENT);
+        assertThat(store.flush()).isEqualTo(1);
+        assertThat(transport.sent.get(2)).singleElement().satisfies(operation ->
+                assertThat(operation.isDelete()).isTrue());
+    }
+
+    @Test
+    void datagramsWithWrongKeyAreRejected() throws Exception {
+        UdpPeerTransport receiver = track(new UdpPeerTransport(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), List.of(), SECRET));
+        UdpPeerTransport forger = track(new UdpPeerTransport(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), List.of(receiver.localAddress()),
+                "another-secret-of-16-bytes".getBytes(StandardCharsets.UTF_8)));
+        List<ReplicatedOperation> received = new CopyOnWriteArrayList<>();
+        receiver.subscribe(received::addAll);
+
+        forger.send(List.of(new ReplicatedOperation("otp:login:a", "000000",
+                System.currentTimeMillis() + 60_000, 1L << 16, 9)));
+        try (DatagramSocket raw = new DatagramSocket()) {
+            byte[] junk = "not a replication datagram at all, just junk bytes".getBytes(StandardCharsets.UTF_8);
+            raw.send(new DatagramPacket(junk, junk.length, receiver.localAddress()));
+        }
+
+        await(() -> receiver.rejectedCount() == 2);
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void datagramsDoNotCarryPlaintext() throws Exception {
+        try (DatagramSocket sniffer = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            sniffer.setSoTimeout(5_000);
+            UdpPeerTransport sender = track(new UdpPeerTransport(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    List.of((InetSocketAddress) sniffer.getLocalSocketAddress()), SECRET));
+
+            sender.send(List.of(new ReplicatedOperation("otp:login:alice", "654321",
+                    System.currentTimeMillis() + 60_000, 1L << 16, 9)));
+            DatagramPacket packet = new DatagramPacket(new byte[65_535], 65_535);
+            sniffer.receive(packet);
+
+            String captured = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.ISO_8859_1);
+            assertThat(captured).doesNotContain("654321").doesNotContain("alice");
+        }
+    }
+
+    private <T extends AutoCloseable> T track(T closeable) {
+        opened.add(0, closeable);
+        return closeable;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static final class ManualTransport implements PeerTransport {
+        final List<List<ReplicatedOperation>> sent = new ArrayList<>();
+        Consumer<List<ReplicatedOperation>> listener;
+
+        @Override
+        public void send(List<ReplicatedOperation> batch) {
+            sent.add(List.copyOf(batch));
+        }
+
+        @Override
+        public void subscribe(Consumer<List<ReplicatedOperation>> listener) {
+            this.listener = listener;
+        }
+
+        void deliver(ReplicatedOperation operation) {
+            listener.accept(List.of(operation));
+        }
+    }
+}
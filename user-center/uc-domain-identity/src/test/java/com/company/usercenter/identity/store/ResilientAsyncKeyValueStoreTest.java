@@ -0,0 +1,52 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 异步降级存储测试：主存 future 失败时回退内存，并与同步路径共享降级日志。
+ */
+class ResilientAsyncKeyValueStoreTest {
+
+    private final InMemoryKeyValueStore primary = new InMemoryKeyValueStore();
+    private final InMemoryKeyValueStore fallback = new InMemoryKeyValueStore();
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        fallback.close();
+    }
+
+    @Test
+    void completedAdapterReportsFailuresThroughFuture() {
+        AsyncEphemeralKeyValueStore store = AsyncEphemeralKeyValueStore.of(new ResilientKeyValueStoreTest.FailingStore());
+
+        assertThat(store.get("otp:login:a")).isCompletedExceptionally();
+    }
+
+    @Test
+    void failedPrimaryFallsBackAndJournalsWrites() {
+        ResilientKeyValueStoreTest.SwitchableStore switchable = new ResilientKeyValueStoreTest.SwitchableStore(primary);
+        CircuitBreaker breaker = new CircuitBreaker("test", CircuitBreaker.Settings.defaults());
+        FallbackJournal journal = new FallbackJournal(100);
+        ResilientAsyncKeyValueStore store = new ResilientAsyncKeyValueStore(
+                AsyncEphemeralKeyValueStore.of(switchable), fallback, breaker, journal);
+
+        switchable.down = true;
+        store.put("otp:login:a", "123456", Duration.ofMinutes(1)).join();
+        assertThat(store.get("otp:login:a").join()).contains("123456");
+        assertThat(store.incrementAndGet("ratelimit:a", Duration.ofMinutes(1)).join()).isEqualTo(1);
+        assertThat(journal.size()).isEqualTo(1);
+
+        switchable.down = false;
+        assertThat(new ResilientKeyValueStore(switchable, fallback, breaker, journal).replayJournal(10)).isEqualTo(1);
+        assertThat(primary.get("otp:login:a")).contains("123456");
+        assertThat(store.consumeIfMatches("otp:login:a", "123456").join()).isTrue();
+        assertThat(store.multiGet(List.of("otp:login:a")).join()).isEmpty();
+    }
+}
@@ -0,0 +1,234 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 降级存储测试：主存可用时的逐键回查与主存故障时的整体回退。
+ */
+class ResilientKeyValueStoreTest {
+
+    private final InMemoryKeyValueStore primary = new InMemoryKeyValueStore();
+    private final InMemoryKeyValueStore fallback = new InMemoryKeyValueStore();
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        fallback.close();
+    }
+
+    @Test
+    void multiGetFallsBackPerMissingKey() {
+        primary.put("blacklist:a", "1", Duration.ofMinutes(1));
+        fallback.put("blacklist:b", "1", Duration.ofMinutes(1));
+        ResilientKeyValueStore store = new ResilientKeyValueStore(primary, fallback);
+
+        Map<String, String> values = store.multiGet(List.of("blacklist:a", "blacklist:b", "blacklist:c"));
+
+        assertThat(values).containsOnlyKeys("blacklist:a", "blacklist:b");
+    }
+
+    @Test
+    void batchOperationsUseFallbackWhenPrimaryFails() {
+        ResilientKeyValueStore store = new ResilientKeyValueStore(new FailingStore(), fallback);
+
+        store.multiPut(List.of(
+                new EphemeralEntry("state:oauth:1", "1", Duration.ofMinutes(1)),
+                new EphemeralEntry("state:oauth:2", "1", Duration.ofMinutes(1))));
+        assertThat(store.multiGet(List.of("state:oauth:1", "state:oauth:2"))).hasSize(2);
+
+        store.multiDelete(List.of("state:oauth:1"));
+        assertThat(fallback.get("state:oauth:1")).isEmpty();
+        assertThat(fallback.get("state:oauth:2")).contains("1");
+    }
+
+    @Test
+    void openBreakerSkipsPrimary() {
+        FailingStore failing = new FailingStore();
+        CircuitBreaker breaker = new CircuitBreaker("test",
+                new CircuitBreaker.Settings(50, 80, Duration.ofSeconds(1), 4, 2, Duration.ofMinutes(1)));
+        ResilientKeyValueStore store = new ResilientKeyValueStore(failing, fallback, breaker);
+
+        for (int i = 0; i < 10; i++) {
+            store.put("otp:login:" + i, "1", Duration.ofMinutes(1));
+        }
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(failing.calls).isEqualTo(2);
+        assertThat(fallback.size()).isEqualTo(10);
+    }
+
+    @Test
+    void fallbackWritesAreReplayedWhenPrimaryRecovers() {
+        SwitchableStore redis = new SwitchableStore(primary);
+        ResilientKeyValueStore store = new ResilientKeyValueStore(redis, fallback);
+        primary.put("otp:login:old", "111111", Duration.ofMinutes(1));
+
+        redis.down = true;
+        store.put("blacklist:jti-1", "1", Duration.ofMinutes(1));
+        store.put("blacklist:jti-2", "1", Duration.ofMinutes(1));
+        store.put("state:oauth:expired", "1", Duration.ofNanos(1));
+        store.delete("otp:login:old");
+        assertThat(store.journal().size()).isEqualTo(4);
+
+        redis.down = false;
+        assertThat(store.replayJournal(2)).isEqualTo(2);
+        assertThat(store.replayJournal(10)).isEqualTo(1); // 已过期的写入被跳过
+        assertThat(store.journal().size()).isZero();
+
+        assertThat(primary.get("blacklist:jti-1")).contains("1");
+        assertThat(primary.get("blacklist:jti-2")).contains("1");
+        assertThat(primary.get("state:oauth:expired")).isEmpty();
+        assertThat(primary.get("otp:login:old")).isEmpty();
+    }
+
+    @Test
+    void deleteReachesFallbackAndCancelsPendingReplay() {
+        SwitchableStore redis = new SwitchableStore(primary);
+        ResilientKeyValueStore store = new ResilientKeyValueStore(redis, fallback);
+
+        redis.down = true;
+        store.put("blacklist:jti-1", "1", Duration.ofMinutes(1));
+        redis.down = false;
+        store.delete("blacklist:jti-1");
+
+        assertThat(store.get("blacklist:jti-1")).isEmpty();
+        assertThat(store.journal().size()).isZero();
+    }
+
+    @Test
+    void replayShouldNotResurrectKeysDeletedOrConsumedDuringReplay() {
+        SwitchableStore redis = new SwitchableStore(primary);
+        ResilientKeyValueStore store = new ResilientKeyValueStore(redis, fallback);
+
+        redis.down = true;
+        store.put("otp:login:a", "111111", Duration.ofMinutes(5));
+        store.put("otp:login:b", "222222", Duration.ofMinutes(5));
+        store.put("blacklist:jti-1", "1", Duration.ofMinutes(5));
+        redis.down = false;
+        redis.beforeMultiPut = () -> {
+            redis.beforeMultiPut = null;
+            store.delete("otp:login:a");
+            assertThat(store.consumeIfMatches("otp:login:b", "222222")).isTrue();
+        };
+
+        assertThat(store.replayJournal(10)).isEqualTo(3);
+
+        assertThat(primary.get("otp:login:a")).isEmpty();
+        assertThat(primary.get("otp:login:b")).isEmpty();
+        assertThat(primary.get("blacklist:jti-1")).contains("1");
+        assertThat(store.consumeIfMatches("otp:login:b", "222222")).isFalse();
+    }
+
+    /**
+     * 可切换可用性的主存，用于模拟 Redis 宕机与恢复；beforeMultiPut 模拟回放写入时并发到达的请求。
+     */
+    static class SwitchableStore implements EphemeralKeyValueStore {
+
+        private final EphemeralKeyValueStore delegate;
+        volatile boolean down;
+        volatile Runnable beforeMultiPut;
+
+        @Override
+        public void multiPut(Collection<EphemeralEntry> entries) {
+            Runnable hook = beforeMultiPut;
+            if (hook != null) {
+                hook.run();
+            }
+            target().multiPut(entries);
+        }
+
+        @Override
+        public void multiDelete(Collection<String> keys) {
+            target().multiDelete(keys);
+        }
+
+        SwitchableStore(EphemeralKeyValueStore delegate) {
+            this.delegate = delegate;
+        }
+
+        private EphemeralKeyValueStore target() {
+            if (down) {
+                throw new IllegalStateException("redis down");
+            }
+            return delegate;
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            target().put(key, value, ttl);
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return target().get(key);
+        }
+
+        @Override
+        public void delete(String key) {
+            target().delete(key);
+        }
+
+        @Override
+        public Optional<String> getAndDelete(String key) {
+            return target().getAndDelete(key);
+        }
+
+        @Override
+        public boolean consumeIfMatches(String key, String expected) {
+            return target().consumeIfMatches(key, expected);
+        }
+
+        @Override
+        public long incrementAndGet(String key, Duration ttl) {
+            return target().incrementAndGet(key, ttl);
+        }
+    }
+
+    /**
+     * 模拟 Redis 不可用的主存。
+     */
+    static class FailingStore implements EphemeralKeyValueStore {
+
+        int calls;
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            calls++;
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public void delete(String key) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public Optional<String> getAndDelete(String key) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public boolean consumeIfMatches(String key, String expected) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public long incrementAndGet(String key, Duration ttl) {
+            throw new IllegalStateException("redis down");
+        }
+    }
+}
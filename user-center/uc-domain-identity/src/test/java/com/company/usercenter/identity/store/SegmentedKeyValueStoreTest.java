@@ -0,0 +1,119 @@
+package com.company.usercenter.identity.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分段锁内存存储测试：覆盖读写删除、删除回移、逐段过期清理、段满淘汰与并发计数。
+ */
+class SegmentedKeyValueStoreTest {
+
+    private final SegmentedKeyValueStore store = new SegmentedKeyValueStore(4, 10_000, Duration.ofMillis(20));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void putGetDeleteAndConsume() {
+        store.put("otp:login:a", "123456", Duration.ofMinutes(5));
+        store.put("otp:login:a", "654321", Duration.ofMinutes(5));
+        assertThat(store.get("otp:login:a")).contains("654321");
+        assertThat(store.size()).isEqualTo(1);
+
+        assertThat(store.consumeIfMatches("otp:login:a", "000000")).isFalse();
+        assertThat(store.consumeIfMatches("otp:login:a", "654321")).isTrue();
+        assertThat(store.get("otp:login:a")).isEmpty();
+
+        store.put("state:oauth:s1", "1", Duration.ofMinutes(1));
+        assertThat(store.getAndDelete("state:oauth:s1")).contains("1");
+        assertThat(store.getAndDelete("state:oauth:s1")).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void removalKeepsProbeChainsIntact() {
+        for (int i = 0; i < 2_000; i++) {
+            store.put("blacklist:" + i, Integer.toString(i), Duration.ofMinutes(1));
+        }
+        for (int i = 0; i < 2_000; i += 3) {
+            store.delete("blacklist:" + i);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            if (i % 3 == 0) {
+                assertThat(store.get("blacklist:" + i)).isEmpty();
+            } else {
+                assertThat(store.get("blacklist:" + i)).contains(Integer.toString(i));
+            }
+        }
+    }
+
+    @Test
+    void expiredKeysAreSweptWithoutBeingRead() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            store.put("state:oauth:" + i, "1", Duration.ofMillis(30));
+        }
+        store.put("blacklist:keep", "1", Duration.ofMinutes(1));
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (store.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.expiredCount()).isEqualTo(500);
+        assertThat(store.get("blacklist:keep")).contains("1");
+    }
+
+    @Test
+    void fullSegmentEvictsEntryClosestToExpiry() {
+        try (SegmentedKeyValueStore small = new SegmentedKeyValueStore(1, 8, Duration.ofMinutes(1))) {
+            for (int i = 0; i < 8; i++) {
+                small.put("otp:login:" + i, "1", Duration.ofMinutes(10 + i));
+            }
+            small.put("otp:login:new", "1", Duration.ofMinutes(30));
+
+            assertThat(small.size()).isEqualTo(8);
+            assertThat(small.evictionCount()).isEqualTo(1);
+            assertThat(small.get("otp:login:0")).isEmpty();
+            assertThat(small.get("otp:login:new")).contains("1");
+        }
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        int threads = 8;
+        int perThread = 1_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    store.incrementAndGet("ratelimit:otp:a", Duration.ofMinutes(1));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertThat(store.get("ratelimit:otp:a")).contains(Integer.toString(threads * perThread));
+    }
+}
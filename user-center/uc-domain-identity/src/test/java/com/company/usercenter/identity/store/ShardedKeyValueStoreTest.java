@@ -0,0 +1,127 @@
+package com.company.usercenter.identity.store;
+
+import com.company.usercenter.identity.store.ResilientKeyValueStoreTest.SwitchableStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分片存储测试：一致性哈希分布与扩容迁移量、hash tag 同片、单分片故障只降级该分片的键、迁移期间回查旧分片。
+ */
+class ShardedKeyValueStoreTest {
+
+    private final List<InMemoryKeyValueStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(InMemoryKeyValueStore::close);
+    }
+
+    @Test
+    void ringSpreadsKeysEvenlyAndMovesOnlyAFractionOnExpansion() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("s1", "s2", "s3"), 160);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("s1", "s2", "s3", "s4"), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int keys = 30_000;
+        for (int i = 0; i < keys; i++) {
+            String key = "blacklist:" + i;
+            counts.merge(three.nodeFor(key), 1, Integer::sum);
+            String after = four.nodeFor(key);
+            if (!after.equals(three.nodeFor(key))) {
+                moved++;
+                assertThat(after).isEqualTo("s4");
+            }
+        }
+
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(8_000, 12_000));
+        assertThat(moved).isBetween(keys / 4 - 2_000, keys / 4 + 2_000);
+    }
+
+    @Test
+    void hashTagKeepsRelatedKeysOnTheSameShard() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("s1", "s2", "s3", "s4"), 160);
+        String shard = ring.nodeFor("state:{tenant-1}:abc");
+        for (int i = 0; i < 100; i++) {
+            assertThat(ring.nodeFor("otp:{tenant-1}:" + i)).isEqualTo(shard);
+        }
+        assertThat(ConsistentHashRing.hashSlot("otp:{}:a")).isEqualTo("otp:{}:a");
+    }
+
+    @Test
+    void onlyKeysOnTheFailedShardFallBack() {
+        InMemoryKeyValueStore fallback = memory();
+        Map<String, SwitchableStore> redis = new LinkedHashMap<>();
+        Map<String, EphemeralKeyValueStore> shards = new LinkedHashMap<>();
+        for (String name : List.of("s1", "s2", "s3")) {
+            SwitchableStore primary = new SwitchableStore(memory());
+            redis.put(name, primary);
+            shards.put(name, new ResilientKeyValueStore(primary, fallback));
+        }
+        ShardedKeyValueStore store = new ShardedKeyValueStore(shards, 160);
+        for (int i = 0; i < 300; i++) {
+            store.put("otp:login:" + i, "v" + i, Duration.ofMinutes(5));
+        }
+
+        redis.get("s2").down = true;
+        store.put("otp:login:new-1", "x", Duration.ofMinutes(5));
+
+        int fallbackKeys = 0;
+        for (int i = 0; i < 300; i++) {
+            String key = "otp:login:" + i;
+            boolean onFailedShard = store.shardNameFor(key).equals("s2");
+            assertThat(store.get(key)).isEqualTo(onFailedShard ? Optional.empty()
+                    : Optional.of("v" + i));
+            if (onFailedShard) {
+                fallbackKeys++;
+            }
+        }
+        assertThat(fallbackKeys).isBetween(50, 150);
+        assertThat(store.get("otp:login:new-1")).contains("x");
+    }
+
+    @Test
+    void readsFallBackToPreviousOwnerWhileMigrating() {
+        Map<String, EphemeralKeyValueStore> shards = new LinkedHashMap<>();
+        for (String name : List.of("s1", "s2", "s3")) {
+            shards.put(name, memory());
+        }
+        ShardedKeyValueStore before = new ShardedKeyValueStore(shards, 160);
+        for (int i = 0; i < 200; i++) {
+            before.put("blacklist:" + i, "1", Duration.ofMinutes(5));
+        }
+
+        shards.put("s4", memory());
+        ShardedKeyValueStore migrating = new ShardedKeyValueStore(shards, 160, List.of("s1", "s2", "s3"));
+        String movedKey = null;
+        for (int i = 0; i < 200 && movedKey == null; i++) {
+            if (migrating.shardNameFor("blacklist:" + i).equals("s4")) {
+                movedKey = "blacklist:" + i;
+            }
+        }
+
+        assertThat(migrating.isMigrating()).isTrue();
+        assertThat(movedKey).isNotNull();
+        assertThat(migrating.get(movedKey)).contains("1");
+        assertThat(migrating.multiGet(List.of(movedKey))).containsEntry(movedKey, "1");
+
+        migrating.put(movedKey, "2", Duration.ofMinutes(5));
+        assertThat(migrating.getAndDelete(movedKey)).contains("2");
+        assertThat(migrating.get(movedKey)).isEmpty();
+    }
+
+    private InMemoryKeyValueStore memory() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        opened.add(store);
+        return store;
+    }
+}
@@ -39,6 +39,8 @@ public class ClientController {
                     - clientId 必须唯一
                     - clientSecret 创建后请妥善保管，系统不会再次显示
                     - redirectUris 必须与实际回调地址完全匹配（包括协议、域名、端口、路径）
+                    - statelessClientCredentials 为 true 时，Client Credentials 签发 5 分钟有效的 JWT 且不保存授权记录，自省与吊销端点对其无效
+                    - reuseClientCredentialsToken 为 true 时，相同授权范围的 Client Credentials 请求复用未临近过期的访问令牌
                     """
     )
     @ApiResponses(value = {
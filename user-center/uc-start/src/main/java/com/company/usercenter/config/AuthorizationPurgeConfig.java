@@ -0,0 +1,59 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.auth.AuthorizationPurgeService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * 过期授权清理配置：仅在授权存于 JDBC 时启用，可用 {@code auth.authorization-purge.enabled=false} 关闭。
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.authorization-store.type", havingValue = "jdbc", matchIfMissing = true)
+public class AuthorizationPurgeConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "auth.authorization-purge.enabled", havingValue = "true", matchIfMissing = true)
+    public AuthorizationPurgeService authorizationPurgeService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${auth.authorization-purge.interval:5m}") Duration interval,
+            @Value("${auth.authorization-purge.grace:5m}") Duration grace,
+            @Value("${auth.authorization-purge.batch-size:500}") int batchSize,
+            @Value("${auth.authorization-purge.min-batch-size:50}") int minBatchSize,
+            @Value("${auth.authorization-purge.max-batch-size:5000}") int maxBatchSize,
+            @Value("${auth.authorization-purge.target-batch-latency:200ms}") Duration targetBatchLatency,
+            @Value("${auth.authorization-purge.max-run-time:1m}") Duration maxRunTime) {
+        return new AuthorizationPurgeService(jdbcTemplate, new AuthorizationPurgeService.Settings(interval, grace,
+                batchSize, minBatchSize, maxBatchSize, targetBatchLatency, maxRunTime));
+    }
+
+    /**
+     * 清理指标：累计删除行数、限速次数、当前批大小与积压时长。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.authorization-purge.enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder authorizationPurgeMetrics(AuthorizationPurgeService authorizationPurgeService) {
+        return registry -> {
+            FunctionCounter.builder("auth.authorization.purge.rows", authorizationPurgeService,
+                            AuthorizationPurgeService::purgedCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.authorization.purge.throttled", authorizationPurgeService,
+                            AuthorizationPurgeService::throttledCount)
+                    .register(registry);
+            Gauge.builder("auth.authorization.purge.batch.size", authorizationPurgeService,
+                            AuthorizationPurgeService::batchSize)
+                    .register(registry);
+            Gauge.builder("auth.authorization.purge.lag", authorizationPurgeService,
+                            service -> service.lag().toMillis() / 1000.0)
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
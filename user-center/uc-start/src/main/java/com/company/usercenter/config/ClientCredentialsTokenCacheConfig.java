@@ -0,0 +1,32 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.auth.ClientCredentialsTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * client_credentials 令牌复用指标：命中率由 result=hit/miss 两个计数得出。
+ */
+@Configuration
+public class ClientCredentialsTokenCacheConfig {
+
+    @Bean
+    public MeterBinder clientCredentialsTokenCacheMetrics(ClientCredentialsTokenCache tokenCache) {
+        return registry -> {
+            FunctionCounter.builder("auth.token.reuse.requests", tokenCache, ClientCredentialsTokenCache::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("auth.token.reuse.requests", tokenCache, ClientCredentialsTokenCache::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("auth.token.reuse.evictions", tokenCache,
+                            ClientCredentialsTokenCache::evictionCount)
+                    .register(registry);
+            Gauge.builder("auth.token.reuse.size", tokenCache, ClientCredentialsTokenCache::size)
+                    .register(registry);
+        };
+    }
+}
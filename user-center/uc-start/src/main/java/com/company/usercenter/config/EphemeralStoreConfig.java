@@ -1,41 +1,545 @@
 package com.company.usercenter.config;
 
+import com.company.usercenter.identity.store.AsyncEphemeralKeyValueStore;
+import com.company.usercenter.identity.store.BoundedKeyValueStore;
+import com.company.usercenter.identity.store.CircuitBreaker;
 import com.company.usercenter.identity.store.EphemeralKeyValueStore;
-import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.FallbackJournal;
+import com.company.usercenter.identity.store.FallbackReconciler;
+import com.company.usercenter.identity.store.NearCacheKeyValueStore;
+import com.company.usercenter.identity.store.PersistentKeyValueStore;
+import com.company.usercenter.identity.store.ReplicatedKeyValueStore;
+import com.company.usercenter.identity.store.ResilientAsyncKeyValueStore;
 import com.company.usercenter.identity.store.ResilientKeyValueStore;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import com.company.usercenter.identity.store.ShardedKeyValueStore;
+import com.company.usercenter.identity.store.UdpPeerTransport;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
- * 短期存储 Bean 配置：默认使用 Redis，失败时自动降级至内存。
+ * 短期存储 Bean 配置：默认使用 Redis，失败时自动降级至有容量上限的内存存储。
+ * <p>
+ * Redis 相关 Bean 由 {@code ephemeral-store.redis.enabled} 控制（默认开启）；
+ * 用户配置类早于自动配置解析，不能依赖 {@code @ConditionalOnBean(StringRedisTemplate.class)} 判断。
  */
 @Configuration
 public class EphemeralStoreConfig {
 
+    private static final String REDIS_ENABLED = "ephemeral-store.redis.enabled";
+    private static final String PERSISTENCE_ENABLED = "ephemeral-store.local.persistence.enabled";
+    private static final String REPLICATION_ENABLED = "ephemeral-store.replication.enabled";
+    private static final String SHARDING_ENABLED = "ephemeral-store.sharding.enabled";
+    /**
+     * 单实例 Redis：开启 Redis 且未开启分片。分片时每个分片各有熔断器与降级日志，不再创建单实例的那一套。
+     */
+    private static final String SINGLE_REDIS =
+            "${ephemeral-store.redis.enabled:true} and !${ephemeral-store.sharding.enabled:false}";
+    private static final String REDIS_BACKEND = "redis";
+    private static final String LOCAL_BACKEND = "local";
+
+    /**
+     * 本地内存存储：无 Redis 时作为唯一存储，有 Redis 时作为降级存储；按命名空间限制条目数与字节数。
+     * 按键哈希分条带加锁，配额按条带均分。
+     */
     @Bean
     @ConditionalOnMissingBean
-    public InMemoryKeyValueStore inMemoryKeyValueStore() {
-        return new InMemoryKeyValueStore();
+    public BoundedKeyValueStore localKeyValueStore(
+            @Value("${ephemeral-store.local.max-entries:200000}") int maxEntries,
+            @Value("${ephemeral-store.local.max-bytes:67108864}") long maxBytes,
+            @Value("${ephemeral-store.local.stripes:16}") int stripes,
+            MeterRegistry meterRegistry) {
+        BoundedKeyValueStore store = BoundedKeyValueStore.withDefaultQuotas(stripes, maxEntries, maxBytes);
+        store.setListener(new MeterStoreListener(meterRegistry, LOCAL_BACKEND));
+        return store;
+    }
+
+    /**
+     * 本地存储持久化（默认关闭）：写入同时追加到内存映射日志，重启后重放，
+     * Redis 故障期间重启也不会丢失验证码与黑名单。目录需为节点独占的本地磁盘。
+     */
+    @Bean
+    @ConditionalOnProperty(name = PERSISTENCE_ENABLED, havingValue = "true")
+    public PersistentKeyValueStore persistentKeyValueStore(
+            BoundedKeyValueStore localKeyValueStore,
+            @Value("${ephemeral-store.local.persistence.directory:./data/ephemeral-store}") Path directory,
+            @Value("${ephemeral-store.local.persistence.segment-bytes:16777216}") int segmentBytes,
+            @Value("${ephemeral-store.local.persistence.flush-interval:1s}") Duration flushInterval,
+            @Value("${ephemeral-store.local.persistence.compaction-interval:30s}") Duration compactionInterval) {
+        return new PersistentKeyValueStore(localKeyValueStore, directory, segmentBytes, flushInterval,
+                compactionInterval);
     }
 
+    /**
+     * 节点间复制通道（默认关闭）：UDP 数据报以共享密钥加密认证，peers 为各节点的 {@code host:port}，可包含本节点。
+     */
     @Bean
-    @ConditionalOnBean(StringRedisTemplate.class)
+    @ConditionalOnProperty(name = REPLICATION_ENABLED, havingValue = "true")
+    public UdpPeerTransport ephemeralStorePeerTransport(
+            @Value("${ephemeral-store.replication.bind-address:0.0.0.0}") String bindAddress,
+            @Value("${ephemeral-store.replication.port:7946}") int port,
+            @Value("${ephemeral-store.replication.peers:}") List<String> peers,
+            @Value("${ephemeral-store.replication.secret:}") String secret) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("开启复制时必须配置 ephemeral-store.replication.secret");
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String peer : peers) {
+            int separator = peer.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("复制对端地址格式应为 host:port: " + peer);
+            }
+            addresses.add(new InetSocketAddress(peer.substring(0, separator).trim(),
+                    Integer.parseInt(peer.substring(separator + 1).trim())));
+        }
+        return new UdpPeerTransport(new InetSocketAddress(bindAddress, port), addresses,
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 降级存储复制（默认关闭）：Redis 不可用时把本地写入、删除与核销批量广播到其他节点，
+     * 负载均衡到任意节点都能校验验证码。
+     */
+    @Bean
+    @ConditionalOnProperty(name = REPLICATION_ENABLED, havingValue = "true")
+    public ReplicatedKeyValueStore replicatedKeyValueStore(
+            BoundedKeyValueStore localKeyValueStore,
+            ObjectProvider<PersistentKeyValueStore> persistentStore,
+            UdpPeerTransport ephemeralStorePeerTransport,
+            @Value("${ephemeral-store.replication.batch-size:256}") int batchSize,
+            @Value("${ephemeral-store.replication.flush-interval:20ms}") Duration flushInterval,
+            @Value("${ephemeral-store.replication.tombstone-ttl:1m}") Duration tombstoneTtl) {
+        return new ReplicatedKeyValueStore(localStore(localKeyValueStore, persistentStore),
+                ephemeralStorePeerTransport, batchSize, flushInterval, tombstoneTtl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = REDIS_ENABLED, havingValue = "true", matchIfMissing = true)
     public RedisKeyValueStore redisKeyValueStore(StringRedisTemplate template) {
         return new RedisKeyValueStore(template);
     }
 
+    /**
+     * 共享的 Redis Pub/Sub 监听容器：近端缓存、吊销缓存、客户端缓存与黑名单过滤器各自订阅频道，
+     * 共用一条订阅连接与一个分发线程池。
+     */
+    @Bean
+    @ConditionalOnProperty(name = REDIS_ENABLED, havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Redis 近端缓存（默认关闭）：对黑名单等读多写少的键在本地缓存命中与未命中结果，
+     * 写入经 Redis Pub/Sub 广播失效，其他节点毫秒级清理。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ephemeral-store.near-cache.enabled", havingValue = "true")
+    public NearCacheKeyValueStore nearCacheKeyValueStore(
+            RedisKeyValueStore redisKeyValueStore,
+            StringRedisTemplate template,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${ephemeral-store.near-cache.channel:ephemeral-store:invalidate}") String channel,
+            @Value("${ephemeral-store.near-cache.prefixes:blacklist:}") List<String> prefixes,
+            @Value("${ephemeral-store.near-cache.max-entries:100000}") int maxEntries,
+            @Value("${ephemeral-store.near-cache.positive-ttl:5s}") Duration positiveTtl,
+            @Value("${ephemeral-store.near-cache.negative-ttl:1s}") Duration negativeTtl) {
+        RedisInvalidationBus bus = new RedisInvalidationBus(template, redisMessageListenerContainer, channel);
+        return new NearCacheKeyValueStore(redisKeyValueStore, bus, prefixes, maxEntries, positiveTtl, negativeTtl);
+    }
+
+    /**
+     * Redis 熔断参数，单实例与各分片共用。
+     */
+    @Bean
+    public CircuitBreaker.Settings ephemeralStoreBreakerSettings(
+            @Value("${ephemeral-store.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${ephemeral-store.breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${ephemeral-store.breaker.slow-call-duration:250ms}") Duration slowCallDuration,
+            @Value("${ephemeral-store.breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${ephemeral-store.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${ephemeral-store.breaker.open-duration:5s}") Duration openDuration) {
+        return new CircuitBreaker.Settings(failureRateThreshold, slowCallRateThreshold, slowCallDuration,
+                slidingWindowSize, minimumCalls, openDuration);
+    }
+
+    /**
+     * Redis 熔断器：失败率或慢调用率超过阈值后跳闸，打开期间请求直接走内存存储。
+     */
+    @Bean
+    @ConditionalOnExpression(SINGLE_REDIS)
+    public CircuitBreaker ephemeralStoreCircuitBreaker(CircuitBreaker.Settings ephemeralStoreBreakerSettings) {
+        return new CircuitBreaker("ephemeral-store-redis", ephemeralStoreBreakerSettings);
+    }
+
+    /**
+     * 降级写入日志：记录 Redis 不可用期间的写入与删除，恢复后回放。
+     */
+    @Bean
+    @ConditionalOnExpression(SINGLE_REDIS)
+    public FallbackJournal ephemeralStoreFallbackJournal(
+            @Value("${ephemeral-store.reconcile.journal-capacity:100000}") int capacity) {
+        return new FallbackJournal(capacity);
+    }
+
+    @Bean
+    @ConditionalOnExpression(SINGLE_REDIS)
+    public ResilientKeyValueStore resilientKeyValueStore(RedisKeyValueStore redisKeyValueStore,
+                                                         ObjectProvider<NearCacheKeyValueStore> nearCache,
+                                                         BoundedKeyValueStore localKeyValueStore,
+                                                         ObjectProvider<PersistentKeyValueStore> persistentStore,
+                                                         ObjectProvider<ReplicatedKeyValueStore> replicatedStore,
+                                                         CircuitBreaker ephemeralStoreCircuitBreaker,
+                                                         FallbackJournal ephemeralStoreFallbackJournal,
+                                                         MeterRegistry meterRegistry) {
+        EphemeralKeyValueStore primary = nearCache.getIfAvailable();
+        ResilientKeyValueStore store = new ResilientKeyValueStore(
+                new InstrumentedKeyValueStore(primary != null ? primary : redisKeyValueStore, meterRegistry,
+                        REDIS_BACKEND),
+                new InstrumentedKeyValueStore(localStore(localKeyValueStore, persistentStore, replicatedStore), meterRegistry,
+                        LOCAL_BACKEND),
+                ephemeralStoreCircuitBreaker, ephemeralStoreFallbackJournal);
+        store.setListener(new MeterStoreListener(meterRegistry, REDIS_BACKEND));
+        return store;
+    }
+
+    /**
+     * 分片 Redis（默认关闭）：各分片独立连接、熔断器与降级日志，熔断参数与日志容量与单实例 Redis 相同。
+     */
+    @Bean
+    @ConditionalOnProperty(name = SHARDING_ENABLED, havingValue = "true")
+    public RedisShards ephemeralStoreRedisShards(
+            @Value("${ephemeral-store.sharding.shards:}") List<String> shards,
+            CircuitBreaker.Settings ephemeralStoreBreakerSettings,
+            @Value("${ephemeral-store.reconcile.journal-capacity:100000}") int journalCapacity) {
+        return new RedisShards(shards, ephemeralStoreBreakerSettings, journalCapacity);
+    }
+
+    /**
+     * 分片存储：键按一致性哈希分布到各分片，每个分片各自熔断、记录降级日志并回放，
+     * 只有故障分片上的键降级到本地存储。扩容时把原分片名填入 previous-shards，迁移完成后清空。
+     */
+    @Bean
+    @ConditionalOnProperty(name = SHARDING_ENABLED, havingValue = "true")
+    public ShardedKeyValueStore shardedKeyValueStore(
+            RedisShards ephemeralStoreRedisShards,
+            BoundedKeyValueStore localKeyValueStore,
+            ObjectProvider<PersistentKeyValueStore> persistentStore,
+            ObjectProvider<ReplicatedKeyValueStore> replicatedStore,
+            @Value("${ephemeral-store.sharding.virtual-nodes:160}") int virtualNodes,
+            @Value("${ephemeral-store.sharding.previous-shards:}") List<String> previousShards,
+            @Value("${ephemeral-store.reconcile.batch-size:500}") int batchSize,
+            @Value("${ephemeral-store.reconcile.interval:200ms}") Duration interval,
+            MeterRegistry meterRegistry) {
+        EphemeralKeyValueStore fallback = new InstrumentedKeyValueStore(
+                localStore(localKeyValueStore, persistentStore, replicatedStore), meterRegistry, LOCAL_BACKEND);
+        Map<String, EphemeralKeyValueStore> stores = new LinkedHashMap<>();
+        for (Map.Entry<String, StringRedisTemplate> shard : ephemeralStoreRedisShards.templates().entrySet()) {
+            ResilientKeyValueStore store = new ResilientKeyValueStore(
+                    new InstrumentedKeyValueStore(new RedisKeyValueStore(shard.getValue()), meterRegistry,
+                            REDIS_BACKEND),
+                    fallback, ephemeralStoreRedisShards.breakers().get(shard.getKey()),
+                    ephemeralStoreRedisShards.journals().get(shard.getKey()));
+            store.setListener(new MeterStoreListener(meterRegistry, REDIS_BACKEND));
+            ephemeralStoreRedisShards.closeWithShards(new FallbackReconciler(store, batchSize, interval));
+            stores.put(shard.getKey(), store);
+        }
+        return new ShardedKeyValueStore(stores, virtualNodes, previousShards);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SHARDING_ENABLED, havingValue = "true")
+    public RedisShardRebalancer ephemeralStoreShardRebalancer(
+            RedisShards ephemeralStoreRedisShards,
+            ShardedKeyValueStore shardedKeyValueStore,
+            @Value("${ephemeral-store.sharding.previous-shards:}") List<String> previousShards) {
+        Map<String, StringRedisTemplate> templates = ephemeralStoreRedisShards.templates();
+        return new RedisShardRebalancer(templates, shardedKeyValueStore.ring(),
+                previousShards.isEmpty() ? templates.keySet() : previousShards);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SHARDING_ENABLED, havingValue = "true")
+    public ShardRebalanceEndpoint shardRebalanceEndpoint(ShardedKeyValueStore shardedKeyValueStore,
+                                                         RedisShards ephemeralStoreRedisShards,
+                                                         RedisShardRebalancer ephemeralStoreShardRebalancer) {
+        return new ShardRebalanceEndpoint(shardedKeyValueStore, ephemeralStoreRedisShards,
+                ephemeralStoreShardRebalancer);
+    }
+
+    /**
+     * 回放调度：默认每 200ms 至多回放 500 条，即每秒不超过 2500 次写入。
+     */
+    @Bean
+    @ConditionalOnExpression(SINGLE_REDIS)
+    public FallbackReconciler ephemeralStoreReconciler(
+            ResilientKeyValueStore resilientKeyValueStore,
+            @Value("${ephemeral-store.reconcile.batch-size:500}") int batchSize,
+            @Value("${ephemeral-store.reconcile.interval:200ms}") Duration interval) {
+        return new FallbackReconciler(resilientKeyValueStore, batchSize, interval);
+    }
+
     @Bean
     @Primary
-    public EphemeralKeyValueStore ephemeralKeyValueStore(InMemoryKeyValueStore fallback,
-                                                         org.springframework.beans.factory.ObjectProvider<RedisKeyValueStore> redisStore) {
-        RedisKeyValueStore primary = redisStore.getIfAvailable();
-        if (primary != null) {
-            return new ResilientKeyValueStore(primary, fallback);
+    public EphemeralKeyValueStore ephemeralKeyValueStore(BoundedKeyValueStore localKeyValueStore,
+                                                         ObjectProvider<PersistentKeyValueStore> persistentStore,
+                                                         ObjectProvider<ReplicatedKeyValueStore> replicatedStore,
+                                                         ObjectProvider<ShardedKeyValueStore> shardedStore,
+                                                         ObjectProvider<ResilientKeyValueStore> resilientStore,
+                                                         MeterRegistry meterRegistry) {
+        ShardedKeyValueStore sharded = shardedStore.getIfAvailable();
+        if (sharded != null) {
+            return sharded;
+        }
+        ResilientKeyValueStore resilient = resilientStore.getIfAvailable();
+        if (resilient != null) {
+            return resilient;
+        }
+        return new InstrumentedKeyValueStore(localStore(localKeyValueStore, persistentStore, replicatedStore), meterRegistry,
+                LOCAL_BACKEND);
+    }
+
+    /**
+     * Lettuce 异步存储：复用连接工厂的客户端配置，所有异步命令共享一条多路复用连接。
+     */
+    @Bean
+    @ConditionalOnProperty(name = REDIS_ENABLED, havingValue = "true", matchIfMissing = true)
+    public LettuceAsyncKeyValueStore lettuceAsyncKeyValueStore(LettuceConnectionFactory connectionFactory) {
+        return new LettuceAsyncKeyValueStore(connectionFactory);
+    }
+
+    /**
+     * 异步短期存储：有 Redis 时走 Lettuce 异步命令并与同步路径共享熔断器与降级日志，
+     * 否则直接包装同步存储，调用立即完成。开启分片时异步路径同样走分片存储，保证两条路径读写同一批键。
+     * 开启近端缓存时，异步写入同样清理本地条目并广播失效，避免其他节点保留旧的“不存在”结果。
+     */
+    @Bean
+    public AsyncEphemeralKeyValueStore asyncEphemeralKeyValueStore(
+            EphemeralKeyValueStore ephemeralKeyValueStore,
+            ObjectProvider<LettuceAsyncKeyValueStore> lettuceStore,
+            ObjectProvider<ShardedKeyValueStore> shardedStore,
+            BoundedKeyValueStore localKeyValueStore,
+            ObjectProvider<PersistentKeyValueStore> persistentStore,
+            ObjectProvider<ReplicatedKeyValueStore> replicatedStore,
+            ObjectProvider<CircuitBreaker> circuitBreaker,
+            ObjectProvider<FallbackJournal> fallbackJournal,
+            ObjectProvider<NearCacheKeyValueStore> nearCache,
+            MeterRegistry meterRegistry) {
+        LettuceAsyncKeyValueStore lettuce = lettuceStore.getIfAvailable();
+        if (lettuce == null || shardedStore.getIfAvailable() != null) {
+            return AsyncEphemeralKeyValueStore.of(ephemeralKeyValueStore);
+        }
+        ResilientAsyncKeyValueStore store = new ResilientAsyncKeyValueStore(lettuce,
+                new InstrumentedKeyValueStore(localStore(localKeyValueStore, persistentStore, replicatedStore), meterRegistry,
+                        LOCAL_BACKEND),
+                circuitBreaker.getObject(), fallbackJournal.getObject());
+        store.setListener(new MeterStoreListener(meterRegistry, REDIS_BACKEND));
+        NearCacheKeyValueStore cache = nearCache.getIfAvailable();
+        return cache != null ? cache.invalidating(store) : store;
+    }
+
+    @Bean
+    public EphemeralStoreEndpoint ephemeralStoreEndpoint(BoundedKeyValueStore localKeyValueStore,
+                                                         ObjectProvider<CircuitBreaker> circuitBreaker,
+                                                         ObjectProvider<FallbackJournal> fallbackJournal,
+                                                         ObjectProvider<RedisShards> redisShards,
+                                                         ObjectProvider<NearCacheKeyValueStore> nearCache) {
+        return new EphemeralStoreEndpoint(localKeyValueStore,
+                redisBackends(circuitBreaker, fallbackJournal, redisShards), nearCache);
+    }
+
+    /**
+     * 熔断器指标：当前状态（0 关闭、1 打开、2 半开）、各状态进入次数与被拒绝调用次数；分片时每个分片一组，以 name 区分。
+     */
+    @Bean
+    public MeterBinder ephemeralStoreCircuitBreakerMetrics(ObjectProvider<CircuitBreaker> circuitBreaker,
+                                                           ObjectProvider<FallbackJournal> fallbackJournal,
+                                                           ObjectProvider<RedisShards> redisShards) {
+        List<RedisBackend> backends = redisBackends(circuitBreaker, fallbackJournal, redisShards);
+        return registry -> {
+            for (RedisBackend backend : backends) {
+                CircuitBreaker breaker = backend.breaker();
+                Gauge.builder("ephemeral.store.breaker.state", breaker, b -> b.state().ordinal())
+                        .tag("name", backend.name())
+                        .register(registry);
+                for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                    FunctionCounter.builder("ephemeral.store.breaker.transitions", breaker,
+                                    b -> b.transitionCount(state))
+                            .tag("name", backend.name())
+                            .tag("state", state.name().toLowerCase(Locale.ROOT))
+                            .register(registry);
+                }
+                FunctionCounter.builder("ephemeral.store.breaker.not.permitted", breaker,
+                                CircuitBreaker::notPermittedCount)
+                        .tag("name", backend.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 近端缓存指标：命中（区分值与不存在）、未命中、淘汰与远程失效次数，用于评估命中率与容量。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ephemeral-store.near-cache.enabled", havingValue = "true")
+    public MeterBinder ephemeralStoreNearCacheMetrics(NearCacheKeyValueStore nearCacheKeyValueStore) {
+        return registry -> {
+            FunctionCounter.builder("ephemeral.store.near.cache.requests", nearCacheKeyValueStore,
+                            NearCacheKeyValueStore::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.near.cache.requests", nearCacheKeyValueStore,
+                            NearCacheKeyValueStore::negativeHitCount)
+                    .tag("result", "negative-hit")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.near.cache.requests", nearCacheKeyValueStore,
+                            NearCacheKeyValueStore::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.near.cache.evictions", nearCacheKeyValueStore,
+                            NearCacheKeyValueStore::evictionCount)
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.near.cache.remote.invalidations", nearCacheKeyValueStore,
+                            NearCacheKeyValueStore::remoteInvalidationCount)
+                    .register(registry);
+            Gauge.builder("ephemeral.store.near.cache.size", nearCacheKeyValueStore, NearCacheKeyValueStore::size)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 降级日志指标：待回放条数、已回放条数与因容量不足丢弃的条数；name 与对应熔断器一致。
+     */
+    @Bean
+    public MeterBinder ephemeralStoreJournalMetrics(ObjectProvider<CircuitBreaker> circuitBreaker,
+                                                    ObjectProvider<FallbackJournal> fallbackJournal,
+                                                    ObjectProvider<RedisShards> redisShards) {
+        List<RedisBackend> backends = redisBackends(circuitBreaker, fallbackJournal, redisShards);
+        return registry -> {
+            for (RedisBackend backend : backends) {
+                FallbackJournal journal = backend.journal();
+                Gauge.builder("ephemeral.store.journal.pending", journal, FallbackJournal::size)
+                        .tag("name", backend.name())
+                        .register(registry);
+                FunctionCounter.builder("ephemeral.store.journal.replayed", journal, FallbackJournal::replayedCount)
+                        .tag("name", backend.name())
+                        .register(registry);
+                FunctionCounter.builder("ephemeral.store.journal.dropped", journal, FallbackJournal::droppedCount)
+                        .tag("name", backend.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 本地持久化日志指标：日志段数、追加记录数与压缩删除的段数。
+     */
+    @Bean
+    @ConditionalOnProperty(name = PERSISTENCE_ENABLED, havingValue = "true")
+    public MeterBinder ephemeralStorePersistenceMetrics(PersistentKeyValueStore persistentKeyValueStore) {
+        return registry -> {
+            Gauge.builder("ephemeral.store.log.segments", persistentKeyValueStore,
+                            PersistentKeyValueStore::segmentCount)
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.log.appended", persistentKeyValueStore,
+                            PersistentKeyValueStore::appendedCount)
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.log.compacted", persistentKeyValueStore,
+                            PersistentKeyValueStore::compactedCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 复制指标：发送、合并、应用与因版本过旧被忽略的操作数，以及解密认证失败的数据报数。
+     */
+    @Bean
+    @ConditionalOnProperty(name = REPLICATION_ENABLED, havingValue = "true")
+    public MeterBinder ephemeralStoreReplicationMetrics(ReplicatedKeyValueStore replicatedKeyValueStore,
+                                                        UdpPeerTransport ephemeralStorePeerTransport) {
+        return registry -> {
+            FunctionCounter.builder("ephemeral.store.replication.operations", replicatedKeyValueStore,
+                            ReplicatedKeyValueStore::sentCount)
+                    .tag("result", "sent")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.replication.operations", replicatedKeyValueStore,
+                            ReplicatedKeyValueStore::coalescedCount)
+                    .tag("result", "coalesced")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.replication.operations", replicatedKeyValueStore,
+                            ReplicatedKeyValueStore::appliedCount)
+                    .tag("result", "applied")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.replication.operations", replicatedKeyValueStore,
+                            ReplicatedKeyValueStore::staleCount)
+                    .tag("result", "stale")
+                    .register(registry);
+            FunctionCounter.builder("ephemeral.store.replication.rejected", ephemeralStorePeerTransport,
+                            UdpPeerTransport::rejectedCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 当前生效的 Redis 熔断器与降级日志：单实例时一组，分片时每个分片一组，未启用 Redis 时为空。
+     */
+    private static List<RedisBackend> redisBackends(ObjectProvider<CircuitBreaker> circuitBreaker,
+                                                    ObjectProvider<FallbackJournal> fallbackJournal,
+                                                    ObjectProvider<RedisShards> redisShards) {
+        List<RedisBackend> backends = new ArrayList<>();
+        CircuitBreaker single = circuitBreaker.getIfAvailable();
+        FallbackJournal singleJournal = fallbackJournal.getIfAvailable();
+        if (single != null && singleJournal != null) {
+            backends.add(new RedisBackend(single.name(), single, singleJournal));
         }
-        return fallback;
+        RedisShards shards = redisShards.getIfAvailable();
+        if (shards != null) {
+            for (Map.Entry<String, CircuitBreaker> shard : shards.breakers().entrySet()) {
+                backends.add(new RedisBackend(shard.getValue().name(), shard.getValue(),
+                        shards.journals().get(shard.getKey())));
+            }
+        }
+        return backends;
+    }
+
+    /**
+     * 开启复制时本地读写经由复制存储，其次是持久化存储，否则直接使用内存存储。
+     */
+    private static EphemeralKeyValueStore localStore(BoundedKeyValueStore localKeyValueStore,
+                                                     ObjectProvider<PersistentKeyValueStore> persistentStore,
+                                                     ObjectProvider<ReplicatedKeyValueStore> replicatedStore) {
+        ReplicatedKeyValueStore replicated = replicatedStore.getIfAvailable();
+        return replicated != null ? replicated : localStore(localKeyValueStore, persistentStore);
+    }
+
+    private static EphemeralKeyValueStore localStore(BoundedKeyValueStore localKeyValueStore,
+                                                     ObjectProvider<PersistentKeyValueStore> persistentStore) {
+        PersistentKeyValueStore persistent = persistentStore.getIfAvailable();
+        return persistent != null ? persistent : localKeyValueStore;
     }
 }
@@ -0,0 +1,63 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.BoundedKeyValueStore;
+import com.company.usercenter.identity.store.NearCacheKeyValueStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 短期存储运行状态端点（{@code /actuator/ephemeralstore}）：内存存储各命名空间的存活条目数与估算堆占用、
+ * 近端缓存大小，以及各 Redis 后端（单实例或每个分片）的熔断器状态与降级日志积压。
+ */
+@Endpoint(id = "ephemeralstore")
+public class EphemeralStoreEndpoint {
+
+    private final BoundedKeyValueStore localKeyValueStore;
+    private final List<RedisBackend> redisBackends;
+    private final ObjectProvider<NearCacheKeyValueStore> nearCache;
+
+    EphemeralStoreEndpoint(BoundedKeyValueStore localKeyValueStore, List<RedisBackend> redisBackends,
+                           ObjectProvider<NearCacheKeyValueStore> nearCache) {
+        this.localKeyValueStore = localKeyValueStore;
+        this.redisBackends = List.copyOf(redisBackends);
+        this.nearCache = nearCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("local", localStatus());
+        NearCacheKeyValueStore cache = nearCache.getIfAvailable();
+        if (cache != null) {
+            status.put("nearCacheEntries", cache.size());
+        }
+        Map<String, Object> redis = new LinkedHashMap<>();
+        for (RedisBackend backend : redisBackends) {
+            redis.put(backend.name(), Map.of("breakerState", backend.breaker().state().name(),
+                    "journalPending", backend.journal().size()));
+        }
+        status.put("redis", redis);
+        return status;
+    }
+
+    private Map<String, Object> localStatus() {
+        Map<String, Object> local = new LinkedHashMap<>();
+        local.put("entries", localKeyValueStore.size());
+        local.put("estimatedBytes", localKeyValueStore.weightedBytes());
+        local.put("evictions", localKeyValueStore.evictionCount());
+        local.put("expired", localKeyValueStore.expiredCount());
+        List<BoundedKeyValueStore.NamespaceUsage> usage = localKeyValueStore.namespaceUsage();
+        Map<String, Object> namespaces = new LinkedHashMap<>();
+        for (BoundedKeyValueStore.NamespaceUsage namespace : usage) {
+            String name = namespace.prefix().isEmpty() ? "other" : namespace.prefix();
+            namespaces.put(name, Map.of("entries", namespace.entries(), "estimatedBytes", namespace.bytes()));
+        }
+        local.put("namespaces", namespaces);
+        return local;
+    }
+}
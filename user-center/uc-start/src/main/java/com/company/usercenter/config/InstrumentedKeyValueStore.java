@@ -0,0 +1,168 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.CodeCheck;
+import com.company.usercenter.identity.store.EphemeralEntry;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.StoreOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 为短期存储记录 Micrometer 指标的装饰器，按后端（redis/local）、命名空间与操作打标签：
+ * <ul>
+ *     <li>{@code ephemeral.store.operations}：耗时，outcome 区分成功与异常；</li>
+ *     <li>{@code ephemeral.store.reads}：读取命中与未命中次数，可计算验证码等命中率。</li>
+ * </ul>
+ * 命名空间取键的首段（如 {@code otp:login:x} 为 otp），不在已知集合中的统一记为 other，控制标签基数。
+ * 耗时分桶不在代码中固定，由 {@code management.metrics.distribution.slo.ephemeral.store.operations} 配置，
+ * 默认只发布少量 SLO 桶，避免每个标签组合都生成完整的百分位直方图。
+ */
+public class InstrumentedKeyValueStore implements EphemeralKeyValueStore {
+
+    static final Set<String> NAMESPACES = Set.of("otp", "state", "blacklist", "ratelimit");
+
+    private final EphemeralKeyValueStore delegate;
+    private final MeterRegistry registry;
+    private final String backend;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> readCounters = new ConcurrentHashMap<>();
+
+    public InstrumentedKeyValueStore(EphemeralKeyValueStore delegate, MeterRegistry registry, String backend) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.backend = backend;
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        record(StoreOperation.PUT, key, () -> {
+            delegate.put(key, value, ttl);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Optional<String> value = record(StoreOperation.GET, key, () -> delegate.get(key));
+        countRead(key, value.isPresent());
+        return value;
+    }
+
+    @Override
+    public void delete(String key) {
+        record(StoreOperation.DELETE, key, () -> {
+            delegate.delete(key);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        Optional<String> value = record(StoreOperation.GET_AND_DELETE, key, () -> delegate.getAndDelete(key));
+        countRead(key, value.isPresent());
+        return value;
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        boolean consumed = record(StoreOperation.CONSUME, key, () -> delegate.consumeIfMatches(key, expected));
+        countRead(key, consumed);
+        return consumed;
+    }
+
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        return record(StoreOperation.PUT, key, () -> delegate.maxAndGet(key, value, ttl));
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        CodeCheck result = record(StoreOperation.CHECK_CODE, key,
+                () -> delegate.checkCode(key, candidate, maxAttempts));
+        countRead(key, result != CodeCheck.ABSENT);
+        return result;
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        return record(StoreOperation.INCREMENT, key, () -> delegate.incrementAndGet(key, ttl));
+    }
+
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        String first = keys.isEmpty() ? "" : keys.iterator().next();
+        Map<String, String> values = record(StoreOperation.MULTI_GET, first, () -> delegate.multiGet(keys));
+        for (String key : keys) {
+            countRead(key, values.containsKey(key));
+        }
+        return values;
+    }
+
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        String first = entries.isEmpty() ? "" : entries.iterator().next().key();
+        record(StoreOperation.MULTI_PUT, first, () -> {
+            delegate.multiPut(entries);
+            return null;
+        });
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        String first = keys.isEmpty() ? "" : keys.iterator().next();
+        record(StoreOperation.MULTI_DELETE, first, () -> {
+            delegate.multiDelete(keys);
+            return null;
+        });
+    }
+
+    static String namespaceOf(String key) {
+        int separator = key.indexOf(':');
+        String namespace = separator > 0 ? key.substring(0, separator) : key;
+        return NAMESPACES.contains(namespace) ? namespace : "other";
+    }
+
+    private <T> T record(StoreOperation operation, String key, Supplier<T> call) {
+        String namespace = namespaceOf(key);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(operation, namespace, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(StoreOperation operation, String namespace, String outcome) {
+        return timers.computeIfAbsent(operation.tagValue() + '|' + namespace + '|' + outcome,
+                ignored -> Timer.builder("ephemeral.store.operations")
+                        .tag("backend", backend)
+                        .tag("namespace", namespace)
+                        .tag("operation", operation.tagValue())
+                        .tag("outcome", outcome)
+                        .register(registry));
+    }
+
+    private void countRead(String key, boolean hit) {
+        String namespace = namespaceOf(key);
+        String result = hit ? "hit" : "miss";
+        readCounters.computeIfAbsent(namespace + '|' + result,
+                ignored -> Counter.builder("ephemeral.store.reads")
+                        .tag("backend", backend)
+                        .tag("namespace", namespace)
+                        .tag("result", result)
+                        .register(registry)).increment();
+    }
+}
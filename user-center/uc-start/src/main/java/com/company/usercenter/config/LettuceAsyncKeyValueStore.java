@@ -0,0 +1,127 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.AsyncEphemeralKeyValueStore;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于 Lettuce 异步 API 的短期存储：所有命令经同一条多路复用连接发送，不占用调用线程等待响应。
+ * <p>
+ * 复用 Spring 管理的 {@link LettuceConnectionFactory} 底层客户端（含地址、密码、超时等配置），
+ * 连接在首次调用时建立，以便连接工厂先完成启动；支持单机与集群模式。
+ */
+public class LettuceAsyncKeyValueStore implements AsyncEphemeralKeyValueStore, AutoCloseable {
+
+    private final LettuceConnectionFactory connectionFactory;
+    private volatile StatefulConnection<String, String> connection;
+    private volatile RedisClusterAsyncCommands<String, String> commands;
+
+    public LettuceAsyncKeyValueStore(LettuceConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, String value, Duration ttl) {
+        return commands().set(key, value, SetArgs.Builder.px(ttl.toMillis()))
+                .thenApply(ignored -> (Void) null).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> get(String key) {
+        return commands().get(key).thenApply(Optional::ofNullable).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return commands().del(key).thenApply(ignored -> (Void) null).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getAndDelete(String key) {
+        return commands().getdel(key).thenApply(Optional::ofNullable).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> consumeIfMatches(String key, String expected) {
+        if (expected == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return commands().<Long>eval(RedisKeyValueStore.COMPARE_AND_DELETE_LUA, ScriptOutputType.INTEGER,
+                        new String[]{key}, expected)
+                .thenApply(deleted -> deleted != null && deleted > 0).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> incrementAndGet(String key, Duration ttl) {
+        return commands().<Long>eval(RedisKeyValueStore.INCREMENT_WITH_TTL_LUA, ScriptOutputType.INTEGER,
+                new String[]{key}, Long.toString(ttl.toMillis())).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> multiGet(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(new LinkedHashMap<>());
+        }
+        return commands().mget(keys.toArray(String[]::new)).thenApply(LettuceAsyncKeyValueStore::toMap)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public void close() {
+        StatefulConnection<String, String> current = connection;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private static Map<String, String> toMap(List<KeyValue<String, String>> values) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (KeyValue<String, String> keyValue : values) {
+            if (keyValue.hasValue()) {
+                result.put(keyValue.getKey(), keyValue.getValue());
+            }
+        }
+        return result;
+    }
+
+    private RedisClusterAsyncCommands<String, String> commands() {
+        RedisClusterAsyncCommands<String, String> current = commands;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (commands == null) {
+                AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+                if (client instanceof RedisClusterClient clusterClient) {
+                    StatefulRedisClusterConnection<String, String> clusterConnection = clusterClient.connect();
+                    connection = clusterConnection;
+                    commands = clusterConnection.async();
+                } else if (client instanceof RedisClient redisClient) {
+                    StatefulRedisConnection<String, String> redisConnection = redisClient.connect();
+                    connection = redisConnection;
+                    commands = redisConnection.async();
+                } else {
+                    throw new IllegalStateException("不支持的 Redis 客户端类型: " + client.getClass().getName());
+                }
+            }
+            return commands;
+        }
+    }
+}
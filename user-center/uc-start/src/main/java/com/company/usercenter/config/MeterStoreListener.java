@@ -0,0 +1,43 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.EphemeralStoreListener;
+import com.company.usercenter.identity.store.StoreOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+
+/**
+ * 把短期存储内部事件记为 Micrometer 计数：
+ * {@code ephemeral.store.fallbacks}（主存不可用而降级，按操作与命名空间）与
+ * {@code ephemeral.store.expired.on.read}（读取时发现过期，按后端与命名空间）。
+ */
+public class MeterStoreListener implements EphemeralStoreListener {
+
+    private final MeterRegistry registry;
+    private final String backend;
+
+    public MeterStoreListener(MeterRegistry registry, String backend) {
+        this.registry = registry;
+        this.backend = backend;
+    }
+
+    @Override
+    public void onFallback(StoreOperation operation, Collection<String> keys) {
+        String namespace = keys.isEmpty() ? "other" : InstrumentedKeyValueStore.namespaceOf(keys.iterator().next());
+        Counter.builder("ephemeral.store.fallbacks")
+                .tag("operation", operation.tagValue())
+                .tag("namespace", namespace)
+                .register(registry)
+                .increment(Math.max(1, keys.size()));
+    }
+
+    @Override
+    public void onExpiredOnRead(String key) {
+        Counter.builder("ephemeral.store.expired.on.read")
+                .tag("backend", backend)
+                .tag("namespace", InstrumentedKeyValueStore.namespaceOf(key))
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,74 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.delivery.LoggingOtpSender;
+import com.company.usercenter.identity.delivery.OtpDeliveryPipeline;
+import com.company.usercenter.identity.delivery.OtpSender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 验证码投递配置：收集容器中的 {@link OtpSender}，未配置任何渠道时启动失败，避免接口返回成功却从不发送。
+ * <p>
+ * 只写日志的 email 渠道需显式开启 {@code otp.delivery.logging-sender.enabled}，仅用于本地开发与测试。
+ */
+@Configuration
+public class OtpDeliveryConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "otp.delivery.logging-sender.enabled", havingValue = "true")
+    public LoggingOtpSender loggingOtpSender(@Value("${otp.delivery.log-file:}") String logFile) {
+        return new LoggingOtpSender("email", logFile.isBlank() ? null : Path.of(logFile));
+    }
+
+    @Bean
+    public OtpDeliveryPipeline otpDeliveryPipeline(
+            ObjectProvider<OtpSender> senders,
+            @Value("${otp.delivery.queue-capacity:10000}") int queueCapacity,
+            @Value("${otp.delivery.workers:2}") int workers,
+            @Value("${otp.delivery.batch-size:50}") int batchSize,
+            @Value("${otp.delivery.max-attempts:5}") int maxAttempts,
+            @Value("${otp.delivery.initial-backoff:1s}") Duration initialBackoff,
+            @Value("${otp.delivery.max-backoff:30s}") Duration maxBackoff,
+            @Value("${otp.delivery.dead-letter-capacity:1000}") int deadLetterCapacity) {
+        List<OtpSender> configured = senders.orderedStream().toList();
+        if (configured.isEmpty()) {
+            throw new IllegalStateException("未配置验证码投递渠道（OtpSender），本地开发可开启 otp.delivery.logging-sender.enabled");
+        }
+        return new OtpDeliveryPipeline(configured, new OtpDeliveryPipeline.Settings(queueCapacity, workers,
+                batchSize, maxAttempts, initialBackoff, maxBackoff, deadLetterCapacity));
+    }
+
+    /**
+     * 投递指标：按结果统计消息数，以及当前队列长度。
+     */
+    @Bean
+    public MeterBinder otpDeliveryMetrics(OtpDeliveryPipeline otpDeliveryPipeline) {
+        Map<String, ToDoubleFunction<OtpDeliveryPipeline>> results = Map.of(
+                "submitted", OtpDeliveryPipeline::submittedCount,
+                "rejected", OtpDeliveryPipeline::rejectedCount,
+                "sent", OtpDeliveryPipeline::sentCount,
+                "retried", OtpDeliveryPipeline::retriedCount,
+                "expired", OtpDeliveryPipeline::expiredCount,
+                "dead-letter", OtpDeliveryPipeline::deadLetterCount);
+        return registry -> {
+            results.forEach((result, count) ->
+                    FunctionCounter.builder("otp.delivery.messages", otpDeliveryPipeline, count)
+                            .tag("result", result)
+                            .register(registry));
+            Gauge.builder("otp.delivery.queue.size", otpDeliveryPipeline, OtpDeliveryPipeline::queueSize)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.FallbackJournal;
+
+/**
+ * 一个 Redis 后端（单实例或某个分片）的熔断器与降级日志，供状态端点与指标统一读取。
+ *
+ * @param name 熔断器名称，同时作为指标的 name 标签
+ */
+record RedisBackend(String name, CircuitBreaker breaker, FallbackJournal journal) {
+}
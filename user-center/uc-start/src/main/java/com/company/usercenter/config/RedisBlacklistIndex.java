@@ -0,0 +1,78 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.service.BlacklistIndex;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于 Redis 的黑名单索引：有序集合保存 token 与过期毫秒时间戳（score），
+ * 新增条目经 Pub/Sub 广播，消息格式为 {@code 节点ID|token|过期毫秒}。
+ */
+public class RedisBlacklistIndex implements BlacklistIndex {
+
+    private final StringRedisTemplate template;
+    private final RedisMessageListenerContainer container;
+    private final String indexKey;
+    private final ChannelTopic topic;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisBlacklistIndex(StringRedisTemplate template, RedisMessageListenerContainer container,
+                               String indexKey, String channel) {
+        this.template = template;
+        this.container = container;
+        this.indexKey = indexKey;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void add(String tokenId, Instant expireAt) {
+        long expireAtMillis = expireAt.toEpochMilli();
+        template.opsForZSet().add(indexKey, tokenId, expireAtMillis);
+        template.convertAndSend(topic.getTopic(), nodeId + "|" + tokenId + "|" + expireAtMillis);
+    }
+
+    /**
+     * 读取前顺带清理已过期的成员，防止有序集合无限增长。
+     */
+    @Override
+    public Map<String, Instant> loadActive(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        template.opsForZSet().removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, nowMillis);
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                template.opsForZSet().rangeByScoreWithScores(indexKey, nowMillis, Double.POSITIVE_INFINITY);
+        Map<String, Instant> active = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    active.put(tuple.getValue(), Instant.ofEpochMilli(tuple.getScore().longValue()));
+                }
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public void subscribe(BiConsumer<String, Instant> listener) {
+        container.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || nodeId.equals(parts[0])) {
+                return;
+            }
+            try {
+                listener.accept(parts[1], Instant.ofEpochMilli(Long.parseLong(parts[2])));
+            } catch (NumberFormatException ignored) {
+                // 格式不符的消息直接丢弃，由周期性全量同步补齐
+            }
+        }, topic);
+    }
+}
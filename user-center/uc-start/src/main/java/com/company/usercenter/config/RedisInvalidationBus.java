@@ -0,0 +1,62 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.InvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis Pub/Sub 的失效通知通道。
+ * <p>
+ * 消息格式为 {@code 节点ID|键1\n键2...}，收到本节点发出的消息时直接忽略。
+ */
+public class RedisInvalidationBus implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisInvalidationBus.class);
+
+    private final StringRedisTemplate template;
+    private final RedisMessageListenerContainer container;
+    private final ChannelTopic topic;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisInvalidationBus(StringRedisTemplate template, RedisMessageListenerContainer container,
+                                String channel) {
+        this.template = template;
+        this.container = container;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void publish(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            template.convertAndSend(topic.getTopic(), nodeId + "|" + String.join("\n", keys));
+        } catch (Exception ex) {
+            log.warn("失效通知发布失败，其他节点将依赖本地 TTL 过期: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<String>> listener) {
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf('|');
+            if (separator < 0 || nodeId.equals(body.substring(0, separator))) {
+                return;
+            }
+            List<String> keys = Arrays.asList(body.substring(separator + 1).split("\n"));
+            listener.accept(keys);
+        }, topic);
+    }
+}
@@ -1,9 +1,21 @@
 package com.company.usercenter.config;
 
+import com.company.usercenter.identity.store.CodeCheck;
+import com.company.usercenter.identity.store.EphemeralEntry;
 import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -11,6 +23,53 @@ import java.util.Optional;
  */
 public class RedisKeyValueStore implements EphemeralKeyValueStore {
 
+    /**
+     * 比较并删除：值匹配时删除并返回 1，否则返回 0，单次往返且原子执行。
+     */
+    static final String COMPARE_AND_DELETE_LUA =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end";
+
+    /**
+     * 自增并在首次计数（或键丢失过期时间）时设置毫秒级过期，单次往返，避免 INCR 后 EXPIRE 前崩溃留下永久键。
+     */
+    static final String INCREMENT_WITH_TTL_LUA =
+            "local count = redis.call('INCR', KEYS[1]) "
+                    + "if count == 1 or redis.call('PTTL', KEYS[1]) < 0 then "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[1]) end "
+                    + "return count";
+
+    /**
+     * 验证码校验：解析 {@code code|attempts|issuedAt|expireAt}，匹配或失败次数达到 ARGV[2] 时删除，
+     * 否则失败次数加一并以 KEEPTTL 写回；返回 0 不存在、1 匹配、2 不匹配、3 已作废。
+     * 升级前签发的纯验证码只做比较，不计失败次数。
+     */
+    static final String CHECK_CODE_LUA =
+            "local value = redis.call('GET', KEYS[1]) "
+                    + "if not value then return 0 end "
+                    + "local code, attempts, issued, expire = string.match(value, '^([^|]*)|(%d+)|(%d+)|(%d+)$') "
+                    + "if not code then "
+                    + "if value == ARGV[1] then redis.call('DEL', KEYS[1]) return 1 end return 2 end "
+                    + "if code == ARGV[1] then redis.call('DEL', KEYS[1]) return 1 end "
+                    + "attempts = tonumber(attempts) + 1 "
+                    + "if attempts >= tonumber(ARGV[2]) then redis.call('DEL', KEYS[1]) return 3 end "
+                    + "redis.call('SET', KEYS[1], code .. '|' .. attempts .. '|' .. issued .. '|' .. expire, 'KEEPTTL') "
+                    + "return 2";
+
+    /**
+     * 取当前值与 ARGV[1] 中较大者写回并以毫秒级 ARGV[2] 重置过期，返回写入的值；当前值不是数字时写入 ARGV[1]。
+     */
+    static final String MAX_AND_GET_LUA =
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "local number = tonumber(current) "
+                    + "if not number or number < tonumber(ARGV[1]) then current = ARGV[1] end "
+                    + "redis.call('SET', KEYS[1], current, 'PX', ARGV[2]) "
+                    + "return current";
+
+    private static final RedisScript<Long> COMPARE_AND_DELETE = RedisScript.of(COMPARE_AND_DELETE_LUA, Long.class);
+    private static final RedisScript<Long> CHECK_CODE = RedisScript.of(CHECK_CODE_LUA, Long.class);
+    private static final RedisScript<Long> INCREMENT_WITH_TTL = RedisScript.of(INCREMENT_WITH_TTL_LUA, Long.class);
+    private static final RedisScript<String> MAX_AND_GET = RedisScript.of(MAX_AND_GET_LUA, String.class);
+
     private final StringRedisTemplate template;
 
     public RedisKeyValueStore(StringRedisTemplate template) {
@@ -31,4 +90,113 @@ public class RedisKeyValueStore implements EphemeralKeyValueStore {
     public void delete(String key) {
         template.delete(key);
     }
+
+    /**
+     * 使用 GETDEL（Redis 6.2+）原子读取并删除。
+     */
+    @Override
+    public Optional<String> getAndDelete(String key) {
+        return Optional.ofNullable(template.opsForValue().getAndDelete(key));
+    }
+
+    @Override
+    public boolean consumeIfMatches(String key, String expected) {
+        if (expected == null) {
+            return false;
+        }
+        Long deleted = template.execute(COMPARE_AND_DELETE, List.of(key), expected);
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * 单次往返完成比较、失败计数与作废，KEEPTTL 需要 Redis 6.0+。
+     */
+    @Override
+    public long maxAndGet(String key, long value, Duration ttl) {
+        String result = template.execute(MAX_AND_GET, List.of(key), Long.toString(value),
+                Long.toString(ttl.toMillis()));
+        if (result == null) {
+            throw new IllegalStateException("Redis 取较大值脚本未返回结果: " + key);
+        }
+        return Long.parseLong(result);
+    }
+
+    @Override
+    public CodeCheck checkCode(String key, String candidate, int maxAttempts) {
+        if (candidate == null) {
+            return get(key).isPresent() ? CodeCheck.MISMATCHED : CodeCheck.ABSENT;
+        }
+        Long result = template.execute(CHECK_CODE, List.of(key), candidate, Integer.toString(maxAttempts));
+        if (result == null) {
+            throw new IllegalStateException("Redis 验证码校验脚本未返回结果: " + key);
+        }
+        return toCodeCheck(result);
+    }
+
+    static CodeCheck toCodeCheck(long result) {
+        return switch ((int) result) {
+            case 1 -> CodeCheck.MATCHED;
+            case 2 -> CodeCheck.MISMATCHED;
+            case 3 -> CodeCheck.EXHAUSTED;
+            default -> CodeCheck.ABSENT;
+        };
+    }
+
+    @Override
+    public long incrementAndGet(String key, Duration ttl) {
+        Long count = template.execute(INCREMENT_WITH_TTL, List.of(key), Long.toString(ttl.toMillis()));
+        if (count == null) {
+            throw new IllegalStateException("Redis 计数脚本未返回结果: " + key);
+        }
+        return count;
+    }
+
+    /**
+     * 单次 MGET 读取全部键。
+     */
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<String> orderedKeys = new ArrayList<>(keys);
+        List<String> values = template.opsForValue().multiGet(orderedKeys);
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < orderedKeys.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                result.put(orderedKeys.get(i), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 各条目 TTL 不同，无法使用 MSET，改为流水线发送 SET EX，整批只等待一次往返。
+     */
+    @Override
+    public void multiPut(Collection<EphemeralEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (EphemeralEntry entry : entries) {
+                stringConnection.set(entry.key(), entry.value(), Expiration.from(entry.ttl()),
+                        RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        template.delete(keys);
+    }
 }
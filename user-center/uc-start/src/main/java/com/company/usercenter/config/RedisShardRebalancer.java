@@ -0,0 +1,130 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.ConsistentHashRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 扩容迁移工具：用 SCAN 遍历旧分片，把归属已变化的键连同剩余 TTL 从旧分片原子取走，再写入新归属分片。
+ * <p>
+ * 先取走再写入：迁移期间被消费的键要么已不在旧分片、不会被复制，要么只剩新分片上的一份，
+ * 一次性的验证码与 state 不会在新分片上“复活”被再次消费。目标分片使用 SET NX，迁移期间新写入的值不会被旧值覆盖；
+ * 写入目标分片失败时把值放回旧分片。迁移期间 {@link com.company.usercenter.identity.store.ShardedKeyValueStore}
+ * 会回查旧分片，因此可以在线分批执行。
+ */
+public class RedisShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisShardRebalancer.class);
+    /**
+     * 取走字符串键：返回值与剩余毫秒 TTL（-1 表示不过期）并删除，键不存在时返回 nil。
+     */
+    static final String TAKE_LUA =
+            "local value = redis.call('GET', KEYS[1]) "
+                    + "if not value then return nil end "
+                    + "local ttl = redis.call('PTTL', KEYS[1]) "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return {value, tostring(ttl)}";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE = RedisScript.of(TAKE_LUA, List.class);
+
+    /**
+     * 一轮迁移的统计；dryRun 时 moved 为待迁移数量。
+     */
+    public record Result(long scanned, long moved, long skipped, Map<String, Long> movedByRoute) {
+    }
+
+    private final Map<String, StringRedisTemplate> shards;
+    private final ConsistentHashRing ring;
+    private final List<String> sourceShards;
+
+    /**
+     * @param shards       全部分片
+     * @param ring         扩容后的哈希环
+     * @param sourceShards 需要扫描的旧分片
+     */
+    public RedisShardRebalancer(Map<String, StringRedisTemplate> shards, ConsistentHashRing ring,
+                                Collection<String> sourceShards) {
+        this.shards = Map.copyOf(shards);
+        this.ring = ring;
+        this.sourceShards = List.copyOf(sourceShards);
+    }
+
+    /**
+     * 扫描匹配 pattern 的键并迁移归属已变化者；dryRun 时只统计不迁移。
+     */
+    public Result rebalance(String pattern, int scanCount, boolean dryRun) {
+        long scanned = 0;
+        long moved = 0;
+        long skipped = 0;
+        Map<String, Long> routes = new TreeMap<>();
+        for (String source : sourceShards) {
+            StringRedisTemplate sourceTemplate = shards.get(source);
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(scanCount).build();
+            try (Cursor<String> cursor = sourceTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    scanned++;
+                    String target = ring.nodeFor(key);
+                    if (target.equals(source)) {
+                        continue;
+                    }
+                    if (dryRun || move(key, sourceTemplate, shards.get(target))) {
+                        moved++;
+                        routes.merge(source + "->" + target, 1L, Long::sum);
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+        }
+        if (!dryRun) {
+            log.info("分片迁移完成: 扫描 {} 个键，迁移 {} 个，跳过 {} 个", scanned, moved, skipped);
+        }
+        return new Result(scanned, moved, skipped, routes);
+    }
+
+    /**
+     * 从源分片取走单个字符串键并写入目标分片；非字符串或已不存在的键返回 false。
+     */
+    private boolean move(String key, StringRedisTemplate source, StringRedisTemplate target) {
+        List<?> taken;
+        try {
+            taken = source.execute(TAKE, List.of(key));
+        } catch (RuntimeException ex) {
+            log.warn("跳过无法迁移的键 {}: {}", key, ex.getMessage());
+            return false;
+        }
+        if (taken == null || taken.size() != 2) {
+            return false;
+        }
+        String value = String.valueOf(taken.get(0));
+        long ttlMillis = Long.parseLong(String.valueOf(taken.get(1)));
+        try {
+            setIfAbsent(target, key, value, ttlMillis);
+        } catch (RuntimeException ex) {
+            log.warn("写入目标分片失败，键 {} 放回源分片: {}", key, ex.getMessage());
+            setIfAbsent(source, key, value, ttlMillis);
+            return false;
+        }
+        return true;
+    }
+
+    private static void setIfAbsent(StringRedisTemplate template, String key, String value, long ttlMillis) {
+        if (ttlMillis > 0) {
+            template.opsForValue().setIfAbsent(key, value, Duration.ofMillis(ttlMillis));
+        } else {
+            template.opsForValue().setIfAbsent(key, value);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.FallbackJournal;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片 Redis 的连接、熔断器与降级日志集合。每个分片写作 {@code 名称=redis://host:port/db}，
+ * 名称参与一致性哈希，更换地址时保持名称不变即可不触发迁移；省略名称时以 URI 作为名称。
+ */
+public class RedisShards implements AutoCloseable {
+
+    private final Map<String, LettuceConnectionFactory> factories = new LinkedHashMap<>();
+    private final Map<String, StringRedisTemplate> templates = new LinkedHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+    private final Map<String, FallbackJournal> journals = new LinkedHashMap<>();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    public RedisShards(List<String> definitions, CircuitBreaker.Settings breakerSettings, int journalCapacity) {
+        if (definitions.isEmpty()) {
+            throw new IllegalStateException("开启分片时必须配置 ephemeral-store.sharding.shards");
+        }
+        for (String definition : definitions) {
+            int separator = definition.indexOf('=');
+            String name = separator > 0 ? definition.substring(0, separator).trim() : definition.trim();
+            String uri = separator > 0 ? definition.substring(separator + 1).trim() : definition.trim();
+            if (factories.containsKey(name)) {
+                throw new IllegalStateException("分片名称重复: " + name);
+            }
+            LettuceConnectionFactory factory =
+                    new LettuceConnectionFactory(LettuceConnectionFactory.createRedisConfiguration(uri));
+            factory.afterPropertiesSet();
+            factory.start();
+            factories.put(name, factory);
+            templates.put(name, new StringRedisTemplate(factory));
+            breakers.put(name, new CircuitBreaker("ephemeral-store-redis-" + name, breakerSettings));
+            journals.put(name, new FallbackJournal(journalCapacity));
+        }
+    }
+
+    public Map<String, StringRedisTemplate> templates() {
+        return Collections.unmodifiableMap(templates);
+    }
+
+    public Map<String, CircuitBreaker> breakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    public Map<String, FallbackJournal> journals() {
+        return Collections.unmodifiableMap(journals);
+    }
+
+    /**
+     * 登记随分片一起关闭的组件，如各分片的回放调度器。
+     */
+    void closeWithShards(AutoCloseable closeable) {
+        closeables.add(closeable);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        for (LettuceConnectionFactory factory : factories.values()) {
+            factory.destroy();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.auth.CachingRegisteredClientRepository;
+import com.company.usercenter.identity.store.InvalidationBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 客户端缓存配置：启用 Redis 时客户端变更经 Pub/Sub 通知各节点丢弃缓存，否则仅本节点生效。
+ */
+@Configuration
+public class RegisteredClientCacheConfig {
+
+    /**
+     * 客户端缓存的失效通道，按名称注入 {@link CachingRegisteredClientRepository}；
+     * 不作为默认候选，不会被按类型注入 {@link InvalidationBus} 的吊销缓存取到。
+     */
+    @Bean(defaultCandidate = false)
+    @ConditionalOnProperty(name = "ephemeral-store.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public InvalidationBus registeredClientInvalidationBus(
+            StringRedisTemplate template,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${auth.client-cache.channel:registered-client:invalidate}") String channel) {
+        return new RedisInvalidationBus(template, redisMessageListenerContainer, channel);
+    }
+
+    /**
+     * 客户端缓存指标：命中与回源次数、当前缓存的客户端数。
+     */
+    @Bean
+    public MeterBinder registeredClientCacheMetrics(CachingRegisteredClientRepository registeredClientRepository) {
+        return registry -> {
+            FunctionCounter.builder("auth.client.cache.requests", registeredClientRepository,
+                            CachingRegisteredClientRepository::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("auth.client.cache.requests", registeredClientRepository,
+                            CachingRegisteredClientRepository::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("auth.client.cache.size", registeredClientRepository,
+                            CachingRegisteredClientRepository::size)
+                    .register(registry);
+        };
+    }
+}
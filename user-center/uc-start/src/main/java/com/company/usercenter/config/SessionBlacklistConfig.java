@@ -0,0 +1,65 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.service.GenerationalBloomFilter;
+import com.company.usercenter.identity.service.SessionBlacklistFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * 会话黑名单本地过滤器配置（默认关闭，依赖 Redis 同步索引）。
+ * <p>
+ * 开启 {@code session-blacklist.filter.enabled} 后，未拉黑的 token 查询在本地判定，不再访问 Redis；
+ * 其他节点新增的条目经 Pub/Sub 增量同步，并按 resync-interval 从 Redis 全量补齐。
+ * 过滤器内容距上次成功补齐不超过吊销缓存的 ttl + max-stale，丢失通知时的漏判窗口与吊销缓存一致。
+ */
+@Configuration
+@ConditionalOnProperty(name = "session-blacklist.filter.enabled", havingValue = "true")
+public class SessionBlacklistConfig {
+
+    @Bean
+    public SessionBlacklistFilter sessionBlacklistFilter(
+            StringRedisTemplate template,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${session-blacklist.filter.index-key:session-blacklist:index}") String indexKey,
+            @Value("${session-blacklist.filter.channel:session-blacklist:added}") String channel,
+            @Value("${session-blacklist.filter.bucket:5m}") Duration bucket,
+            @Value("${session-blacklist.filter.expected-per-bucket:100000}") int expectedPerBucket,
+            @Value("${session-blacklist.filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${session-blacklist.filter.resync-interval:30s}") Duration resyncInterval,
+            @Value("${token-revocation.cache.ttl:5s}") Duration revocationCacheTtl,
+            @Value("${token-revocation.cache.max-stale:30s}") Duration revocationCacheMaxStale) {
+        RedisBlacklistIndex index = new RedisBlacklistIndex(template, redisMessageListenerContainer,
+                indexKey, channel);
+        return new SessionBlacklistFilter(new GenerationalBloomFilter(bucket, expectedPerBucket, falsePositiveRate),
+                index, resyncInterval, revocationCacheTtl.plus(revocationCacheMaxStale));
+    }
+
+    /**
+     * 过滤器指标：本地直接判定与回查存储的次数、当前代数。
+     */
+    @Bean
+    public MeterBinder sessionBlacklistFilterMetrics(SessionBlacklistFilter sessionBlacklistFilter) {
+        return registry -> {
+            FunctionCounter.builder("session.blacklist.filter.requests", sessionBlacklistFilter,
+                            SessionBlacklistFilter::filteredCount)
+                    .tag("result", "filtered")
+                    .register(registry);
+            FunctionCounter.builder("session.blacklist.filter.requests", sessionBlacklistFilter,
+                            SessionBlacklistFilter::passedCount)
+                    .tag("result", "passed")
+                    .register(registry);
+            Gauge.builder("session.blacklist.filter.generations", sessionBlacklistFilter,
+                            SessionBlacklistFilter::generationCount)
+                    .register(registry);
+        };
+    }
+}
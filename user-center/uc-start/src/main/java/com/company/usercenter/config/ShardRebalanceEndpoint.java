@@ -0,0 +1,47 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.ShardedKeyValueStore;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分片状态与扩容迁移端点（{@code /actuator/ephemeralshards}）：读取各分片熔断状态；
+ * 写操作按 pattern 执行一轮迁移，dryRun 为 true 时只统计待迁移的键。默认不对 Web 暴露，需要时显式开启。
+ */
+@Endpoint(id = "ephemeralshards")
+public class ShardRebalanceEndpoint {
+
+    private static final int SCAN_COUNT = 500;
+
+    private final ShardedKeyValueStore store;
+    private final RedisShards shards;
+    private final RedisShardRebalancer rebalancer;
+
+    public ShardRebalanceEndpoint(ShardedKeyValueStore store, RedisShards shards, RedisShardRebalancer rebalancer) {
+        this.store = store;
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        Map<String, String> breakerStates = new LinkedHashMap<>();
+        for (Map.Entry<String, CircuitBreaker> entry : shards.breakers().entrySet()) {
+            breakerStates.put(entry.getKey(), entry.getValue().state().name());
+        }
+        status.put("shards", breakerStates);
+        status.put("migrating", store.isMigrating());
+        return status;
+    }
+
+    @WriteOperation
+    public RedisShardRebalancer.Result rebalance(String pattern, boolean dryRun) {
+        return rebalancer.rebalance(pattern, SCAN_COUNT, dryRun);
+    }
+}
@@ -0,0 +1,71 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.service.RevocationCache;
+import com.company.usercenter.identity.store.EphemeralKeyValueStore;
+import com.company.usercenter.identity.store.InvalidationBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * token 吊销校验的本地缓存配置：启用 Redis 时吊销变更经 Pub/Sub 通知各节点，否则仅本节点生效。
+ */
+@Configuration
+public class TokenRevocationConfig {
+
+    private static final String REDIS_ENABLED = "ephemeral-store.redis.enabled";
+
+    @Bean
+    @ConditionalOnProperty(name = REDIS_ENABLED, havingValue = "true", matchIfMissing = true)
+    public InvalidationBus tokenRevocationInvalidationBus(
+            StringRedisTemplate template,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${token-revocation.cache.channel:token-revocation:invalidate}") String channel) {
+        return new RedisInvalidationBus(template, redisMessageListenerContainer, channel);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = REDIS_ENABLED, havingValue = "false")
+    public InvalidationBus localTokenRevocationInvalidationBus() {
+        return InvalidationBus.NOOP;
+    }
+
+    @Bean
+    public RevocationCache revocationCache(
+            EphemeralKeyValueStore store,
+            InvalidationBus invalidationBus,
+            @Value("${token-revocation.cache.ttl:5s}") Duration ttl,
+            @Value("${token-revocation.cache.max-stale:30s}") Duration maxStale,
+            @Value("${token-revocation.cache.max-entries:200000}") int maxEntries) {
+        return new RevocationCache(store, invalidationBus, ttl, maxStale, maxEntries);
+    }
+
+    /**
+     * 吊销缓存指标：新鲜命中、旧值命中（后台刷新）与回源次数。
+     */
+    @Bean
+    public MeterBinder revocationCacheMetrics(RevocationCache revocationCache) {
+        return registry -> {
+            FunctionCounter.builder("token.revocation.cache.requests", revocationCache, RevocationCache::hitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("token.revocation.cache.requests", revocationCache,
+                            RevocationCache::staleHitCount)
+                    .tag("result", "stale")
+                    .register(registry);
+            FunctionCounter.builder("token.revocation.cache.requests", revocationCache, RevocationCache::missCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("token.revocation.cache.size", revocationCache, RevocationCache::size)
+                    .register(registry);
+        };
+    }
+}
@@ -2,16 +2,23 @@ package com.company.usercenter.identity;
 
 import com.company.platform.common.ApiResponse;
 import com.company.usercenter.api.dto.UserProfileResponse;
+import com.company.usercenter.identity.delivery.OtpDeliveryPipeline;
+import com.company.usercenter.identity.delivery.OtpMessage;
+import com.company.usercenter.identity.service.OtpRateLimiter;
 import com.company.usercenter.identity.service.VerificationCodeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,11 +41,20 @@ public class IdentityController {
 
         private final IdentityService identityService;
         private final VerificationCodeService verificationCodeService;
+        private final OtpRateLimiter otpRateLimiter;
+        private final OtpDeliveryPipeline otpDeliveryPipeline;
+        private final boolean exposeOtp;
 
         public IdentityController(IdentityService identityService,
-                        VerificationCodeService verificationCodeService) {
+                        VerificationCodeService verificationCodeService,
+                        OtpRateLimiter otpRateLimiter,
+                        OtpDeliveryPipeline otpDeliveryPipeline,
+                        @Value("${otp.expose-code:false}") boolean exposeOtp) {
                 this.identityService = identityService;
                 this.verificationCodeService = verificationCodeService;
+                this.otpRateLimiter = otpRateLimiter;
+                this.otpDeliveryPipeline = otpDeliveryPipeline;
+                this.exposeOtp = exposeOtp;
         }
 
         @Operation(summary = "用户注册", description = "在当前租户下注册新用户账号。需要通过 X-Tenant-Id 头指定目标租户。")
@@ -101,18 +117,41 @@ public class IdentityController {
                                                 org.springframework.http.HttpStatus.UNAUTHORIZED));
         }
 
-        @Operation(summary = "发送验证码", description = "向指定邮箱发送登录验证码。验证码有效期为 5 分钟，长度为 6 位数字。开发阶段为方便测试，验证码会直接在响应中返回；生产环境应通过邮件服务发送。")
+        @Operation(summary = "发送验证码", description = "向指定邮箱发送登录验证码。验证码有效期为 5 分钟，长度为 6 位数字。验证码入队成功后才写入并生效，接口不等待邮件发送完成；投递繁忙时返回 503，之前发送的验证码仍然有效；开启 otp.expose-code 时（仅开发环境）验证码会直接在响应中返回。")
         @ApiResponses(value = {
-                        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "发送成功，返回验证码（仅开发环境）"),
+                        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "已受理，开发环境返回验证码"),
                         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "邮箱格式不正确"),
-                        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "请求过于频繁，请稍后再试")
+                        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "请求过于频繁，请稍后再试"),
+                        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "投递队列已满，请稍后再试")
         })
         @PostMapping("/otp/send")
-        public ApiResponse<String> sendOtp(
-                        @Parameter(description = "发送验证码请求体", required = true) @Valid @RequestBody SendOtpRequest request) {
-                String code = verificationCodeService.issueCode(request.email(), "login", 6,
-                                java.time.Duration.ofMinutes(5));
-                return ApiResponse.ok(code);
+        public ResponseEntity<ApiResponse<String>> sendOtp(
+                        @Parameter(description = "发送验证码请求体", required = true) @Valid @RequestBody SendOtpRequest request,
+                        HttpServletRequest httpRequest) {
+                // 队列已满时不占用限流配额
+                if (!otpDeliveryPipeline.hasCapacity()) {
+                        return deliveryBusy();
+                }
+                // 经可信代理转发时 getRemoteAddr 已还原为客户端 IP（server.forward-headers-strategy）
+                if (!otpRateLimiter.tryAcquire(request.email(), httpRequest.getRemoteAddr())) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                        .body(ApiResponse.error("请求过于频繁，请稍后再试", HttpStatus.TOO_MANY_REQUESTS));
+                }
+                java.time.Duration ttl = java.time.Duration.ofMinutes(5);
+                String code = verificationCodeService.generateCode(6);
+                OtpMessage message = new OtpMessage("email", request.email(), "login", code,
+                                java.time.Instant.now().plus(ttl));
+                // 先入队再写入：入队失败时不覆盖已发出的验证码
+                if (!otpDeliveryPipeline.submit(message)) {
+                        return deliveryBusy();
+                }
+                verificationCodeService.storeCode(request.email(), "login", code, ttl);
+                return ResponseEntity.ok(ApiResponse.ok(exposeOtp ? code : null));
+        }
+
+        private static ResponseEntity<ApiResponse<String>> deliveryBusy() {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(ApiResponse.error("验证码发送繁忙，请稍后再试", HttpStatus.SERVICE_UNAVAILABLE));
         }
 
         @Operation(summary = "校验验证码", description = "校验用户输入的验证码是否正确。验证成功后，该验证码会被立即清理，不可重复使用。")
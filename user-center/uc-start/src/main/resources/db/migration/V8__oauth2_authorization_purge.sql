@@ -0,0 +1,25 @@
+-- 过期授权清理：记录授权的最晚过期时间，供清理任务按 (purge_after, id) 键集分页删除
+--
+-- 只加可空列与触发器：不改写表、不扫描全表，只短暂持有表锁；拿不到锁时尽快失败，不在锁队列中阻塞业务写入。
+-- 索引由 V9 以 CONCURRENTLY 方式单独创建。
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE oauth2_authorization ADD COLUMN IF NOT EXISTS purge_after timestamp;
+
+-- 写入时取各令牌过期时间的最大值，与 *_expires_at 同由应用按同一时区写入，不依赖数据库会话时区。
+-- 尚未签发任何令牌（仅有 state）的授权保持原值：插入时为空，由清理任务以应用时间补写；
+-- 迁移前已存在的行同样由清理任务分批补写，不在迁移中整表更新。
+CREATE OR REPLACE FUNCTION oauth2_authorization_purge_after() RETURNS trigger AS $$
+BEGIN
+    NEW.purge_after := COALESCE(
+        GREATEST(NEW.authorization_code_expires_at, NEW.access_token_expires_at, NEW.oidc_id_token_expires_at,
+                 NEW.refresh_token_expires_at, NEW.user_code_expires_at, NEW.device_code_expires_at),
+        NEW.purge_after);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_oauth2_authorization_purge_after ON oauth2_authorization;
+CREATE TRIGGER trg_oauth2_authorization_purge_after
+    BEFORE INSERT OR UPDATE ON oauth2_authorization
+    FOR EACH ROW EXECUTE FUNCTION oauth2_authorization_purge_after();
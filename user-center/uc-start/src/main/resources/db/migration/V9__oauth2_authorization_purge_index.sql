@@ -0,0 +1,8 @@
+-- 过期授权清理索引：CONCURRENTLY 创建不阻塞写入，须在事务外执行（见同名 .conf）
+--
+-- 创建中断会留下 INVALID 索引，IF NOT EXISTS 会跳过它；重试前先 DROP INDEX CONCURRENTLY 对应索引。
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_auth_purge_after ON oauth2_authorization (purge_after, id);
+
+-- 待补写 purge_after 的行，补写完成后索引为空
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_auth_purge_unscheduled ON oauth2_authorization (id)
+    WHERE purge_after IS NULL;
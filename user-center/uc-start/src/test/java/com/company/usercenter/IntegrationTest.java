@@ -37,6 +37,7 @@ public class IntegrationTest {
                 registry.add("spring.datasource.username", pg::getUsername);
                 registry.add("spring.datasource.password", pg::getPassword);
                 registry.add("otp.fixed-code", () -> "000000"); // 测试环境使用固定验证码
+                registry.add("otp.delivery.logging-sender.enabled", () -> "true");
         }
 
         @Autowired
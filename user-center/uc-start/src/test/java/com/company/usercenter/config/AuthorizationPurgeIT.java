@@ -0,0 +1,139 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.auth.AuthorizationPurgeService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * V8/V9 迁移与过期授权清理在真实 PostgreSQL 上的校验：触发器维护 purge_after、并发创建的索引有效、
+ * 删除跳过被其他事务锁定的行。需要 Docker，不可用时跳过。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AuthorizationPurgeIT {
+
+    @Container
+    @SuppressWarnings("resource")
+    static PostgreSQLContainer<?> pg = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("user_center_purge")
+            .withUsername("user_center")
+            .withPassword("password");
+
+    private static boolean migrated;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private AuthorizationPurgeService purgeService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(pg.getJdbcUrl(), pg.getUsername(), pg.getPassword());
+        if (!migrated) {
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            migrated = true;
+        }
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM oauth2_authorization");
+        purgeService = new AuthorizationPurgeService(jdbcTemplate, new AuthorizationPurgeService.Settings(null,
+                Duration.ZERO, 2, 1, 10, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        purgeService.close();
+    }
+
+    @Test
+    void migrationsShouldKeepPurgeAfterCurrentAndBuildValidIndexes() {
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT is_nullable FROM information_schema.columns
+                WHERE table_name = 'oauth2_authorization' AND column_name = 'purge_after'""", String.class))
+                .isEqualTo("YES");
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indisvalid AND c.relname LIKE 'idx_oauth2_auth_purge%'""", String.class))
+                .containsExactlyInAnyOrder("idx_oauth2_auth_purge_after", "idx_oauth2_auth_purge_unscheduled");
+
+        Instant accessExpiresAt = now().plus(Duration.ofMinutes(5));
+        insert("issued", accessExpiresAt);
+        insert("state-only", null);
+        assertThat(purgeAfter("issued")).isEqualTo(accessExpiresAt);
+        assertThat(purgeAfter("state-only")).isNull();
+
+        Instant refreshExpiresAt = now().plus(Duration.ofDays(30));
+        jdbcTemplate.update("UPDATE oauth2_authorization SET refresh_token_expires_at = ? WHERE id = ?",
+                Timestamp.from(refreshExpiresAt), "issued");
+        jdbcTemplate.update("UPDATE oauth2_authorization SET state = 'consented' WHERE id = ?", "state-only");
+        assertThat(purgeAfter("issued")).isEqualTo(refreshExpiresAt);
+        assertThat(purgeAfter("state-only")).isNull();
+    }
+
+    @Test
+    void purgeShouldScheduleUnissuedRowsAndSkipLockedOnes() throws Exception {
+        Instant expired = now().minus(Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) {
+            insert("expired-" + i, expired.plusSeconds(i));
+        }
+        insert("locked", expired);
+        insert("active", now().plus(Duration.ofHours(1)));
+        insert("state-only", null);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement(
+                    "SELECT id FROM oauth2_authorization WHERE id = 'locked' FOR UPDATE")) {
+                lock.executeQuery().close();
+            }
+
+            assertThat(purgeService.purge()).isEqualTo(5);
+            assertThat(ids()).containsExactlyInAnyOrder("locked", "active", "state-only");
+            assertThat(purgeAfter("state-only")).isAfter(now().plus(Duration.ofHours(23)));
+
+            other.commit();
+        }
+
+        assertThat(purgeService.purge()).isEqualTo(1);
+        assertThat(ids()).containsExactlyInAnyOrder("active", "state-only");
+    }
+
+    private void insert(String id, Instant accessTokenExpiresAt) {
+        jdbcTemplate.update("""
+                INSERT INTO oauth2_authorization
+                    (id, registered_client_id, principal_name, authorization_grant_type, access_token_expires_at)
+                VALUES (?, 'client', 'user', 'authorization_code', ?)""",
+                id, accessTokenExpiresAt == null ? null : Timestamp.from(accessTokenExpiresAt));
+    }
+
+    private Instant purgeAfter(String id) {
+        Timestamp value = jdbcTemplate.queryForObject("SELECT purge_after FROM oauth2_authorization WHERE id = ?",
+                Timestamp.class, id);
+        return value == null ? null : value.toInstant();
+    }
+
+    private List<String> ids() {
+        return jdbcTemplate.queryForList("SELECT id FROM oauth2_authorization", String.class);
+    }
+
+    /**
+     * timestamp 列精确到微秒，比较前截断。
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,105 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.auth.CachingRegisteredClientRepository;
+import com.company.usercenter.identity.service.RevocationCache;
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.FallbackJournal;
+import com.company.usercenter.identity.store.FallbackReconciler;
+import com.company.usercenter.identity.store.ResilientKeyValueStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 短期存储装配测试：开启分片时不再创建单实例 Redis 的熔断器、降级日志与回放调度，状态端点与指标按分片上报；
+ * 各 Pub/Sub 订阅方共用一个监听容器。
+ */
+class EphemeralStoreConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(EphemeralStoreConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(LettuceConnectionFactory.class, LettuceConnectionFactory::new)
+            .withBean(StringRedisTemplate.class, () -> new StringRedisTemplate(new LettuceConnectionFactory()));
+
+    @Test
+    void singleRedisReportsOneBackend() {
+        runner.run(context -> {
+            assertThat(context).hasBean("resilientKeyValueStore")
+                    .hasSingleBean(FallbackReconciler.class)
+                    .hasSingleBean(CircuitBreaker.class)
+                    .hasSingleBean(FallbackJournal.class);
+            assertThat(redisStatus(context.getBean(EphemeralStoreEndpoint.class))).containsOnlyKeys(
+                    "ephemeral-store-redis");
+        });
+    }
+
+    @Test
+    void shardingReplacesSingleRedisBeans() {
+        runner.withPropertyValues("ephemeral-store.sharding.enabled=true",
+                        "ephemeral-store.sharding.shards=a=redis://localhost:6390,b=redis://localhost:6391")
+                .run(context -> {
+                    assertThat(context).hasBean("shardedKeyValueStore")
+                            .doesNotHaveBean(ResilientKeyValueStore.class)
+                            .doesNotHaveBean(FallbackReconciler.class)
+                            .doesNotHaveBean(CircuitBreaker.class)
+                            .doesNotHaveBean(FallbackJournal.class);
+                    assertThat(redisStatus(context.getBean(EphemeralStoreEndpoint.class))).containsOnlyKeys(
+                            "ephemeral-store-redis-a", "ephemeral-store-redis-b");
+                    MeterRegistry registry = new SimpleMeterRegistry();
+                    context.getBean("ephemeralStoreCircuitBreakerMetrics", MeterBinder.class).bindTo(registry);
+                    context.getBean("ephemeralStoreJournalMetrics", MeterBinder.class).bindTo(registry);
+                    assertThat(registry.find("ephemeral.store.journal.pending").gauges()).hasSize(2);
+                    assertThat(registry.find("ephemeral.store.breaker.state")
+                            .tag("name", "ephemeral-store-redis-b").gauge()).isNotNull();
+                });
+    }
+
+    /**
+     * 监听容器不自动启动，订阅只登记不连接 Redis。
+     */
+    @Test
+    void pubSubConsumersShareOneListenerContainer() {
+        runner.withInitializer(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                        if (bean instanceof RedisMessageListenerContainer container) {
+                            container.setAutoStartup(false);
+                        }
+                        return bean;
+                    }
+                }))
+                .withUserConfiguration(TokenRevocationConfig.class, RegisteredClientCacheConfig.class)
+                .withBean(CachingRegisteredClientRepository.class, () -> new CachingRegisteredClientRepository(
+                        new InMemoryRegisteredClientRepository(RegisteredClient.withId("c-1").clientId("web")
+                                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS).build()),
+                        10, Duration.ofMinutes(1)))
+                .withPropertyValues("ephemeral-store.near-cache.enabled=true")
+                .run(context -> assertThat(context)
+                        .hasSingleBean(RedisMessageListenerContainer.class)
+                        .hasSingleBean(RevocationCache.class)
+                        .hasBean("registeredClientInvalidationBus"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> redisStatus(EphemeralStoreEndpoint endpoint) {
+        return (Map<String, Object>) endpoint.status().get("redis");
+    }
+}
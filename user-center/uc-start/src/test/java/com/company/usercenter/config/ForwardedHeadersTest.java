@@ -0,0 +1,73 @@
+package com.company.usercenter.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.tomcat.autoconfigure.servlet.TomcatServletWebServerAutoConfiguration;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.boot.webmvc.autoconfigure.DispatcherServletAutoConfiguration;
+import org.springframework.boot.webmvc.autoconfigure.WebMvcAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * application.yml 中的转发头配置：可信代理转发的 X-Forwarded-For 还原为客户端 IP，不可信来源的转发头被忽略。
+ * 启动只含 Web 层的嵌入式 Tomcat，按 IP 限流读取的正是这里的 getRemoteAddr。
+ */
+class ForwardedHeadersTest {
+
+    @Test
+    void clientIpShouldComeFromTrustedProxyHeaders() {
+        try (ConfigurableApplicationContext context = start()) {
+            assertThat(remoteAddr(context, "203.0.113.7, 10.0.0.5")).isEqualTo("203.0.113.7");
+        }
+    }
+
+    @Test
+    void forwardedHeadersFromUntrustedPeersShouldBeIgnored() {
+        try (ConfigurableApplicationContext context = start(
+                "--server.tomcat.remoteip.internal-proxies=10\\.1\\.2\\.3")) {
+            assertThat(remoteAddr(context, "203.0.113.7")).isEqualTo("127.0.0.1");
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(EchoApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run(args);
+    }
+
+    private static String remoteAddr(ConfigurableApplicationContext context, String forwardedFor) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return RestClient.create("http://127.0.0.1:" + port).get()
+                .uri("/remote-addr")
+                .header("X-Forwarded-For", forwardedFor)
+                .retrieve()
+                .body(String.class);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({TomcatServletWebServerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class})
+    @Import(EchoController.class)
+    static class EchoApplication {
+    }
+
+    @RestController
+    static class EchoController {
+
+        @GetMapping("/remote-addr")
+        String remoteAddr(HttpServletRequest request) {
+            return request.getRemoteAddr();
+        }
+    }
+}
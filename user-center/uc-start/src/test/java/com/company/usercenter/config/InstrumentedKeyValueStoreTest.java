@@ -0,0 +1,85 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.BoundedKeyValueStore;
+import com.company.usercenter.identity.store.CircuitBreaker;
+import com.company.usercenter.identity.store.FallbackJournal;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
+import com.company.usercenter.identity.store.ResilientKeyValueStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 短期存储指标测试：按命名空间统计命中率，记录降级与读取时过期事件。
+ */
+class InstrumentedKeyValueStoreTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InMemoryKeyValueStore memory = new InMemoryKeyValueStore();
+
+    @AfterEach
+    void tearDown() {
+        memory.close();
+    }
+
+    @Test
+    void recordsLatencyAndHitRatioPerNamespace() {
+        InstrumentedKeyValueStore store = new InstrumentedKeyValueStore(memory, registry, "local");
+        store.put("otp:login:a", "123456", Duration.ofMinutes(1));
+        assertThat(store.consumeIfMatches("otp:login:a", "123456")).isTrue();
+        assertThat(store.consumeIfMatches("otp:login:a", "123456")).isFalse();
+        store.get("custom:key");
+
+        assertThat(registry.get("ephemeral.store.reads").tags("namespace", "otp", "result", "hit").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("ephemeral.store.reads").tags("namespace", "otp", "result", "miss").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("ephemeral.store.reads").tags("namespace", "other").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ephemeral.store.operations")
+                .tags("backend", "local", "operation", "consume", "outcome", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void countsFallbacksAndExpiryOnRead() throws InterruptedException {
+        BoundedKeyValueStore local = BoundedKeyValueStore.withDefaultQuotas(100, 1 << 20);
+        local.setListener(new MeterStoreListener(registry, "local"));
+        ResilientKeyValueStore store = new ResilientKeyValueStore(
+                new InstrumentedKeyValueStore(new DownStore(), registry, "redis"),
+                new InstrumentedKeyValueStore(local, registry, "local"),
+                new CircuitBreaker("test", CircuitBreaker.Settings.defaults()), new FallbackJournal(10));
+        store.setListener(new MeterStoreListener(registry, "redis"));
+
+        store.put("state:oauth:a", "1", Duration.ofMillis(10));
+        Thread.sleep(30);
+        assertThat(store.get("state:oauth:a")).isEmpty();
+
+        assertThat(registry.get("ephemeral.store.fallbacks").tags("operation", "put", "namespace", "state")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("ephemeral.store.expired.on.read").tags("backend", "local", "namespace", "state")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("ephemeral.store.operations")
+                .tags("backend", "redis", "outcome", "error").timers()).isNotEmpty();
+        local.close();
+    }
+
+    /**
+     * 始终失败的主存。
+     */
+    private static class DownStore extends InMemoryKeyValueStore {
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            throw new IllegalStateException("redis down");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.delivery.LoggingOtpSender;
+import com.company.usercenter.identity.delivery.OtpDeliveryPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 验证码投递装配测试：未配置渠道时启动失败，只写日志的渠道需显式开启。
+ */
+class OtpDeliveryConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(OtpDeliveryConfig.class);
+
+    @Test
+    void missingSenderFailsStartup() {
+        runner.run(context -> assertThat(context).hasFailed()
+                .getFailure().hasRootCauseInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void loggingSenderRequiresExplicitProperty() {
+        runner.withPropertyValues("otp.delivery.logging-sender.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(LoggingOtpSender.class);
+                    assertThat(context.getBean(OtpDeliveryPipeline.class).supports("email")).isTrue();
+                });
+    }
+}
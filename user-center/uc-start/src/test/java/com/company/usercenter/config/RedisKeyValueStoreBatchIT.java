@@ -0,0 +1,74 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.EphemeralEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 批量接口与真实 Redis 的往返校验，需要本地 Redis（默认 localhost:6380，可用 REDIS_HOST/REDIS_PORT 覆盖），不可用时跳过。
+ * 批量与逐键的耗时对比见 uc-benchmark 模块。
+ */
+class RedisKeyValueStoreBatchIT {
+
+    private static final int BATCH_SIZE = 100;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisKeyValueStore store;
+
+    @BeforeEach
+    void setUp() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6380"));
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        boolean reachable;
+        try {
+            reachable = "PONG".equals(template.execute(connection -> connection.ping(), true));
+        } catch (Exception ex) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "Redis 不可用，跳过");
+        store = new RedisKeyValueStore(template);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void batchOperationsShouldRoundTrip() {
+        List<String> keys = new ArrayList<>();
+        List<EphemeralEntry> entries = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String key = "it:blacklist:jti-" + i;
+            keys.add(key);
+            entries.add(new EphemeralEntry(key, "v-" + i, Duration.ofMinutes(1)));
+        }
+
+        store.multiPut(entries);
+        Map<String, String> values = store.multiGet(keys);
+
+        assertThat(values).hasSize(BATCH_SIZE).containsEntry("it:blacklist:jti-7", "v-7");
+        assertThat(store.get("it:blacklist:jti-42")).contains("v-42");
+
+        store.multiDelete(keys);
+
+        assertThat(store.multiGet(keys)).isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.company.usercenter.config;
+
+import com.company.usercenter.identity.store.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分片迁移与并发消费交错：用内存 Map 模拟两个分片，源分片的取走脚本按原子操作执行。
+ */
+class RedisShardRebalancerTest {
+
+    private static final String KEY = "otp:login:alice";
+
+    private final Map<String, String> source = new ConcurrentHashMap<>();
+    private final Map<String, String> target = new ConcurrentHashMap<>();
+
+    @Test
+    void keyConsumedDuringMoveIsNotResurrectedOnTarget() {
+        source.put(KEY, "123456");
+        RedisShardRebalancer rebalancer = rebalancer(() -> assertThat(consume(KEY, "123456")).isTrue());
+
+        RedisShardRebalancer.Result result = rebalancer.rebalance("otp:*", 100, false);
+
+        assertThat(result.moved()).isZero();
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(source).isEmpty();
+        assertThat(target).isEmpty();
+        assertThat(consume(KEY, "123456")).isFalse();
+    }
+
+    @Test
+    void movedKeyIsConsumedExactlyOnce() {
+        source.put(KEY, "123456");
+
+        RedisShardRebalancer.Result result = rebalancer(() -> { }).rebalance("otp:*", 100, false);
+
+        assertThat(result.moved()).isEqualTo(1);
+        assertThat(source).isEmpty();
+        assertThat(target).containsEntry(KEY, "123456");
+        assertThat(consume(KEY, "123456")).isTrue();
+        assertThat(consume(KEY, "123456")).isFalse();
+    }
+
+    /**
+     * 与 ShardedKeyValueStore 迁移期间的消费顺序一致：先新归属分片，再旧分片。
+     */
+    private boolean consume(String key, String expected) {
+        return target.remove(key, expected) || source.remove(key, expected);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisShardRebalancer rebalancer(Runnable beforeMove) {
+        StringRedisTemplate sourceTemplate = mock(StringRedisTemplate.class);
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenAnswer(invocation -> {
+            beforeMove.run();
+            return KEY;
+        });
+        when(sourceTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(sourceTemplate.execute(any(RedisScript.class), anyList())).thenAnswer(invocation -> {
+            String value = source.remove(invocation.<List<String>>getArgument(1).get(0));
+            return value == null ? null : List.of(value, "60000");
+        });
+
+        StringRedisTemplate targetTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> targetOps = mock(ValueOperations.class);
+        when(targetTemplate.opsForValue()).thenReturn(targetOps);
+        when(targetOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation ->
+                target.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+
+        return new RedisShardRebalancer(Map.of("a", sourceTemplate, "b", targetTemplate),
+                new ConsistentHashRing(List.of("b"), 16), List.of("a"));
+    }
+}
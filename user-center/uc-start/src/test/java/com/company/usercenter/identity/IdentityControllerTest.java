@@ -2,9 +2,15 @@ package com.company.usercenter.identity;
 
 import com.company.platform.common.ApiResponse;
 import com.company.usercenter.api.dto.UserProfileResponse;
+import com.company.usercenter.identity.delivery.OtpDeliveryPipeline;
+import com.company.usercenter.identity.delivery.OtpMessage;
+import com.company.usercenter.identity.service.OtpRateLimiter;
 import com.company.usercenter.identity.service.VerificationCodeService;
+import com.company.usercenter.identity.store.InMemoryKeyValueStore;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,7 +27,12 @@ class IdentityControllerTest {
     IdentityService identityService = mock(IdentityService.class);
     VerificationCodeService verificationCodeService = mock(VerificationCodeService.class);
 
-    IdentityController controller = new IdentityController(identityService, verificationCodeService);
+    OtpRateLimiter otpRateLimiter = mock(OtpRateLimiter.class);
+
+    OtpDeliveryPipeline otpDeliveryPipeline = mock(OtpDeliveryPipeline.class);
+
+    IdentityController controller = new IdentityController(identityService, verificationCodeService, otpRateLimiter,
+            otpDeliveryPipeline, true);
 
     @AfterEach
     void clear() {
@@ -65,6 +76,97 @@ class IdentityControllerTest {
         com.company.platform.jpa.TenantContext.clear();
     }
 
+    @Test
+    void sendOtpShouldReturnTooManyRequestsWhenLimited() {
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("10.0.0.1");
+        when(otpDeliveryPipeline.hasCapacity()).thenReturn(true);
+        when(otpRateLimiter.tryAcquire("bob@example.com", "10.0.0.1")).thenReturn(false);
+
+        ResponseEntity<ApiResponse<String>> resp = controller.sendOtp(
+                new IdentityController.SendOtpRequest("bob@example.com"), httpRequest);
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(429);
+        org.mockito.Mockito.verifyNoInteractions(verificationCodeService);
+    }
+
+    @Test
+    void sendOtpShouldIssueCodeWhenAllowed() {
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("10.0.0.2");
+        when(otpDeliveryPipeline.hasCapacity()).thenReturn(true);
+        when(otpRateLimiter.tryAcquire("amy@example.com", "10.0.0.2")).thenReturn(true);
+        when(verificationCodeService.generateCode(6)).thenReturn("123456");
+        when(otpDeliveryPipeline.submit(org.mockito.ArgumentMatchers.any())).thenReturn(true);
+
+        ResponseEntity<ApiResponse<String>> resp = controller.sendOtp(
+                new IdentityController.SendOtpRequest("amy@example.com"), httpRequest);
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(200);
+        assertThat(resp.getBody().data()).isEqualTo("123456");
+        org.mockito.ArgumentCaptor<OtpMessage> message = org.mockito.ArgumentCaptor.forClass(OtpMessage.class);
+        org.mockito.Mockito.verify(otpDeliveryPipeline).submit(message.capture());
+        assertThat(message.getValue().receiver()).isEqualTo("amy@example.com");
+        assertThat(message.getValue().code()).isEqualTo("123456");
+        org.mockito.Mockito.verify(verificationCodeService).storeCode(org.mockito.ArgumentMatchers.eq("amy@example.com"),
+                org.mockito.ArgumentMatchers.eq("login"), org.mockito.ArgumentMatchers.eq("123456"),
+                org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void sendOtpShouldHideCodeAndReportBackpressure() {
+        IdentityController production = new IdentityController(identityService, verificationCodeService,
+                otpRateLimiter, otpDeliveryPipeline, false);
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("10.0.0.3");
+        when(otpDeliveryPipeline.hasCapacity()).thenReturn(true, true, false);
+        when(otpRateLimiter.tryAcquire("eve@example.com", "10.0.0.3")).thenReturn(true);
+        when(verificationCodeService.generateCode(6)).thenReturn("654321");
+        when(otpDeliveryPipeline.submit(org.mockito.ArgumentMatchers.any())).thenReturn(true, false);
+
+        ResponseEntity<ApiResponse<String>> accepted = production.sendOtp(
+                new IdentityController.SendOtpRequest("eve@example.com"), httpRequest);
+        ResponseEntity<ApiResponse<String>> rejected = production.sendOtp(
+                new IdentityController.SendOtpRequest("eve@example.com"), httpRequest);
+        ResponseEntity<ApiResponse<String>> full = production.sendOtp(
+                new IdentityController.SendOtpRequest("eve@example.com"), httpRequest);
+
+        assertThat(accepted.getStatusCode().value()).isEqualTo(200);
+        assertThat(accepted.getBody().data()).isNull();
+        assertThat(rejected.getStatusCode().value()).isEqualTo(503);
+        assertThat(full.getStatusCode().value()).isEqualTo(503);
+        // 队列已满时不占用限流配额
+        org.mockito.Mockito.verify(otpRateLimiter, org.mockito.Mockito.times(2))
+                .tryAcquire("eve@example.com", "10.0.0.3");
+        org.mockito.Mockito.verify(verificationCodeService, org.mockito.Mockito.times(1))
+                .storeCode(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any(),
+                        org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void previousCodeShouldStillVerifyAfterBackpressure() {
+        InMemoryKeyValueStore store = new InMemoryKeyValueStore();
+        VerificationCodeService codes = new VerificationCodeService(store, "");
+        IdentityController dev = new IdentityController(identityService, codes, otpRateLimiter,
+                otpDeliveryPipeline, true);
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("10.0.0.4");
+        when(otpDeliveryPipeline.hasCapacity()).thenReturn(true);
+        when(otpRateLimiter.tryAcquire("kim@example.com", "10.0.0.4")).thenReturn(true);
+        when(otpDeliveryPipeline.submit(org.mockito.ArgumentMatchers.any())).thenReturn(true, false);
+        try {
+            String delivered = dev.sendOtp(new IdentityController.SendOtpRequest("kim@example.com"), httpRequest)
+                    .getBody().data();
+            ResponseEntity<ApiResponse<String>> busy = dev.sendOtp(
+                    new IdentityController.SendOtpRequest("kim@example.com"), httpRequest);
+
+            assertThat(busy.getStatusCode().value()).isEqualTo(503);
+            assertThat(codes.verify("kim@example.com", "login", delivered)).isTrue();
+        } finally {
+            store.close();
+        }
+    }
+
     private void setId(Object target, UUID id) {
         try {
             java.lang.reflect.Field field = target.getClass().getSuperclass().getDeclaredField("id");